@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.dbutils.BeanProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbQuery;
+import es.molabs.jdbc.mapper.DbAutoRowMapper;
+import es.molabs.jdbc.mapper.DbRowMapper;
+
+/**
+ * Compares mapping beans with a hand written mapper, with DbAutoRowMapper and with the reflection based BeanProcessor of commons-dbutils.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AutoRowMapperBenchmark 
+{
+	private final static String SELECT_SQL = "SELECT id, varchar_field AS varcharField, int_field AS intField FROM " + DbBenchmarkState.READ_TABLE;
+	
+	private final static DbRowMapper<Bean> HAND_WRITTEN_ROW_MAPPER = new DbRowMapper<Bean>()
+	{
+		public Bean mapRow(ResultSet resultSet, int rowNum) throws SQLException
+		{
+			Bean bean = new Bean();
+			bean.setId(resultSet.getLong(1));
+			bean.setVarcharField(resultSet.getString(2));
+			bean.setIntField(resultSet.getInt(3));
+			
+			return bean;
+		}
+	};
+	
+	private final static DbRowMapper<Bean> BEAN_PROCESSOR_ROW_MAPPER = new DbRowMapper<Bean>()
+	{
+		private final BeanProcessor beanProcessor = new BeanProcessor();
+		
+		public Bean mapRow(ResultSet resultSet, int rowNum) throws SQLException
+		{
+			return beanProcessor.toBean(resultSet, Bean.class);
+		}
+	};
+	
+	@Benchmark
+	public List<Bean> handWrittenRowMapper(DbBenchmarkState state)
+	{
+		return getObjectList(state, HAND_WRITTEN_ROW_MAPPER);
+	}
+	
+	@Benchmark
+	public List<Bean> autoRowMapper(DbBenchmarkState state)
+	{
+		return getObjectList(state, DbAutoRowMapper.of(Bean.class));
+	}
+	
+	@Benchmark
+	public List<Bean> beanProcessorRowMapper(DbBenchmarkState state)
+	{
+		return getObjectList(state, BEAN_PROCESSOR_ROW_MAPPER);
+	}
+	
+	private List<Bean> getObjectList(DbBenchmarkState state, DbRowMapper<Bean> rowMapper)
+	{
+		DbQuery dbQuery = state.begin();
+		List<Bean> rows = dbQuery.getObjectList(rowMapper, DbBenchmarkState.READ_ROWS, SELECT_SQL);
+		state.end(dbQuery);
+		
+		return rows;
+	}
+	
+	public static class Bean
+	{
+		private long id;
+		private String varcharField = null;
+		private int intField;
+		
+		public Bean()
+		{
+		}
+		
+		public long getId() 
+		{
+			return id;
+		}
+		
+		public void setId(long id) 
+		{
+			this.id = id;
+		}
+		
+		public String getVarcharField() 
+		{
+			return varcharField;
+		}
+		
+		public void setVarcharField(String varcharField) 
+		{
+			this.varcharField = varcharField;
+		}
+		
+		public int getIntField() 
+		{
+			return intField;
+		}
+		
+		public void setIntField(int intField) 
+		{
+			this.intField = intField;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import es.molabs.jdbc.mapper.DbMultipleInsertMapper;
+
+public class BenchmarkMultipleInsertMapper implements DbMultipleInsertMapper
+{
+	private final static int FIELDS = 2;
+	
+	private Object[] values = null;
+	private int valueGroups;
+	
+	public BenchmarkMultipleInsertMapper(int valueGroups)
+	{
+		this.valueGroups = valueGroups;
+		
+		values = new Object[valueGroups * FIELDS];
+		
+		for (int i=0; i<valueGroups; i++)
+		{
+			values[i * FIELDS] = "varchar_value" + (i + 1);
+			values[i * FIELDS + 1] = i + 1;
+		}
+	}
+	
+	public Object[] getValues() 
+	{
+		return values;
+	}
+
+	public int getFieldsToInsert() 
+	{
+		return FIELDS;
+	}
+
+	public int getValueGroups() 
+	{	
+		return valueGroups;
+	}	
+}
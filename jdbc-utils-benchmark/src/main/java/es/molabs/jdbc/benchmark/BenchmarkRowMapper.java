@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import es.molabs.jdbc.mapper.DbRowMapper;
+
+public class BenchmarkRowMapper implements DbRowMapper<BenchmarkRow> 
+{
+	/*
+	 * Static
+	 */
+	private static BenchmarkRowMapper INSTANCE = null;
+	
+	static
+	{
+		INSTANCE = new BenchmarkRowMapper();
+	}
+	
+	public static BenchmarkRowMapper getInstance()
+	{
+		return INSTANCE;
+	}
+	
+	
+	/*
+	 * Instanced
+	 */
+	private BenchmarkRowMapper()
+	{		
+	}
+	
+	public BenchmarkRow mapRow(ResultSet resultSet, int rowNum) throws SQLException 
+	{
+		return new BenchmarkRow(resultSet.getLong(1), resultSet.getString(2), resultSet.getInt(3));
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbQuery;
+import es.molabs.jdbc.mapper.DbRowBinder;
+
+/**
+ * Compares loading rows materialized into an Object[][] against the streaming bulk methods. Run it with "-prof gc" to compare the 
+ * allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkInsertBenchmark 
+{
+	private final static int ROWS = 10000;
+	private final static int ROWS_PER_FLUSH = 500;
+	
+	private final static String INSERT_SQL = "INSERT INTO " + DbBenchmarkState.WRITE_TABLE + " (varchar_field, int_field) VALUES ";
+	
+	private final static DbRowBinder<Integer> ROW_BINDER = new DbRowBinder<Integer>()
+	{
+		public int getFieldsToBind()
+		{
+			return 2;
+		}
+		
+		public void bindRow(Integer row, Object[] values)
+		{
+			values[0] = "varchar_bulk" + row;
+			values[1] = row;
+		}
+	};
+	
+	@Benchmark
+	public int[] materializedBatchUpdate(DbBenchmarkState state) throws Throwable
+	{
+		// The whole input is copied to the arguments array before writing it
+		Object[][] arguments = new Object[ROWS][];
+		for (int i=0; i<ROWS; i++)
+		{
+			arguments[i] = new Object[ROW_BINDER.getFieldsToBind()];
+			ROW_BINDER.bindRow(i, arguments[i]);
+		}
+		
+		DbQuery dbQuery = state.begin();
+		int[] result = dbQuery.executeBatchUpdate(INSERT_SQL + "(?, ?)", arguments);
+		state.end(dbQuery);
+		
+		return result;
+	}
+	
+	@Benchmark
+	public long executeBulkUpdate(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		long result = dbQuery.executeBulkUpdate(INSERT_SQL + "(?, ?)", ROWS_PER_FLUSH, ROW_BINDER, IntStream.range(0, ROWS).boxed());
+		state.end(dbQuery);
+		
+		return result;
+	}
+	
+	@Benchmark
+	public long bulkMultipleInsert(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		long result = dbQuery.bulkMultipleInsert(INSERT_SQL, ROWS_PER_FLUSH, ROW_BINDER, IntStream.range(0, ROWS).boxed());
+		state.end(dbQuery);
+		
+		return result;
+	}
+}
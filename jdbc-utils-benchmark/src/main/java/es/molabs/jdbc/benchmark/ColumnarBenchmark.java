@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbQuery;
+import es.molabs.jdbc.columnar.DbColumnarResult;
+import es.molabs.jdbc.columnar.DbIntColumn;
+
+/**
+ * Compares summing a column of a result read as row objects against the same result read by columns, run it with "-prof gc" to get the 
+ * allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ColumnarBenchmark 
+{
+	private final static String SELECT_SQL = "SELECT id, varchar_field, int_field FROM " + DbBenchmarkState.READ_TABLE;
+	
+	@Benchmark
+	public long rowObjects(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		List<BenchmarkRow> rows = dbQuery.getObjectList(BenchmarkRowMapper.getInstance(), DbBenchmarkState.READ_ROWS, SELECT_SQL);
+		state.end(dbQuery);
+		
+		long sum = 0;
+		for (int i=0; i<rows.size(); i++)
+		{
+			sum += rows.get(i).getIntField();
+		}
+		
+		return sum;
+	}
+	
+	@Benchmark
+	public long columnar(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		DbColumnarResult result = dbQuery.getColumnar(DbBenchmarkState.READ_ROWS, SELECT_SQL);
+		state.end(dbQuery);
+		
+		DbIntColumn column = result.getIntColumn("int_field");
+		
+		long sum = 0;
+		for (int i=0; i<result.getRowCount(); i++)
+		{
+			sum += column.getInt(i);
+		}
+		
+		return sum;
+	}
+}
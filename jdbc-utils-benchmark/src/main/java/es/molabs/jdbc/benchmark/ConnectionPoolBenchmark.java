@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.pool.DbConnectionPool;
+
+/**
+ * Compares the H2 pool, that locks on every borrow, against DbConnectionPool with more threads than connections, borrowing a 
+ * connection, running "SELECT 1" and giving it back.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class ConnectionPoolBenchmark 
+{
+	private final static String URL = "jdbc:h2:mem:pool-benchmark;DB_CLOSE_DELAY=-1";
+	
+	@Param({"H2", "DB_CONNECTION_POOL"})
+	private String pool;
+	
+	@Param({"8"})
+	private int maxSize;
+	
+	private DataSource dataSource = null;
+	
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		if ("H2".equals(pool))
+		{
+			JdbcConnectionPool h2Pool = JdbcConnectionPool.create(URL, "", "");
+			h2Pool.setMaxConnections(maxSize);
+			
+			dataSource = h2Pool;
+		}
+		else
+		{
+			JdbcDataSource h2DataSource = new JdbcDataSource();
+			h2DataSource.setURL(URL);
+			
+			DbConnectionPool dbConnectionPool = new DbConnectionPool(h2DataSource);
+			dbConnectionPool.setMinSize(maxSize);
+			dbConnectionPool.setMaxSize(maxSize);
+			dbConnectionPool.init();
+			
+			dataSource = dbConnectionPool;
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		if (dataSource instanceof JdbcConnectionPool)
+		{
+			((JdbcConnectionPool) dataSource).dispose();
+		}
+		else
+		{
+			((DbConnectionPool) dataSource).destroy();
+		}
+		
+		dataSource = null;
+	}
+	
+	@Benchmark
+	public int borrowAndQuery() throws Throwable
+	{
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery("SELECT 1"))
+		{
+			resultSet.next();
+			
+			return resultSet.getInt(1);
+		}
+	}
+	
+	@Benchmark
+	public boolean borrow() throws Throwable
+	{
+		try (Connection connection = dataSource.getConnection())
+		{
+			return connection.isClosed();
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.DbSession;
+import es.molabs.jdbc.DbTransaction;
+
+/**
+ * Counts the connection setup round trips of single row lookups, and of eight consecutive lookups with and without a session. The 
+ * roundTrips counter is reported per operation next to the score.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConnectionSetupBenchmark 
+{
+	private final static int CONSECUTIVE_LOOKUPS = 8;
+	
+	@Param({"false", "true"})
+	public boolean trustConnectionDefaults;
+	
+	private RoundTripCountingDataSource dataSource = null;
+	private DbManager dbManager = null;
+	
+	@Setup
+	public void setUp(DbBenchmarkState state)
+	{
+		dataSource = new RoundTripCountingDataSource(state.getDataSource());
+		
+		dbManager = new DbManager();
+		dbManager.setTrustConnectionDefaults(trustConnectionDefaults);
+		dbManager.init(dataSource);
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		dbManager.destroy();
+		dbManager = null;
+	}
+	
+	@Benchmark
+	public Integer nonTransactionLookup(RoundTrips roundTrips)
+	{
+		long start = dataSource.getRoundTrips();
+		
+		Integer value = dbManager.getDbNonTransaction().getField(Integer.class, "SELECT int_field FROM " + DbBenchmarkState.READ_TABLE + " WHERE id = ?", 1);
+		
+		roundTrips.count(dataSource.getRoundTrips() - start);
+		
+		return value;
+	}
+	
+	@Benchmark
+	public Integer transactionLookup(RoundTrips roundTrips)
+	{
+		long start = dataSource.getRoundTrips();
+		
+		DbTransaction transaction = dbManager.getDbTransaction();
+		Integer value = transaction.getField(Integer.class, "SELECT int_field FROM " + DbBenchmarkState.READ_TABLE + " WHERE id = ?", 1);
+		transaction.commit();
+		
+		roundTrips.count(dataSource.getRoundTrips() - start);
+		
+		return value;
+	}
+	
+	@Benchmark
+	public int consecutiveLookups(RoundTrips roundTrips)
+	{
+		long start = dataSource.getRoundTrips();
+		
+		int value = lookups();
+		
+		roundTrips.count(dataSource.getRoundTrips() - start);
+		
+		return value;
+	}
+	
+	@Benchmark
+	public int sessionConsecutiveLookups(RoundTrips roundTrips)
+	{
+		long start = dataSource.getRoundTrips();
+		
+		int value;
+		
+		// The lookups do not use the session directly, getDbNonTransaction returns it while it is open
+		DbSession session = dbManager.getDbSession();
+		
+		try
+		{
+			value = lookups();
+		}
+		finally
+		{
+			session.close();
+		}
+		
+		roundTrips.count(dataSource.getRoundTrips() - start);
+		
+		return value;
+	}
+	
+	private int lookups()
+	{
+		int value = 0;
+		
+		for (int i=1; i<=CONSECUTIVE_LOOKUPS; i++)
+		{
+			value += dbManager.getDbNonTransaction().getField(Integer.class, "SELECT int_field FROM " + DbBenchmarkState.READ_TABLE + " WHERE id = ?", i);
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Round trips and operations of the iteration, dividing them gives the round trips per operation.
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class RoundTrips
+	{
+		public long roundTrips;
+		public long operations;
+		
+		@Setup(Level.Iteration)
+		public void setUp()
+		{
+			roundTrips = 0;
+			operations = 0;
+		}
+		
+		void count(long operationRoundTrips)
+		{
+			roundTrips += operationRoundTrips;
+			operations++;
+		}
+	}
+}
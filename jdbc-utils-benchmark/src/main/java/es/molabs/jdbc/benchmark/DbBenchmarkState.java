@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.DbQuery;
+import es.molabs.jdbc.DbTransaction;
+
+@State(Scope.Benchmark)
+public class DbBenchmarkState
+{
+	public final static String READ_TABLE = "bench_read";
+	public final static String WRITE_TABLE = "bench_write";
+	
+	public final static int READ_ROWS = 1000;
+	
+	@Param({"NON_TRANSACTION", "TRANSACTION"})
+	public String mode;
+	
+	private JdbcConnectionPool dataSource = null;
+	private DbManager dbManager = null;
+	private boolean transactional;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Throwable
+	{
+		transactional = "TRANSACTION".equals(mode);
+		
+		// In memory database that lives until the pool is disposed
+		dataSource = JdbcConnectionPool.create("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "benchUser", "benchPassword");
+		dataSource.setMaxConnections(64);
+		
+		QueryRunner query = new QueryRunner(dataSource);
+		query.update("CREATE TABLE IF NOT EXISTS " + READ_TABLE + " (id BIGINT AUTO_INCREMENT NOT NULL, varchar_field VARCHAR(80) NOT NULL, int_field INT NOT NULL, CONSTRAINT " + READ_TABLE + "_pk PRIMARY KEY (id))");
+		query.update("CREATE TABLE IF NOT EXISTS " + WRITE_TABLE + " (id BIGINT AUTO_INCREMENT NOT NULL, varchar_field VARCHAR(80) NOT NULL, int_field INT NOT NULL, CONSTRAINT " + WRITE_TABLE + "_pk PRIMARY KEY (id))");
+		
+		// Fills the read table
+		Object[][] rows = new Object[READ_ROWS][2];
+		for (int i=0; i<READ_ROWS; i++)
+		{
+			rows[i][0] = "varchar_value" + (i + 1);
+			rows[i][1] = i + 1;
+		}
+		query.batch("INSERT INTO " + READ_TABLE + " (varchar_field, int_field) VALUES (?, ?)", rows);
+		
+		dbManager = new DbManager();
+		dbManager.init(dataSource);
+	}
+	
+	@TearDown(Level.Iteration)
+	public void clearWriteTable() throws Throwable
+	{
+		// Keeps the write table small between iterations
+		new QueryRunner(dataSource).update("TRUNCATE TABLE " + WRITE_TABLE);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws Throwable
+	{
+		new QueryRunner(dataSource).update("DROP ALL OBJECTS");
+		
+		dbManager.destroy();
+		dbManager = null;
+		
+		dataSource.dispose();
+		dataSource = null;
+	}
+	
+	/**
+	 * Returns the DbQuery to benchmark for the current mode. Must be finished with {@link #end(DbQuery)}.
+	 * 
+	 * @return A new DbNonTransaction or DbTransaction.
+	 */
+	public DbQuery begin()
+	{
+		return (transactional ? dbManager.getDbTransaction() : dbManager.getDbNonTransaction());
+	}
+	
+	/**
+	 * Commits the query if it is a transaction.
+	 * 
+	 * @param dbQuery returned by {@link #begin()}.
+	 */
+	public void end(DbQuery dbQuery)
+	{
+		if (transactional) ((DbTransaction) dbQuery).commit();
+	}
+	
+	public DbManager getDbManager()
+	{
+		return dbManager;
+	}
+	
+	public JdbcConnectionPool getDataSource()
+	{
+		return dataSource;
+	}
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbKeyHolder;
+import es.molabs.jdbc.DbQuery;
+
+/**
+ * Benchmarks every DbQuery entry point in both DbNonTransaction and DbTransaction modes.
+ * 
+ * Throughput and SampleTime (latency percentiles) are reported, run it with "-prof gc" to get the allocation rate per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DbQueryBenchmark 
+{
+	private final static String READ_TABLE = DbBenchmarkState.READ_TABLE;
+	private final static String WRITE_TABLE = DbBenchmarkState.WRITE_TABLE;
+	
+	private final static int LIST_ROWS = 100;
+	private final static int BATCH_ROWS = 100;
+	
+	private Object[][] batchArguments = null;
+	private BenchmarkMultipleInsertMapper multipleInsertMapper = null;
+	private long nextId;
+	
+	@Setup
+	public void setUp()
+	{
+		batchArguments = new Object[BATCH_ROWS][2];
+		for (int i=0; i<BATCH_ROWS; i++)
+		{
+			batchArguments[i][0] = "varchar_batch" + (i + 1);
+			batchArguments[i][1] = i + 1;
+		}
+		
+		multipleInsertMapper = new BenchmarkMultipleInsertMapper(BATCH_ROWS);
+		
+		nextId = 0;
+	}
+	
+	@Benchmark
+	public String getField(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		String field = dbQuery.getField(String.class, "SELECT varchar_field FROM " + READ_TABLE + " WHERE id = ?", nextId());
+		state.end(dbQuery);
+		
+		return field;
+	}
+	
+	@Benchmark
+	public List<String> getFieldList(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		List<String> fieldList = dbQuery.getFieldList(String.class, "SELECT varchar_field FROM " + READ_TABLE + " WHERE id <= ?", LIST_ROWS);
+		state.end(dbQuery);
+		
+		return fieldList;
+	}
+	
+	@Benchmark
+	public BenchmarkRow getObject(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		BenchmarkRow object = dbQuery.getObject(BenchmarkRowMapper.getInstance(), "SELECT id, varchar_field, int_field FROM " + READ_TABLE + " WHERE id = ?", nextId());
+		state.end(dbQuery);
+		
+		return object;
+	}
+	
+	@Benchmark
+	public List<BenchmarkRow> getObjectList(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		List<BenchmarkRow> objectList = dbQuery.getObjectList(BenchmarkRowMapper.getInstance(), "SELECT id, varchar_field, int_field FROM " + READ_TABLE + " WHERE id <= ?", LIST_ROWS);
+		state.end(dbQuery);
+		
+		return objectList;
+	}
+	
+	@Benchmark
+	public int executeUpdate(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		int result = dbQuery.executeUpdate("INSERT INTO " + WRITE_TABLE + " (varchar_field, int_field) VALUES (?, ?)", "varchar_value", 1);
+		state.end(dbQuery);
+		
+		return result;
+	}
+	
+	@Benchmark
+	public int[] executeBatchUpdate(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		int[] result = dbQuery.executeBatchUpdate("INSERT INTO " + WRITE_TABLE + " (varchar_field, int_field) VALUES (?, ?)", batchArguments);
+		state.end(dbQuery);
+		
+		return result;
+	}
+	
+	@Benchmark
+	public int multipleInsert(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		int result = dbQuery.multipleInsert("INSERT INTO " + WRITE_TABLE + " (varchar_field, int_field) VALUES ", multipleInsertMapper);
+		state.end(dbQuery);
+		
+		return result;
+	}
+	
+	@Benchmark
+	public DbKeyHolder executeUpdateWithKeys(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		DbKeyHolder keyHolder = dbQuery.executeUpdateWithKeys("INSERT INTO " + WRITE_TABLE + " (varchar_field, int_field) VALUES (?, ?)", "varchar_value", 1);
+		state.end(dbQuery);
+		
+		return keyHolder;
+	}
+	
+	private long nextId()
+	{
+		// Cycles through the rows of the read table
+		nextId = (nextId % DbBenchmarkState.READ_ROWS) + 1;
+		
+		return nextId;
+	}
+}
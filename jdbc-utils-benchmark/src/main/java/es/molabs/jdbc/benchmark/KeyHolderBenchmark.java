@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbKeyHolder;
+import es.molabs.jdbc.DbQuery;
+
+/**
+ * Compares holding 1000 keys in a HashMap per row against the compact DbKeyHolder, reading the keys from a query so the inserts do not 
+ * hide the difference, and inserting a batch of 100 rows with their keys. Run it with "-prof gc" to get the allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyHolderBenchmark 
+{
+	private final static String SELECT_SQL = "SELECT id FROM " + DbBenchmarkState.READ_TABLE;
+	private final static String INSERT_SQL = "INSERT INTO " + DbBenchmarkState.WRITE_TABLE + " (varchar_field, int_field) VALUES (?, ?)";
+	
+	private final static int BATCH_ROWS = 100;
+	
+	private QueryRunner queryRunner = null;
+	private Object[][] batchArguments = null;
+	
+	@Setup
+	public void setUp(DbBenchmarkState state)
+	{
+		queryRunner = new QueryRunner(state.getDataSource());
+		
+		batchArguments = new Object[BATCH_ROWS][];
+		for (int i=0; i<BATCH_ROWS; i++)
+		{
+			batchArguments[i] = new Object[] {"key_value" + i, i};
+		}
+	}
+	
+	@Benchmark
+	public LegacyDbKeyHolder legacyKeyHolder() throws Throwable
+	{
+		return queryRunner.query(SELECT_SQL, resultSet -> new LegacyDbKeyHolder(resultSet));
+	}
+	
+	@Benchmark
+	public DbKeyHolder keyHolder() throws Throwable
+	{
+		return queryRunner.query(SELECT_SQL, resultSet -> new DbKeyHolder(resultSet));
+	}
+	
+	@Benchmark
+	public DbKeyHolder batchUpdateWithKeys(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		DbKeyHolder keyHolder = dbQuery.executeBatchUpdateWithKeys(INSERT_SQL, batchArguments);
+		state.end(dbQuery);
+		
+		return keyHolder;
+	}
+}
@@ -13,16 +13,19 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package es.molabs.jdbc;
+package es.molabs.jdbc.benchmark;
 
 import java.util.HashMap;
 import java.util.Map;
 
-public class ThreadLocalUtils 
+/**
+ * Copy of the ThreadLocalUtils that DbManager used to keep the active transaction, only kept to compare it in TransactionHolderBenchmark.
+ */
+public class LegacyThreadLocalUtils 
 {
 	private static ThreadLocal<Map<String, Object>> threadLocalContainer = null;
 	
-	private ThreadLocalUtils()
+	private LegacyThreadLocalUtils()
 	{		
 	}
 	
@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbQuery;
+import es.molabs.jdbc.mapper.BlobRowMapper;
+import es.molabs.jdbc.mapper.ClobRowMapper;
+
+/**
+ * Compares materializing a 4 MB CLOB and BLOB as a String against streaming them, and writing a 4 MB BLOB from a byte[] read from a file 
+ * against streaming the file. Run it with "-prof gc" to get the allocation per operation.
+ * 
+ * H2 keeps the temporary LOBs created from streams until the session is closed, and the in-memory database keeps them in the heap, so the 
+ * writes run a fixed number of single shot operations to stay within it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LobBenchmark 
+{
+	private final static String LOB_TABLE = "bench_lob";
+	
+	private final static int LOB_SIZE = 4 * 1024 * 1024;
+	
+	private final static String SELECT_CLOB_SQL = "SELECT clob_field FROM " + LOB_TABLE;
+	private final static String SELECT_BLOB_SQL = "SELECT blob_field FROM " + LOB_TABLE;
+	private final static String UPDATE_BLOB_SQL = "UPDATE " + LOB_TABLE + " SET blob_field = ?";
+	
+	private final static Writer NULL_WRITER = new Writer()
+	{
+		public void write(char[] buffer, int offset, int length) 
+		{
+		}
+		
+		public void flush() 
+		{
+		}
+		
+		public void close() 
+		{
+		}
+	};
+	
+	private final static OutputStream NULL_OUTPUT_STREAM = new OutputStream()
+	{
+		public void write(int b) 
+		{
+		}
+		
+		public void write(byte[] buffer, int offset, int length) 
+		{
+		}
+	};
+	
+	private DbBenchmarkState state = null;
+	private Path file = null;
+	
+	@Setup
+	public void setUp(DbBenchmarkState state) throws Throwable
+	{
+		this.state = state;
+		
+		char[] content = new char[LOB_SIZE];
+		Arrays.fill(content, 'a');
+		
+		QueryRunner query = new QueryRunner(state.getDataSource());
+		query.update("CREATE TABLE IF NOT EXISTS " + LOB_TABLE + " (clob_field CLOB NOT NULL, blob_field BLOB NOT NULL)");
+		query.update("INSERT INTO " + LOB_TABLE + " (clob_field, blob_field) VALUES (?, ?)", new String(content), new String(content).getBytes(StandardCharsets.UTF_8));
+		
+		file = Files.createTempFile("jdbc-utils-benchmark", ".bin");
+		Files.write(file, new String(content).getBytes(StandardCharsets.UTF_8));
+	}
+	
+	@TearDown
+	public void tearDown() throws Throwable
+	{
+		new QueryRunner(state.getDataSource()).update("DROP TABLE IF EXISTS " + LOB_TABLE);
+		
+		Files.deleteIfExists(file);
+	}
+	
+	@Benchmark
+	public String clobToString()
+	{
+		DbQuery dbQuery = state.begin();
+		String value = dbQuery.getObject(ClobRowMapper.getInstance(), SELECT_CLOB_SQL);
+		state.end(dbQuery);
+		
+		return value;
+	}
+	
+	@Benchmark
+	public long readClob()
+	{
+		DbQuery dbQuery = state.begin();
+		long chars = dbQuery.readClob(NULL_WRITER, SELECT_CLOB_SQL);
+		state.end(dbQuery);
+		
+		return chars;
+	}
+	
+	@Benchmark
+	public String blobToString()
+	{
+		DbQuery dbQuery = state.begin();
+		String value = dbQuery.getObject(BlobRowMapper.getInstance(), SELECT_BLOB_SQL);
+		state.end(dbQuery);
+		
+		return value;
+	}
+	
+	@Benchmark
+	public long readBlob()
+	{
+		DbQuery dbQuery = state.begin();
+		long bytes = dbQuery.readBlob(NULL_OUTPUT_STREAM, SELECT_BLOB_SQL);
+		state.end(dbQuery);
+		
+		return bytes;
+	}
+	
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public int writeByteArray() throws Throwable
+	{
+		DbQuery dbQuery = state.begin();
+		int updates = dbQuery.executeUpdate(UPDATE_BLOB_SQL, Files.readAllBytes(file));
+		state.end(dbQuery);
+		
+		return updates;
+	}
+	
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 20)
+	public int writePath()
+	{
+		DbQuery dbQuery = state.begin();
+		int updates = dbQuery.executeUpdate(UPDATE_BLOB_SQL, file);
+		state.end(dbQuery);
+		
+		return updates;
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.dbutils.MultipleRowHandler;
+
+/**
+ * Compares the list building strategies of the multiple row handler. Run it with "-prof gc" to compare the allocation per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MultipleRowHandlerBenchmark 
+{
+	@Param({"LINKED_LIST", "ARRAY_LIST", "ARRAY_LIST_EXPECTED_ROWS"})
+	public String handler;
+	
+	private QueryRunner queryRunner = null;
+	private ResultSetHandler<List<BenchmarkRow>> resultSetHandler = null;
+	
+	@Setup
+	public void setUp(DbBenchmarkState state)
+	{
+		queryRunner = new QueryRunner(state.getDataSource());
+		
+		if ("LINKED_LIST".equals(handler))
+		{
+			resultSetHandler = new LinkedListRowHandler<BenchmarkRow>(BenchmarkRowMapper.getInstance());
+		}
+		else if ("ARRAY_LIST".equals(handler))
+		{
+			resultSetHandler = new MultipleRowHandler<BenchmarkRow>(BenchmarkRowMapper.getInstance());
+		}
+		else
+		{
+			resultSetHandler = new MultipleRowHandler<BenchmarkRow>(BenchmarkRowMapper.getInstance(), DbBenchmarkState.READ_ROWS);
+		}
+	}
+	
+	@Benchmark
+	public List<BenchmarkRow> handleRows() throws Throwable
+	{
+		return queryRunner.query("SELECT id, varchar_field, int_field FROM " + DbBenchmarkState.READ_TABLE, resultSetHandler);
+	}
+	
+	@Benchmark
+	public BenchmarkRow handleRowsAndIndex() throws Throwable
+	{
+		List<BenchmarkRow> rowList = queryRunner.query("SELECT id, varchar_field, int_field FROM " + DbBenchmarkState.READ_TABLE, resultSetHandler);
+		
+		// Random access into the result, O(n) for a LinkedList
+		BenchmarkRow row = null;
+		for (int i=0; i<rowList.size(); i+=10)
+		{
+			row = rowList.get(i);
+		}
+		
+		return row;
+	}
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbNullPolicy;
+import es.molabs.jdbc.DbQuery;
+
+/**
+ * Compares reading a column of ids as a List of boxed values against reading it as a primitive array, run it with "-prof gc" to get the 
+ * allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveArrayBenchmark 
+{
+	private final static String SELECT_SQL = "SELECT id FROM " + DbBenchmarkState.READ_TABLE;
+	
+	@Benchmark
+	public List<Long> fieldList(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		List<Long> ids = dbQuery.getFieldList(Long.class, SELECT_SQL);
+		state.end(dbQuery);
+		
+		return ids;
+	}
+	
+	@Benchmark
+	public long[] longArray(DbBenchmarkState state)
+	{
+		DbQuery dbQuery = state.begin();
+		long[] ids = dbQuery.getLongArray(DbNullPolicy.FAIL, SELECT_SQL);
+		state.end(dbQuery);
+		
+		return ids;
+	}
+}
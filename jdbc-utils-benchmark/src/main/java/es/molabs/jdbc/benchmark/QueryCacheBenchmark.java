@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.DbQueryOptions;
+import es.molabs.jdbc.cache.DbCacheEviction;
+import es.molabs.jdbc.cache.DbQueryCache;
+
+/**
+ * Single row lookups of the 1000 rows of the read table with a skewed distribution, where a few rows get most of the lookups, 
+ * without cache and with a cache of 100 results for each eviction policy. The hits and misses counters of each iteration are reported 
+ * next to the score.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryCacheBenchmark 
+{
+	private final static String SQL = "SELECT varchar_field FROM " + DbBenchmarkState.READ_TABLE + " WHERE id = ?";
+	
+	private final static int CACHE_SIZE = 100;
+	
+	// Lookups drawn before the benchmark, so the random numbers are not measured
+	private final static int LOOKUPS = 1 << 16;
+	
+	@Param({"NONE", "LRU", "TINY_LFU"})
+	public String eviction;
+	
+	private DbManager dbManager = null;
+	private DbQueryOptions options = null;
+	private long[] ids = null;
+	private int next;
+	private long startHits;
+	private long startMisses;
+	
+	@Setup
+	public void setUp(DbBenchmarkState state)
+	{
+		dbManager = new DbManager();
+		dbManager.init(state.getDataSource());
+		
+		options = dbManager.getDefaultQueryOptions();
+		
+		if (!"NONE".equals(eviction))
+		{
+			DbQueryCache queryCache = new DbQueryCache(CACHE_SIZE, DbCacheEviction.valueOf(eviction));
+			queryCache.registerTables(DbBenchmarkState.READ_TABLE);
+			
+			dbManager.setQueryCache(queryCache);
+			options = options.withCached(true);
+		}
+		
+		// Power law over the ids, the cube of an uniform number
+		Random random = new Random(42);
+		ids = new long[LOOKUPS];
+		for (int i=0; i<LOOKUPS; i++)
+		{
+			double uniform = random.nextDouble();
+			ids[i] = 1 + (long) (uniform * uniform * uniform * DbBenchmarkState.READ_ROWS);
+		}
+		
+		next = 0;
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		dbManager.destroy();
+		dbManager = null;
+	}
+	
+	@Setup(Level.Iteration)
+	public void setUpIteration()
+	{
+		DbQueryCache queryCache = dbManager.getQueryCache();
+		
+		if (queryCache != null)
+		{
+			startHits = queryCache.getHitCount();
+			startMisses = queryCache.getMissCount();
+		}
+	}
+	
+	@TearDown(Level.Iteration)
+	public void tearDownIteration(CacheCounters counters)
+	{
+		DbQueryCache queryCache = dbManager.getQueryCache();
+		
+		// Read once per iteration, so the synchronized getters are not measured
+		if (queryCache != null)
+		{
+			counters.hits = queryCache.getHitCount() - startHits;
+			counters.misses = queryCache.getMissCount() - startMisses;
+		}
+	}
+	
+	@Benchmark
+	public String lookup()
+	{
+		long id = ids[next];
+		next = (next + 1) & (LOOKUPS - 1);
+		
+		return dbManager.getDbNonTransaction().getField(options, String.class, SQL, id);
+	}
+	
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class CacheCounters
+	{
+		public long hits;
+		public long misses;
+		
+		@Setup(Level.Iteration)
+		public void setUp()
+		{
+			hits = 0;
+			misses = 0;
+		}
+	}
+}
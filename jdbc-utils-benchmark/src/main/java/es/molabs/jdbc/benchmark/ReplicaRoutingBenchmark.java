@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.routing.DbBalancer;
+import es.molabs.jdbc.routing.DbReplicaRouter;
+import es.molabs.jdbc.routing.LatencyWeightedDbBalancer;
+import es.molabs.jdbc.routing.LeastInFlightDbBalancer;
+import es.molabs.jdbc.routing.RoundRobinDbBalancer;
+
+/**
+ * Measures what routing a single row lookup to one of three replicas costs with each balancer. The replicas are the same in memory 
+ * database as the primary, so this shows the overhead of the router and not the throughput gained with real replicas.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ReplicaRoutingBenchmark 
+{
+	@Param({"NONE", "ROUND_ROBIN", "LEAST_IN_FLIGHT", "LATENCY_WEIGHTED"})
+	public String balancer;
+	
+	private DbManager dbManager = null;
+	
+	@Setup
+	public void setUp(DbBenchmarkState state)
+	{
+		DataSource dataSource = state.getDataSource();
+		
+		dbManager = new DbManager();
+		
+		if ("NONE".equals(balancer))
+		{
+			dbManager.init(dataSource);
+		}
+		else
+		{
+			dbManager.init(new DbReplicaRouter(dataSource, Arrays.asList(dataSource, dataSource, dataSource), createBalancer()));
+		}
+	}
+	
+	private DbBalancer createBalancer()
+	{
+		switch (balancer)
+		{
+			case "ROUND_ROBIN": return new RoundRobinDbBalancer();
+			case "LEAST_IN_FLIGHT": return new LeastInFlightDbBalancer();
+			default: return new LatencyWeightedDbBalancer();
+		}
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		dbManager.destroy();
+		dbManager = null;
+	}
+	
+	@Benchmark
+	public Integer lookup()
+	{
+		return dbManager.getDbNonTransaction().getField(Integer.class, "SELECT int_field FROM " + DbBenchmarkState.READ_TABLE + " WHERE id = ?", 1);
+	}
+}
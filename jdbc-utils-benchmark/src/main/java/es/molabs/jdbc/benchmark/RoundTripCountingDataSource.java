@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource that stands in for a network driver. The auto commit and read only setters count as a round trip to the database, while
+ * the getters are answered from the state of the connection as most drivers do.
+ */
+public class RoundTripCountingDataSource implements DataSource
+{
+	private final DataSource dataSource;
+	private final AtomicLong roundTrips;
+	
+	public RoundTripCountingDataSource(DataSource dataSource)
+	{
+		this.dataSource = dataSource;
+		
+		roundTrips = new AtomicLong();
+	}
+	
+	public long getRoundTrips()
+	{
+		return roundTrips.get();
+	}
+	
+	public Connection getConnection() throws SQLException
+	{
+		return wrap(dataSource.getConnection());
+	}
+
+	public Connection getConnection(String username, String password) throws SQLException
+	{
+		return wrap(dataSource.getConnection(username, password));
+	}
+	
+	private Connection wrap(final Connection connection)
+	{
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, new InvocationHandler()
+		{
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+			{
+				String name = method.getName();
+				
+				if ("setAutoCommit".equals(name) || "setReadOnly".equals(name))
+				{
+					roundTrips.incrementAndGet();
+				}
+				
+				try
+				{
+					return method.invoke(connection, args);
+				}
+				catch (InvocationTargetException ITe)
+				{
+					throw ITe.getCause();
+				}
+			}
+		});
+	}
+
+	public PrintWriter getLogWriter() throws SQLException
+	{
+		return dataSource.getLogWriter();
+	}
+
+	public void setLogWriter(PrintWriter out) throws SQLException
+	{
+		dataSource.setLogWriter(out);
+	}
+
+	public void setLoginTimeout(int seconds) throws SQLException
+	{
+		dataSource.setLoginTimeout(seconds);
+	}
+
+	public int getLoginTimeout() throws SQLException
+	{
+		return dataSource.getLoginTimeout();
+	}
+
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		return dataSource.getParentLogger();
+	}
+
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		return dataSource.unwrap(iface);
+	}
+
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return dataSource.isWrapperFor(iface);
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.shard.DbShardManager;
+import es.molabs.jdbc.shard.HashDbShardResolver;
+
+/**
+ * Reads the ids of 1000 rows split across the shards, concatenated, merged from sorted shards and sorted after concatenating them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardBenchmark 
+{
+	private final static int ROWS = 1000;
+	
+	@Param({"1", "4"})
+	public int shardCount;
+	
+	private List<JdbcConnectionPool> dataSources = null;
+	private DbShardManager<Long> shardManager = null;
+	
+	@Setup
+	public void setUp()
+	{
+		dataSources = new ArrayList<JdbcConnectionPool>();
+		List<DbManager> shards = new ArrayList<DbManager>();
+		
+		for (int i=0; i<shardCount; i++)
+		{
+			JdbcConnectionPool dataSource = JdbcConnectionPool.create("jdbc:h2:mem:bench_shard" + i + ";DB_CLOSE_DELAY=-1", "", "");
+			dataSources.add(dataSource);
+			
+			DbManager dbManager = new DbManager();
+			dbManager.init(dataSource);
+			dbManager.getDbNonTransaction().executeUpdate("CREATE TABLE bench_item (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+			shards.add(dbManager);
+		}
+		
+		shardManager = new DbShardManager<Long>(shards, HashDbShardResolver.<Long>getInstance());
+		
+		for (long id=0; id<ROWS; id++)
+		{
+			shardManager.getDbNonTransaction(id).executeUpdate("INSERT INTO bench_item (id, name) VALUES (?, ?)", id, "item" + id);
+		}
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		for (int i=0; i<shardCount; i++)
+		{
+			shardManager.getShards().get(i).getDbNonTransaction().executeUpdate("DROP ALL OBJECTS");
+			shardManager.getShards().get(i).destroy();
+			dataSources.get(i).dispose();
+		}
+		
+		shardManager = null;
+	}
+	
+	@Benchmark
+	public List<Long> concatenate()
+	{
+		return shardManager.getFieldList(Long.class, "SELECT id FROM bench_item");
+	}
+	
+	@Benchmark
+	public List<Long> merge()
+	{
+		return shardManager.getFieldList(Comparator.<Long>naturalOrder(), Long.class, "SELECT id FROM bench_item ORDER BY id");
+	}
+	
+	@Benchmark
+	public List<Long> sortAfterConcatenate()
+	{
+		List<Long> ids = shardManager.getFieldList(Long.class, "SELECT id FROM bench_item");
+		Collections.sort(ids);
+		
+		return ids;
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.DbTransaction;
+
+/**
+ * Measures a transaction that executes the same statements many times with and without the statement cache.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StatementCacheBenchmark 
+{
+	private final static int STATEMENTS_PER_TRANSACTION = 100;
+	
+	@Param({"0", "32"})
+	public int statementCacheSize;
+	
+	private DbManager dbManager = null;
+	
+	@Setup
+	public void setUp(DbBenchmarkState state)
+	{
+		dbManager = new DbManager();
+		dbManager.setStatementCacheSize(statementCacheSize);
+		dbManager.init(state.getDataSource());
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		dbManager.destroy();
+		dbManager = null;
+	}
+	
+	@Benchmark
+	public int read()
+	{
+		int result = 0;
+		
+		DbTransaction transaction = dbManager.getReadOnlyDbTransaction();
+		
+		for (int i=0; i<STATEMENTS_PER_TRANSACTION; i++)
+		{
+			result += transaction.getField(Integer.class, "SELECT int_field FROM " + DbBenchmarkState.READ_TABLE + " WHERE id = ?", (i % DbBenchmarkState.READ_ROWS) + 1);
+		}
+		
+		transaction.commit();
+		
+		return result;
+	}
+	
+	@Benchmark
+	public int readAndWrite()
+	{
+		int result = 0;
+		
+		DbTransaction transaction = dbManager.getDbTransaction();
+		
+		for (int i=0; i<STATEMENTS_PER_TRANSACTION; i++)
+		{
+			result += transaction.getField(Integer.class, "SELECT int_field FROM " + DbBenchmarkState.READ_TABLE + " WHERE id = ?", (i % DbBenchmarkState.READ_ROWS) + 1);
+			result += transaction.executeUpdate("INSERT INTO " + DbBenchmarkState.WRITE_TABLE + " (varchar_field, int_field) VALUES (?, ?)", "varchar_value" + i, i);
+		}
+		
+		transaction.commit();
+		
+		return result;
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbQuery;
+
+/**
+ * Compares the old HashMap based thread local container against the ThreadLocal of each DbManager under contention. Each operation 
+ * sets, reads and clears the holder, as a transaction does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class TransactionHolderBenchmark 
+{
+	private final static String THREAD_LOCAL_DBTRANSACTION = "t_l_dbTransaction";
+	
+	private final ThreadLocal<Object> holder = new ThreadLocal<Object>();
+	private final Object transaction = new Object();
+	
+	@Benchmark
+	public Object legacyHolder()
+	{
+		LegacyThreadLocalUtils.setThreadLocalAttribute(THREAD_LOCAL_DBTRANSACTION, transaction);
+		Object value = LegacyThreadLocalUtils.getThreadLocalAttribute(THREAD_LOCAL_DBTRANSACTION, Object.class);
+		LegacyThreadLocalUtils.setThreadLocalAttribute(THREAD_LOCAL_DBTRANSACTION, null);
+		
+		return value;
+	}
+	
+	@Benchmark
+	public Object legacyHolderCleared()
+	{
+		// A thread that clears its container pays the class lock again on the next use
+		LegacyThreadLocalUtils.setThreadLocalAttribute(THREAD_LOCAL_DBTRANSACTION, transaction);
+		Object value = LegacyThreadLocalUtils.getThreadLocalAttribute(THREAD_LOCAL_DBTRANSACTION, Object.class);
+		LegacyThreadLocalUtils.clearThreadLocalContainer();
+		
+		return value;
+	}
+	
+	@Benchmark
+	public Object managerHolder()
+	{
+		// Same operations as DbManager.setActiveDbTransaction, getActiveDbTransaction and clearActiveDbTransaction
+		holder.set(transaction);
+		Object value = holder.get();
+		holder.set(null);
+		
+		return value;
+	}
+	
+	@Benchmark
+	public DbQuery getDbNonTransaction(DbBenchmarkState state)
+	{
+		// The active transaction lookup as the DbManager does it
+		return state.getDbManager().getDbNonTransaction();
+	}
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.benchmark;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.molabs.jdbc.DbQuery;
+import es.molabs.jdbc.mapper.DbColumnRowMapper;
+import es.molabs.jdbc.mapper.DbColumns;
+import es.molabs.jdbc.mapper.DbRowMapper;
+
+/**
+ * Compares mapping wide rows by column label against DbColumnRowMapper, that resolves the labels to indexes once per ResultSet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WideRowBenchmark 
+{
+	private final static String WIDE_TABLE = "bench_wide";
+	
+	private final static int COLUMNS = 60;
+	private final static int ROWS = 500;
+	
+	private final static String[] LABELS = new String[COLUMNS];
+	
+	static
+	{
+		for (int i=0; i<COLUMNS; i++)
+		{
+			LABELS[i] = "column_" + i;
+		}
+	}
+	
+	private final static DbRowMapper<int[]> LABEL_ROW_MAPPER = new DbRowMapper<int[]>()
+	{
+		public int[] mapRow(ResultSet resultSet, int rowNum) throws SQLException
+		{
+			int[] row = new int[COLUMNS];
+			
+			for (int i=0; i<COLUMNS; i++)
+			{
+				row[i] = resultSet.getInt(LABELS[i]);
+			}
+			
+			return row;
+		}
+	};
+	
+	private final static DbColumnRowMapper<int[]> COLUMN_ROW_MAPPER = new DbColumnRowMapper<int[]>(LABELS)
+	{
+		public int[] mapRow(DbColumns columns, int rowNum) throws SQLException
+		{
+			int[] row = new int[COLUMNS];
+			
+			for (int i=0; i<COLUMNS; i++)
+			{
+				row[i] = columns.getInt(i);
+			}
+			
+			return row;
+		}
+	};
+	
+	private String selectSql = null;
+	private DbBenchmarkState state = null;
+	
+	@Setup
+	public void setUp(DbBenchmarkState state) throws Throwable
+	{
+		this.state = state;
+		
+		StringBuilder columns = new StringBuilder();
+		StringBuilder definitions = new StringBuilder();
+		StringBuilder values = new StringBuilder();
+		
+		for (int i=0; i<COLUMNS; i++)
+		{
+			if (i > 0)
+			{
+				columns.append(", ");
+				definitions.append(", ");
+				values.append(", ");
+			}
+			
+			columns.append(LABELS[i]);
+			definitions.append(LABELS[i]).append(" INT NOT NULL");
+			values.append("?");
+		}
+		
+		QueryRunner query = new QueryRunner(state.getDataSource());
+		query.update("CREATE TABLE IF NOT EXISTS " + WIDE_TABLE + " (" + definitions + ")");
+		
+		Object[][] rows = new Object[ROWS][COLUMNS];
+		for (int i=0; i<ROWS; i++)
+		{
+			for (int j=0; j<COLUMNS; j++)
+			{
+				rows[i][j] = i * COLUMNS + j;
+			}
+		}
+		query.batch("INSERT INTO " + WIDE_TABLE + " (" + columns + ") VALUES (" + values + ")", rows);
+		
+		selectSql = "SELECT " + columns + " FROM " + WIDE_TABLE;
+	}
+	
+	@TearDown
+	public void tearDown() throws Throwable
+	{
+		new QueryRunner(state.getDataSource()).update("DROP TABLE IF EXISTS " + WIDE_TABLE);
+	}
+	
+	@Benchmark
+	public List<int[]> labelRowMapper()
+	{
+		DbQuery dbQuery = state.begin();
+		List<int[]> rows = dbQuery.getObjectList(LABEL_ROW_MAPPER, ROWS, selectSql);
+		state.end(dbQuery);
+		
+		return rows;
+	}
+	
+	@Benchmark
+	public List<int[]> columnRowMapper()
+	{
+		DbQuery dbQuery = state.begin();
+		List<int[]> rows = dbQuery.getObjectList(COLUMN_ROW_MAPPER, ROWS, selectSql);
+		state.end(dbQuery);
+		
+		return rows;
+	}
+}
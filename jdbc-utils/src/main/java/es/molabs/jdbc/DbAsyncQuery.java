@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import es.molabs.jdbc.exception.DbException;
+import es.molabs.jdbc.mapper.DbRowMapper;
+
+/**
+ * Runs non transactional queries in an executor and returns their results as CompletableFutures, so independent queries can run at 
+ * the same time. Each query takes its own connection from the DataSource and never joins a transaction in progress.
+ * 
+ * At most maxPending queries are queued or running at any time, a new query blocks the caller until one of them ends. maxPending should 
+ * not be greater than the connections of the DataSource, since the rest of the queries would only wait for a connection in the executor.
+ */
+public class DbAsyncQuery 
+{
+	private final DbManager dbManager;
+	private final Executor executor;
+	private final Semaphore pending;
+	private final int maxPending;
+	
+	/**
+	 * Creates the async query.
+	 * 
+	 * @param dbManager the queries are executed with.
+	 * @param executor that runs the queries, platform or virtual threads.
+	 * @param maxPending queries queued or running at the same time.
+	 */
+	public DbAsyncQuery(DbManager dbManager, Executor executor, int maxPending)
+	{
+		if (maxPending < 1) throw new IllegalArgumentException("Max pending must be greater than 0.");
+		
+		this.dbManager = dbManager;
+		this.executor = executor;
+		this.maxPending = maxPending;
+		
+		pending = new Semaphore(maxPending);
+	}
+	
+	public int getMaxPending()
+	{
+		return maxPending;
+	}
+	
+	/**
+	 * Returns how many queries are queued or running.
+	 * 
+	 * @return The queries in progress.
+	 */
+	public int getPending()
+	{
+		return maxPending - pending.availablePermits();
+	}
+	
+	/**
+	 * Returns a single element as the DbQuery method does.
+	 * 
+	 * @param <T> generic type of the return value.
+	 * @param clazz type of the return value.
+	 * @param sql query to be executed.
+	 * @param arguments of the query.
+	 * 
+	 * @return The future with the value.
+	 */
+	public <T> CompletableFuture<T> getFieldAsync(Class<T> clazz, String sql, Object...arguments)
+	{
+		return submit(dbQuery -> dbQuery.getField(clazz, sql, arguments));
+	}
+	
+	/**
+	 * Returns a list of elements as the DbQuery method does.
+	 * 
+	 * @param <T> generic type of the return value.
+	 * @param clazz type of the return value.
+	 * @param sql query to be executed.
+	 * @param arguments of the query.
+	 * 
+	 * @return The future with the list.
+	 */
+	public <T> CompletableFuture<List<T>> getFieldListAsync(Class<T> clazz, String sql, Object...arguments)
+	{
+		return submit(dbQuery -> dbQuery.getFieldList(clazz, sql, arguments));
+	}
+	
+	/**
+	 * Returns a single element as the DbQuery method does.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the return value.
+	 * @param dbRowMapper maps the row to an object.
+	 * @param sql query to be executed.
+	 * @param arguments of the query.
+	 * 
+	 * @return The future with the object.
+	 */
+	public <S extends DbRowMapper<T>, T> CompletableFuture<T> getObjectAsync(S dbRowMapper, String sql, Object...arguments)
+	{
+		return submit(dbQuery -> dbQuery.getObject(dbRowMapper, sql, arguments));
+	}
+	
+	/**
+	 * Returns a list of elements as the DbQuery method does.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the return value.
+	 * @param dbRowMapper maps each row to an object.
+	 * @param sql query to be executed.
+	 * @param arguments of the query.
+	 * 
+	 * @return The future with the list.
+	 */
+	public <S extends DbRowMapper<T>, T> CompletableFuture<List<T>> getObjectListAsync(S dbRowMapper, String sql, Object...arguments)
+	{
+		return submit(dbQuery -> dbQuery.getObjectList(dbRowMapper, sql, arguments));
+	}
+	
+	/**
+	 * Executes an update as the DbQuery method does.
+	 * 
+	 * @param sql query to be executed.
+	 * @param arguments of the query.
+	 * 
+	 * @return The future with the row count.
+	 */
+	public CompletableFuture<Integer> executeUpdateAsync(String sql, Object...arguments)
+	{
+		return submit(dbQuery -> dbQuery.executeUpdate(sql, arguments));
+	}
+	
+	/**
+	 * Executes a batch update as the DbQuery method does.
+	 * 
+	 * @param sql query to be executed.
+	 * @param arguments of each row.
+	 * 
+	 * @return The future with the update counts.
+	 */
+	public CompletableFuture<int[]> executeBatchUpdateAsync(String sql, Object[][] arguments)
+	{
+		return submit(dbQuery -> dbQuery.executeBatchUpdate(sql, arguments));
+	}
+	
+	/**
+	 * Executes an update and returns the generated keys as the DbQuery method does.
+	 * 
+	 * @param sql query to be executed.
+	 * @param arguments of the query.
+	 * 
+	 * @return The future with the keys.
+	 */
+	public CompletableFuture<DbKeyHolder> executeUpdateWithKeysAsync(String sql, Object...arguments)
+	{
+		return submit(dbQuery -> dbQuery.executeUpdateWithKeys(sql, arguments));
+	}
+	
+	/**
+	 * Runs any work with a non transactional DbQuery, for the methods without an async version.
+	 * 
+	 * @param <T> generic type of the return value.
+	 * @param work to run.
+	 * 
+	 * @return The future with the result of the work.
+	 */
+	public <T> CompletableFuture<T> submit(Function<DbQuery, T> work)
+	{
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		
+		try
+		{
+			// Blocks the caller while there are too many queries in progress
+			pending.acquire();
+		}
+		catch (InterruptedException Ie)
+		{
+			Thread.currentThread().interrupt();
+			
+			future.completeExceptionally(new DbException(Ie));
+			
+			return future;
+		}
+		
+		try
+		{
+			executor.execute(() -> 
+			{
+				T result = null;
+				Throwable failure = null;
+				
+				try
+				{
+					result = work.apply(new DbNonTransaction(dbManager));
+				}
+				catch (Throwable t)
+				{
+					failure = t;
+				}
+				finally
+				{
+					// Released before completing so the dependent stages can submit new queries without waiting
+					pending.release();
+				}
+				
+				if (failure == null) future.complete(result);
+				else future.completeExceptionally(failure);
+			});
+		}
+		catch (RejectedExecutionException REe)
+		{
+			pending.release();
+			
+			future.completeExceptionally(REe);
+		}
+		
+		return future;
+	}
+}
@@ -18,43 +18,199 @@ package es.molabs.jdbc;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Keys generated by one or more statements. The labels of the columns are kept once and the integer keys in long arrays, so holding the 
+ * keys of thousands of rows does not cost a Map per row. The Maps of getKeyList() and getKeyMap(int) are built when they are called.
+ */
 public class DbKeyHolder 
 {
-	private List<Map<String, Object>> keyList = null;
+	private final static int DEFAULT_CAPACITY = 16;
+	
+	// How each column is stored, the integer columns are boxed as the driver would do it
+	private final static byte INT_COLUMN = 0;
+	private final static byte LONG_COLUMN = 1;
+	private final static byte OBJECT_COLUMN = 2;
+	
+	private String[] labels = null;
+	private byte[] kinds = null;
+	private long[][] longKeys = null;
+	private Object[][] objectKeys = null;
+	private int size = 0;
+	
+	public DbKeyHolder()
+	{
+	}
 	
 	public DbKeyHolder(ResultSet resultSet) throws SQLException
 	{
-		keyList = new ArrayList<Map<String, Object>>();
-		
+		add(resultSet);
+	}
+	
+	/**
+	 * Appends the keys of the ResultSet, that must have the same columns as the previous ones.
+	 * 
+	 * @param resultSet with the generated keys.
+	 * 
+	 * @throws SQLException If the ResultSet can not be read or has other columns.
+	 */
+	public void add(ResultSet resultSet) throws SQLException
+	{
 		ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
-				
+		int columnCount = resultSetMetaData.getColumnCount();
+		
+		if (labels == null) init(resultSetMetaData, columnCount);
+		else if (columnCount != labels.length) throw new SQLException("Generated keys have [" + columnCount + "] columns instead of [" + labels.length + "].");
+		
 		while (resultSet.next())
 		{
-			Map<String, Object> key = new HashMap<String, Object>(resultSetMetaData.getColumnCount());
+			if (size == capacity()) grow();
 			
-			// Por cada columna del ResultSet
-			for (int i=0; i<resultSetMetaData.getColumnCount(); i++)
+			for (int i=0; i<columnCount; i++)
 			{
-				key.put(resultSetMetaData.getColumnLabel(i+1), resultSet.getObject(i+1));
+				if (kinds[i] != OBJECT_COLUMN)
+				{
+					long key = resultSet.getLong(i + 1);
+					
+					if (!resultSet.wasNull())
+					{
+						longKeys[i][size] = key;
+						
+						continue;
+					}
+					
+					// A NULL can not be held in a long
+					toObjectColumn(i);
+				}
+				
+				objectKeys[i][size] = resultSet.getObject(i + 1);
 			}
 			
-			keyList.add(key);
+			size++;
 		}
 	}
-
+	
+	private void init(ResultSetMetaData resultSetMetaData, int columnCount) throws SQLException
+	{
+		labels = new String[columnCount];
+		kinds = new byte[columnCount];
+		longKeys = new long[columnCount][];
+		objectKeys = new Object[columnCount][];
+		
+		for (int i=0; i<columnCount; i++)
+		{
+			labels[i] = resultSetMetaData.getColumnLabel(i + 1);
+			
+			switch (resultSetMetaData.getColumnType(i + 1))
+			{
+				case Types.INTEGER:
+				case Types.SMALLINT:
+				case Types.TINYINT:
+					kinds[i] = INT_COLUMN;
+					longKeys[i] = new long[DEFAULT_CAPACITY];
+					break;
+					
+				case Types.BIGINT:
+					kinds[i] = LONG_COLUMN;
+					longKeys[i] = new long[DEFAULT_CAPACITY];
+					break;
+					
+				default:
+					kinds[i] = OBJECT_COLUMN;
+					objectKeys[i] = new Object[DEFAULT_CAPACITY];
+			}
+		}
+	}
+	
+	private int capacity()
+	{
+		// Without columns only the rows are counted
+		if (kinds.length == 0) return Integer.MAX_VALUE;
+		
+		return (kinds[0] != OBJECT_COLUMN ? longKeys[0].length : objectKeys[0].length);
+	}
+	
+	private void grow()
+	{
+		int newCapacity = size + (size >> 1) + 1;
+		
+		for (int i=0; i<kinds.length; i++)
+		{
+			if (kinds[i] != OBJECT_COLUMN) longKeys[i] = Arrays.copyOf(longKeys[i], newCapacity);
+			else objectKeys[i] = Arrays.copyOf(objectKeys[i], newCapacity);
+		}
+	}
+	
+	private void toObjectColumn(int column)
+	{
+		Object[] keys = new Object[longKeys[column].length];
+		
+		for (int i=0; i<size; i++)
+		{
+			keys[i] = box(kinds[column], longKeys[column][i]);
+		}
+		
+		kinds[column] = OBJECT_COLUMN;
+		objectKeys[column] = keys;
+		longKeys[column] = null;
+	}
+	
+	private static Object box(byte kind, long key)
+	{
+		// Unsigned integer columns can hold keys out of the int range, that the drivers return as Long
+		return (kind == INT_COLUMN && key == (int) key ? Integer.valueOf((int) key) : Long.valueOf(key));
+	}
+	
+	/**
+	 * Returns the number of rows with keys.
+	 * 
+	 * @return The number of rows.
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	public int getColumnCount()
+	{
+		return (labels != null ? labels.length : 0);
+	}
+	
+	public String getColumnLabel(int column)
+	{
+		return labels[column];
+	}
+	
 	public List<Map<String, Object>> getKeyList()
 	{
+		List<Map<String, Object>> keyList = new ArrayList<Map<String, Object>>(size);
+		
+		for (int i=0; i<size; i++)
+		{
+			keyList.add(getKeyMap(i));
+		}
+		
 		return keyList;
 	}
 	
 	public Map<String, Object> getKeyMap(int index)
 	{
-		return keyList.get(index);
+		checkIndex(index);
+		
+		Map<String, Object> key = new HashMap<String, Object>(labels.length);
+		
+		for (int i=0; i<labels.length; i++)
+		{
+			key.put(labels[i], getValue(index, i));
+		}
+		
+		return key;
 	}
 	
 	public<T> T getKey(String name, Class<T> clazz)
@@ -65,19 +221,110 @@ public class DbKeyHolder
 	@SuppressWarnings("unchecked")
 	public<T> T getKey(int index, String name, Class<T> clazz)
 	{
-		return (T) keyList.get(index).get(name);
+		checkIndex(index);
+		
+		int column = findColumn(name);
+		if (column < 0) return null;
+		
+		// The integer keys are boxed to the requested type if it is another integer type
+		if (kinds[column] != OBJECT_COLUMN)
+		{
+			long key = longKeys[column][index];
+			
+			if (clazz == Long.class) return (T) Long.valueOf(key);
+			if (clazz == Integer.class)
+			{
+				if (key < Integer.MIN_VALUE || key > Integer.MAX_VALUE) throw new ClassCastException("Key [" + key + "] of column [" + labels[column] + "] does not fit in an Integer.");
+				
+				return (T) Integer.valueOf((int) key);
+			}
+		}
+		
+		return (T) getValue(index, column);
 	}
 
-	@SuppressWarnings("unchecked")
 	public<T> T getFirstKey(Class<T> clazz) 
 	{
-		try
+		if (size == 0 || labels.length == 0) return null;
+		
+		return getKey(0, labels[0], clazz);
+	}
+	
+	/**
+	 * Returns the keys of the first column of all the rows.
+	 * 
+	 * @return The keys, an empty array if there are none.
+	 * 
+	 * @throws IllegalStateException If any key is not a number.
+	 */
+	public long[] getLongKeys() throws IllegalStateException
+	{
+		return (size == 0 || labels.length == 0 ? new long[0] : getLongKeys(0));
+	}
+	
+	/**
+	 * Returns the keys of the column of all the rows.
+	 * 
+	 * @param name label of the column.
+	 * 
+	 * @return The keys, an empty array if there are none.
+	 * 
+	 * @throws IllegalArgumentException If there is no column with the label.
+	 * @throws IllegalStateException If any key is not a number.
+	 */
+	public long[] getLongKeys(String name) throws IllegalArgumentException, IllegalStateException
+	{
+		if (size == 0) return new long[0];
+		
+		int column = findColumn(name);
+		if (column < 0) throw new IllegalArgumentException("Column [" + name + "] does not exist.");
+		
+		return getLongKeys(column);
+	}
+	
+	private long[] getLongKeys(int column) throws IllegalStateException
+	{
+		if (kinds[column] != OBJECT_COLUMN) return Arrays.copyOf(longKeys[column], size);
+		
+		long[] keys = new long[size];
+		
+		for (int i=0; i<size; i++)
+		{
+			Object key = objectKeys[column][i];
+			
+			if (!(key instanceof Number)) throw new IllegalStateException("Key [" + key + "] of row [" + i + "] is not a number.");
+			
+			keys[i] = ((Number) key).longValue();
+		}
+		
+		return keys;
+	}
+	
+	private Object getValue(int index, int column)
+	{
+		return (kinds[column] != OBJECT_COLUMN ? box(kinds[column], longKeys[column][index]) : objectKeys[column][index]);
+	}
+	
+	private int findColumn(String name)
+	{
+		if (labels == null) return -1;
+		
+		for (int i=0; i<labels.length; i++)
 		{
-			return (T) keyList.get(0).entrySet().iterator().next().getValue();
+			if (labels[i].equals(name)) return i;
 		}
-		catch (Exception e)
+		
+		// The drivers differ in the case of the labels
+		for (int i=0; i<labels.length; i++)
 		{
-			return null;
+			if (labels[i].equalsIgnoreCase(name)) return i;
 		}
+		
+		return -1;
+	}
+	
+	private void checkIndex(int index)
+	{
+		if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index [" + index + "] is out of bounds.");
 	}
 }
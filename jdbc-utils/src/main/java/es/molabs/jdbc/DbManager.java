@@ -15,37 +15,104 @@
  */
 package es.molabs.jdbc;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 import javax.sql.DataSource;
 
-import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.commons.dbutils.handlers.ScalarHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import es.molabs.jdbc.cache.DbQueryCache;
+import es.molabs.jdbc.context.DbContext;
+import es.molabs.jdbc.context.ThreadLocalDbContext;
+import es.molabs.jdbc.dbutils.DbQueryRunner;
 import es.molabs.jdbc.exception.DbException;
+import es.molabs.jdbc.exception.DbParallelLoadException;
 import es.molabs.jdbc.exception.DbTransactionInProgressException;
+import es.molabs.jdbc.routing.DbReplicaRouter;
 
 public class DbManager
 {
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 	
-	private final static String THREAD_LOCAL_DBTRANSACTION = "t_l_dbTransaction";
+	/**
+	 * Max parameters of a statement in SQL Server, that allows 2100 but some are reserved by the driver.
+	 */
+	public final static int SQL_SERVER_MAX_STATEMENT_PARAMETERS = 2000;
+	
+	/**
+	 * Max parameters of a statement in the rest of the databases, the limit of the PostgreSQL protocol.
+	 */
+	public final static int DEFAULT_MAX_STATEMENT_PARAMETERS = 32767;
 		
-	private QueryRunner queryRunner = null;
+	private DbContext dbContext = null;
+	private DbQueryRunner queryRunner = null;
+	private DbReplicaRouter replicaRouter = null;
+	private DbQueryCache queryCache = null;
+	private int statementCacheSize;
+	private boolean trustConnectionDefaults;
+	private int maxStatementParameters;
+	private int databaseMaxStatementParameters;
+	private MultipleInsertSqlCache multipleInsertSqlCache = null;
 	private boolean initialized;
 	
 	public DbManager()
 	{
+		dbContext = new ThreadLocalDbContext();
+		statementCacheSize = 0;
+		trustConnectionDefaults = false;
+		maxStatementParameters = 0;
+		databaseMaxStatementParameters = 0;
+		multipleInsertSqlCache = new MultipleInsertSqlCache();
 		initialized = false;
 	}
 	
 	public void init(DataSource dataSource)
+	{
+		init(dataSource, new DbQueryOptions());
+	}
+	
+	/**
+	 * Initializes the manager.
+	 * 
+	 * @param dataSource to get the connections from.
+	 * @param defaultQueryOptions applied to the statements of the queries that do not specify their own options.
+	 */
+	public void init(DataSource dataSource, DbQueryOptions defaultQueryOptions)
+	{
+		init(dataSource, null, defaultQueryOptions);
+	}
+	
+	public void init(DbReplicaRouter replicaRouter)
+	{
+		init(replicaRouter, new DbQueryOptions());
+	}
+	
+	/**
+	 * Initializes the manager with read replicas. The read only transactions and the reads of the non transactional queries go to the 
+	 * replicas, the rest to the primary.
+	 * 
+	 * @param replicaRouter with the primary and the replicas.
+	 * @param defaultQueryOptions applied to the statements of the queries that do not specify their own options.
+	 */
+	public void init(DbReplicaRouter replicaRouter, DbQueryOptions defaultQueryOptions)
+	{
+		init(replicaRouter.getPrimary(), replicaRouter, defaultQueryOptions);
+	}
+	
+	private void init(DataSource dataSource, DbReplicaRouter replicaRouter, DbQueryOptions defaultQueryOptions)
 	{		
 		if (!initialized)
 		{
-			queryRunner = new QueryRunner(dataSource);
+			queryRunner = new DbQueryRunner(dataSource, defaultQueryOptions);
+			this.replicaRouter = replicaRouter;
 			
 			testConnection();			
 			
@@ -68,6 +135,9 @@ public class DbManager
 			initialized = false;
 			
 			queryRunner = null;
+			replicaRouter = null;
+			databaseMaxStatementParameters = 0;
+			multipleInsertSqlCache.clear();
 			
 			logger.info("Destroyed.");
 		}
@@ -87,7 +157,153 @@ public class DbManager
 		return (queryRunner != null ? queryRunner.getDataSource() : null);
 	}
 	
-	QueryRunner getQueryRunner()
+	/**
+	 * Returns the router of the reads to the replicas.
+	 * 
+	 * @return The router or null if the manager has no replicas.
+	 */
+	public DbReplicaRouter getReplicaRouter()
+	{
+		return replicaRouter;
+	}
+	
+	public DbQueryOptions getDefaultQueryOptions()
+	{
+		return (queryRunner != null ? queryRunner.getOptions() : null);
+	}
+	
+	public int getStatementCacheSize()
+	{
+		return statementCacheSize;
+	}
+	
+	/**
+	 * Sets how many prepared statements each transaction and session keeps open to reuse them while it is active. They are closed on commit,
+	 * rollback or when the session is closed.
+	 * 
+	 * @param statementCacheSize max number of statements per transaction or session, 0 disables the cache.
+	 */
+	public void setStatementCacheSize(int statementCacheSize)
+	{
+		if (statementCacheSize < 0) throw new IllegalArgumentException("Statement cache size can not be negative.");
+		
+		this.statementCacheSize = statementCacheSize;
+	}
+	
+	public boolean isTrustConnectionDefaults()
+	{
+		return trustConnectionDefaults;
+	}
+	
+	/**
+	 * Sets if the connections of the DataSource can be used without checking their state. Enable it only if the pool always returns 
+	 * connections in auto commit and read write mode, resetting the ones changed by a transaction when they are given back.
+	 * 
+	 * @param trustConnectionDefaults true to skip the checks, false to check the state of every connection.
+	 */
+	public void setTrustConnectionDefaults(boolean trustConnectionDefaults)
+	{
+		this.trustConnectionDefaults = trustConnectionDefaults;
+	}
+	
+	public DbQueryCache getQueryCache()
+	{
+		return queryCache;
+	}
+	
+	/**
+	 * Sets the cache of the results of the queries with cached options. The writes of every query of the manager invalidate it.
+	 * 
+	 * @param queryCache the cache or null to disable it.
+	 */
+	public void setQueryCache(DbQueryCache queryCache)
+	{
+		this.queryCache = queryCache;
+	}
+	
+	/**
+	 * Returns the max number of parameters of a statement, used to split the chunked multiple inserts. If it was not set it is 
+	 * resolved from the database product the first time.
+	 * 
+	 * @return The max parameters of a statement.
+	 * 
+	 * @throws DbException If the database product can not be read.
+	 */
+	public int getMaxStatementParameters() throws DbException
+	{
+		if (maxStatementParameters > 0) return maxStatementParameters;
+		
+		if (databaseMaxStatementParameters == 0)
+		{
+			databaseMaxStatementParameters = resolveMaxStatementParameters();
+		}
+		
+		return databaseMaxStatementParameters;
+	}
+	
+	/**
+	 * Sets the max number of parameters of a statement.
+	 * 
+	 * @param maxStatementParameters max parameters, 0 to resolve them from the database product.
+	 */
+	public void setMaxStatementParameters(int maxStatementParameters)
+	{
+		if (maxStatementParameters < 0) throw new IllegalArgumentException("Max statement parameters can not be negative.");
+		
+		this.maxStatementParameters = maxStatementParameters;
+	}
+	
+	/**
+	 * Executes a batch update splitting the rows in partitions that run at the same time in the common ForkJoinPool, each one with its 
+	 * own connection and transaction that is committed when the partition ends.
+	 * 
+	 * @param sql query to be executed.
+	 * @param arguments of each row.
+	 * @param partitions number of parts the rows are split in. The DataSource must be able to give a connection to each one at the same time.
+	 * 
+	 * @return The update counts of each row in input order.
+	 * 
+	 * @throws DbParallelLoadException If any partition fails, with the failure of each partition.
+	 */
+	public int[] executeParallelBatchUpdate(String sql, Object[][] arguments, int partitions) throws DbException
+	{
+		return executeParallelBatchUpdate(sql, arguments, partitions, ForkJoinPool.commonPool(), false);
+	}
+	
+	/**
+	 * Executes a batch update splitting the rows in partitions that run at the same time, each one with its own connection and transaction.
+	 * This must not be called with a transaction in progress since the partitions do not take part in it.
+	 * 
+	 * @param sql query to be executed.
+	 * @param arguments of each row.
+	 * @param partitions number of parts the rows are split in. The DataSource must be able to give a connection to each one at the same time.
+	 * @param executor that runs the partitions.
+	 * @param allOrNothing if true the partitions are committed only if all of them succeed, if false each one is committed when it ends.
+	 * 
+	 * @return The update counts of each row in input order.
+	 * 
+	 * @throws DbParallelLoadException If any partition fails, with the failure of each partition.
+	 */
+	public int[] executeParallelBatchUpdate(String sql, Object[][] arguments, int partitions, Executor executor, boolean allOrNothing) throws DbException
+	{
+		checkActiveDbTransaction();
+		
+		try
+		{
+			return new DbParallelLoader(this).executeBatchUpdate(sql, arguments, partitions, executor, allOrNothing);
+		}
+		finally
+		{
+			if (queryCache != null) queryCache.invalidate(sql);
+		}
+	}
+	
+	MultipleInsertSqlCache getMultipleInsertSqlCache()
+	{
+		return multipleInsertSqlCache;
+	}
+	
+	DbQueryRunner getQueryRunner()
 	{
 		return queryRunner;
 	}
@@ -105,25 +321,80 @@ public class DbManager
 	}
 	
 	/**
-	 * Returns a new DbNonTransaction. If there is a transaction already in progress this method will return that transaction instead.
+	 * Returns a new DbNonTransaction. If there is a transaction already in progress this method will return that transaction instead, 
+	 * and if there is an open session it will return the session.
 	 * 
-	 * @return A new DbNonTransaction or the in progress transaction.
+	 * @return A new DbNonTransaction, the in progress transaction or the open session.
 	 */
 	public DbQuery getDbNonTransaction() throws DbException 
+	{
+		return getDbNonTransaction(dbContext);
+	}
+	
+	/**
+	 * Returns a new DbNonTransaction. If there is a transaction already in progress in the context this method will return that transaction instead,
+	 * and if there is an open session in the context it will return the session.
+	 * 
+	 * @param dbContext where the transaction in progress and the open session are looked for.
+	 * 
+	 * @return A new DbNonTransaction, the in progress transaction or the open session.
+	 */
+	public DbQuery getDbNonTransaction(DbContext dbContext) throws DbException 
 	{
 		// Gets the active transaction
-		DbQuery dbQuery = getActiveDbTransaction();
+		DbQuery dbQuery = dbContext.getActiveDbTransaction();
+		
+		// If it does not exists the open session is used
+		if (dbQuery == null)
+		{
+			dbQuery = dbContext.getActiveDbSession();
+		}
 				
 		// If it does not exists
 		if (dbQuery == null)
 		{
 			// Creates a new non transactional query
-			dbQuery = newDbNonTransaction();
+			dbQuery = new DbNonTransaction(this);
 		}
 				
 		return dbQuery;
 	}
 	
+	/**
+	 * Opens a DbSession bound to the default context, that getDbNonTransaction returns until it is closed so consecutive queries share 
+	 * one connection. If there is a session already open this method will return that session instead, that must be closed too.
+	 * 
+	 * @return A new DbSession or the open session.
+	 */
+	public DbSession getDbSession() throws DbException
+	{
+		return getDbSession(dbContext);
+	}
+	
+	/**
+	 * Opens a DbSession bound to the context, that getDbNonTransaction returns until it is closed so consecutive queries share one 
+	 * connection. If there is a session already open in the context this method will return that session instead, that must be closed too.
+	 * 
+	 * @param dbContext where the open session is looked for and the new one is bound.
+	 * 
+	 * @return A new DbSession or the open session.
+	 */
+	public DbSession getDbSession(DbContext dbContext) throws DbException
+	{
+		DbSession session = dbContext.getActiveDbSession();
+		
+		if (session != null)
+		{
+			session.open();
+		}
+		else
+		{
+			session = new DbSession(this, dbContext);
+		}
+		
+		return session;
+	}
+	
 	/**
 	 * Returns a new read only DbTransaction. If there is a transaction already in progress this method will return that transaction instead.
 	 * 
@@ -131,7 +402,19 @@ public class DbManager
 	 */
 	public DbTransaction getReadOnlyDbTransaction() throws DbException 
 	{
-		return getDbTransaction(true);
+		return getDbTransaction(dbContext, true);
+	}
+	
+	/**
+	 * Returns a new read only DbTransaction bound to the context. If there is a transaction already in progress in the context this method will return that transaction instead.
+	 * 
+	 * @param dbContext where the transaction in progress is looked for and the new one is bound.
+	 * 
+	 * @return A new read only DbTransaction or the in progress transaction.
+	 */
+	public DbTransaction getReadOnlyDbTransaction(DbContext dbContext) throws DbException 
+	{
+		return getDbTransaction(dbContext, true);
 	}
 	
 	/**
@@ -141,59 +424,82 @@ public class DbManager
 	 */
 	public DbTransaction getDbTransaction() throws DbException
 	{
-		return getDbTransaction(false);
+		return getDbTransaction(dbContext, false);
+	}
+	
+	/**
+	 * Returns a new DbTransaction bound to the context. If there is a transaction already in progress in the context this method will return that transaction instead.
+	 * 
+	 * @param dbContext where the transaction in progress is looked for and the new one is bound.
+	 * 
+	 * @return A new DbTransaction or the in progress transaction.
+	 */
+	public DbTransaction getDbTransaction(DbContext dbContext) throws DbException
+	{
+		return getDbTransaction(dbContext, false);
 	}
 	
-	private DbTransaction getDbTransaction(boolean readOnly) throws DbException
+	private DbTransaction getDbTransaction(DbContext dbContext, boolean readOnly) throws DbException
 	{
 		// Gets the current active transaction
-		DbTransaction transaction = getActiveDbTransaction();
+		DbTransaction transaction = dbContext.getActiveDbTransaction();
 				
 		// If it not exists
 		if (transaction == null)
 		{
 			// Creates a new transaction
-			transaction = newDbTransaction(readOnly);
+			transaction = new DbTransaction(this, readOnly, dbContext);
 		}
 		
 		// Returns the transaction
 		return transaction;
 	}	
 	
-	private DbNonTransaction newDbNonTransaction()
-	{	
-		checkActiveDbTransaction();
-		
-		return new DbNonTransaction(this);
+	/**
+	 * Returns a DbAsyncQuery that runs the queries of this manager in the executor.
+	 * 
+	 * @param executor that runs the queries, platform or virtual threads.
+	 * @param maxPending queries queued or running at the same time, usually the connections of the DataSource.
+	 * 
+	 * @return A new DbAsyncQuery.
+	 */
+	public DbAsyncQuery getDbAsyncQuery(Executor executor, int maxPending)
+	{
+		return new DbAsyncQuery(this, executor, maxPending);
 	}
 	
-	private DbTransaction newDbTransaction(boolean readOnly)
+	/**
+	 * Returns the context used by the methods that do not receive one.
+	 * 
+	 * @return The default context.
+	 */
+	public DbContext getDbContext()
 	{
-		checkActiveDbTransaction();
-		
-		return new DbTransaction(this, readOnly);
+		return dbContext;
 	}
 	
-	void setActiveDbTransaction(DbTransaction dbTransaction) 
+	/**
+	 * Sets the context used by the methods that do not receive one. It must not be changed with transactions in progress.
+	 * 
+	 * @param dbContext the default context, a ThreadLocalDbContext unless it is changed.
+	 */
+	public void setDbContext(DbContext dbContext)
 	{
-		ThreadLocalUtils.setThreadLocalAttribute(THREAD_LOCAL_DBTRANSACTION, dbTransaction);
+		if (dbContext == null) throw new IllegalArgumentException("Context can not be null.");
+		
+		this.dbContext = dbContext;
 	}
-
+	
 	DbTransaction getActiveDbTransaction() 
 	{
-		return ThreadLocalUtils.getThreadLocalAttribute(THREAD_LOCAL_DBTRANSACTION, DbTransaction.class);
-	}
-
-	void clearActiveDbTransaction() 
-	{
-		setActiveDbTransaction(null);
+		return dbContext.getActiveDbTransaction();
 	}
 	
 	void cancelTransaction() 
 	{
 		DbTransaction transaction = getActiveDbTransaction();
 		
-		// If there is a transaction in progress in the current thread
+		// If there is a transaction in progress in the default context
 		if (transaction != null)
 		{
 			try
@@ -206,9 +512,47 @@ public class DbManager
 		}
 	}
 	
+	private int resolveMaxStatementParameters() throws DbException
+	{
+		Connection connection = null;
+		
+		try
+		{
+			connection = getDataSource().getConnection();
+			
+			String productName = connection.getMetaData().getDatabaseProductName();
+			
+			return (productName != null && productName.contains("SQL Server") ? SQL_SERVER_MAX_STATEMENT_PARAMETERS : DEFAULT_MAX_STATEMENT_PARAMETERS);
+		}
+		catch (SQLException SQLe)
+		{
+			throw new DbException(SQLe);
+		}
+		finally
+		{
+			DbUtils.closeQuietly(connection);
+		}
+	}
+	
 	private void testConnection()
 	{
-		getDbNonTransaction().getField(Integer.class, "SELECT 1");
+		// Only the primary is tested, the replicas are left out while they fail
+		Connection connection = null;
+		
+		try
+		{
+			connection = getDataSource().getConnection();
+			
+			queryRunner.query(connection, "SELECT 1", new ScalarHandler<Object>());
+		}
+		catch (SQLException SQLe)
+		{
+			throw new DbException(SQLe);
+		}
+		finally
+		{
+			DbUtils.closeQuietly(connection);
+		}
 	}
 	
 	private void checkActiveDbTransaction()
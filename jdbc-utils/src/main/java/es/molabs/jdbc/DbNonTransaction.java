@@ -20,6 +20,7 @@ import java.sql.SQLException;
 
 import es.molabs.jdbc.DbNonTransaction;
 import es.molabs.jdbc.exception.DbException;
+import es.molabs.jdbc.routing.DbReplicaRouter;
 
 public class DbNonTransaction extends DbQuery
 {
@@ -30,9 +31,35 @@ public class DbNonTransaction extends DbQuery
 
 	protected Connection getConnection() throws SQLException
 	{
-		Connection connection = getQueryRunner().getDataSource().getConnection();
-		connection.setAutoCommit(true);
-		connection.setReadOnly(false);
+		return configure(getQueryRunner().getDataSource().getConnection());
+	}
+	
+	protected Connection getReadConnection() throws SQLException
+	{
+		DbReplicaRouter replicaRouter = getDbManager().getReplicaRouter();
+		
+		// Without replicas the reads go to the primary too
+		if (replicaRouter == null) return getConnection();
+		
+		return configure(replicaRouter.getReadConnection());
+	}
+	
+	private Connection configure(Connection connection) throws SQLException
+	{
+		// A trusted pool already returns connections in auto commit and read write mode
+		if (!getDbManager().isTrustConnectionDefaults())
+		{
+			try
+			{
+				configureConnection(connection, true, false);
+			}
+			catch (SQLException SQLe)
+			{
+				closeConnection(connection);
+				
+				throw SQLe;
+			}
+		}
 		
 		return connection;
 	}
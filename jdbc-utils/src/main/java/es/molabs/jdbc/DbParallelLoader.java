@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.dbutils.DbUtils;
+
+import es.molabs.jdbc.dbutils.DbQueryRunner;
+import es.molabs.jdbc.exception.DbException;
+import es.molabs.jdbc.exception.DbParallelLoadException;
+
+/**
+ * Splits the rows of a batch update in partitions that are executed at the same time, each one with its own connection and transaction.
+ */
+class DbParallelLoader 
+{
+	private final DbManager dbManager;
+	private final DbQueryRunner queryRunner;
+	
+	DbParallelLoader(DbManager dbManager)
+	{
+		this.dbManager = dbManager;
+		
+		queryRunner = dbManager.getQueryRunner();
+	}
+	
+	/**
+	 * Executes the batch update.
+	 * 
+	 * @param sql query to be executed.
+	 * @param arguments of each row.
+	 * @param partitions number of parts the rows are split in, one connection each.
+	 * @param executor that runs the partitions.
+	 * @param allOrNothing if true the partitions are only committed if all of them succeed, if false each one is committed when it ends.
+	 * 
+	 * @return The update counts of each row in input order.
+	 * 
+	 * @throws DbParallelLoadException If any partition fails.
+	 */
+	int[] executeBatchUpdate(String sql, Object[][] arguments, int partitions, Executor executor, boolean allOrNothing) throws DbException
+	{
+		if (partitions < 1) throw new IllegalArgumentException("Partitions must be greater than 0.");
+		
+		int[] results = new int[arguments.length];
+		
+		// There can not be more partitions than rows
+		partitions = Math.max(1, Math.min(partitions, arguments.length));
+		
+		List<CompletableFuture<Connection>> futures = new ArrayList<CompletableFuture<Connection>>(partitions);
+		
+		for (int i=0; i<partitions; i++)
+		{
+			final int from = (int) ((long) arguments.length * i / partitions);
+			final int to = (int) ((long) arguments.length * (i + 1) / partitions);
+			
+			try
+			{
+				futures.add(CompletableFuture.supplyAsync(() -> executePartition(sql, arguments, from, to, results, !allOrNothing), executor));
+			}
+			catch (RejectedExecutionException REe)
+			{
+				// The partition fails but the ones already submitted must still be waited for
+				CompletableFuture<Connection> failed = new CompletableFuture<Connection>();
+				failed.completeExceptionally(REe);
+				
+				futures.add(failed);
+			}
+		}
+		
+		// Waits for all the partitions
+		Map<Integer, Throwable> failures = new TreeMap<Integer, Throwable>();
+		Connection[] connections = new Connection[partitions];
+		
+		for (int i=0; i<partitions; i++)
+		{
+			try
+			{
+				connections[i] = futures.get(i).join();
+			}
+			catch (CompletionException Ce)
+			{
+				failures.put(i, Ce.getCause());
+				
+				fillFailed(results, arguments.length, i, partitions);
+			}
+		}
+		
+		boolean rolledBack = false;
+		
+		if (allOrNothing)
+		{
+			rolledBack = finishAllOrNothing(connections, failures, results, arguments.length, partitions);
+		}
+		
+		if (!failures.isEmpty()) throw new DbParallelLoadException(failures, results, rolledBack);
+		
+		return results;
+	}
+	
+	/**
+	 * Executes the rows from-to with a new connection and stores their update counts in results.
+	 * 
+	 * @return The connection if it was not committed, null otherwise.
+	 */
+	private Connection executePartition(String sql, Object[][] arguments, int from, int to, int[] results, boolean commit)
+	{
+		Connection connection = null;
+		
+		try
+		{
+			connection = dbManager.getDataSource().getConnection();
+			connection.setAutoCommit(false);
+			
+			if (!dbManager.isTrustConnectionDefaults() && connection.isReadOnly()) connection.setReadOnly(false);
+			
+			int[] partitionResults = queryRunner.batch(connection, sql, Arrays.copyOfRange(arguments, from, to));
+			
+			if (commit)
+			{
+				DbUtils.commitAndClose(connection);
+				connection = null;
+			}
+			
+			// Each partition writes its own range so no synchronization is needed
+			System.arraycopy(partitionResults, 0, results, from, partitionResults.length);
+			
+			return connection;
+		}
+		catch (Exception e)
+		{
+			DbUtils.rollbackAndCloseQuietly(connection);
+			
+			throw new CompletionException(e);
+		}
+	}
+	
+	/**
+	 * Commits all the connections if there are no failures or rolls them back otherwise. If a commit fails the connections after it are rolled back.
+	 * 
+	 * @return true if no connection was committed.
+	 */
+	private boolean finishAllOrNothing(Connection[] connections, Map<Integer, Throwable> failures, int[] results, int rows, int partitions)
+	{
+		boolean commit = failures.isEmpty();
+		boolean committed = false;
+		
+		for (int i=0; i<connections.length; i++)
+		{
+			if (connections[i] == null) continue;
+			
+			try
+			{
+				if (commit)
+				{
+					DbUtils.commitAndClose(connections[i]);
+					committed = true;
+				}
+				else DbUtils.rollbackAndClose(connections[i]);
+			}
+			catch (SQLException SQLe)
+			{
+				failures.put(i, SQLe);
+				
+				DbUtils.closeQuietly(connections[i]);
+				
+				fillFailed(results, rows, i, partitions);
+				
+				// There is no two phase commit so the previous partitions stay committed but the rest are not
+				commit = false;
+			}
+			
+			if (!commit) fillFailed(results, rows, i, partitions);
+		}
+		
+		return !committed;
+	}
+	
+	private void fillFailed(int[] results, int rows, int partition, int partitions)
+	{
+		int from = (int) ((long) rows * partition / partitions);
+		int to = (int) ((long) rows * (partition + 1) / partitions);
+		
+		Arrays.fill(results, from, to, Statement.EXECUTE_FAILED);
+	}
+}
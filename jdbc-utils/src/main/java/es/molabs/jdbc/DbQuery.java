@@ -15,36 +15,86 @@
  */
 package es.molabs.jdbc;
 
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.dbutils.DbUtils;
-import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.ResultSetHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import es.molabs.jdbc.cache.DbCacheKey;
+import es.molabs.jdbc.cache.DbQueryCache;
+import es.molabs.jdbc.columnar.DbColumnarHandler;
+import es.molabs.jdbc.columnar.DbColumnarResult;
+import es.molabs.jdbc.dbutils.DbQueryRunner;
+import es.molabs.jdbc.dbutils.DbStatementCache;
+import es.molabs.jdbc.dbutils.DoubleArrayHandler;
 import es.molabs.jdbc.dbutils.GeneratedKeysHandler;
+import es.molabs.jdbc.dbutils.IntArrayHandler;
+import es.molabs.jdbc.dbutils.LongArrayHandler;
 import es.molabs.jdbc.dbutils.MultipleRowHandler;
 import es.molabs.jdbc.dbutils.ResultSetMetaDataHandler;
 import es.molabs.jdbc.dbutils.SingleRowHandler;
 import es.molabs.jdbc.exception.DbException;
 import es.molabs.jdbc.handler.DbMetaDataHandler;
 import es.molabs.jdbc.mapper.DbMultipleInsertMapper;
+import es.molabs.jdbc.mapper.DbRowBinder;
 import es.molabs.jdbc.mapper.DbRowMapper;
+import es.molabs.jdbc.mapper.DbRowMapperUtils;
 import es.molabs.jdbc.mapper.FieldRowMapper;
 
 public abstract class DbQuery
 {
+	/**
+	 * Fetch size used by the streaming methods when none is given.
+	 */
+	public final static int DEFAULT_STREAM_FETCH_SIZE = 1000;
+	
 	private Logger logger = LoggerFactory.getLogger(getClass());
 	
 	private DbManager dbManager = null;
-	private QueryRunner queryRunner = null;
+	private DbQueryRunner queryRunner = null;
 	
 	DbQuery(DbManager dbManager)
+	{
+		this(dbManager, null);
+	}
+	
+	/**
+	 * Creates a query whose statements are taken from and given back to the cache.
+	 * 
+	 * @param dbManager that creates the query.
+	 * @param statementCache for the statements or null to disable it.
+	 */
+	DbQuery(DbManager dbManager, DbStatementCache statementCache)
 	{
 		this.dbManager = dbManager;
-		this.queryRunner = dbManager.getQueryRunner();
+		
+		DbQueryRunner managerQueryRunner = dbManager.getQueryRunner();
+		
+		if (statementCache != null)
+		{
+			this.queryRunner = new DbQueryRunner(managerQueryRunner.getDataSource(), managerQueryRunner.getOptions(), statementCache);
+		}
+		else
+		{
+			this.queryRunner = managerQueryRunner;
+		}
 	}
 	
 	protected DbManager getDbManager()
@@ -52,11 +102,36 @@ public abstract class DbQuery
 		return dbManager;
 	}
 	
-	protected QueryRunner getQueryRunner()
+	protected DbQueryRunner getQueryRunner()
 	{
 		return queryRunner;
 	}
 	
+	/**
+	 * Returns the QueryRunner that applies the given options to its statements.
+	 * 
+	 * @param options for the statements.
+	 * 
+	 * @return The QueryRunner for the options.
+	 */
+	protected DbQueryRunner getQueryRunner(DbQueryOptions options)
+	{
+		// The default options are already applied by the shared runner
+		if (options == queryRunner.getOptions()) return queryRunner;
+		
+		return new DbQueryRunner(queryRunner.getDataSource(), options, queryRunner.getStatementCache());
+	}
+	
+	/**
+	 * Returns the options used when a method is called without them.
+	 * 
+	 * @return The default options of the DbManager.
+	 */
+	public DbQueryOptions getDefaultQueryOptions()
+	{
+		return queryRunner.getOptions();
+	}
+	
 	/**
 	 * Returns a single element, if there is more than one element after executing the this method will return the first one. If the query returns no elements this will return null.
 	 * 
@@ -71,14 +146,37 @@ public abstract class DbQuery
 	 */
 	public <T> T getField(Class<T> clazz, String sql, Object... arguments) throws DbException 
 	{
+		return getField(getDefaultQueryOptions(), clazz, sql, arguments);
+	}
+	
+	/**
+	 * Returns a single element, if there is more than one element after executing the this method will return the first one. If the query returns no elements this will return null.
+	 * 
+	 * @param <T> generic type of the return value.
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param clazz class of the return value.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query. 
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public <T> T getField(DbQueryOptions options, Class<T> clazz, String sql, Object... arguments) throws DbException 
+	{
+		DbQueryCache queryCache = getQueryCache(options);
+		
+		// The result is read without the cache when it is not cached yet
+		if (queryCache != null) return queryCache.get(new DbCacheKey(clazz, false, options.getMaxRows(), sql, arguments), () -> getField(options.withCached(false), clazz, sql, arguments));
+		
 		T field = null;
 		Connection connection = null;
 		
 		try 
 		{
-			connection = getConnection();
+			connection = getReadConnection();
 			
-			field = queryRunner.query(connection, sql, new SingleRowHandler<T>(new FieldRowMapper<T>()), arguments);
+			field = getQueryRunner(options).query(connection, sql, new SingleRowHandler<T>(new FieldRowMapper<T>()), arguments);
 		} 
 		catch (Exception e)
 		{
@@ -106,34 +204,15 @@ public abstract class DbQuery
 	 */
 	public <T> List<T> getFieldList(Class<T> clazz, String sql, Object... arguments) throws DbException 
 	{
-		List<T> fieldList = null;
-		Connection connection = null;
-		
-		try 
-		{
-			connection = getConnection();
-			
-			fieldList = queryRunner.query(connection, sql, new MultipleRowHandler<T>(new FieldRowMapper<T>()), arguments);
-		} 
-		catch (Exception e)
-		{
-			handleException(e);
-		}
-		finally
-		{
-			if (closeAfter()) closeConnection(connection);
-		}
-		
-		return fieldList;
+		return getFieldList(clazz, 0, sql, arguments);
 	}
 	
 	/**
-	 * Returns a single element, if there is more than one element after executing the this method will return the first one. If the query returns no elements this will return null.
+	 * Returns a List of elements. If the element does not exists it will return null. If the query returns no elements this will return null.
 	 * 
-	 * @param <S> generic DbRowMapper type.
 	 * @param <T> generic type of the return value.
-	 *
-	 * @param dbRowMapper for the resulting object.
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param clazz class of the return value.
 	 * @param sql query to execute. Same format that PreparedStatement.
 	 * @param arguments for the SQL Query.
 	 * 
@@ -141,86 +220,57 @@ public abstract class DbQuery
 	 * 
 	 * @throws DbException If a database error is throw.
 	 */
-	public<S extends DbRowMapper<T>, T> T getObject(S dbRowMapper, String sql, Object...arguments) throws DbException
+	public <T> List<T> getFieldList(DbQueryOptions options, Class<T> clazz, String sql, Object... arguments) throws DbException 
 	{
-		T object = null;
-		Connection connection = null;
-		
-		try
-		{
-			connection = getConnection();
-			
-			object = queryRunner.query(connection, sql, new SingleRowHandler<T>(dbRowMapper), arguments);
-		} 
-		catch (Exception e)
-		{
-			handleException(e);
-		}
-		finally
-		{
-			if (closeAfter()) closeConnection(connection);
-		}
-		
-		return object;
+		return getFieldList(options, clazz, 0, sql, arguments);
 	}
 	
 	/**
-	 * Returns a List of elements.
+	 * Returns a List of elements pre-sized for the expected number of rows. If the query returns no elements this will return null.
 	 * 
- 	 * @param <S> generic DbRowMapper type.
 	 * @param <T> generic type of the return value.
-	 * 
-	 * @param dbRowMapper for the resulting object.
-	 * @param sql query to execute. Same format that PreparedStatement. If the query returns no elements this will return null.
+	 * @param clazz class of the return value.
+	 * @param expectedRows hint for the initial capacity of the list. If it is not greater than 0 the list grows from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
 	 * @param arguments for the SQL Query.
 	 * 
 	 * @return The result if any or null.
 	 * 
 	 * @throws DbException If a database error is throw.
 	 */
-	public<S extends DbRowMapper<T>, T> List<T> getObjectList(S dbRowMapper, String sql, Object...arguments) throws DbException
+	public <T> List<T> getFieldList(Class<T> clazz, int expectedRows, String sql, Object... arguments) throws DbException 
 	{
-		List<T> objectList = null;
-		Connection connection = null;
-		
-		try
-		{
-			connection = getConnection();
-			
-			objectList = queryRunner.query(connection, sql, new MultipleRowHandler<T>(dbRowMapper), arguments);
-		} 
-		catch (Exception e)
-		{
-			handleException(e);
-		}
-		finally
-		{
-			if (closeAfter()) closeConnection(connection);
-		}
-		
-		return objectList;
+		return getFieldList(getDefaultQueryOptions(), clazz, expectedRows, sql, arguments);
 	}
 	
 	/**
-	 * Executes the SQL statement.
+	 * Returns a List of elements pre-sized for the expected number of rows. If the query returns no elements this will return null.
 	 * 
-	 * @param sql query to be executed.
-	 * @param arguments for the query as in PreparedStatement.
+	 * @param <T> generic type of the return value.
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param clazz class of the return value.
+	 * @param expectedRows hint for the initial capacity of the list. If it is not greater than 0 the list grows from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
 	 * 
-	 * @return Either (1) the row count for SQL Data Manipulation Language (DML) statements or (2) 0 for SQL statements that return nothing
+	 * @return The result if any or null.
 	 * 
 	 * @throws DbException If a database error is throw.
 	 */
-	public int executeUpdate(String sql, Object...arguments) throws DbException
+	public <T> List<T> getFieldList(DbQueryOptions options, Class<T> clazz, int expectedRows, String sql, Object... arguments) throws DbException 
 	{
-		int result = 0;
+		DbQueryCache queryCache = getQueryCache(options);
+		
+		if (queryCache != null) return queryCache.get(new DbCacheKey(clazz, true, options.getMaxRows(), sql, arguments), () -> unmodifiableList(getFieldList(options.withCached(false), clazz, expectedRows, sql, arguments)));
+		
+		List<T> fieldList = null;
 		Connection connection = null;
 		
 		try 
 		{
-			connection = getConnection();
+			connection = getReadConnection();
 			
-			result = queryRunner.update(connection, sql, arguments);
+			fieldList = getQueryRunner(options).query(connection, sql, new MultipleRowHandler<T>(new FieldRowMapper<T>(), expectedRows), arguments);
 		} 
 		catch (Exception e)
 		{
@@ -231,176 +281,1718 @@ public abstract class DbQuery
 			if (closeAfter()) closeConnection(connection);
 		}
 		
-		return result;
+		return fieldList;
 	}
 	
-	 /**
-     * Execute a batch of SQL INSERT, UPDATE, or DELETE queries.
-     *
-     * @param sql query to be executed.
-     * @param arguments An array of query replacement parameters. Each row in this array is one set of batch replacement values.
-     * 
-     * @return The number of rows updated per statement.
-     * 
-     * @throws DbException If a database error is throw.
-     */
-	public int[] executeBatchUpdate(String sql, Object[][] arguments) throws DbException
-	{
-		int[] result = null;
-		Connection connection = null;
-		
-		try
-		{
-			connection = getConnection();
-			
-			result = queryRunner.batch(connection, sql, arguments);
-		}
-		catch (Exception e)
-		{
-			handleException(e);
-		}
-		finally
-		{
-			if (closeAfter()) closeConnection(connection);
-		}
-		
-		return result;
-	}	
-	
 	/**
-	 * Executes the SQL statement.
+	 * Returns the first column of every row as an array of int, read without boxing. If the query returns no elements this will return null.
 	 * 
-	 * @param sql query to be executed.
-	 * @param arguments for the query as in PreparedStatement.
+	 * @param nullPolicy for the NULL values.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
 	 * 
-	 * @return The DbKeyHolder with the returned keys.
+	 * @return The result if any or null.
 	 * 
-	 * @throws DbException If a database error is throw.
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
 	 */
-	public DbKeyHolder executeUpdateWithKeys(String sql, Object...arguments) throws DbException
-	{
-		DbKeyHolder keyHolder = null;
-		Connection connection = null;
-		
-		try
-		{
-			connection = getConnection();
-			
-			keyHolder = queryRunner.insert(connection, sql, GeneratedKeysHandler.getInstance(), arguments);
-		}
-		catch (Exception e)
-		{
-			handleException(e);
-		}
-		finally
-		{
-			if (closeAfter()) closeConnection(connection);
-		}
-		
-		return keyHolder;
-	}	
-	
-	public<H extends DbMetaDataHandler> H getResultSetMetaData(H handler, String sql, Object...arguments) throws DbException
+	public int[] getIntArray(DbNullPolicy nullPolicy, String sql, Object... arguments) throws DbException 
 	{
-		Connection connection = null;
-		
-		try
-		{
-			connection = getConnection();
-			
-			queryRunner.query(connection, sql, new ResultSetMetaDataHandler(handler), arguments);
-		}
-		catch (Exception e)
-		{
-			handleException(e);
-		}
-		finally
-		{
-			if (closeAfter()) closeConnection(connection);
-		}
-		
-		return handler;
+		return getIntArray(getDefaultQueryOptions(), nullPolicy, 0, sql, arguments);
 	}
 	
 	/**
-	 * Executes a multiple value INSERT SQL statement with starting group 0.
+	 * Returns the first column of every row as an array of int, read without boxing. If the query returns no elements this will return null.
 	 * 
-	 * @param sql query to be executed.
-	 * @param dbMultipleInsertMapper for query's arguments.
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param nullPolicy for the NULL values.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
 	 * 
-	 * @return Either (1) the row count for SQL Data Manipulation Language (DML) statements or (2) 0 for SQL statements that return nothing
+	 * @return The result if any or null.
 	 * 
-	 * @throws DbException If a database error is throw.
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
 	 */
-	public int multipleInsert(String sql, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	public int[] getIntArray(DbQueryOptions options, DbNullPolicy nullPolicy, String sql, Object... arguments) throws DbException 
 	{
-		return multipleInsert(sql, 0, dbMultipleInsertMapper);
+		return getIntArray(options, nullPolicy, 0, sql, arguments);
 	}
 	
 	/**
-	 * Executes a multiple value INSERT SQL statement.
+	 * Returns the first column of every row as an array of int, read without boxing and pre-sized for the expected number of rows. If the query returns no elements this will return null.
 	 * 
-	 * @param sql query to be executed.
-	 * @param startingGroup of the dbMultiplePreparedStatementSetter to build the SQL query.
-	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * @param nullPolicy for the NULL values.
+	 * @param expectedRows hint for the initial capacity of the array. If it is not greater than 0 the array grows from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
 	 * 
-	 * @return Either (1) the row count for SQL Data Manipulation Language (DML) statements or (2) 0 for SQL statements that return nothing
+	 * @return The result if any or null.
 	 * 
-	 * @throws DbException If a database error is throw.
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
 	 */
-	public int multipleInsert(String sql, int startingGroup, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	public int[] getIntArray(DbNullPolicy nullPolicy, int expectedRows, String sql, Object... arguments) throws DbException 
 	{
-		// If there is no groups there is nothing to insert
-		if (dbMultipleInsertMapper.getValueGroups() < 1) return 0;
-		
-		// SQL builder
-		StringBuilder sqlBuilder = new StringBuilder(sql);
-		
-		boolean first = (startingGroup == 0 ? true : false);
-		
-		// For each VALUES group
-		for (int i=startingGroup; i<dbMultipleInsertMapper.getValueGroups(); i++)
-		{
-			multipleInsertValues(first, sqlBuilder, dbMultipleInsertMapper.getFieldsToInsert());
-			
-			if (first) first = false;
-		}
-		
-		// Executes the query
-		return executeUpdate(sqlBuilder.toString(), dbMultipleInsertMapper.getValues());
+		return getIntArray(getDefaultQueryOptions(), nullPolicy, expectedRows, sql, arguments);
 	}
 	
 	/**
-	 * This methods adds groups of (?, ?, ..., values) to the StringBuilder.
+	 * Returns the first column of every row as an array of int, read without boxing and pre-sized for the expected number of rows. If the query returns no elements this will return null.
 	 * 
-	 * @param isFirst if is the first group. If true will not add a ',' to the start of the String.
-	 * @param sql with the final string.
-	 * @param values number of ? to add.
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param nullPolicy for the NULL values.
+	 * @param expectedRows hint for the initial capacity of the array. If it is not greater than 0 the array grows from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
 	 * 
-	 * @return The StringBuilder with the needed characters added.
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
 	 */
-	private StringBuilder multipleInsertValues(boolean isFirst, StringBuilder sql, int values)
+	public int[] getIntArray(DbQueryOptions options, DbNullPolicy nullPolicy, int expectedRows, String sql, Object... arguments) throws DbException 
 	{
-		// If its not the first element added to the insert VALUES
-		if (!isFirst) sql.append(",");
-		
-		sql.append("(");
-		
-		for (int i=0; i<values; i++)
-		{
-			sql.append("?");
-			
-			// If its not the last value
-			if (i + 1 < values) sql.append(", ");
-		}
-		
-		sql.append(")");
-		
-		return sql;
+		return getResult(options, new IntArrayHandler(nullPolicy, expectedRows), sql, arguments);
 	}
 	
-	private void closeConnection(Connection connection)
-	{
+	/**
+	 * Returns the first column of every row as an array of long, read without boxing. If the query returns no elements this will return null.
+	 * 
+	 * @param nullPolicy for the NULL values.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
+	 */
+	public long[] getLongArray(DbNullPolicy nullPolicy, String sql, Object... arguments) throws DbException 
+	{
+		return getLongArray(getDefaultQueryOptions(), nullPolicy, 0, sql, arguments);
+	}
+	
+	/**
+	 * Returns the first column of every row as an array of long, read without boxing. If the query returns no elements this will return null.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param nullPolicy for the NULL values.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
+	 */
+	public long[] getLongArray(DbQueryOptions options, DbNullPolicy nullPolicy, String sql, Object... arguments) throws DbException 
+	{
+		return getLongArray(options, nullPolicy, 0, sql, arguments);
+	}
+	
+	/**
+	 * Returns the first column of every row as an array of long, read without boxing and pre-sized for the expected number of rows. If the query returns no elements this will return null.
+	 * 
+	 * @param nullPolicy for the NULL values.
+	 * @param expectedRows hint for the initial capacity of the array. If it is not greater than 0 the array grows from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
+	 */
+	public long[] getLongArray(DbNullPolicy nullPolicy, int expectedRows, String sql, Object... arguments) throws DbException 
+	{
+		return getLongArray(getDefaultQueryOptions(), nullPolicy, expectedRows, sql, arguments);
+	}
+	
+	/**
+	 * Returns the first column of every row as an array of long, read without boxing and pre-sized for the expected number of rows. If the query returns no elements this will return null.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param nullPolicy for the NULL values.
+	 * @param expectedRows hint for the initial capacity of the array. If it is not greater than 0 the array grows from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
+	 */
+	public long[] getLongArray(DbQueryOptions options, DbNullPolicy nullPolicy, int expectedRows, String sql, Object... arguments) throws DbException 
+	{
+		return getResult(options, new LongArrayHandler(nullPolicy, expectedRows), sql, arguments);
+	}
+	
+	/**
+	 * Returns the first column of every row as an array of double, read without boxing. If the query returns no elements this will return null.
+	 * 
+	 * @param nullPolicy for the NULL values.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
+	 */
+	public double[] getDoubleArray(DbNullPolicy nullPolicy, String sql, Object... arguments) throws DbException 
+	{
+		return getDoubleArray(getDefaultQueryOptions(), nullPolicy, 0, sql, arguments);
+	}
+	
+	/**
+	 * Returns the first column of every row as an array of double, read without boxing. If the query returns no elements this will return null.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param nullPolicy for the NULL values.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
+	 */
+	public double[] getDoubleArray(DbQueryOptions options, DbNullPolicy nullPolicy, String sql, Object... arguments) throws DbException 
+	{
+		return getDoubleArray(options, nullPolicy, 0, sql, arguments);
+	}
+	
+	/**
+	 * Returns the first column of every row as an array of double, read without boxing and pre-sized for the expected number of rows. If the query returns no elements this will return null.
+	 * 
+	 * @param nullPolicy for the NULL values.
+	 * @param expectedRows hint for the initial capacity of the array. If it is not greater than 0 the array grows from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
+	 */
+	public double[] getDoubleArray(DbNullPolicy nullPolicy, int expectedRows, String sql, Object... arguments) throws DbException 
+	{
+		return getDoubleArray(getDefaultQueryOptions(), nullPolicy, expectedRows, sql, arguments);
+	}
+	
+	/**
+	 * Returns the first column of every row as an array of double, read without boxing and pre-sized for the expected number of rows. If the query returns no elements this will return null.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param nullPolicy for the NULL values.
+	 * @param expectedRows hint for the initial capacity of the array. If it is not greater than 0 the array grows from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw or a value is NULL with the FAIL policy.
+	 */
+	public double[] getDoubleArray(DbQueryOptions options, DbNullPolicy nullPolicy, int expectedRows, String sql, Object... arguments) throws DbException 
+	{
+		return getResult(options, new DoubleArrayHandler(nullPolicy, expectedRows), sql, arguments);
+	}
+	
+	/**
+	 * Returns the result stored by columns, numeric columns in primitive arrays and strings encoded with a dictionary. If the query returns no elements this will return null.
+	 * 
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbColumnarResult getColumnar(String sql, Object... arguments) throws DbException 
+	{
+		return getColumnar(getDefaultQueryOptions(), 0, sql, arguments);
+	}
+	
+	/**
+	 * Returns the result stored by columns, numeric columns in primitive arrays and strings encoded with a dictionary. If the query returns no elements this will return null.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbColumnarResult getColumnar(DbQueryOptions options, String sql, Object... arguments) throws DbException 
+	{
+		return getColumnar(options, 0, sql, arguments);
+	}
+	
+	/**
+	 * Returns the result stored by columns with the columns pre-sized for the expected number of rows. If the query returns no elements this will return null.
+	 * 
+	 * @param expectedRows hint for the initial capacity of the columns. If it is not greater than 0 the columns grow from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbColumnarResult getColumnar(int expectedRows, String sql, Object... arguments) throws DbException 
+	{
+		return getColumnar(getDefaultQueryOptions(), expectedRows, sql, arguments);
+	}
+	
+	/**
+	 * Returns the result stored by columns with the columns pre-sized for the expected number of rows. If the query returns no elements this will return null.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param expectedRows hint for the initial capacity of the columns. If it is not greater than 0 the columns grow from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbColumnarResult getColumnar(DbQueryOptions options, int expectedRows, String sql, Object... arguments) throws DbException 
+	{
+		return getResult(options, new DbColumnarHandler(expectedRows), sql, arguments);
+	}
+	
+	/**
+	 * Streams the blob of the first column of the first row to the stream, without keeping the content in memory. The stream is not closed.
+	 * 
+	 * @param outputStream where the content is written.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The number of bytes written or -1 if the query returns no elements or a NULL.
+	 * 
+	 * @throws DbException If a database error is throw or the stream fails.
+	 */
+	public long readBlob(OutputStream outputStream, String sql, Object... arguments) throws DbException 
+	{
+		return readBlob(getDefaultQueryOptions(), DbRowMapperUtils.DEFAULT_BUFFER_SIZE, outputStream, sql, arguments);
+	}
+	
+	/**
+	 * Streams the blob of the first column of the first row to the stream, without keeping the content in memory. The stream is not closed.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param bufferSize of the copy in bytes.
+	 * @param outputStream where the content is written.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The number of bytes written or -1 if the query returns no elements or a NULL.
+	 * 
+	 * @throws DbException If a database error is throw or the stream fails.
+	 */
+	public long readBlob(DbQueryOptions options, int bufferSize, OutputStream outputStream, String sql, Object... arguments) throws DbException 
+	{
+		return getResult(options, resultSet -> (resultSet.next() ? DbRowMapperUtils.copyBlob(resultSet.getBlob(1), outputStream, bufferSize) : -1L), sql, arguments);
+	}
+	
+	/**
+	 * Streams the blob of the first column of the first row to the channel, without keeping the content in memory. The channel is not closed.
+	 * 
+	 * @param channel where the content is written.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The number of bytes written or -1 if the query returns no elements or a NULL.
+	 * 
+	 * @throws DbException If a database error is throw or the channel fails.
+	 */
+	public long readBlob(WritableByteChannel channel, String sql, Object... arguments) throws DbException 
+	{
+		return readBlob(getDefaultQueryOptions(), DbRowMapperUtils.DEFAULT_BUFFER_SIZE, channel, sql, arguments);
+	}
+	
+	/**
+	 * Streams the blob of the first column of the first row to the channel, without keeping the content in memory. The channel is not closed.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param bufferSize of the copy in bytes.
+	 * @param channel where the content is written.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The number of bytes written or -1 if the query returns no elements or a NULL.
+	 * 
+	 * @throws DbException If a database error is throw or the channel fails.
+	 */
+	public long readBlob(DbQueryOptions options, int bufferSize, WritableByteChannel channel, String sql, Object... arguments) throws DbException 
+	{
+		return getResult(options, resultSet -> (resultSet.next() ? DbRowMapperUtils.copyBlob(resultSet.getBlob(1), channel, bufferSize) : -1L), sql, arguments);
+	}
+	
+	/**
+	 * Streams the clob of the first column of the first row to the writer, without keeping the content in memory. The writer is not closed.
+	 * 
+	 * @param writer where the content is written.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The number of chars written or -1 if the query returns no elements or a NULL.
+	 * 
+	 * @throws DbException If a database error is throw or the writer fails.
+	 */
+	public long readClob(Writer writer, String sql, Object... arguments) throws DbException 
+	{
+		return readClob(getDefaultQueryOptions(), DbRowMapperUtils.DEFAULT_BUFFER_SIZE, writer, sql, arguments);
+	}
+	
+	/**
+	 * Streams the clob of the first column of the first row to the writer, without keeping the content in memory. The writer is not closed.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param bufferSize of the copy in chars.
+	 * @param writer where the content is written.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The number of chars written or -1 if the query returns no elements or a NULL.
+	 * 
+	 * @throws DbException If a database error is throw or the writer fails.
+	 */
+	public long readClob(DbQueryOptions options, int bufferSize, Writer writer, String sql, Object... arguments) throws DbException 
+	{
+		return getResult(options, resultSet -> (resultSet.next() ? DbRowMapperUtils.copyClob(resultSet.getClob(1), writer, bufferSize) : -1L), sql, arguments);
+	}
+	
+	private <A> A getResult(DbQueryOptions options, ResultSetHandler<A> handler, String sql, Object... arguments) throws DbException 
+	{
+		A result = null;
+		Connection connection = null;
+		
+		try 
+		{
+			connection = getReadConnection();
+			
+			result = getQueryRunner(options).query(connection, sql, handler, arguments);
+		} 
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			if (closeAfter()) closeConnection(connection);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns a single element, if there is more than one element after executing the this method will return the first one. If the query returns no elements this will return null.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the return value.
+	 *
+	 * @param dbRowMapper for the resulting object.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> T getObject(S dbRowMapper, String sql, Object...arguments) throws DbException
+	{
+		return getObject(getDefaultQueryOptions(), dbRowMapper, sql, arguments);
+	}
+	
+	/**
+	 * Returns a single element, if there is more than one element after executing the this method will return the first one. If the query returns no elements this will return null.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the return value.
+	 *
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param dbRowMapper for the resulting object.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> T getObject(DbQueryOptions options, S dbRowMapper, String sql, Object...arguments) throws DbException
+	{
+		DbQueryCache queryCache = getQueryCache(options);
+		
+		if (queryCache != null) return queryCache.get(new DbCacheKey(dbRowMapper, false, options.getMaxRows(), sql, arguments), () -> getObject(options.withCached(false), dbRowMapper, sql, arguments));
+		
+		T object = null;
+		Connection connection = null;
+		
+		try
+		{
+			connection = getReadConnection();
+			
+			object = getQueryRunner(options).query(connection, sql, new SingleRowHandler<T>(dbRowMapper), arguments);
+		} 
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			if (closeAfter()) closeConnection(connection);
+		}
+		
+		return object;
+	}
+	
+	/**
+	 * Returns a List of elements.
+	 * 
+ 	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the return value.
+	 * 
+	 * @param dbRowMapper for the resulting object.
+	 * @param sql query to execute. Same format that PreparedStatement. If the query returns no elements this will return null.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> List<T> getObjectList(S dbRowMapper, String sql, Object...arguments) throws DbException
+	{
+		return getObjectList(dbRowMapper, 0, sql, arguments);
+	}
+	
+	/**
+	 * Returns a List of elements.
+	 * 
+ 	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the return value.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param dbRowMapper for the resulting object.
+	 * @param sql query to execute. Same format that PreparedStatement. If the query returns no elements this will return null.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> List<T> getObjectList(DbQueryOptions options, S dbRowMapper, String sql, Object...arguments) throws DbException
+	{
+		return getObjectList(options, dbRowMapper, 0, sql, arguments);
+	}
+	
+	/**
+	 * Returns a List of elements pre-sized for the expected number of rows. If the query returns no elements this will return null.
+	 * 
+ 	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the return value.
+	 * 
+	 * @param dbRowMapper for the resulting object.
+	 * @param expectedRows hint for the initial capacity of the list. If it is not greater than 0 the list grows from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> List<T> getObjectList(S dbRowMapper, int expectedRows, String sql, Object...arguments) throws DbException
+	{
+		return getObjectList(getDefaultQueryOptions(), dbRowMapper, expectedRows, sql, arguments);
+	}
+	
+	/**
+	 * Returns a List of elements pre-sized for the expected number of rows. If the query returns no elements this will return null.
+	 * 
+ 	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the return value.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param dbRowMapper for the resulting object.
+	 * @param expectedRows hint for the initial capacity of the list. If it is not greater than 0 the list grows from the fetch size.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The result if any or null.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> List<T> getObjectList(DbQueryOptions options, S dbRowMapper, int expectedRows, String sql, Object...arguments) throws DbException
+	{
+		DbQueryCache queryCache = getQueryCache(options);
+		
+		if (queryCache != null) return queryCache.get(new DbCacheKey(dbRowMapper, true, options.getMaxRows(), sql, arguments), () -> unmodifiableList(getObjectList(options.withCached(false), dbRowMapper, expectedRows, sql, arguments)));
+		
+		List<T> objectList = null;
+		Connection connection = null;
+		
+		try
+		{
+			connection = getReadConnection();
+			
+			objectList = getQueryRunner(options).query(connection, sql, new MultipleRowHandler<T>(dbRowMapper, expectedRows), arguments);
+		} 
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			if (closeAfter()) closeConnection(connection);
+		}
+		
+		return objectList;
+	}
+	
+	/**
+	 * Maps each row of the query and passes it to the consumer without loading the whole result in memory.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param dbRowMapper for each row.
+	 * @param consumer of the mapped rows.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> void forEachRow(S dbRowMapper, Consumer<? super T> consumer, String sql, Object...arguments) throws DbException
+	{
+		forEachRow(getDefaultQueryOptions(), dbRowMapper, consumer, sql, arguments);
+	}
+	
+	/**
+	 * Maps each row of the query and passes it to the consumer without loading the whole result in memory.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param dbRowMapper for each row.
+	 * @param consumer of the mapped rows.
+	 * @param fetchSize number of rows the driver fetches from the database each time.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> void forEachRow(S dbRowMapper, Consumer<? super T> consumer, int fetchSize, String sql, Object...arguments) throws DbException
+	{
+		forEachRow(getDefaultQueryOptions().withFetchSize(fetchSize), dbRowMapper, consumer, sql, arguments);
+	}
+	
+	/**
+	 * Maps each row of the query and passes it to the consumer without loading the whole result in memory. The driver requirements of 
+	 * {@link #iterator(DbQueryOptions, DbRowMapper, String, Object...)} apply.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager. If it has no fetch size DEFAULT_STREAM_FETCH_SIZE is used.
+	 * @param dbRowMapper for each row.
+	 * @param consumer of the mapped rows.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> void forEachRow(DbQueryOptions options, S dbRowMapper, Consumer<? super T> consumer, String sql, Object...arguments) throws DbException
+	{
+		DbRowIterator<T> iterator = iterator(options, dbRowMapper, sql, arguments);
+		
+		try
+		{
+			while (iterator.hasNext())
+			{
+				consumer.accept(iterator.next());
+			}
+		}
+		finally
+		{
+			iterator.close();
+		}
+	}
+	
+	/**
+	 * Returns an iterator over the mapped rows of the query. The rows are read from a forward only, read only cursor as the iterator advances.
+	 * The iterator must be closed if it is not fully consumed.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param dbRowMapper for each row.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The open iterator.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> DbRowIterator<T> iterator(S dbRowMapper, String sql, Object...arguments) throws DbException
+	{
+		return iterator(getDefaultQueryOptions(), dbRowMapper, sql, arguments);
+	}
+	
+	/**
+	 * Returns an iterator over the mapped rows of the query. The rows are read from a forward only, read only cursor as the iterator advances.
+	 * The iterator must be closed if it is not fully consumed.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param dbRowMapper for each row.
+	 * @param fetchSize number of rows the driver fetches from the database each time.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The open iterator.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> DbRowIterator<T> iterator(S dbRowMapper, int fetchSize, String sql, Object...arguments) throws DbException
+	{
+		return iterator(getDefaultQueryOptions().withFetchSize(fetchSize), dbRowMapper, sql, arguments);
+	}
+	
+	/**
+	 * Returns an iterator over the mapped rows of the query. The rows are read from a forward only, read only cursor as the iterator advances.
+	 * The iterator must be closed if it is not fully consumed.
+	 * 
+	 * Whether the driver really reads the rows in batches of the fetch size depends on it. Outside of a transaction the auto commit of the 
+	 * connection is disabled until the iterator is closed, since PostgreSQL ignores the fetch size in auto commit mode. MySQL needs 
+	 * useCursorFetch=true in the URL, otherwise it reads the whole result. Inside a DbSession the connection stays in auto commit mode.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager. If it has no fetch size DEFAULT_STREAM_FETCH_SIZE is used.
+	 * @param dbRowMapper for each row.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The open iterator.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> DbRowIterator<T> iterator(DbQueryOptions options, S dbRowMapper, String sql, Object...arguments) throws DbException
+	{
+		DbRowIterator<T> iterator = null;
+		DbQueryRunner queryRunner = getQueryRunner(options);
+		Connection connection = null;
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+		
+		int fetchSize = (options.getFetchSize() > 0 ? options.getFetchSize() : DEFAULT_STREAM_FETCH_SIZE);
+		boolean restoreAutoCommit = false;
+		
+		try
+		{
+			connection = getReadConnection();
+			
+			// Some drivers only read the rows in batches inside a transaction, the connection is its own so it is restored on close
+			if (closeAfter() && connection.getAutoCommit())
+			{
+				connection.setAutoCommit(false);
+				restoreAutoCommit = true;
+			}
+			
+			statement = queryRunner.prepareStatement(connection, sql);
+			statement.setFetchSize(fetchSize);
+			queryRunner.fillStatement(statement, arguments);
+			
+			resultSet = statement.executeQuery();
+			resultSet.setFetchSize(fetchSize);
+			
+			iterator = new DbRowIterator<T>(this, queryRunner, connection, statement, resultSet, dbRowMapper, restoreAutoCommit);
+		}
+		catch (Exception e)
+		{
+			// The iterator is not returned so its resources are released here
+			DbUtils.closeQuietly(resultSet);
+			queryRunner.closeQuietly(statement);
+			
+			try
+			{
+				handleException(e);
+			}
+			finally
+			{
+				if (restoreAutoCommit) restoreAutoCommitQuietly(connection);
+				if (closeAfter()) closeConnection(connection);
+			}
+		}
+		
+		return iterator;
+	}
+	
+	/**
+	 * Returns a lazy Stream over the mapped rows of the query. The rows are read from a forward only, read only cursor as the stream is consumed.
+	 * The stream must be closed if it is not fully consumed, preferably with a try-with-resources block.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param dbRowMapper for each row.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The open stream.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> Stream<T> stream(S dbRowMapper, String sql, Object...arguments) throws DbException
+	{
+		return stream(getDefaultQueryOptions(), dbRowMapper, sql, arguments);
+	}
+	
+	/**
+	 * Returns a lazy Stream over the mapped rows of the query. The rows are read from a forward only, read only cursor as the stream is consumed.
+	 * The stream must be closed if it is not fully consumed, preferably with a try-with-resources block.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param dbRowMapper for each row.
+	 * @param fetchSize number of rows the driver fetches from the database each time.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The open stream.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> Stream<T> stream(S dbRowMapper, int fetchSize, String sql, Object...arguments) throws DbException
+	{
+		return stream(getDefaultQueryOptions().withFetchSize(fetchSize), dbRowMapper, sql, arguments);
+	}
+	
+	/**
+	 * Returns a lazy Stream over the mapped rows of the query. The rows are read from a forward only, read only cursor as the stream is consumed.
+	 * The stream must be closed if it is not fully consumed, preferably with a try-with-resources block. The driver requirements of 
+	 * {@link #iterator(DbQueryOptions, DbRowMapper, String, Object...)} apply.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager. If it has no fetch size DEFAULT_STREAM_FETCH_SIZE is used.
+	 * @param dbRowMapper for each row.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The open stream.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<S extends DbRowMapper<T>, T> Stream<T> stream(DbQueryOptions options, S dbRowMapper, String sql, Object...arguments) throws DbException
+	{
+		DbRowIterator<T> iterator = iterator(options, dbRowMapper, sql, arguments);
+		
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false).onClose(iterator::close);
+	}
+	
+	/**
+	 * Returns a Reactive Streams Publisher of the mapped rows of the query. Each subscription executes the query with the first request and only 
+	 * reads the rows the subscriber requests, releasing the resources on completion, cancel or error.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param dbRowMapper for each row.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The publisher.
+	 */
+	public<S extends DbRowMapper<T>, T> DbRowPublisher<T> publisher(S dbRowMapper, String sql, Object...arguments)
+	{
+		return publisher(getDefaultQueryOptions(), dbRowMapper, sql, arguments);
+	}
+	
+	/**
+	 * Returns a Reactive Streams Publisher of the mapped rows of the query. Each subscription executes the query with the first request and only 
+	 * reads the rows the subscriber requests, releasing the resources on completion, cancel or error.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param dbRowMapper for each row.
+	 * @param fetchSize number of rows the driver fetches from the database each time.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The publisher.
+	 */
+	public<S extends DbRowMapper<T>, T> DbRowPublisher<T> publisher(S dbRowMapper, int fetchSize, String sql, Object...arguments)
+	{
+		return publisher(getDefaultQueryOptions().withFetchSize(fetchSize), dbRowMapper, sql, arguments);
+	}
+	
+	/**
+	 * Returns a Reactive Streams Publisher of the mapped rows of the query. Each subscription executes the query with the first request and only 
+	 * reads the rows the subscriber requests, releasing the resources on completion, cancel or error.
+	 * 
+	 * @param <S> generic DbRowMapper type.
+	 * @param <T> generic type of the mapped rows.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager. If it has no fetch size DEFAULT_STREAM_FETCH_SIZE is used.
+	 * @param dbRowMapper for each row.
+	 * @param sql query to execute. Same format that PreparedStatement.
+	 * @param arguments for the SQL Query.
+	 * 
+	 * @return The publisher.
+	 */
+	public<S extends DbRowMapper<T>, T> DbRowPublisher<T> publisher(DbQueryOptions options, S dbRowMapper, String sql, Object...arguments)
+	{
+		return new DbRowPublisher<T>(this, options, dbRowMapper, sql, arguments);
+	}
+	
+	/**
+	 * Executes the SQL statement.
+	 * 
+	 * @param sql query to be executed.
+	 * @param arguments for the query as in PreparedStatement.
+	 * 
+	 * @return Either (1) the row count for SQL Data Manipulation Language (DML) statements or (2) 0 for SQL statements that return nothing
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public int executeUpdate(String sql, Object...arguments) throws DbException
+	{
+		return executeUpdate(getDefaultQueryOptions(), sql, arguments);
+	}
+	
+	/**
+	 * Executes the SQL statement.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param sql query to be executed.
+	 * @param arguments for the query as in PreparedStatement.
+	 * 
+	 * @return Either (1) the row count for SQL Data Manipulation Language (DML) statements or (2) 0 for SQL statements that return nothing
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public int executeUpdate(DbQueryOptions options, String sql, Object...arguments) throws DbException
+	{
+		int result = 0;
+		Connection connection = null;
+		
+		try 
+		{
+			connection = getConnection();
+			
+			result = getQueryRunner(options).update(connection, sql, arguments);
+		} 
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			// The cached results of the tables written are no longer valid
+			invalidateQueryCache(sql);
+			
+			if (closeAfter()) closeConnection(connection);
+		}
+		
+		return result;
+	}
+	
+	 /**
+     * Execute a batch of SQL INSERT, UPDATE, or DELETE queries.
+     *
+     * @param sql query to be executed.
+     * @param arguments An array of query replacement parameters. Each row in this array is one set of batch replacement values.
+     * 
+     * @return The number of rows updated per statement.
+     * 
+     * @throws DbException If a database error is throw.
+     */
+	public int[] executeBatchUpdate(String sql, Object[][] arguments) throws DbException
+	{
+		return executeBatchUpdate(getDefaultQueryOptions(), sql, arguments);
+	}
+	
+	 /**
+     * Execute a batch of SQL INSERT, UPDATE, or DELETE queries.
+     *
+     * @param options for the statement, overrides the defaults of the DbManager.
+     * @param sql query to be executed.
+     * @param arguments An array of query replacement parameters. Each row in this array is one set of batch replacement values.
+     * 
+     * @return The number of rows updated per statement.
+     * 
+     * @throws DbException If a database error is throw.
+     */
+	public int[] executeBatchUpdate(DbQueryOptions options, String sql, Object[][] arguments) throws DbException
+	{
+		int[] result = null;
+		Connection connection = null;
+		
+		try
+		{
+			connection = getConnection();
+			
+			result = getQueryRunner(options).batch(connection, sql, arguments);
+		}
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			invalidateQueryCache(sql);
+			
+			if (closeAfter()) closeConnection(connection);
+		}
+		
+		return result;
+	}	
+	
+	/**
+	 * Executes the SQL statement.
+	 * 
+	 * @param sql query to be executed.
+	 * @param arguments for the query as in PreparedStatement.
+	 * 
+	 * @return The DbKeyHolder with the returned keys.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbKeyHolder executeUpdateWithKeys(String sql, Object...arguments) throws DbException
+	{
+		return executeUpdateWithKeys(getDefaultQueryOptions(), sql, arguments);
+	}
+	
+	/**
+	 * Executes the SQL statement.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param sql query to be executed.
+	 * @param arguments for the query as in PreparedStatement.
+	 * 
+	 * @return The DbKeyHolder with the returned keys.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbKeyHolder executeUpdateWithKeys(DbQueryOptions options, String sql, Object...arguments) throws DbException
+	{
+		DbKeyHolder keyHolder = null;
+		Connection connection = null;
+		
+		try
+		{
+			connection = getConnection();
+			
+			keyHolder = getQueryRunner(options).insert(connection, sql, GeneratedKeysHandler.getInstance(), arguments);
+		}
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			invalidateQueryCache(sql);
+			
+			if (closeAfter()) closeConnection(connection);
+		}
+		
+		return keyHolder;
+	}	
+	
+	/**
+	 * Executes a batch of SQL INSERT statements and returns the keys generated by all of them.
+	 * 
+	 * @param sql query to be executed.
+	 * @param arguments An array of query replacement parameters. Each row in this array is one set of batch replacement values.
+	 * 
+	 * @return The DbKeyHolder with the returned keys.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbKeyHolder executeBatchUpdateWithKeys(String sql, Object[][] arguments) throws DbException
+	{
+		return executeBatchUpdateWithKeys(getDefaultQueryOptions(), sql, arguments);
+	}
+	
+	/**
+	 * Executes a batch of SQL INSERT statements and returns the keys generated by all of them.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param sql query to be executed.
+	 * @param arguments An array of query replacement parameters. Each row in this array is one set of batch replacement values.
+	 * 
+	 * @return The DbKeyHolder with the returned keys.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbKeyHolder executeBatchUpdateWithKeys(DbQueryOptions options, String sql, Object[][] arguments) throws DbException
+	{
+		DbKeyHolder keyHolder = null;
+		Connection connection = null;
+		
+		try
+		{
+			connection = getConnection();
+			
+			keyHolder = getQueryRunner(options).insertBatch(connection, sql, GeneratedKeysHandler.getInstance(), arguments);
+		}
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			invalidateQueryCache(sql);
+			
+			if (closeAfter()) closeConnection(connection);
+		}
+		
+		return keyHolder;
+	}
+	
+	public<H extends DbMetaDataHandler> H getResultSetMetaData(H handler, String sql, Object...arguments) throws DbException
+	{
+		return getResultSetMetaData(getDefaultQueryOptions(), handler, sql, arguments);
+	}
+	
+	public<H extends DbMetaDataHandler> H getResultSetMetaData(DbQueryOptions options, H handler, String sql, Object...arguments) throws DbException
+	{
+		Connection connection = null;
+		
+		try
+		{
+			connection = getReadConnection();
+			
+			getQueryRunner(options).query(connection, sql, new ResultSetMetaDataHandler(handler), arguments);
+		}
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			if (closeAfter()) closeConnection(connection);
+		}
+		
+		return handler;
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement with starting group 0.
+	 * 
+	 * @param sql query to be executed.
+	 * @param dbMultipleInsertMapper for query's arguments.
+	 * 
+	 * @return Either (1) the row count for SQL Data Manipulation Language (DML) statements or (2) 0 for SQL statements that return nothing
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public int multipleInsert(String sql, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		return multipleInsert(sql, 0, dbMultipleInsertMapper);
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement with starting group 0.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param sql query to be executed.
+	 * @param dbMultipleInsertMapper for query's arguments.
+	 * 
+	 * @return Either (1) the row count for SQL Data Manipulation Language (DML) statements or (2) 0 for SQL statements that return nothing
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public int multipleInsert(DbQueryOptions options, String sql, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		return multipleInsert(options, sql, 0, dbMultipleInsertMapper);
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement.
+	 * 
+	 * @param sql query to be executed.
+	 * @param startingGroup of the dbMultiplePreparedStatementSetter to build the SQL query.
+	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * 
+	 * @return Either (1) the row count for SQL Data Manipulation Language (DML) statements or (2) 0 for SQL statements that return nothing
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public int multipleInsert(String sql, int startingGroup, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		return multipleInsert(getDefaultQueryOptions(), sql, startingGroup, dbMultipleInsertMapper);
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement.
+	 * 
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param sql query to be executed.
+	 * @param startingGroup of the dbMultiplePreparedStatementSetter to build the SQL query.
+	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * 
+	 * @return Either (1) the row count for SQL Data Manipulation Language (DML) statements or (2) 0 for SQL statements that return nothing
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public int multipleInsert(DbQueryOptions options, String sql, int startingGroup, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		// If there is no groups there is nothing to insert
+		if (dbMultipleInsertMapper.getValueGroups() < 1) return 0;
+		
+		boolean first = (startingGroup == 0 ? true : false);
+		
+		// The number of groups changes between calls so the SQL is not cached
+		String multipleInsertSql = MultipleInsertSqlCache.buildSql(sql, first, dbMultipleInsertMapper.getFieldsToInsert(), dbMultipleInsertMapper.getValueGroups() - startingGroup);
+		
+		// Executes the query
+		return executeUpdate(options, multipleInsertSql, dbMultipleInsertMapper.getValues());
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement split in as many statements as needed to stay under the max parameters of the DbManager.
+	 * All the statements are executed with the same connection, but each one is committed on its own if the query is not transactional.
+	 * 
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * 
+	 * @return The total row count of the statements.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public int chunkedMultipleInsert(String sql, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		return chunkedMultipleInsert(getDefaultQueryOptions(), sql, dbManager.getMaxStatementParameters(), dbMultipleInsertMapper);
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement split in as many statements as needed to stay under the max parameters of the DbManager.
+	 * All the statements are executed with the same connection, but each one is committed on its own if the query is not transactional.
+	 * 
+	 * @param options for the statements, overrides the defaults of the DbManager.
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * 
+	 * @return The total row count of the statements.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public int chunkedMultipleInsert(DbQueryOptions options, String sql, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		return chunkedMultipleInsert(options, sql, dbManager.getMaxStatementParameters(), dbMultipleInsertMapper);
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement split in as many statements as needed to stay under the max parameters.
+	 * All the statements are executed with the same connection, but each one is committed on its own if the query is not transactional.
+	 * 
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param maxParameters of each statement.
+	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * 
+	 * @return The total row count of the statements.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public int chunkedMultipleInsert(String sql, int maxParameters, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		return chunkedMultipleInsert(getDefaultQueryOptions(), sql, maxParameters, dbMultipleInsertMapper);
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement split in as many statements as needed to stay under the max parameters.
+	 * All the statements are executed with the same connection, but each one is committed on its own if the query is not transactional.
+	 * 
+	 * @param options for the statements, overrides the defaults of the DbManager.
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param maxParameters of each statement.
+	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * 
+	 * @return The total row count of the statements.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public int chunkedMultipleInsert(DbQueryOptions options, String sql, int maxParameters, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		return chunkedMultipleInsert(options, sql, maxParameters, dbMultipleInsertMapper, null);
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement split in as many statements as needed to stay under the max parameters of the DbManager,
+	 * and returns the keys generated by all of them in the order of the value groups.
+	 * All the statements are executed with the same connection, but each one is committed on its own if the query is not transactional.
+	 * 
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * 
+	 * @return The DbKeyHolder with the returned keys.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbKeyHolder multipleInsertWithKeys(String sql, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		return multipleInsertWithKeys(getDefaultQueryOptions(), sql, dbManager.getMaxStatementParameters(), dbMultipleInsertMapper);
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement split in as many statements as needed to stay under the max parameters of the DbManager,
+	 * and returns the keys generated by all of them in the order of the value groups.
+	 * All the statements are executed with the same connection, but each one is committed on its own if the query is not transactional.
+	 * 
+	 * @param options for the statements, overrides the defaults of the DbManager.
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * 
+	 * @return The DbKeyHolder with the returned keys.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbKeyHolder multipleInsertWithKeys(DbQueryOptions options, String sql, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		return multipleInsertWithKeys(options, sql, dbManager.getMaxStatementParameters(), dbMultipleInsertMapper);
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement split in as many statements as needed to stay under the max parameters,
+	 * and returns the keys generated by all of them in the order of the value groups.
+	 * All the statements are executed with the same connection, but each one is committed on its own if the query is not transactional.
+	 * 
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param maxParameters of each statement.
+	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * 
+	 * @return The DbKeyHolder with the returned keys.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbKeyHolder multipleInsertWithKeys(String sql, int maxParameters, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		return multipleInsertWithKeys(getDefaultQueryOptions(), sql, maxParameters, dbMultipleInsertMapper);
+	}
+	
+	/**
+	 * Executes a multiple value INSERT SQL statement split in as many statements as needed to stay under the max parameters,
+	 * and returns the keys generated by all of them in the order of the value groups.
+	 * All the statements are executed with the same connection, but each one is committed on its own if the query is not transactional.
+	 * 
+	 * @param options for the statements, overrides the defaults of the DbManager.
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param maxParameters of each statement.
+	 * @param dbMultipleInsertMapper Setter for query's arguments.
+	 * 
+	 * @return The DbKeyHolder with the returned keys.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public DbKeyHolder multipleInsertWithKeys(DbQueryOptions options, String sql, int maxParameters, DbMultipleInsertMapper dbMultipleInsertMapper) throws DbException
+	{
+		DbKeyHolder keyHolder = new DbKeyHolder();
+		
+		chunkedMultipleInsert(options, sql, maxParameters, dbMultipleInsertMapper, keyHolder);
+		
+		return keyHolder;
+	}
+	
+	/**
+	 * Executes the chunks of a multiple value INSERT, appending the generated keys to the key holder if it is not null.
+	 */
+	private int chunkedMultipleInsert(DbQueryOptions options, String sql, int maxParameters, DbMultipleInsertMapper dbMultipleInsertMapper, DbKeyHolder keyHolder) throws DbException
+	{
+		int valueGroups = dbMultipleInsertMapper.getValueGroups();
+		int fieldsToInsert = dbMultipleInsertMapper.getFieldsToInsert();
+		
+		if (fieldsToInsert < 1) throw new IllegalArgumentException("Fields to insert must be greater than 0.");
+		
+		// If there is no groups there is nothing to insert
+		if (valueGroups < 1) return 0;
+		
+		if (maxParameters < fieldsToInsert) throw new IllegalArgumentException("Max parameters [" + maxParameters + "] can not hold a group of [" + fieldsToInsert + "] fields.");
+		
+		int fullChunkGroups = maxParameters / fieldsToInsert;
+		int groupsPerChunk = Math.min(fullChunkGroups, valueGroups);
+		
+		Object[] values = dbMultipleInsertMapper.getValues();
+		Object[] chunkValues = null;
+		
+		int result = 0;
+		Connection connection = null;
+		
+		try 
+		{
+			connection = getConnection();
+			
+			DbQueryRunner queryRunner = getQueryRunner(options);
+			MultipleInsertSqlCache sqlCache = dbManager.getMultipleInsertSqlCache();
+			
+			ResultSetHandler<DbKeyHolder> keysHandler = resultSet -> 
+			{
+				keyHolder.add(resultSet);
+				
+				return keyHolder;
+			};
+			
+			for (int group=0; group<valueGroups; group+=groupsPerChunk)
+			{
+				int chunkGroups = Math.min(groupsPerChunk, valueGroups - group);
+				int chunkParameters = chunkGroups * fieldsToInsert;
+				
+				if (chunkGroups == valueGroups)
+				{
+					// Everything fits in one statement
+					chunkValues = values;
+				}
+				else if (chunkValues == null || chunkValues.length != chunkParameters)
+				{
+					// The same array is reused by all the full chunks
+					chunkValues = new Object[chunkParameters];
+				}
+				
+				if (chunkValues != values) System.arraycopy(values, group * fieldsToInsert, chunkValues, 0, chunkParameters);
+				
+				// Only the SQL of the full chunks is cached, the smaller ones have a different number of groups on each call
+				String chunkSql = (chunkGroups == fullChunkGroups ? sqlCache.getSql(sql, true, fieldsToInsert, chunkGroups) : MultipleInsertSqlCache.buildSql(sql, true, fieldsToInsert, chunkGroups));
+				
+				if (keyHolder != null)
+				{
+					queryRunner.insert(connection, chunkSql, keysHandler, chunkValues);
+					result += chunkGroups;
+				}
+				else
+				{
+					result += queryRunner.update(connection, chunkSql, chunkValues);
+				}
+			}
+		} 
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			invalidateQueryCache(sql);
+			
+			if (closeAfter()) closeConnection(connection);
+		}
+		
+		return result;
+	}
+	
+	
+	/**
+	 * Executes a statement once for each row of the iterator, sending them to the database as JDBC batches of batchSize rows.
+	 * Only one batch is held in memory at any time.
+	 * 
+	 * @param <T> generic type of the rows.
+	 * @param sql query to be executed.
+	 * @param batchSize rows of each batch.
+	 * @param dbRowBinder Setter for query's arguments.
+	 * @param rows to write.
+	 * 
+	 * @return The total row count of the batches, the statements that report no count add 1.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<T> long executeBulkUpdate(String sql, int batchSize, DbRowBinder<T> dbRowBinder, Iterator<T> rows) throws DbException
+	{
+		return executeBulkUpdate(getDefaultQueryOptions(), sql, batchSize, dbRowBinder, rows);
+	}
+	
+	/**
+	 * Executes a statement once for each row of the stream, sending them to the database as JDBC batches of batchSize rows.
+	 * Only one batch is held in memory at any time. The stream is not closed.
+	 * 
+	 * @param <T> generic type of the rows.
+	 * @param sql query to be executed.
+	 * @param batchSize rows of each batch.
+	 * @param dbRowBinder Setter for query's arguments.
+	 * @param rows to write.
+	 * 
+	 * @return The total row count of the batches, the statements that report no count add 1.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<T> long executeBulkUpdate(String sql, int batchSize, DbRowBinder<T> dbRowBinder, Stream<T> rows) throws DbException
+	{
+		return executeBulkUpdate(getDefaultQueryOptions(), sql, batchSize, dbRowBinder, rows.iterator());
+	}
+	
+	/**
+	 * Executes a statement once for each row of the stream, sending them to the database as JDBC batches of batchSize rows.
+	 * Only one batch is held in memory at any time. The stream is not closed.
+	 * 
+	 * @param <T> generic type of the rows.
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param sql query to be executed.
+	 * @param batchSize rows of each batch.
+	 * @param dbRowBinder Setter for query's arguments.
+	 * @param rows to write.
+	 * 
+	 * @return The total row count of the batches, the statements that report no count add 1.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<T> long executeBulkUpdate(DbQueryOptions options, String sql, int batchSize, DbRowBinder<T> dbRowBinder, Stream<T> rows) throws DbException
+	{
+		return executeBulkUpdate(options, sql, batchSize, dbRowBinder, rows.iterator());
+	}
+	
+	/**
+	 * Executes a statement once for each row of the iterator, sending them to the database as JDBC batches of batchSize rows.
+	 * Only one batch is held in memory at any time.
+	 * 
+	 * @param <T> generic type of the rows.
+	 * @param options for the statement, overrides the defaults of the DbManager.
+	 * @param sql query to be executed.
+	 * @param batchSize rows of each batch.
+	 * @param dbRowBinder Setter for query's arguments.
+	 * @param rows to write.
+	 * 
+	 * @return The total row count of the batches, the statements that report no count add 1.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<T> long executeBulkUpdate(DbQueryOptions options, String sql, int batchSize, DbRowBinder<T> dbRowBinder, Iterator<T> rows) throws DbException
+	{
+		if (batchSize < 1) throw new IllegalArgumentException("Batch size must be greater than 0.");
+		
+		long result = 0;
+		DbQueryRunner queryRunner = getQueryRunner(options);
+		Connection connection = null;
+		PreparedStatement statement = null;
+		
+		// The same array is reused by all the rows
+		Object[] values = new Object[dbRowBinder.getFieldsToBind()];
+		
+		try
+		{
+			connection = getConnection();
+			
+			statement = queryRunner.prepareStatement(connection, sql);
+			
+			int batchRows = 0;
+			
+			while (rows.hasNext())
+			{
+				dbRowBinder.bindRow(rows.next(), values);
+				queryRunner.fillStatement(statement, values);
+				statement.addBatch();
+				
+				if (++batchRows == batchSize)
+				{
+					result += sumUpdateCounts(statement.executeBatch());
+					queryRunner.releaseStreamResources(statement);
+					
+					batchRows = 0;
+				}
+			}
+			
+			if (batchRows > 0) result += sumUpdateCounts(statement.executeBatch());
+		}
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			invalidateQueryCache(sql);
+			
+			try
+			{
+				queryRunner.closeQuietly(statement);
+			}
+			finally
+			{
+				if (closeAfter()) closeConnection(connection);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Inserts the rows of the iterator with multiple value INSERT statements of up to groupsPerStatement rows each.
+	 * Only the values of one statement are held in memory at any time.
+	 * 
+	 * @param <T> generic type of the rows.
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param groupsPerStatement rows of each statement.
+	 * @param dbRowBinder Setter for query's arguments.
+	 * @param rows to insert.
+	 * 
+	 * @return The total row count of the statements.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<T> long bulkMultipleInsert(String sql, int groupsPerStatement, DbRowBinder<T> dbRowBinder, Iterator<T> rows) throws DbException
+	{
+		return bulkMultipleInsert(getDefaultQueryOptions(), sql, groupsPerStatement, dbRowBinder, rows);
+	}
+	
+	/**
+	 * Inserts the rows of the stream with multiple value INSERT statements of up to groupsPerStatement rows each.
+	 * Only the values of one statement are held in memory at any time. The stream is not closed.
+	 * 
+	 * @param <T> generic type of the rows.
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param groupsPerStatement rows of each statement.
+	 * @param dbRowBinder Setter for query's arguments.
+	 * @param rows to insert.
+	 * 
+	 * @return The total row count of the statements.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<T> long bulkMultipleInsert(String sql, int groupsPerStatement, DbRowBinder<T> dbRowBinder, Stream<T> rows) throws DbException
+	{
+		return bulkMultipleInsert(getDefaultQueryOptions(), sql, groupsPerStatement, dbRowBinder, rows.iterator());
+	}
+	
+	/**
+	 * Inserts the rows of the stream with multiple value INSERT statements of up to groupsPerStatement rows each.
+	 * Only the values of one statement are held in memory at any time. The stream is not closed.
+	 * 
+	 * @param <T> generic type of the rows.
+	 * @param options for the statements, overrides the defaults of the DbManager.
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param groupsPerStatement rows of each statement.
+	 * @param dbRowBinder Setter for query's arguments.
+	 * @param rows to insert.
+	 * 
+	 * @return The total row count of the statements.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<T> long bulkMultipleInsert(DbQueryOptions options, String sql, int groupsPerStatement, DbRowBinder<T> dbRowBinder, Stream<T> rows) throws DbException
+	{
+		return bulkMultipleInsert(options, sql, groupsPerStatement, dbRowBinder, rows.iterator());
+	}
+	
+	/**
+	 * Inserts the rows of the iterator with multiple value INSERT statements of up to groupsPerStatement rows each.
+	 * Only the values of one statement are held in memory at any time.
+	 * 
+	 * @param <T> generic type of the rows.
+	 * @param options for the statements, overrides the defaults of the DbManager.
+	 * @param sql query to be executed, without any VALUES group.
+	 * @param groupsPerStatement rows of each statement.
+	 * @param dbRowBinder Setter for query's arguments.
+	 * @param rows to insert.
+	 * 
+	 * @return The total row count of the statements.
+	 * 
+	 * @throws DbException If a database error is throw.
+	 */
+	public<T> long bulkMultipleInsert(DbQueryOptions options, String sql, int groupsPerStatement, DbRowBinder<T> dbRowBinder, Iterator<T> rows) throws DbException
+	{
+		if (groupsPerStatement < 1) throw new IllegalArgumentException("Groups per statement must be greater than 0.");
+		
+		int fieldsToBind = dbRowBinder.getFieldsToBind();
+		
+		if (fieldsToBind < 1) throw new IllegalArgumentException("Fields to bind must be greater than 0.");
+		
+		long result = 0;
+		DbQueryRunner queryRunner = getQueryRunner(options);
+		Connection connection = null;
+		PreparedStatement statement = null;
+		
+		// The values of one statement, reused by all the full statements
+		Object[] values = new Object[groupsPerStatement * fieldsToBind];
+		Object[] rowValues = new Object[fieldsToBind];
+		
+		try
+		{
+			connection = getConnection();
+			
+			int groups = 0;
+			
+			while (rows.hasNext())
+			{
+				dbRowBinder.bindRow(rows.next(), rowValues);
+				System.arraycopy(rowValues, 0, values, groups * fieldsToBind, fieldsToBind);
+				
+				if (++groups == groupsPerStatement)
+				{
+					// The full statement is prepared once and executed for every full group of rows
+					if (statement == null) statement = queryRunner.prepareStatement(connection, dbManager.getMultipleInsertSqlCache().getSql(sql, true, fieldsToBind, groupsPerStatement));
+					
+					queryRunner.fillStatement(statement, values);
+					result += statement.executeUpdate();
+					queryRunner.releaseStreamResources(statement);
+					
+					groups = 0;
+				}
+			}
+			
+			// The remaining rows
+			if (groups > 0)
+			{
+				Object[] remainingValues = new Object[groups * fieldsToBind];
+				System.arraycopy(values, 0, remainingValues, 0, remainingValues.length);
+				
+				result += queryRunner.update(connection, MultipleInsertSqlCache.buildSql(sql, true, fieldsToBind, groups), remainingValues);
+			}
+		}
+		catch (Exception e)
+		{
+			handleException(e);
+		}
+		finally
+		{
+			invalidateQueryCache(sql);
+			
+			try
+			{
+				queryRunner.closeQuietly(statement);
+			}
+			finally
+			{
+				if (closeAfter()) closeConnection(connection);
+			}
+		}
+		
+		return result;
+	}
+	
+	private long sumUpdateCounts(int[] updateCounts)
+	{
+		long result = 0;
+		
+		for (int i=0; i<updateCounts.length; i++)
+		{
+			if (updateCounts[i] >= 0) result += updateCounts[i];
+			else if (updateCounts[i] == Statement.SUCCESS_NO_INFO) result++;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the cache of the results of the query.
+	 * 
+	 * @return The cache or null if the options are not cached, the query can not use the cache or the DbManager has none.
+	 */
+	private DbQueryCache getQueryCache(DbQueryOptions options)
+	{
+		return (options.isCached() && useQueryCache() ? dbManager.getQueryCache() : null);
+	}
+	
+	/**
+	 * Invalidates the cached results of the queries that read the tables written by the statement.
+	 * 
+	 * @param sql of the statement.
+	 */
+	void invalidateQueryCache(String sql)
+	{
+		DbQueryCache queryCache = dbManager.getQueryCache();
+		
+		if (queryCache != null) queryCache.invalidate(sql);
+	}
+	
+	private static <T> List<T> unmodifiableList(List<T> list)
+	{
+		return (list != null ? Collections.unmodifiableList(list) : null);
+	}
+	
+	void closeConnection(Connection connection)
+	{
 		try
 		{
 			DbUtils.close(connection);			
@@ -411,6 +2003,40 @@ public abstract class DbQuery
 		}
 	}
 	
+	/**
+	 * Sets the auto commit and read only state of the connection only if it is not already set, since each setter is usually a round trip
+	 * to the database while the getters are answered from the state of the driver.
+	 * 
+	 * @param connection to configure.
+	 * @param autoCommit state the connection must have.
+	 * @param readOnly state the connection must have.
+	 * 
+	 * @throws SQLException If the connection state can not be read or changed.
+	 */
+	protected void configureConnection(Connection connection, boolean autoCommit, boolean readOnly) throws SQLException
+	{
+		if (connection.getAutoCommit() != autoCommit) connection.setAutoCommit(autoCommit);
+		if (connection.isReadOnly() != readOnly) connection.setReadOnly(readOnly);
+	}
+	
+	/**
+	 * Ends the transaction a streaming query started on its own connection and enables the auto commit again.
+	 * 
+	 * @param connection to restore.
+	 */
+	void restoreAutoCommitQuietly(Connection connection)
+	{
+		try
+		{
+			// Enabling it commits the transaction
+			connection.setAutoCommit(true);
+		}
+		catch (SQLException SQLe)
+		{
+			getLogger().warn("Auto commit could not be restored.", SQLe);
+		}
+	}
+	
 	protected Logger getLogger()
 	{
 		return logger;
@@ -418,6 +2044,29 @@ public abstract class DbQuery
 		
 	protected abstract Connection getConnection() throws SQLException;
 	
+	/**
+	 * Returns the connection for a query that only reads, the same one as the rest of the queries unless the query can be sent to a 
+	 * read replica.
+	 * 
+	 * @return The connection for the read.
+	 * 
+	 * @throws SQLException If the connection can not be obtained.
+	 */
+	protected Connection getReadConnection() throws SQLException
+	{
+		return getConnection();
+	}
+	
+	/**
+	 * Returns if the query can read the results from the DbQueryCache when its options are cached.
+	 * 
+	 * @return true by default.
+	 */
+	protected boolean useQueryCache()
+	{
+		return true;
+	}
+	
 	protected abstract boolean closeAfter();
 	
 	protected abstract void handleException(Throwable t) throws DbException;
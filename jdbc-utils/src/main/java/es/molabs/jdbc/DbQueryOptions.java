@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc;
+
+import java.sql.ResultSet;
+
+/**
+ * Statement options applied by DbQuery to every statement it executes. Instances are immutable, each with* method returns a copy.
+ * 
+ * A value of 0 for fetch size, max rows or query timeout leaves the driver default.
+ */
+public class DbQueryOptions 
+{
+	private final int fetchSize;
+	private final int maxRows;
+	private final int queryTimeout;
+	private final int resultSetType;
+	private final int resultSetConcurrency;
+	private final boolean cached;
+	
+	/**
+	 * Creates the options with the driver defaults and a forward only, read only ResultSet.
+	 */
+	public DbQueryOptions()
+	{
+		this(0, 0, 0, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, false);
+	}
+	
+	private DbQueryOptions(int fetchSize, int maxRows, int queryTimeout, int resultSetType, int resultSetConcurrency, boolean cached)
+	{
+		if (fetchSize < 0) throw new IllegalArgumentException("Fetch size must be greater or equal than 0.");
+		if (maxRows < 0) throw new IllegalArgumentException("Max rows must be greater or equal than 0.");
+		if (queryTimeout < 0) throw new IllegalArgumentException("Query timeout must be greater or equal than 0.");
+		
+		this.fetchSize = fetchSize;
+		this.maxRows = maxRows;
+		this.queryTimeout = queryTimeout;
+		this.resultSetType = resultSetType;
+		this.resultSetConcurrency = resultSetConcurrency;
+		this.cached = cached;
+	}
+	
+	/**
+	 * Returns the number of rows the driver should fetch from the database each time. See Statement.setFetchSize(int).
+	 * 
+	 * @return The fetch size or 0 for the driver default.
+	 */
+	public int getFetchSize()
+	{
+		return fetchSize;
+	}
+	
+	public DbQueryOptions withFetchSize(int fetchSize)
+	{
+		return new DbQueryOptions(fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, cached);
+	}
+	
+	/**
+	 * Returns the maximum number of rows a ResultSet can contain. See Statement.setMaxRows(int).
+	 * 
+	 * @return The max rows or 0 for no limit.
+	 */
+	public int getMaxRows()
+	{
+		return maxRows;
+	}
+	
+	public DbQueryOptions withMaxRows(int maxRows)
+	{
+		return new DbQueryOptions(fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, cached);
+	}
+	
+	/**
+	 * Returns the number of seconds the driver will wait for a statement to execute. See Statement.setQueryTimeout(int).
+	 * 
+	 * @return The timeout in seconds or 0 for no limit.
+	 */
+	public int getQueryTimeout()
+	{
+		return queryTimeout;
+	}
+	
+	public DbQueryOptions withQueryTimeout(int queryTimeout)
+	{
+		return new DbQueryOptions(fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, cached);
+	}
+	
+	/**
+	 * Returns the ResultSet type of the queries, one of the ResultSet.TYPE_* constants.
+	 * 
+	 * @return The ResultSet type.
+	 */
+	public int getResultSetType()
+	{
+		return resultSetType;
+	}
+	
+	public DbQueryOptions withResultSetType(int resultSetType)
+	{
+		return new DbQueryOptions(fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, cached);
+	}
+	
+	/**
+	 * Returns the ResultSet concurrency of the queries, one of the ResultSet.CONCUR_* constants.
+	 * 
+	 * @return The ResultSet concurrency.
+	 */
+	public int getResultSetConcurrency()
+	{
+		return resultSetConcurrency;
+	}
+	
+	public DbQueryOptions withResultSetConcurrency(int resultSetConcurrency)
+	{
+		return new DbQueryOptions(fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, cached);
+	}
+	
+	/**
+	 * Returns if the results of getField, getFieldList, getObject and getObjectList are read from the DbQueryCache of the DbManager. 
+	 * Transactions never use the cache.
+	 * 
+	 * @return true if the results are cached.
+	 */
+	public boolean isCached()
+	{
+		return cached;
+	}
+	
+	public DbQueryOptions withCached(boolean cached)
+	{
+		return new DbQueryOptions(fetchSize, maxRows, queryTimeout, resultSetType, resultSetConcurrency, cached);
+	}
+	
+	public boolean equals(Object object)
+	{
+		if (this == object) return true;
+		if (!(object instanceof DbQueryOptions)) return false;
+		
+		DbQueryOptions options = (DbQueryOptions) object;
+		
+		return fetchSize == options.fetchSize && maxRows == options.maxRows && queryTimeout == options.queryTimeout 
+			&& resultSetType == options.resultSetType && resultSetConcurrency == options.resultSetConcurrency && cached == options.cached;
+	}
+	
+	public int hashCode()
+	{
+		int hash = fetchSize;
+		hash = 31 * hash + maxRows;
+		hash = 31 * hash + queryTimeout;
+		hash = 31 * hash + resultSetType;
+		hash = 31 * hash + resultSetConcurrency;
+		hash = 31 * hash + (cached ? 1 : 0);
+		
+		return hash;
+	}
+	
+	public String toString()
+	{
+		return "DbQueryOptions [fetchSize=" + fetchSize + ", maxRows=" + maxRows + ", queryTimeout=" + queryTimeout + ", resultSetType=" + resultSetType + ", resultSetConcurrency=" + resultSetConcurrency + ", cached=" + cached + "]";
+	}
+}
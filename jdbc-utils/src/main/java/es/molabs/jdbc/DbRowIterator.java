@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.dbutils.DbUtils;
+
+import es.molabs.jdbc.dbutils.DbQueryRunner;
+import es.molabs.jdbc.exception.DbException;
+import es.molabs.jdbc.mapper.DbAutoRowMapper;
+import es.molabs.jdbc.mapper.DbColumnRowMapper;
+import es.molabs.jdbc.mapper.DbColumns;
+import es.molabs.jdbc.mapper.DbRowMapper;
+
+/**
+ * Iterator that maps the rows of an open ResultSet one at a time. The statement (and the connection if the query is not transactional)
+ * stays open until the last row is read or the iterator is closed, so it must be closed if it is not fully consumed. If the query is not
+ * transactional the auto commit of the connection is disabled while the iterator is open, so the drivers that need a transaction to 
+ * read the rows in batches of the fetch size do it.
+ */
+public class DbRowIterator<T> implements Iterator<T>, AutoCloseable
+{
+	private DbQuery dbQuery = null;
+	private DbQueryRunner queryRunner = null;
+	private Connection connection = null;
+	private PreparedStatement statement = null;
+	private ResultSet resultSet = null;
+	private DbRowMapper<T> rowMapper = null;
+	private DbColumns columns = null;
+	private boolean restoreAutoCommit;
+	
+	private int row;
+	private boolean fetched;
+	private boolean hasNext;
+	private boolean closed;
+	
+	DbRowIterator(DbQuery dbQuery, DbQueryRunner queryRunner, Connection connection, PreparedStatement statement, ResultSet resultSet, DbRowMapper<T> rowMapper, boolean restoreAutoCommit)
+	{
+		this.dbQuery = dbQuery;
+		this.queryRunner = queryRunner;
+		this.connection = connection;
+		this.statement = statement;
+		this.resultSet = resultSet;
+		this.rowMapper = rowMapper;
+		this.restoreAutoCommit = restoreAutoCommit;
+		
+		row = 0;
+		fetched = false;
+		hasNext = false;
+		closed = false;
+	}
+	
+	public boolean hasNext() throws DbException
+	{
+		if (closed) return false;
+		
+		if (!fetched)
+		{
+			try
+			{
+				hasNext = resultSet.next();
+				fetched = true;
+			}
+			catch (SQLException SQLe)
+			{
+				fail(SQLe);
+			}
+			
+			// Releases the resources as soon as the last row is read
+			if (!hasNext) close();
+		}
+		
+		return hasNext;
+	}
+	
+	public T next() throws DbException
+	{
+		if (!hasNext()) throw new NoSuchElementException();
+		
+		T object = null;
+		
+		try
+		{
+			if (rowMapper instanceof DbColumnRowMapper)
+			{
+				DbColumnRowMapper<T> columnRowMapper = (DbColumnRowMapper<T>) rowMapper;
+				
+				// The columns are resolved with the first row and reused for the rest
+				if (columns == null) columns = columnRowMapper.resolve(resultSet);
+				
+				object = columnRowMapper.mapRow(columns, ++row);
+			}
+			else
+			{
+				// The plan of the auto mapper is resolved with the first row and reused for the rest
+				if (rowMapper instanceof DbAutoRowMapper) rowMapper = ((DbAutoRowMapper<T>) rowMapper).resolve(resultSet);
+				
+				object = rowMapper.mapRow(resultSet, ++row);
+			}
+			fetched = false;
+		}
+		catch (SQLException SQLe)
+		{
+			fail(SQLe);
+		}
+		
+		return object;
+	}
+	
+	/**
+	 * Closes the ResultSet and the statement. The connection is closed too if the query is not transactional, after enabling its auto commit again.
+	 */
+	public void close() throws DbException
+	{
+		if (closed) return;
+		
+		closed = true;
+		
+		try
+		{
+			DbUtils.closeQuietly(resultSet);
+			// The runner gives the statement back to the statement cache if there is one
+			queryRunner.closeQuietly(statement);
+		}
+		finally
+		{
+			resultSet = null;
+			statement = null;
+			
+			if (restoreAutoCommit) dbQuery.restoreAutoCommitQuietly(connection);
+			if (dbQuery.closeAfter()) dbQuery.closeConnection(connection);
+			
+			connection = null;
+		}
+	}
+	
+	private void fail(SQLException SQLe) throws DbException
+	{
+		try
+		{
+			close();
+		}
+		finally
+		{
+			dbQuery.handleException(SQLe);
+		}
+	}
+}
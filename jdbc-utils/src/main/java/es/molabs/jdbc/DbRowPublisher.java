@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import es.molabs.jdbc.mapper.DbRowMapper;
+
+/**
+ * Reactive Streams Publisher of the mapped rows of a query. Each subscription executes the query when the first rows are requested and 
+ * only advances the cursor as the subscriber requests more rows, the driver reads them in chunks of the fetch size. The statement (and the 
+ * connection if the query is not transactional) is released when the rows end, the subscription is cancelled or an error happens.
+ * 
+ * The signals are sent from the thread that calls request. In Java 9 or greater it can be adapted to a java.util.concurrent.Flow.Publisher
+ * with org.reactivestreams.FlowAdapters.
+ */
+public class DbRowPublisher<T> implements Publisher<T>
+{
+	private final static Logger logger = LoggerFactory.getLogger(DbRowPublisher.class);
+	
+	private final DbQuery dbQuery;
+	private final DbQueryOptions options;
+	private final DbRowMapper<T> rowMapper;
+	private final String sql;
+	private final Object[] arguments;
+	
+	DbRowPublisher(DbQuery dbQuery, DbQueryOptions options, DbRowMapper<T> rowMapper, String sql, Object[] arguments)
+	{
+		this.dbQuery = dbQuery;
+		this.options = options;
+		this.rowMapper = rowMapper;
+		this.sql = sql;
+		this.arguments = arguments;
+	}
+	
+	public void subscribe(Subscriber<? super T> subscriber)
+	{
+		if (subscriber == null) throw new NullPointerException("Subscriber can not be null.");
+		
+		subscriber.onSubscribe(new RowSubscription(subscriber));
+	}
+	
+	private class RowSubscription implements Subscription
+	{
+		private final Subscriber<? super T> subscriber;
+		
+		// Rows requested and not sent yet
+		private final AtomicLong demand;
+		
+		// Calls to drain that are pending, only the first one drains so the subscriber is never called from two threads at once
+		private final AtomicInteger work;
+		
+		private volatile boolean cancelled;
+		private volatile Throwable invalidRequest;
+		
+		// Only used inside drain
+		private DbRowIterator<T> iterator = null;
+		private boolean done;
+		
+		RowSubscription(Subscriber<? super T> subscriber)
+		{
+			this.subscriber = subscriber;
+			
+			demand = new AtomicLong();
+			work = new AtomicInteger();
+			
+			cancelled = false;
+			invalidRequest = null;
+			done = false;
+		}
+		
+		public void request(long n)
+		{
+			if (n <= 0)
+			{
+				invalidRequest = new IllegalArgumentException("Requested rows must be greater than 0 but was [" + n + "].");
+			}
+			else
+			{
+				// Adds the demand without overflowing, Long.MAX_VALUE means unbounded
+				long current;
+				long next;
+				do
+				{
+					current = demand.get();
+					if (current == Long.MAX_VALUE) break;
+					
+					next = current + n;
+					if (next < 0) next = Long.MAX_VALUE;
+				}
+				while (!demand.compareAndSet(current, next));
+			}
+			
+			drain();
+		}
+		
+		public void cancel()
+		{
+			cancelled = true;
+			
+			drain();
+		}
+		
+		private void drain()
+		{
+			if (work.getAndIncrement() != 0) return;
+			
+			int missed = 1;
+			
+			do
+			{
+				if (!done)
+				{
+					if (cancelled)
+					{
+						finish();
+					}
+					else if (invalidRequest != null)
+					{
+						finish();
+						subscriber.onError(invalidRequest);
+					}
+					else
+					{
+						emit();
+					}
+				}
+				
+				missed = work.addAndGet(-missed);
+			}
+			while (missed != 0);
+		}
+		
+		private void emit()
+		{
+			long requested = demand.get();
+			long emitted = 0;
+			
+			try
+			{
+				// The query is executed with the first request
+				if (iterator == null) iterator = dbQuery.iterator(options, rowMapper, sql, arguments);
+				
+				while (emitted != requested && !cancelled && iterator.hasNext())
+				{
+					T row = iterator.next();
+					
+					try
+					{
+						subscriber.onNext(row);
+					}
+					catch (Throwable t)
+					{
+						// A subscriber must not throw, it is handled as a cancel
+						logger.warn("Subscriber threw on onNext, the subscription is cancelled.", t);
+						
+						cancelled = true;
+						finish();
+						
+						return;
+					}
+					
+					emitted++;
+				}
+				
+				// The end is signaled as soon as it is reached, even without demand
+				if (!cancelled && !iterator.hasNext())
+				{
+					finish();
+					subscriber.onComplete();
+					
+					return;
+				}
+			}
+			catch (Throwable t)
+			{
+				finish();
+				subscriber.onError(t);
+				
+				return;
+			}
+			
+			if (requested != Long.MAX_VALUE) demand.addAndGet(-emitted);
+		}
+		
+		private void finish()
+		{
+			done = true;
+			
+			if (iterator != null)
+			{
+				try
+				{
+					iterator.close();
+				}
+				catch (Throwable t)
+				{
+					logger.warn("Error closing the rows of the publisher.", t);
+				}
+				
+				iterator = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.commons.dbutils.DbUtils;
+
+import es.molabs.jdbc.context.DbContext;
+import es.molabs.jdbc.dbutils.DbStatementCache;
+import es.molabs.jdbc.exception.DbException;
+
+/**
+ * Non transactional queries that share one connection, in auto commit and read write mode, until the session is closed. While it 
+ * is open it is bound to its context, so getDbNonTransaction returns it and the calls in between do not borrow a connection each.
+ * <p>
+ * The connection is borrowed on the first query. Getting a session with one already open in the context returns the same one, that 
+ * is closed when every caller has closed it. Transactions started while the session is open use their own connection.
+ */
+public class DbSession extends DbQuery implements AutoCloseable
+{
+	private Connection connection = null;
+	private DbContext dbContext = null;
+	private int openCount;
+	
+	DbSession(DbManager dbManager, DbContext dbContext)
+	{
+		super(dbManager, createStatementCache(dbManager));
+		
+		this.dbContext = dbContext;
+		openCount = 1;
+		
+		// Sets this session as active
+		dbContext.setActiveDbSession(this);
+	}
+	
+	/**
+	 * Adds a caller of the session, that must close it too.
+	 */
+	void open()
+	{
+		openCount++;
+	}
+	
+	/**
+	 * Closes the session for this caller. When the last caller closes it the connection is given back and the session is no longer 
+	 * bound to its context.
+	 */
+	public void close() throws DbException
+	{
+		if (openCount == 0) return;
+		
+		openCount--;
+		
+		if (openCount == 0)
+		{
+			try
+			{
+				closeStatementCache();
+				
+				DbUtils.close(connection);
+			}
+			catch (SQLException SQLe)
+			{
+				throw new DbException(SQLe);
+			}
+			finally
+			{
+				connection = null;
+				
+				// Another session of the context is never cleared
+				if (dbContext.getActiveDbSession() == this) dbContext.setActiveDbSession(null);
+			}
+		}
+	}
+	
+	public boolean isOpen()
+	{
+		return openCount > 0;
+	}
+	
+	/**
+	 * Returns the context this session is bound to.
+	 * 
+	 * @return The context of the session.
+	 */
+	public DbContext getDbContext()
+	{
+		return dbContext;
+	}
+	
+	/**
+	 * Returns the cache of the statements of this session.
+	 * 
+	 * @return The statement cache or null if it is disabled.
+	 */
+	public DbStatementCache getStatementCache()
+	{
+		return getQueryRunner().getStatementCache();
+	}
+	
+	private void closeStatementCache()
+	{
+		DbStatementCache statementCache = getStatementCache();
+		
+		if (statementCache != null) statementCache.close();
+	}
+	
+	private static DbStatementCache createStatementCache(DbManager dbManager)
+	{
+		return (dbManager.getStatementCacheSize() > 0 ? new DbStatementCache(dbManager.getStatementCacheSize()) : null);
+	}
+	
+	protected Connection getConnection() throws SQLException
+	{
+		if (openCount == 0) throw new SQLException("Session is closed.");
+		
+		if (connection == null)
+		{
+			Connection newConnection = getQueryRunner().getDataSource().getConnection();
+			
+			// A trusted pool already returns connections in auto commit and read write mode
+			if (!getDbManager().isTrustConnectionDefaults())
+			{
+				try
+				{
+					configureConnection(newConnection, true, false);
+				}
+				catch (SQLException SQLe)
+				{
+					closeConnection(newConnection);
+					
+					throw SQLe;
+				}
+			}
+			
+			connection = newConnection;
+		}
+		
+		return connection;
+	}
+	
+	protected boolean closeAfter()
+	{
+		return false;
+	}
+	
+	protected void handleException(Throwable t) throws DbException 
+	{
+		throw new DbException(t);
+	}
+}
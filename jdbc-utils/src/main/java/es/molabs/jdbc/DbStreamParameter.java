@@ -0,0 +1,272 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Argument of a query whose content is streamed to the database with setBinaryStream or setCharacterStream instead of being held in memory.
+ * 
+ * The arguments of type InputStream, Reader, Path and ByteBuffer are streamed the same way, wrapping them is only needed to give the 
+ * length of a stream, which some drivers require. The streams of the caller are not closed, the files are opened when the statement is 
+ * filled and closed with it.
+ */
+public final class DbStreamParameter 
+{
+	private final InputStream inputStream;
+	private final Reader reader;
+	private final Path path;
+	private final ByteBuffer byteBuffer;
+	private final long length;
+	
+	private DbStreamParameter(InputStream inputStream, Reader reader, Path path, ByteBuffer byteBuffer, long length)
+	{
+		this.inputStream = inputStream;
+		this.reader = reader;
+		this.path = path;
+		this.byteBuffer = byteBuffer;
+		this.length = length;
+	}
+	
+	/**
+	 * Binary content of unknown length.
+	 * 
+	 * @param inputStream with the content.
+	 * 
+	 * @return The parameter.
+	 */
+	public static DbStreamParameter of(InputStream inputStream)
+	{
+		return of(inputStream, -1);
+	}
+	
+	/**
+	 * Binary content of known length.
+	 * 
+	 * @param inputStream with the content.
+	 * @param length of the content in bytes or -1 if it is unknown.
+	 * 
+	 * @return The parameter.
+	 */
+	public static DbStreamParameter of(InputStream inputStream, long length)
+	{
+		if (inputStream == null) throw new IllegalArgumentException("Input stream can not be null.");
+		
+		return new DbStreamParameter(inputStream, null, null, null, length);
+	}
+	
+	/**
+	 * Character content of unknown length.
+	 * 
+	 * @param reader with the content.
+	 * 
+	 * @return The parameter.
+	 */
+	public static DbStreamParameter of(Reader reader)
+	{
+		return of(reader, -1);
+	}
+	
+	/**
+	 * Character content of known length.
+	 * 
+	 * @param reader with the content.
+	 * @param length of the content in chars or -1 if it is unknown.
+	 * 
+	 * @return The parameter.
+	 */
+	public static DbStreamParameter of(Reader reader, long length)
+	{
+		if (reader == null) throw new IllegalArgumentException("Reader can not be null.");
+		
+		return new DbStreamParameter(null, reader, null, null, length);
+	}
+	
+	/**
+	 * Binary content of a file, read through a FileChannel with the size of the file as length.
+	 * 
+	 * @param path of the file.
+	 * 
+	 * @return The parameter.
+	 */
+	public static DbStreamParameter of(Path path)
+	{
+		if (path == null) throw new IllegalArgumentException("Path can not be null.");
+		
+		return new DbStreamParameter(null, null, path, null, -1);
+	}
+	
+	/**
+	 * Binary content between the position and the limit of the buffer. The buffer is not modified.
+	 * 
+	 * @param byteBuffer with the content.
+	 * 
+	 * @return The parameter.
+	 */
+	public static DbStreamParameter of(ByteBuffer byteBuffer)
+	{
+		if (byteBuffer == null) throw new IllegalArgumentException("Byte buffer can not be null.");
+		
+		return new DbStreamParameter(null, null, null, byteBuffer, byteBuffer.remaining());
+	}
+	
+	/**
+	 * Returns if the argument is streamed by the queries.
+	 * 
+	 * @param argument of a query.
+	 * 
+	 * @return True if it is a DbStreamParameter, InputStream, Reader, Path or ByteBuffer.
+	 */
+	public static boolean isStream(Object argument)
+	{
+		return (argument instanceof DbStreamParameter || argument instanceof InputStream || argument instanceof Reader || argument instanceof Path || argument instanceof ByteBuffer);
+	}
+	
+	/**
+	 * Returns the argument as a DbStreamParameter.
+	 * 
+	 * @param argument for which isStream(Object) is true.
+	 * 
+	 * @return The parameter.
+	 */
+	public static DbStreamParameter from(Object argument)
+	{
+		if (argument instanceof DbStreamParameter) return (DbStreamParameter) argument;
+		if (argument instanceof InputStream) return of((InputStream) argument);
+		if (argument instanceof Reader) return of((Reader) argument);
+		if (argument instanceof Path) return of((Path) argument);
+		if (argument instanceof ByteBuffer) return of((ByteBuffer) argument);
+		
+		throw new IllegalArgumentException("Argument of type [" + argument.getClass().getName() + "] can not be streamed.");
+	}
+	
+	public long getLength()
+	{
+		return length;
+	}
+	
+	/**
+	 * Binds the content to the parameter of the statement.
+	 * 
+	 * @param statement to fill.
+	 * @param index of the parameter from 1.
+	 * 
+	 * @return The resource opened to read the content, that must be closed after the statement is executed, or null.
+	 * 
+	 * @throws SQLException If the content can not be bound.
+	 */
+	public Closeable bind(PreparedStatement statement, int index) throws SQLException
+	{
+		if (inputStream != null)
+		{
+			if (length >= 0) statement.setBinaryStream(index, inputStream, length);
+			else statement.setBinaryStream(index, inputStream);
+		}
+		else if (reader != null)
+		{
+			if (length >= 0) statement.setCharacterStream(index, reader, length);
+			else statement.setCharacterStream(index, reader);
+		}
+		else if (byteBuffer != null)
+		{
+			statement.setBinaryStream(index, toInputStream(byteBuffer.duplicate()), length);
+		}
+		else
+		{
+			return bindFile(statement, index);
+		}
+		
+		return null;
+	}
+	
+	private Closeable bindFile(PreparedStatement statement, int index) throws SQLException
+	{
+		FileChannel channel = null;
+		
+		try
+		{
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			
+			statement.setBinaryStream(index, Channels.newInputStream(channel), channel.size());
+			
+			return channel;
+		}
+		catch (IOException IOe)
+		{
+			closeQuietly(channel);
+			
+			throw new SQLException(IOe);
+		}
+		catch (SQLException SQLe)
+		{
+			closeQuietly(channel);
+			
+			throw SQLe;
+		}
+	}
+	
+	private static InputStream toInputStream(final ByteBuffer byteBuffer)
+	{
+		// Heap buffers are read in place
+		if (byteBuffer.hasArray()) return new ByteArrayInputStream(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+		
+		return new InputStream()
+		{
+			public int read()
+			{
+				return (byteBuffer.hasRemaining() ? byteBuffer.get() & 0xFF : -1);
+			}
+			
+			public int read(byte[] buffer, int offset, int count)
+			{
+				if (count == 0) return 0;
+				if (!byteBuffer.hasRemaining()) return -1;
+				
+				int read = Math.min(count, byteBuffer.remaining());
+				byteBuffer.get(buffer, offset, read);
+				
+				return read;
+			}
+			
+			public int available()
+			{
+				return byteBuffer.remaining();
+			}
+		};
+	}
+	
+	private static void closeQuietly(Closeable closeable)
+	{
+		try
+		{
+			if (closeable != null) closeable.close();
+		}
+		catch (IOException IOe)
+		{
+		}
+	}
+}
@@ -17,38 +17,66 @@ package es.molabs.jdbc;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.apache.commons.dbutils.DbUtils;
 
+import es.molabs.jdbc.context.DbContext;
+import es.molabs.jdbc.dbutils.DbStatementCache;
 import es.molabs.jdbc.exception.DbException;
+import es.molabs.jdbc.routing.DbReplicaRouter;
 
 public class DbTransaction extends DbQuery
 {
 	private Connection connection = null;
 	private boolean readOnly;
+	private DbContext dbContext = null;
+	
+	// Statements that wrote tables, whose cached results are invalidated again on commit
+	private Set<String> writeSql = null;
 	
 	DbTransaction(DbManager dbManager) throws DbException
 	{
-		this(dbManager, false);
+		this(dbManager, false, dbManager.getDbContext());
 	}
 	
-	DbTransaction(DbManager dbManager, boolean readOnly) throws DbException 
+	DbTransaction(DbManager dbManager, boolean readOnly, DbContext dbContext) throws DbException 
 	{
-		super(dbManager);
+		super(dbManager, createStatementCache(dbManager));
 		
 		this.readOnly = readOnly;
+		this.dbContext = dbContext;
 		
 		try
 		{
 			// Sets this transaction as active
-			dbManager.setActiveDbTransaction(this);
+			dbContext.setActiveDbTransaction(this);
+			
+			// Read only transactions go to a replica if there are any
+			DbReplicaRouter replicaRouter = dbManager.getReplicaRouter();
+			
+			connection = (readOnly && replicaRouter != null ? replicaRouter.getReadConnection() : getQueryRunner().getDataSource().getConnection());
 			
-			connection = getQueryRunner().getDataSource().getConnection();
-			connection.setAutoCommit(false);
-			connection.setReadOnly(readOnly);
+			if (dbManager.isTrustConnectionDefaults())
+			{
+				// The pool returns connections in auto commit and read write mode, so only the changes are sent
+				connection.setAutoCommit(false);
+				if (readOnly) connection.setReadOnly(true);
+			}
+			else
+			{
+				configureConnection(connection, false, readOnly);
+			}
 		}
 		catch (Exception e)
 		{
+			// The transaction never started so it is no longer the active one
+			DbUtils.closeQuietly(connection);
+			connection = null;
+			
+			clearActiveDbTransaction();
+			
 			throw new DbException(e);
 		}
 	}
@@ -57,6 +85,8 @@ public class DbTransaction extends DbQuery
 	{		
 		try
 		{
+			closeStatementCache();
+			
 			DbUtils.commitAndClose(connection);
 		}
 		catch (Exception e)
@@ -67,7 +97,10 @@ public class DbTransaction extends DbQuery
 		{
 			connection = null;
 			
-			getDbManager().clearActiveDbTransaction();
+			clearActiveDbTransaction();
+			
+			// Other queries could have cached the old rows before the commit
+			invalidateWrittenTables();
 		}
 	}
 	
@@ -75,6 +108,8 @@ public class DbTransaction extends DbQuery
 	{
 		try
 		{
+			closeStatementCache();
+			
 			DbUtils.rollbackAndClose(connection);
 		}
 		catch (Exception e)
@@ -84,8 +119,9 @@ public class DbTransaction extends DbQuery
 		finally
 		{
 			connection = null;
+			writeSql = null;
 			
-			getDbManager().clearActiveDbTransaction();	
+			clearActiveDbTransaction();	
 		}
 	}
 	
@@ -93,12 +129,81 @@ public class DbTransaction extends DbQuery
 	{
 		return readOnly;
 	}
+	
+	/**
+	 * Returns the context this transaction is bound to.
+	 * 
+	 * @return The context of the transaction.
+	 */
+	public DbContext getDbContext()
+	{
+		return dbContext;
+	}
+	
+	/**
+	 * Returns the cache of the statements of this transaction.
+	 * 
+	 * @return The statement cache or null if it is disabled.
+	 */
+	public DbStatementCache getStatementCache()
+	{
+		return getQueryRunner().getStatementCache();
+	}
+	
+	void invalidateQueryCache(String sql)
+	{
+		super.invalidateQueryCache(sql);
+		
+		if (getDbManager().getQueryCache() != null)
+		{
+			if (writeSql == null) writeSql = new HashSet<String>();
+			
+			writeSql.add(sql);
+		}
+	}
+	
+	private void invalidateWrittenTables()
+	{
+		if (writeSql != null)
+		{
+			for (String sql : writeSql)
+			{
+				super.invalidateQueryCache(sql);
+			}
+			
+			writeSql = null;
+		}
+	}
+	
+	private void clearActiveDbTransaction()
+	{
+		// Another transaction of the context is never cleared
+		if (dbContext.getActiveDbTransaction() == this) dbContext.setActiveDbTransaction(null);
+	}
+	
+	private void closeStatementCache()
+	{
+		DbStatementCache statementCache = getStatementCache();
+		
+		if (statementCache != null) statementCache.close();
+	}
+	
+	private static DbStatementCache createStatementCache(DbManager dbManager)
+	{
+		return (dbManager.getStatementCacheSize() > 0 ? new DbStatementCache(dbManager.getStatementCacheSize()) : null);
+	}
 
 	protected Connection getConnection() throws SQLException 
 	{
 		return connection;
 	}
 	
+	protected boolean useQueryCache()
+	{
+		// The cache does not have the writes of the transaction
+		return false;
+	}
+	
 	protected boolean closeAfter()
 	{
 		return false;
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the multiple value INSERT statements built from a base SQL, so the VALUES groups are not appended again on every call.
+ * Only the statements of full chunks should be cached, the number of groups of the rest changes from one call to the next and they are 
+ * built with {@link #buildSql(String, boolean, int, int)} instead. Only the first {@link #MAX_SIZE} statements are cached, the rest are 
+ * built each time.
+ */
+class MultipleInsertSqlCache 
+{
+	final static int MAX_SIZE = 256;
+	
+	private final ConcurrentMap<Key, String> sqlMap;
+	
+	MultipleInsertSqlCache()
+	{
+		sqlMap = new ConcurrentHashMap<Key, String>();
+	}
+	
+	/**
+	 * Returns the base SQL followed by the VALUES groups, caching it.
+	 * 
+	 * @param sql base query the groups are appended to.
+	 * @param first if the first group does not need a leading ','.
+	 * @param fieldsToInsert number of ? of each group.
+	 * @param valueGroups number of groups.
+	 * 
+	 * @return The SQL with the groups.
+	 */
+	String getSql(String sql, boolean first, int fieldsToInsert, int valueGroups)
+	{
+		Key key = new Key(sql, first, fieldsToInsert, valueGroups);
+		
+		String multipleInsertSql = sqlMap.get(key);
+		
+		if (multipleInsertSql == null)
+		{
+			multipleInsertSql = buildSql(sql, first, fieldsToInsert, valueGroups);
+			
+			if (sqlMap.size() < MAX_SIZE) sqlMap.putIfAbsent(key, multipleInsertSql);
+		}
+		
+		return multipleInsertSql;
+	}
+	
+	int size()
+	{
+		return sqlMap.size();
+	}
+	
+	void clear()
+	{
+		sqlMap.clear();
+	}
+	
+	/**
+	 * Builds the base SQL followed by the VALUES groups without caching it.
+	 * 
+	 * @param sql base query the groups are appended to.
+	 * @param first if the first group does not need a leading ','.
+	 * @param fieldsToInsert number of ? of each group.
+	 * @param valueGroups number of groups.
+	 * 
+	 * @return The SQL with the groups.
+	 */
+	static String buildSql(String sql, boolean first, int fieldsToInsert, int valueGroups)
+	{
+		// Each group is "(?, ?)", 3 characters for each field except the last one that takes 1, plus the parentheses and the ','
+		StringBuilder sqlBuilder = new StringBuilder(sql.length() + valueGroups * (fieldsToInsert * 3 + 1));
+		sqlBuilder.append(sql);
+		
+		// For each VALUES group
+		for (int i=0; i<valueGroups; i++)
+		{
+			// If its not the first element added to the insert VALUES
+			if (!first || i > 0) sqlBuilder.append(",");
+			
+			sqlBuilder.append("(");
+			
+			for (int j=0; j<fieldsToInsert; j++)
+			{
+				sqlBuilder.append("?");
+				
+				// If its not the last value
+				if (j + 1 < fieldsToInsert) sqlBuilder.append(", ");
+			}
+			
+			sqlBuilder.append(")");
+		}
+		
+		return sqlBuilder.toString();
+	}
+	
+	private static class Key
+	{
+		private final String sql;
+		private final boolean first;
+		private final int fieldsToInsert;
+		private final int valueGroups;
+		
+		Key(String sql, boolean first, int fieldsToInsert, int valueGroups)
+		{
+			this.sql = sql;
+			this.first = first;
+			this.fieldsToInsert = fieldsToInsert;
+			this.valueGroups = valueGroups;
+		}
+		
+		public boolean equals(Object object)
+		{
+			if (this == object) return true;
+			if (!(object instanceof Key)) return false;
+			
+			Key key = (Key) object;
+			
+			return first == key.first && fieldsToInsert == key.fieldsToInsert && valueGroups == key.valueGroups && sql.equals(key.sql);
+		}
+		
+		public int hashCode()
+		{
+			int hash = sql.hashCode();
+			hash = 31 * hash + (first ? 1 : 0);
+			hash = 31 * hash + fieldsToInsert;
+			hash = 31 * hash + valueGroups;
+			
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.cache;
+
+/**
+ * How a DbQueryCache chooses the entry to evict when it is full.
+ */
+public enum DbCacheEviction 
+{
+	/**
+	 * Evicts the least recently used entry.
+	 */
+	LRU,
+	
+	/**
+	 * W-TinyLFU: new entries go to a small LRU window, and when they leave it they only replace the least recently used entry of the 
+	 * rest if they were used more often, so a burst of one time queries does not flush the hot ones.
+	 */
+	TINY_LFU
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.cache;
+
+import java.util.Arrays;
+
+/**
+ * Key of a result in a DbQueryCache: the SQL, its arguments, what the rows are mapped to and the max rows of the statement.
+ */
+public final class DbCacheKey 
+{
+	private final Object resultType;
+	private final boolean list;
+	private final int maxRows;
+	private final String sql;
+	private final Object[] arguments;
+	private final int hash;
+	
+	/**
+	 * Creates a key.
+	 * 
+	 * @param resultType what the rows are mapped to, the class of a field or the row mapper.
+	 * @param list if the result is a list of every row instead of the first one.
+	 * @param maxRows of the statement, 0 if there is no limit.
+	 * @param sql of the query.
+	 * @param arguments of the query, copied so the caller can reuse the array.
+	 */
+	public DbCacheKey(Object resultType, boolean list, int maxRows, String sql, Object[] arguments)
+	{
+		this.resultType = resultType;
+		this.list = list;
+		this.maxRows = maxRows;
+		this.sql = sql;
+		this.arguments = (arguments != null ? arguments.clone() : null);
+		
+		int hash = sql.hashCode();
+		hash = 31 * hash + resultType.hashCode();
+		hash = 31 * hash + (list ? 1 : 0);
+		hash = 31 * hash + maxRows;
+		hash = 31 * hash + Arrays.deepHashCode(this.arguments);
+		
+		this.hash = hash;
+	}
+	
+	public String getSql()
+	{
+		return sql;
+	}
+	
+	public boolean equals(Object object)
+	{
+		if (this == object) return true;
+		if (!(object instanceof DbCacheKey)) return false;
+		
+		DbCacheKey key = (DbCacheKey) object;
+		
+		return hash == key.hash && list == key.list && maxRows == key.maxRows && sql.equals(key.sql) && resultType.equals(key.resultType) && Arrays.deepEquals(arguments, key.arguments);
+	}
+	
+	public int hashCode()
+	{
+		return hash;
+	}
+	
+	public String toString()
+	{
+		return "DbCacheKey [sql=" + sql + ", arguments=" + Arrays.deepToString(arguments) + "]";
+	}
+}
@@ -0,0 +1,488 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache of query results of a DbManager, used by the queries whose DbQueryOptions are cached. Transactions never read from it since 
+ * they must see their own writes.
+ * <p>
+ * The entries expire after the time to live, and when the cache is full they are evicted following the eviction policy. The updates 
+ * of a DbManager invalidate the results of the queries that read the registered tables they write. Only the registered tables are 
+ * tracked, the results of queries that do not read any of them only expire.
+ * <p>
+ * The cached results are shared by every caller, so they must not be modified. The lists are cached unmodifiable.
+ */
+public class DbQueryCache 
+{
+	// Size of the LRU window of TinyLFU compared to the whole cache
+	private final static double WINDOW_RATIO = 0.01;
+	
+	// Max SQL statements whose tables are remembered
+	private final static int MAX_RESOLVED_SQL = 10000;
+	
+	private final static int[] NO_TABLES = new int[0];
+	
+	private final int maxEntries;
+	private final long ttl;
+	private final DbCacheEviction eviction;
+	
+	// New entries, and every entry with LRU
+	private final LinkedHashMap<DbCacheKey, Entry> window;
+	private final int maxWindow;
+	
+	// Entries that survived the window with TinyLFU
+	private final LinkedHashMap<DbCacheKey, Entry> main;
+	private final int maxMain;
+	
+	private final FrequencySketch sketch;
+	
+	// Version of each registered table, increased each time it is written
+	private final Map<String, Integer> tableIndexes;
+	private long[] tableVersions;
+	
+	private final ConcurrentHashMap<String, int[]> sqlTables;
+	
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+	
+	/**
+	 * Creates a cache whose entries never expire.
+	 * 
+	 * @param maxEntries max number of results.
+	 * @param eviction policy when the cache is full.
+	 */
+	public DbQueryCache(int maxEntries, DbCacheEviction eviction)
+	{
+		this(maxEntries, 0, eviction);
+	}
+	
+	/**
+	 * Creates a cache.
+	 * 
+	 * @param maxEntries max number of results.
+	 * @param ttl time to live of the results in milliseconds, 0 for no limit.
+	 * @param eviction policy when the cache is full.
+	 */
+	public DbQueryCache(int maxEntries, long ttl, DbCacheEviction eviction)
+	{
+		if (maxEntries < 1) throw new IllegalArgumentException("Max entries must be greater than 0.");
+		if (ttl < 0) throw new IllegalArgumentException("Time to live can not be negative.");
+		if (eviction == null) throw new IllegalArgumentException("Eviction can not be null.");
+		
+		this.maxEntries = maxEntries;
+		this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+		this.eviction = eviction;
+		
+		if (eviction == DbCacheEviction.TINY_LFU && maxEntries > 1)
+		{
+			maxWindow = Math.max(1, (int) (maxEntries * WINDOW_RATIO));
+			maxMain = maxEntries - maxWindow;
+			sketch = new FrequencySketch(maxEntries);
+		}
+		else
+		{
+			maxWindow = maxEntries;
+			maxMain = 0;
+			sketch = null;
+		}
+		
+		window = new LinkedHashMap<DbCacheKey, Entry>(16, 0.75f, true);
+		main = new LinkedHashMap<DbCacheKey, Entry>(16, 0.75f, true);
+		
+		tableIndexes = new HashMap<String, Integer>();
+		tableVersions = new long[0];
+		sqlTables = new ConcurrentHashMap<String, int[]>();
+		
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		invalidations = 0;
+	}
+	
+	public int getMaxEntries()
+	{
+		return maxEntries;
+	}
+	
+	/**
+	 * Returns the time to live of the results.
+	 * 
+	 * @return The time to live in milliseconds, 0 for no limit.
+	 */
+	public long getTtl()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(ttl);
+	}
+	
+	public DbCacheEviction getEviction()
+	{
+		return eviction;
+	}
+	
+	/**
+	 * Registers the tables whose writes invalidate the results of the queries that read them.
+	 * 
+	 * @param tables names without schema, case is ignored.
+	 */
+	public synchronized void registerTables(String...tables)
+	{
+		for (String table : tables)
+		{
+			String name = table.toLowerCase(Locale.ROOT);
+			
+			if (!tableIndexes.containsKey(name))
+			{
+				tableIndexes.put(name, tableIndexes.size());
+			}
+		}
+		
+		long[] versions = new long[tableIndexes.size()];
+		System.arraycopy(tableVersions, 0, versions, 0, tableVersions.length);
+		tableVersions = versions;
+		
+		// The tables of the statements resolved so far can be different now
+		sqlTables.clear();
+		
+		// The results cached so far do not know the new tables
+		clear();
+	}
+	
+	/**
+	 * Returns the cached result of the key, or runs the query and caches its result.
+	 * 
+	 * @param <T> type of the result.
+	 * @param key of the result.
+	 * @param query that returns the result when it is not cached.
+	 * 
+	 * @return The result.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(DbCacheKey key, Supplier<T> query)
+	{
+		int[] tables = resolveTables(key.getSql());
+		long[] versions;
+		
+		synchronized (this)
+		{
+			if (sketch != null) sketch.increment(key.hashCode());
+			
+			Entry entry = window.get(key);
+			if (entry == null) entry = main.get(key);
+			
+			if (entry != null && isValid(entry))
+			{
+				hits++;
+				
+				return (T) entry.value;
+			}
+			
+			misses++;
+			
+			// The versions are taken before the query so a write done meanwhile invalidates its result
+			versions = currentVersions(tables);
+		}
+		
+		T value = query.get();
+		
+		synchronized (this)
+		{
+			// Registering tables clears the cache and may have changed the indexes
+			if (tables == sqlTables.get(key.getSql()))
+			{
+				put(key, new Entry(value, tables, versions, (ttl > 0 ? System.nanoTime() + ttl : 0)));
+			}
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Invalidates the results of the queries that read the registered tables written by the statement.
+	 * 
+	 * @param sql of the statement.
+	 */
+	public void invalidate(String sql)
+	{
+		int[] tables = resolveTables(sql);
+		
+		if (tables.length > 0)
+		{
+			synchronized (this)
+			{
+				for (int table : tables)
+				{
+					tableVersions[table]++;
+					invalidations++;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Invalidates the results of the queries that read the table.
+	 * 
+	 * @param table name without schema.
+	 */
+	public synchronized void invalidateTable(String table)
+	{
+		Integer index = tableIndexes.get(table.toLowerCase(Locale.ROOT));
+		
+		if (index != null)
+		{
+			tableVersions[index]++;
+			invalidations++;
+		}
+	}
+	
+	/**
+	 * Removes every result.
+	 */
+	public synchronized void clear()
+	{
+		window.clear();
+		main.clear();
+	}
+	
+	public synchronized int getSize()
+	{
+		return window.size() + main.size();
+	}
+	
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+	
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+	
+	/**
+	 * Returns how many results were evicted to make room for others, not counting the expired or invalidated ones.
+	 * 
+	 * @return The number of evictions.
+	 */
+	public synchronized long getEvictionCount()
+	{
+		return evictions;
+	}
+	
+	/**
+	 * Returns how many times a write invalidated a registered table.
+	 * 
+	 * @return The number of invalidations.
+	 */
+	public synchronized long getInvalidationCount()
+	{
+		return invalidations;
+	}
+	
+	public synchronized double getHitRate()
+	{
+		long requests = hits + misses;
+		
+		return (requests > 0 ? (double) hits / requests : 0);
+	}
+	
+	private boolean isValid(Entry entry)
+	{
+		if (entry.expiresAt != 0 && System.nanoTime() - entry.expiresAt >= 0) return false;
+		
+		for (int i=0; i<entry.tables.length; i++)
+		{
+			if (tableVersions[entry.tables[i]] != entry.versions[i]) return false;
+		}
+		
+		return true;
+	}
+	
+	private long[] currentVersions(int[] tables)
+	{
+		long[] versions = new long[tables.length];
+		
+		for (int i=0; i<tables.length; i++)
+		{
+			versions[i] = tableVersions[tables[i]];
+		}
+		
+		return versions;
+	}
+	
+	private void put(DbCacheKey key, Entry entry)
+	{
+		// Replaces the stale entry of the key if there is one
+		if (main.containsKey(key))
+		{
+			main.put(key, entry);
+			
+			return;
+		}
+		
+		window.put(key, entry);
+		
+		if (window.size() <= maxWindow) return;
+		
+		// The least recently used entry of the window leaves it
+		Iterator<Map.Entry<DbCacheKey, Entry>> iterator = window.entrySet().iterator();
+		Map.Entry<DbCacheKey, Entry> candidate = iterator.next();
+		iterator.remove();
+		
+		if (maxMain == 0)
+		{
+			evictions++;
+		}
+		else if (main.size() < maxMain || !isValid(main.values().iterator().next()))
+		{
+			admit(candidate);
+		}
+		else
+		{
+			// It only replaces the victim of the main space if it is used more often
+			Iterator<Map.Entry<DbCacheKey, Entry>> mainIterator = main.entrySet().iterator();
+			Map.Entry<DbCacheKey, Entry> victim = mainIterator.next();
+			
+			if (sketch.frequency(candidate.getKey().hashCode()) > sketch.frequency(victim.getKey().hashCode()))
+			{
+				mainIterator.remove();
+				admit(candidate);
+			}
+			
+			evictions++;
+		}
+	}
+	
+	private void admit(Map.Entry<DbCacheKey, Entry> candidate)
+	{
+		if (main.size() >= maxMain)
+		{
+			// Removes the stale victim
+			Iterator<Entry> iterator = main.values().iterator();
+			iterator.next();
+			iterator.remove();
+		}
+		
+		main.put(candidate.getKey(), candidate.getValue());
+	}
+	
+	/**
+	 * Returns the indexes of the registered tables named in the SQL.
+	 */
+	private int[] resolveTables(String sql)
+	{
+		int[] tables = sqlTables.get(sql);
+		
+		if (tables == null)
+		{
+			synchronized (this)
+			{
+				tables = findTables(sql);
+			}
+			
+			if (sqlTables.size() >= MAX_RESOLVED_SQL) sqlTables.clear();
+			
+			int[] previous = sqlTables.putIfAbsent(sql, tables);
+			if (previous != null) tables = previous;
+		}
+		
+		return tables;
+	}
+	
+	private int[] findTables(String sql)
+	{
+		if (tableIndexes.isEmpty()) return NO_TABLES;
+		
+		boolean[] found = new boolean[tableIndexes.size()];
+		int count = 0;
+		int length = sql.length();
+		int i = 0;
+		
+		while (i < length)
+		{
+			if (!isIdentifierPart(sql.charAt(i)))
+			{
+				i++;
+				
+				continue;
+			}
+			
+			// Reads an identifier, keeping only the name after the schema
+			int start = i;
+			
+			while (i < length && (isIdentifierPart(sql.charAt(i)) || sql.charAt(i) == '.' || sql.charAt(i) == '"'))
+			{
+				if (sql.charAt(i) == '.') start = i + 1;
+				
+				i++;
+			}
+			
+			String name = sql.substring(start, i).replace("\"", "").toLowerCase(Locale.ROOT);
+			Integer index = tableIndexes.get(name);
+			
+			if (index != null && !found[index])
+			{
+				found[index] = true;
+				count++;
+			}
+		}
+		
+		if (count == 0) return NO_TABLES;
+		
+		int[] tables = new int[count];
+		
+		for (int table=0, j=0; table<found.length; table++)
+		{
+			if (found[table]) tables[j++] = table;
+		}
+		
+		return tables;
+	}
+	
+	private static boolean isIdentifierPart(char character)
+	{
+		return Character.isLetterOrDigit(character) || character == '_' || character == '$';
+	}
+	
+	/**
+	 * A cached result with the versions its tables had when it was read.
+	 */
+	private static class Entry
+	{
+		private final Object value;
+		private final int[] tables;
+		private final long[] versions;
+		private final long expiresAt;
+		
+		private Entry(Object value, int[] tables, long[] versions, long expiresAt)
+		{
+			this.value = value;
+			this.tables = tables;
+			this.versions = versions;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.cache;
+
+/**
+ * Count-min sketch of how often the keys are used, with 4 bit counters that are halved periodically so old popularity fades.
+ * Not thread safe, it is guarded by its DbQueryCache.
+ */
+final class FrequencySketch 
+{
+	private final static int MAX_COUNT = 15;
+	private final static int DEPTH = 4;
+	
+	private final static int[] SEEDS = {0x97cb3127, 0xb11924e1, 0x16a58a2d, 0x6e0a23d1};
+	
+	private final byte[] counters;
+	private final int mask;
+	private final int resetSize;
+	private int additions;
+	
+	FrequencySketch(int maxEntries)
+	{
+		// A power of 2 with at least 8 counters per entry
+		int size = Integer.highestOneBit(Math.max(64, maxEntries * 8) - 1) << 1;
+		
+		counters = new byte[size];
+		mask = size - 1;
+		resetSize = Math.max(10, maxEntries * 10);
+		additions = 0;
+	}
+	
+	void increment(int hash)
+	{
+		boolean added = false;
+		
+		for (int i=0; i<DEPTH; i++)
+		{
+			int index = index(hash, i);
+			
+			if (counters[index] < MAX_COUNT)
+			{
+				counters[index]++;
+				added = true;
+			}
+		}
+		
+		if (added && ++additions == resetSize)
+		{
+			reset();
+		}
+	}
+	
+	int frequency(int hash)
+	{
+		int frequency = MAX_COUNT;
+		
+		for (int i=0; i<DEPTH; i++)
+		{
+			frequency = Math.min(frequency, counters[index(hash, i)]);
+		}
+		
+		return frequency;
+	}
+	
+	private int index(int hash, int i)
+	{
+		int h = (hash ^ SEEDS[i]) * 0x9e3779b9;
+		
+		return (h ^ (h >>> 16)) & mask;
+	}
+	
+	private void reset()
+	{
+		for (int i=0; i<counters.length; i++)
+		{
+			counters[i] >>= 1;
+		}
+		
+		additions = additions / 2;
+	}
+}
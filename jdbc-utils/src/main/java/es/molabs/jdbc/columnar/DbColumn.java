@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Column of a DbColumnarResult. Rows are indexed from 0 and the NULL values are kept in a bitmap that is only allocated if there is any.
+ */
+public abstract class DbColumn 
+{
+	private final String label;
+	private final int sqlType;
+	private final int rowCount;
+	private final long[] nulls;
+	
+	DbColumn(String label, int sqlType, int rowCount, long[] nulls)
+	{
+		this.label = label;
+		this.sqlType = sqlType;
+		this.rowCount = rowCount;
+		this.nulls = nulls;
+	}
+	
+	public String getLabel()
+	{
+		return label;
+	}
+	
+	/**
+	 * Returns the SQL type of the column as in ResultSetMetaData.getColumnType(int).
+	 * 
+	 * @return The type from java.sql.Types.
+	 */
+	public int getSqlType()
+	{
+		return sqlType;
+	}
+	
+	public int getRowCount()
+	{
+		return rowCount;
+	}
+	
+	/**
+	 * Returns if the value of the row is NULL. The typed getters of a NULL value return 0 or null.
+	 * 
+	 * @param row index from 0.
+	 * 
+	 * @return True if the value is NULL.
+	 */
+	public boolean isNull(int row)
+	{
+		if (row < 0 || row >= rowCount) throw new IndexOutOfBoundsException("Row [" + row + "] is out of bounds.");
+		
+		return (nulls != null && (nulls[row >>> 6] & (1L << row)) != 0);
+	}
+	
+	/**
+	 * Returns if any value of the column is NULL, if not the calls to isNull(int) can be skipped.
+	 * 
+	 * @return True if there are NULL values.
+	 */
+	public boolean hasNulls()
+	{
+		return (nulls != null);
+	}
+	
+	/**
+	 * Returns the value of the row boxed, for the generic code. The typed getters of the subclasses should be used to scan the column.
+	 * 
+	 * @param row index from 0.
+	 * 
+	 * @return The value or null if it is NULL.
+	 */
+	public abstract Object getObject(int row);
+	
+	/**
+	 * Reads a column of a ResultSet row by row and builds the DbColumn.
+	 */
+	abstract static class Builder
+	{
+		final String label;
+		final int sqlType;
+		
+		private long[] nulls = null;
+		
+		Builder(String label, int sqlType)
+		{
+			this.label = label;
+			this.sqlType = sqlType;
+		}
+		
+		abstract void read(ResultSet resultSet, int column, int row) throws SQLException;
+		
+		abstract DbColumn build(int rowCount);
+		
+		void setNull(int row)
+		{
+			int word = row >>> 6;
+			
+			if (nulls == null) nulls = new long[word + 1];
+			else if (word >= nulls.length) nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+			
+			nulls[word] |= (1L << row);
+		}
+		
+		long[] nulls(int rowCount)
+		{
+			if (nulls == null) return null;
+			
+			int words = ((rowCount - 1) >>> 6) + 1;
+			
+			return (nulls.length == words ? nulls : Arrays.copyOf(nulls, words));
+		}
+		
+		static int grow(int capacity)
+		{
+			int newCapacity = capacity + (capacity >> 1) + 1;
+			
+			if (newCapacity < 0) throw new OutOfMemoryError("Column size limit reached.");
+			
+			return newCapacity;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.columnar;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+
+/**
+ * Reads a ResultSet into a DbColumnarResult. The kind of each column is chosen from its SQL type:
+ * 
+ * INTEGER, SMALLINT and TINYINT are DbIntColumn, BIGINT is DbLongColumn, DOUBLE, FLOAT and REAL are DbDoubleColumn, the character types 
+ * are DbStringColumn and the rest are DbObjectColumn. DECIMAL and NUMERIC are kept as BigDecimal so no precision is lost.
+ */
+public class DbColumnarHandler implements ResultSetHandler<DbColumnarResult> 
+{
+	private final static int DEFAULT_CAPACITY = 16;
+	private final static int MAX_FETCH_SIZE_CAPACITY = 1024;
+	
+	private final int expectedRows;
+	
+	public DbColumnarHandler()
+	{
+		this(0);
+	}
+	
+	/**
+	 * Creates a handler that pre-sizes the columns.
+	 * 
+	 * @param expectedRows initial capacity of the columns. If it is not greater than 0 the fetch size of the ResultSet, up to 1024, is used instead.
+	 */
+	public DbColumnarHandler(int expectedRows)
+	{
+		this.expectedRows = expectedRows;
+	}
+	
+	public DbColumnarResult handle(ResultSet rs) throws SQLException 
+	{
+		if (!rs.next()) return null;
+		
+		ResultSetMetaData metaData = rs.getMetaData();
+		DbColumn.Builder[] builders = new DbColumn.Builder[metaData.getColumnCount()];
+		int capacity = initialCapacity(rs);
+		
+		for (int i=0; i<builders.length; i++)
+		{
+			builders[i] = createBuilder(metaData.getColumnLabel(i + 1), metaData.getColumnType(i + 1), capacity);
+		}
+		
+		int row = 0;
+		
+		do
+		{
+			for (int i=0; i<builders.length; i++)
+			{
+				builders[i].read(rs, i + 1, row);
+			}
+			
+			row++;
+		}
+		while (rs.next());
+		
+		DbColumn[] columns = new DbColumn[builders.length];
+		for (int i=0; i<builders.length; i++)
+		{
+			columns[i] = builders[i].build(row);
+		}
+		
+		return new DbColumnarResult(columns, row);
+	}
+	
+	private DbColumn.Builder createBuilder(String label, int sqlType, int capacity)
+	{
+		switch (sqlType)
+		{
+			case Types.INTEGER:
+			case Types.SMALLINT:
+			case Types.TINYINT:
+				return new DbIntColumn.Builder(label, sqlType, capacity);
+				
+			case Types.BIGINT:
+				return new DbLongColumn.Builder(label, sqlType, capacity);
+				
+			case Types.DOUBLE:
+			case Types.FLOAT:
+			case Types.REAL:
+				return new DbDoubleColumn.Builder(label, sqlType, capacity);
+				
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+			case Types.NCHAR:
+			case Types.NVARCHAR:
+			case Types.LONGNVARCHAR:
+			case Types.CLOB:
+			case Types.NCLOB:
+				return new DbStringColumn.Builder(label, sqlType, capacity);
+				
+			case Types.BINARY:
+			case Types.VARBINARY:
+			case Types.LONGVARBINARY:
+			case Types.BLOB:
+				return new DbObjectColumn.Builder(label, sqlType, capacity, true);
+				
+			default:
+				return new DbObjectColumn.Builder(label, sqlType, capacity, false);
+		}
+	}
+	
+	private int initialCapacity(ResultSet rs) throws SQLException
+	{
+		if (expectedRows > 0) return expectedRows;
+		
+		int fetchSize = rs.getFetchSize();
+		
+		return (fetchSize > 0 ? Math.min(fetchSize, MAX_FETCH_SIZE_CAPACITY) : DEFAULT_CAPACITY);
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.columnar;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Result of a query stored by columns instead of by rows. The numeric columns are kept in primitive arrays, the strings encoded with a 
+ * dictionary and the NULL values in bitmaps, so a large result takes a fraction of the memory of a List of row objects and each column 
+ * can be scanned in a tight loop.
+ * 
+ * Columns are indexed from 0 in the order of the query, the labels are matched ignoring the case.
+ */
+public class DbColumnarResult 
+{
+	private final DbColumn[] columns;
+	private final int rowCount;
+	private final Map<String, DbColumn> columnsByLabel;
+	
+	DbColumnarResult(DbColumn[] columns, int rowCount)
+	{
+		this.columns = columns;
+		this.rowCount = rowCount;
+		
+		columnsByLabel = new HashMap<String, DbColumn>();
+		
+		// With repeated labels the first column wins, as in ResultSet.findColumn(String)
+		for (int i=columns.length - 1; i>=0; i--)
+		{
+			columnsByLabel.put(columns[i].getLabel().toLowerCase(Locale.ROOT), columns[i]);
+		}
+	}
+	
+	public int getRowCount()
+	{
+		return rowCount;
+	}
+	
+	public int getColumnCount()
+	{
+		return columns.length;
+	}
+	
+	public DbColumn getColumn(int index)
+	{
+		return columns[index];
+	}
+	
+	/**
+	 * Returns the column with the label.
+	 * 
+	 * @param label of the column.
+	 * 
+	 * @return The column.
+	 * 
+	 * @throws IllegalArgumentException If there is no column with the label.
+	 */
+	public DbColumn getColumn(String label) throws IllegalArgumentException
+	{
+		DbColumn column = columnsByLabel.get(label.toLowerCase(Locale.ROOT));
+		
+		if (column == null) throw new IllegalArgumentException("Column [" + label + "] does not exist.");
+		
+		return column;
+	}
+	
+	public DbIntColumn getIntColumn(String label) throws IllegalArgumentException
+	{
+		return getColumn(label, DbIntColumn.class);
+	}
+	
+	public DbLongColumn getLongColumn(String label) throws IllegalArgumentException
+	{
+		return getColumn(label, DbLongColumn.class);
+	}
+	
+	public DbDoubleColumn getDoubleColumn(String label) throws IllegalArgumentException
+	{
+		return getColumn(label, DbDoubleColumn.class);
+	}
+	
+	public DbStringColumn getStringColumn(String label) throws IllegalArgumentException
+	{
+		return getColumn(label, DbStringColumn.class);
+	}
+	
+	public DbObjectColumn getObjectColumn(String label) throws IllegalArgumentException
+	{
+		return getColumn(label, DbObjectColumn.class);
+	}
+	
+	private <T extends DbColumn> T getColumn(String label, Class<T> clazz) throws IllegalArgumentException
+	{
+		DbColumn column = getColumn(label);
+		
+		if (!clazz.isInstance(column)) throw new IllegalArgumentException("Column [" + label + "] is a [" + column.getClass().getSimpleName() + "].");
+		
+		return clazz.cast(column);
+	}
+}
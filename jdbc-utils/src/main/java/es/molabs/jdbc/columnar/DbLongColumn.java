@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Column of long values.
+ */
+public final class DbLongColumn extends DbColumn 
+{
+	private final long[] values;
+	
+	DbLongColumn(String label, int sqlType, int rowCount, long[] nulls, long[] values)
+	{
+		super(label, sqlType, rowCount, nulls);
+		
+		this.values = values;
+	}
+	
+	/**
+	 * Returns the value of the row.
+	 * 
+	 * @param row index from 0.
+	 * 
+	 * @return The value or 0 if it is NULL.
+	 */
+	public long getLong(int row)
+	{
+		return values[row];
+	}
+	
+	public Long getObject(int row)
+	{
+		return (isNull(row) ? null : values[row]);
+	}
+	
+	static class Builder extends DbColumn.Builder
+	{
+		private long[] values = null;
+		
+		Builder(String label, int sqlType, int capacity)
+		{
+			super(label, sqlType);
+			
+			values = new long[capacity];
+		}
+		
+		void read(ResultSet resultSet, int column, int row) throws SQLException
+		{
+			long value = resultSet.getLong(column);
+			
+			if (resultSet.wasNull()) setNull(row);
+			
+			if (row == values.length) values = Arrays.copyOf(values, grow(row));
+			values[row] = value;
+		}
+		
+		DbLongColumn build(int rowCount)
+		{
+			return new DbLongColumn(label, sqlType, rowCount, nulls(rowCount), (values.length == rowCount ? values : Arrays.copyOf(values, rowCount)));
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Column of the values without a primitive representation, like decimals or dates, as returned by ResultSet.getObject(int). The binary 
+ * values are read as byte[] so they outlive the ResultSet.
+ */
+public final class DbObjectColumn extends DbColumn 
+{
+	private final Object[] values;
+	
+	DbObjectColumn(String label, int sqlType, int rowCount, long[] nulls, Object[] values)
+	{
+		super(label, sqlType, rowCount, nulls);
+		
+		this.values = values;
+	}
+	
+	public Object getObject(int row)
+	{
+		return values[row];
+	}
+	
+	static class Builder extends DbColumn.Builder
+	{
+		private final boolean binary;
+		private Object[] values = null;
+		
+		Builder(String label, int sqlType, int capacity, boolean binary)
+		{
+			super(label, sqlType);
+			
+			this.binary = binary;
+			
+			values = new Object[capacity];
+		}
+		
+		void read(ResultSet resultSet, int column, int row) throws SQLException
+		{
+			Object value = (binary ? resultSet.getBytes(column) : resultSet.getObject(column));
+			
+			if (value == null) setNull(row);
+			
+			if (row == values.length) values = Arrays.copyOf(values, grow(row));
+			values[row] = value;
+		}
+		
+		DbObjectColumn build(int rowCount)
+		{
+			return new DbObjectColumn(label, sqlType, rowCount, nulls(rowCount), (values.length == rowCount ? values : Arrays.copyOf(values, rowCount)));
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column of String values. While the values repeat the column is encoded with a dictionary, each row keeps the code of its value and every 
+ * distinct value is stored once, grouping or filtering by the code avoids comparing the strings. When most of the values are distinct the 
+ * dictionary would cost more than it saves and the values are stored in a plain array.
+ */
+public final class DbStringColumn extends DbColumn 
+{
+	private final int[] codes;
+	private final String[] dictionary;
+	private final String[] values;
+	
+	DbStringColumn(String label, int sqlType, int rowCount, long[] nulls, int[] codes, String[] dictionary, String[] values)
+	{
+		super(label, sqlType, rowCount, nulls);
+		
+		this.codes = codes;
+		this.dictionary = dictionary;
+		this.values = values;
+	}
+	
+	/**
+	 * Returns the value of the row.
+	 * 
+	 * @param row index from 0.
+	 * 
+	 * @return The value or null if it is NULL.
+	 */
+	public String getString(int row)
+	{
+		if (values != null) return values[row];
+		
+		int code = codes[row];
+		
+		return (code < 0 ? null : dictionary[code]);
+	}
+	
+	public String getObject(int row)
+	{
+		return getString(row);
+	}
+	
+	public boolean isDictionaryEncoded()
+	{
+		return (values == null);
+	}
+	
+	/**
+	 * Returns the dictionary code of the value of the row. Equal values have the same code.
+	 * 
+	 * @param row index from 0.
+	 * 
+	 * @return The code or -1 if the value is NULL.
+	 * 
+	 * @throws IllegalStateException If the column is not dictionary encoded.
+	 */
+	public int getCode(int row) throws IllegalStateException
+	{
+		checkDictionaryEncoded();
+		
+		return codes[row];
+	}
+	
+	/**
+	 * Returns the number of distinct values of the column, the codes go from 0 to this size - 1.
+	 * 
+	 * @return The size of the dictionary.
+	 * 
+	 * @throws IllegalStateException If the column is not dictionary encoded.
+	 */
+	public int getDictionarySize() throws IllegalStateException
+	{
+		checkDictionaryEncoded();
+		
+		return dictionary.length;
+	}
+	
+	public String getDictionaryValue(int code) throws IllegalStateException
+	{
+		checkDictionaryEncoded();
+		
+		return dictionary[code];
+	}
+	
+	private void checkDictionaryEncoded() throws IllegalStateException
+	{
+		if (values != null) throw new IllegalStateException("Column [" + getLabel() + "] is not dictionary encoded.");
+	}
+	
+	static class Builder extends DbColumn.Builder
+	{
+		// Rows read before deciding whether the dictionary pays off
+		private final static int SAMPLE_ROWS = 64;
+		
+		private int[] codes = null;
+		private Map<String, Integer> dictionary = null;
+		private String[] values = null;
+		
+		Builder(String label, int sqlType, int capacity)
+		{
+			super(label, sqlType);
+			
+			codes = new int[capacity];
+			dictionary = new HashMap<String, Integer>();
+		}
+		
+		void read(ResultSet resultSet, int column, int row) throws SQLException
+		{
+			String value = resultSet.getString(column);
+			
+			if (value == null) setNull(row);
+			
+			if (values != null)
+			{
+				if (row == values.length) values = Arrays.copyOf(values, grow(row));
+				values[row] = value;
+				
+				return;
+			}
+			
+			int code = -1;
+			
+			if (value != null)
+			{
+				Integer existingCode = dictionary.get(value);
+				
+				if (existingCode == null)
+				{
+					code = dictionary.size();
+					dictionary.put(value, code);
+				}
+				else
+				{
+					code = existingCode;
+				}
+			}
+			
+			if (row == codes.length) codes = Arrays.copyOf(codes, grow(row));
+			codes[row] = code;
+			
+			if (row >= SAMPLE_ROWS && dictionary.size() > (row >> 1)) decode(row + 1);
+		}
+		
+		DbStringColumn build(int rowCount)
+		{
+			if (values != null)
+			{
+				return new DbStringColumn(label, sqlType, rowCount, nulls(rowCount), null, null, (values.length == rowCount ? values : Arrays.copyOf(values, rowCount)));
+			}
+			
+			return new DbStringColumn(label, sqlType, rowCount, nulls(rowCount), (codes.length == rowCount ? codes : Arrays.copyOf(codes, rowCount)), dictionary(), null);
+		}
+		
+		private String[] dictionary()
+		{
+			String[] dictionaryValues = new String[dictionary.size()];
+			
+			for (Map.Entry<String, Integer> entry : dictionary.entrySet())
+			{
+				dictionaryValues[entry.getValue()] = entry.getKey();
+			}
+			
+			return dictionaryValues;
+		}
+		
+		/**
+		 * Switches to a plain array of values with the rows read so far.
+		 */
+		private void decode(int rows)
+		{
+			String[] dictionaryValues = dictionary();
+			
+			values = new String[codes.length];
+			for (int i=0; i<rows; i++)
+			{
+				values[i] = (codes[i] < 0 ? null : dictionaryValues[codes[i]]);
+			}
+			
+			codes = null;
+			dictionary = null;
+		}
+	}
+}
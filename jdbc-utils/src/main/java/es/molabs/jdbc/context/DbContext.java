@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.context;
+
+import es.molabs.jdbc.DbSession;
+import es.molabs.jdbc.DbTransaction;
+
+/**
+ * Where a DbManager keeps the transaction in progress, so getDbNonTransaction and getDbTransaction can return it instead of starting 
+ * a new one, and the open session that getDbNonTransaction returns when there is no transaction.
+ */
+public interface DbContext 
+{
+	/**
+	 * Returns the transaction in progress.
+	 * 
+	 * @return The transaction in progress or null if there is none.
+	 */
+	public DbTransaction getActiveDbTransaction();
+	
+	/**
+	 * Sets the transaction in progress.
+	 * 
+	 * @param dbTransaction in progress or null to clear it.
+	 */
+	public void setActiveDbTransaction(DbTransaction dbTransaction);
+	
+	/**
+	 * Returns the open session.
+	 * 
+	 * @return The open session or null if there is none.
+	 */
+	public default DbSession getActiveDbSession()
+	{
+		return null;
+	}
+	
+	/**
+	 * Sets the open session. Contexts that do not keep sessions only accept null.
+	 * 
+	 * @param dbSession open or null to clear it.
+	 */
+	public default void setActiveDbSession(DbSession dbSession)
+	{
+		if (dbSession != null) throw new UnsupportedOperationException("Sessions are not supported by this context.");
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.context;
+
+import es.molabs.jdbc.DbSession;
+import es.molabs.jdbc.DbTransaction;
+
+/**
+ * Context that is passed around by the caller instead of being bound to a thread, usually one for each request. It can be handed to 
+ * other threads or executors as long as they do not use it at the same time.
+ */
+public class ExplicitDbContext implements DbContext
+{
+	private volatile DbTransaction activeDbTransaction = null;
+	private volatile DbSession activeDbSession = null;
+	
+	public ExplicitDbContext()
+	{
+	}
+	
+	public DbTransaction getActiveDbTransaction()
+	{
+		return activeDbTransaction;
+	}
+	
+	public void setActiveDbTransaction(DbTransaction dbTransaction)
+	{
+		activeDbTransaction = dbTransaction;
+	}
+	
+	public DbSession getActiveDbSession()
+	{
+		return activeDbSession;
+	}
+	
+	public void setActiveDbSession(DbSession dbSession)
+	{
+		activeDbSession = dbSession;
+	}
+}
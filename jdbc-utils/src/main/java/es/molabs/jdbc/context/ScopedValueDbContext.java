@@ -0,0 +1,253 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.context;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+import es.molabs.jdbc.DbSession;
+import es.molabs.jdbc.DbTransaction;
+
+/**
+ * Context bound with a java.lang.ScopedValue, for virtual threads that should not keep a ThreadLocal each. The transactions and sessions must be 
+ * used inside {@link #run(Runnable)}, that binds a new empty context for the task and the threads it forks with a StructuredTaskScope. 
+ * Each of those threads has its own transaction and session, since they are not thread safe, so a fork does not see the transaction of 
+ * the task or of its siblings and starts its own.
+ * 
+ * ScopedValue is only available in recent runtimes so it is accessed by reflection, {@link #isSupported()} tells if it can be used. It is 
+ * final since Java 25 and a preview API in Java 21 to 24, where the reflective access works even without --enable-preview, so it is 
+ * supported there too although a preview API may still change between releases.
+ */
+public class ScopedValueDbContext implements DbContext
+{
+	private final static Method NEW_INSTANCE;
+	private final static Method WHERE;
+	private final static Method RUN;
+	private final static MethodHandle OR_ELSE;
+	
+	// Returned by orElse when there is no value bound, since Java 25 it does not accept null
+	private final static Object UNBOUND = new Object();
+	
+	static
+	{
+		Method newInstance = null;
+		Method where = null;
+		Method run = null;
+		MethodHandle orElse = null;
+		
+		try
+		{
+			Class<?> scopedValueClass = Class.forName("java.lang.ScopedValue");
+			Class<?> carrierClass = Class.forName("java.lang.ScopedValue$Carrier");
+			
+			newInstance = scopedValueClass.getMethod("newInstance");
+			where = scopedValueClass.getMethod("where", scopedValueClass, Object.class);
+			run = carrierClass.getMethod("run", Runnable.class);
+			
+			// Looked up once as a method handle since it is called for each query
+			orElse = MethodHandles.publicLookup().unreflect(scopedValueClass.getMethod("orElse", Object.class));
+			orElse = orElse.asType(MethodType.methodType(Object.class, Object.class, Object.class));
+			
+			// Checks that it can be used and not only found
+			newInstance.invoke(null);
+		}
+		catch (Throwable t)
+		{
+			newInstance = null;
+		}
+		
+		NEW_INSTANCE = newInstance;
+		WHERE = where;
+		RUN = run;
+		OR_ELSE = orElse;
+	}
+	
+	/**
+	 * Returns if the runtime supports ScopedValue.
+	 * 
+	 * @return true if this context can be created.
+	 */
+	public static boolean isSupported()
+	{
+		return NEW_INSTANCE != null;
+	}
+	
+	private final Object scopedValue;
+	
+	public ScopedValueDbContext()
+	{
+		if (!isSupported()) throw new UnsupportedOperationException("ScopedValue is not supported by this runtime.");
+		
+		scopedValue = invoke(NEW_INSTANCE, null);
+	}
+	
+	/**
+	 * Runs the task with a new context bound.
+	 * 
+	 * @param task to run.
+	 */
+	public void run(Runnable task)
+	{
+		Object carrier = invoke(WHERE, null, scopedValue, new Holder());
+		
+		invoke(RUN, carrier, task);
+	}
+	
+	public DbTransaction getActiveDbTransaction()
+	{
+		Holder holder = getHolder(false);
+		
+		return (holder != null ? holder.dbTransaction : null);
+	}
+	
+	public void setActiveDbTransaction(DbTransaction dbTransaction)
+	{
+		Holder holder = getHolder(dbTransaction != null);
+		
+		if (holder != null)
+		{
+			holder.dbTransaction = dbTransaction;
+			holder.release();
+		}
+		else if (dbTransaction != null)
+		{
+			throw new IllegalStateException("Transactions of a ScopedValueDbContext must be started inside its run method.");
+		}
+	}
+	
+	public DbSession getActiveDbSession()
+	{
+		Holder holder = getHolder(false);
+		
+		return (holder != null ? holder.dbSession : null);
+	}
+	
+	public void setActiveDbSession(DbSession dbSession)
+	{
+		Holder holder = getHolder(dbSession != null);
+		
+		if (holder != null)
+		{
+			holder.dbSession = dbSession;
+			holder.release();
+		}
+		else if (dbSession != null)
+		{
+			throw new IllegalStateException("Sessions of a ScopedValueDbContext must be opened inside its run method.");
+		}
+	}
+	
+	/**
+	 * Returns the holder of the current thread, the one bound if it is the thread that called run or else the one of the fork.
+	 * 
+	 * @param create if the holder of a fork must be created when it does not have one.
+	 * @return the holder or null if there is no context bound.
+	 */
+	private Holder getHolder(boolean create)
+	{
+		Object value = null;
+		
+		try
+		{
+			value = (Object) OR_ELSE.invokeExact(scopedValue, UNBOUND);
+		}
+		catch (RuntimeException | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable t)
+		{
+			throw new IllegalStateException(t);
+		}
+		
+		if (value == UNBOUND) return null;
+		
+		Holder holder = (Holder) value;
+		Thread thread = Thread.currentThread();
+		
+		if (holder.thread == thread) return holder;
+		
+		Holder forkHolder = holder.forks.get(thread);
+		
+		if (forkHolder == null && create)
+		{
+			forkHolder = new Holder(thread, holder.forks);
+			holder.forks.put(thread, forkHolder);
+		}
+		
+		return forkHolder;
+	}
+	
+	private static Object invoke(Method method, Object target, Object...arguments)
+	{
+		try
+		{
+			return method.invoke(target, arguments);
+		}
+		catch (InvocationTargetException ITe)
+		{
+			Throwable cause = ITe.getCause();
+			
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			
+			throw new IllegalStateException(cause);
+		}
+		catch (IllegalAccessException IAe)
+		{
+			throw new IllegalStateException(IAe);
+		}
+	}
+	
+	/**
+	 * The value bound, that the transactions and sessions of the thread that called run write to. The forks write to their own holder, 
+	 * that is kept only while they have a transaction or a session.
+	 */
+	private static class Holder
+	{
+		private final Thread thread;
+		private final ConcurrentHashMap<Thread, Holder> forks;
+		
+		private DbTransaction dbTransaction = null;
+		private DbSession dbSession = null;
+		
+		private Holder()
+		{
+			this(Thread.currentThread(), new ConcurrentHashMap<Thread, Holder>());
+		}
+		
+		private Holder(Thread thread, ConcurrentHashMap<Thread, Holder> forks)
+		{
+			this.thread = thread;
+			this.forks = forks;
+		}
+		
+		/**
+		 * Removes the holder of a fork once it has no transaction nor session.
+		 */
+		private void release()
+		{
+			if (dbTransaction == null && dbSession == null && forks.get(thread) == this)
+			{
+				forks.remove(thread);
+			}
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.context;
+
+import es.molabs.jdbc.DbSession;
+import es.molabs.jdbc.DbTransaction;
+
+/**
+ * Keeps a transaction in progress and an open session for each thread. This is the context of a DbManager by default.
+ */
+public class ThreadLocalDbContext implements DbContext
+{
+	private final ThreadLocal<DbTransaction> activeDbTransaction;
+	private final ThreadLocal<DbSession> activeDbSession;
+	
+	public ThreadLocalDbContext()
+	{
+		activeDbTransaction = new ThreadLocal<DbTransaction>();
+		activeDbSession = new ThreadLocal<DbSession>();
+	}
+	
+	public DbTransaction getActiveDbTransaction()
+	{
+		return activeDbTransaction.get();
+	}
+	
+	public void setActiveDbTransaction(DbTransaction dbTransaction)
+	{
+		// Null is set instead of removing the entry so the next transaction of the thread does not allocate a new one
+		activeDbTransaction.set(dbTransaction);
+	}
+	
+	public DbSession getActiveDbSession()
+	{
+		return activeDbSession.get();
+	}
+	
+	public void setActiveDbSession(DbSession dbSession)
+	{
+		activeDbSession.set(dbSession);
+	}
+}
@@ -0,0 +1,338 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.dbutils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.ResultSetHandler;
+
+import es.molabs.jdbc.DbQueryOptions;
+import es.molabs.jdbc.DbStreamParameter;
+
+/**
+ * QueryRunner that applies a DbQueryOptions to every statement it prepares and streams the arguments for which 
+ * DbStreamParameter.isStream(Object) is true.
+ */
+public class DbQueryRunner extends QueryRunner
+{
+	private DbQueryOptions options = null;
+	private DbStatementCache statementCache = null;
+	
+	// Resources opened to stream the arguments of each statement, closed after it is executed or with the statement
+	private final ConcurrentMap<Statement, List<Closeable>> streamResources = new ConcurrentHashMap<Statement, List<Closeable>>();
+	
+	public DbQueryRunner(DataSource dataSource, DbQueryOptions options)
+	{
+		this(dataSource, options, null);
+	}
+	
+	/**
+	 * Creates a runner that reuses the statements of the cache instead of preparing and closing them each time.
+	 * 
+	 * @param dataSource of the connections.
+	 * @param options for the statements.
+	 * @param statementCache for the statements or null to disable it. It must only be used with the connection the cache belongs to.
+	 */
+	public DbQueryRunner(DataSource dataSource, DbQueryOptions options, DbStatementCache statementCache)
+	{
+		super(dataSource);
+		
+		this.options = options;
+		this.statementCache = statementCache;
+	}
+	
+	public DbQueryOptions getOptions()
+	{
+		return options;
+	}
+	
+	public DbStatementCache getStatementCache()
+	{
+		return statementCache;
+	}
+	
+	public PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException
+	{
+		PreparedStatement statement = null;
+		
+		if (statementCache != null)
+		{
+			statement = statementCache.checkout(connection, sql, options.getResultSetType(), options.getResultSetConcurrency());
+		}
+		else
+		{
+			statement = connection.prepareStatement(sql, options.getResultSetType(), options.getResultSetConcurrency());
+		}
+		
+		try
+		{
+			applyOptions(statement);
+		}
+		catch (SQLException SQLe)
+		{
+			close(statement);
+			
+			throw SQLe;
+		}
+		
+		return statement;
+	}
+	
+	public PreparedStatement prepareStatement(Connection connection, String sql, int returnedKeys) throws SQLException
+	{
+		PreparedStatement statement = null;
+		
+		if (statementCache != null)
+		{
+			statement = statementCache.checkout(connection, sql, returnedKeys);
+		}
+		else
+		{
+			statement = connection.prepareStatement(sql, returnedKeys);
+		}
+		
+		try
+		{
+			applyOptions(statement);
+		}
+		catch (SQLException SQLe)
+		{
+			close(statement);
+			
+			throw SQLe;
+		}
+		
+		return statement;
+	}
+	
+	/**
+	 * Same as QueryRunner.insert but preparing the statement through this runner so the options are applied.
+	 */
+	public <T> T insert(Connection connection, String sql, ResultSetHandler<T> resultSetHandler, Object... params) throws SQLException
+	{
+		PreparedStatement statement = null;
+		T generatedKeys = null;
+		
+		try
+		{
+			statement = prepareStatement(connection, sql, Statement.RETURN_GENERATED_KEYS);
+			fillStatement(statement, params);
+			statement.executeUpdate();
+			
+			generatedKeys = resultSetHandler.handle(statement.getGeneratedKeys());
+		}
+		catch (SQLException SQLe)
+		{
+			rethrow(SQLe, sql, params);
+		}
+		finally
+		{
+			close(statement);
+		}
+		
+		return generatedKeys;
+	}
+	
+	/**
+	 * Same as QueryRunner.insertBatch but preparing the statement through this runner so the options are applied.
+	 */
+	public <T> T insertBatch(Connection connection, String sql, ResultSetHandler<T> resultSetHandler, Object[][] params) throws SQLException
+	{
+		PreparedStatement statement = null;
+		T generatedKeys = null;
+		
+		try
+		{
+			statement = prepareStatement(connection, sql, Statement.RETURN_GENERATED_KEYS);
+			
+			for (int i=0; i<params.length; i++)
+			{
+				fillStatement(statement, params[i]);
+				statement.addBatch();
+			}
+			
+			statement.executeBatch();
+			
+			generatedKeys = resultSetHandler.handle(statement.getGeneratedKeys());
+		}
+		catch (SQLException SQLe)
+		{
+			rethrow(SQLe, sql, (Object[]) params);
+		}
+		finally
+		{
+			close(statement);
+		}
+		
+		return generatedKeys;
+	}
+	
+	/**
+	 * Same as QueryRunner.fillStatement but binding the stream arguments with setBinaryStream or setCharacterStream. The resources opened 
+	 * to read them are closed by {@link #releaseStreamResources(Statement)} or when the statement is closed through this runner.
+	 */
+	public void fillStatement(PreparedStatement statement, Object... params) throws SQLException
+	{
+		int firstStream = firstStream(params);
+		
+		if (firstStream < 0)
+		{
+			super.fillStatement(statement, params);
+			
+			return;
+		}
+		
+		// The streams are filled as NULL and bound afterwards, so the rest of the arguments get the usual checks
+		Object[] values = params.clone();
+		for (int i=firstStream; i<values.length; i++)
+		{
+			if (DbStreamParameter.isStream(values[i])) values[i] = null;
+		}
+		
+		super.fillStatement(statement, values);
+		
+		for (int i=firstStream; i<params.length; i++)
+		{
+			if (values[i] == null && params[i] != null)
+			{
+				Closeable resource = DbStreamParameter.from(params[i]).bind(statement, i + 1);
+				
+				if (resource != null) addStreamResource(statement, resource);
+			}
+		}
+	}
+	
+	private int firstStream(Object[] params)
+	{
+		if (params == null) return -1;
+		
+		for (int i=0; i<params.length; i++)
+		{
+			if (DbStreamParameter.isStream(params[i])) return i;
+		}
+		
+		return -1;
+	}
+	
+	private void addStreamResource(Statement statement, Closeable resource)
+	{
+		List<Closeable> resources = streamResources.get(statement);
+		
+		if (resources == null)
+		{
+			// A statement is only used by one thread at a time
+			resources = new ArrayList<Closeable>();
+			streamResources.put(statement, resources);
+		}
+		
+		resources.add(resource);
+	}
+	
+	/**
+	 * Closes the resources opened to stream the arguments the statement was filled with. The statements that are filled and executed 
+	 * more than once must call it after each execution, so the resources of the previous rows are not kept open until the statement is 
+	 * closed.
+	 * 
+	 * @param statement already executed.
+	 */
+	public void releaseStreamResources(Statement statement)
+	{
+		if (statement == null || streamResources.isEmpty()) return;
+		
+		List<Closeable> resources = streamResources.remove(statement);
+		
+		if (resources != null)
+		{
+			for (int i=0; i<resources.size(); i++)
+			{
+				try
+				{
+					resources.get(i).close();
+				}
+				catch (IOException IOe)
+				{
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Closes the statement or gives it back to the statement cache if it came from there. The resources opened to stream its arguments 
+	 * are closed.
+	 * 
+	 * @param statement to close.
+	 * 
+	 * @throws SQLException If the statement can not be closed.
+	 */
+	public void close(Statement statement) throws SQLException
+	{
+		releaseStreamResources(statement);
+		
+		if (statementCache == null || !statementCache.release(statement)) super.close(statement);
+	}
+	
+	/**
+	 * Same as {@link #close(Statement)} but ignoring any SQLException.
+	 * 
+	 * @param statement to close.
+	 */
+	public void closeQuietly(Statement statement)
+	{
+		try
+		{
+			close(statement);
+		}
+		catch (SQLException SQLe)
+		{
+		}
+	}
+	
+	/**
+	 * Sets the fetch size, max rows and query timeout of the options that are not the driver defaults.
+	 * Statements from the cache get every value set since they may come from a call with other options.
+	 * 
+	 * @param statement to configure.
+	 * 
+	 * @throws SQLException If the driver rejects any of the values.
+	 */
+	public void applyOptions(Statement statement) throws SQLException
+	{
+		if (statementCache != null)
+		{
+			if (statement.getFetchSize() != options.getFetchSize()) statement.setFetchSize(options.getFetchSize());
+			if (statement.getMaxRows() != options.getMaxRows()) statement.setMaxRows(options.getMaxRows());
+			if (statement.getQueryTimeout() != options.getQueryTimeout()) statement.setQueryTimeout(options.getQueryTimeout());
+		}
+		else
+		{
+			if (options.getFetchSize() > 0) statement.setFetchSize(options.getFetchSize());
+			if (options.getMaxRows() > 0) statement.setMaxRows(options.getMaxRows());
+			if (options.getQueryTimeout() > 0) statement.setQueryTimeout(options.getQueryTimeout());
+		}
+	}
+}
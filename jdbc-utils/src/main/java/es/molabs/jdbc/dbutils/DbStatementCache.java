@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.dbutils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.dbutils.DbUtils;
+
+/**
+ * LRU cache of the PreparedStatements of a single connection. Statements are keyed by their SQL, ResultSet type and concurrency and
+ * generated keys flag. A statement is removed from the cache while it is in use, so two open statements never share the same instance.
+ * 
+ * This class is not thread safe, it is meant to be owned by a single DbTransaction.
+ */
+public class DbStatementCache 
+{
+	private final static int NO_GENERATED_KEYS = -1;
+	
+	private final int maxSize;
+	
+	private Map<Key, PreparedStatement> idleStatements = null;
+	private Map<PreparedStatement, Key> inUseStatements = null;
+	
+	private long hits;
+	private long misses;
+	private long evictions;
+	
+	public DbStatementCache(int maxSize)
+	{
+		if (maxSize < 1) throw new IllegalArgumentException("Max size must be greater than 0.");
+		
+		this.maxSize = maxSize;
+		
+		idleStatements = new LinkedHashMap<Key, PreparedStatement>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 4216353946428113528L;
+
+			protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest)
+			{
+				if (size() > DbStatementCache.this.maxSize)
+				{
+					evictions++;
+					
+					DbUtils.closeQuietly(eldest.getValue());
+					
+					return true;
+				}
+				
+				return false;
+			}
+		};
+		
+		inUseStatements = new IdentityHashMap<PreparedStatement, Key>();
+		
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+	
+	/**
+	 * Returns a cached statement or prepares a new one. The statement must be given back with {@link #release(PreparedStatement)}.
+	 * 
+	 * @param connection to prepare the statement with if it is not cached.
+	 * @param sql of the statement.
+	 * @param resultSetType of the statement.
+	 * @param resultSetConcurrency of the statement.
+	 * 
+	 * @return The statement.
+	 * 
+	 * @throws SQLException If the statement can not be prepared.
+	 */
+	public PreparedStatement checkout(Connection connection, String sql, int resultSetType, int resultSetConcurrency) throws SQLException
+	{
+		return checkout(connection, new Key(sql, resultSetType, resultSetConcurrency, NO_GENERATED_KEYS));
+	}
+	
+	/**
+	 * Returns a cached statement or prepares a new one. The statement must be given back with {@link #release(PreparedStatement)}.
+	 * 
+	 * @param connection to prepare the statement with if it is not cached.
+	 * @param sql of the statement.
+	 * @param returnedKeys Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS.
+	 * 
+	 * @return The statement.
+	 * 
+	 * @throws SQLException If the statement can not be prepared.
+	 */
+	public PreparedStatement checkout(Connection connection, String sql, int returnedKeys) throws SQLException
+	{
+		return checkout(connection, new Key(sql, 0, 0, returnedKeys));
+	}
+	
+	private PreparedStatement checkout(Connection connection, Key key) throws SQLException
+	{
+		PreparedStatement statement = idleStatements.remove(key);
+		
+		if (statement != null)
+		{
+			hits++;
+		}
+		else
+		{
+			misses++;
+			
+			if (key.returnedKeys == NO_GENERATED_KEYS)
+			{
+				statement = connection.prepareStatement(key.sql, key.resultSetType, key.resultSetConcurrency);
+			}
+			else
+			{
+				statement = connection.prepareStatement(key.sql, key.returnedKeys);
+			}
+		}
+		
+		inUseStatements.put(statement, key);
+		
+		return statement;
+	}
+	
+	/**
+	 * Gives back a statement returned by a checkout so it can be reused.
+	 * 
+	 * @param statement to give back.
+	 * 
+	 * @return true if the statement belongs to this cache, false otherwise.
+	 */
+	public boolean release(Statement statement)
+	{
+		Key key = inUseStatements.remove(statement);
+		
+		if (key == null) return false;
+		
+		PreparedStatement preparedStatement = (PreparedStatement) statement;
+		
+		try
+		{
+			preparedStatement.clearParameters();
+			preparedStatement.clearBatch();
+			
+			// If the same SQL was prepared again while this one was in use only one is kept
+			PreparedStatement previous = idleStatements.put(key, preparedStatement);
+			if (previous != null) DbUtils.closeQuietly(previous);
+		}
+		catch (SQLException SQLe)
+		{
+			DbUtils.closeQuietly(preparedStatement);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Closes every statement of the cache, including the ones in use.
+	 */
+	public void close()
+	{
+		Iterator<PreparedStatement> iterator = idleStatements.values().iterator();
+		while (iterator.hasNext())
+		{
+			DbUtils.closeQuietly(iterator.next());
+		}
+		
+		iterator = inUseStatements.keySet().iterator();
+		while (iterator.hasNext())
+		{
+			DbUtils.closeQuietly(iterator.next());
+		}
+		
+		idleStatements.clear();
+		inUseStatements.clear();
+	}
+	
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+	
+	/**
+	 * Returns the number of statements cached and not in use.
+	 * 
+	 * @return The number of idle statements.
+	 */
+	public int size()
+	{
+		return idleStatements.size();
+	}
+	
+	/**
+	 * Returns how many times a statement was reused.
+	 * 
+	 * @return The number of hits.
+	 */
+	public long getHits()
+	{
+		return hits;
+	}
+	
+	/**
+	 * Returns how many times a statement had to be prepared.
+	 * 
+	 * @return The number of misses.
+	 */
+	public long getMisses()
+	{
+		return misses;
+	}
+	
+	/**
+	 * Returns how many statements were closed to keep the cache under its max size.
+	 * 
+	 * @return The number of evictions.
+	 */
+	public long getEvictions()
+	{
+		return evictions;
+	}
+	
+	private static class Key
+	{
+		private final String sql;
+		private final int resultSetType;
+		private final int resultSetConcurrency;
+		private final int returnedKeys;
+		private final int hash;
+		
+		Key(String sql, int resultSetType, int resultSetConcurrency, int returnedKeys)
+		{
+			this.sql = sql;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+			this.returnedKeys = returnedKeys;
+			
+			int hash = sql.hashCode();
+			hash = 31 * hash + resultSetType;
+			hash = 31 * hash + resultSetConcurrency;
+			hash = 31 * hash + returnedKeys;
+			
+			this.hash = hash;
+		}
+		
+		public boolean equals(Object object)
+		{
+			if (this == object) return true;
+			if (!(object instanceof Key)) return false;
+			
+			Key key = (Key) object;
+			
+			return resultSetType == key.resultSetType && resultSetConcurrency == key.resultSetConcurrency && returnedKeys == key.returnedKeys && sql.equals(key.sql);
+		}
+		
+		public int hashCode()
+		{
+			return hash;
+		}
+	}
+}
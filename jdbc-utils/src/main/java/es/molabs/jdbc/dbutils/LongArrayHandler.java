@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.dbutils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import es.molabs.jdbc.DbNullPolicy;
+
+public class LongArrayHandler extends PrimitiveArrayHandler<long[]> 
+{
+	public LongArrayHandler(DbNullPolicy nullPolicy)
+	{
+		this(nullPolicy, 0);
+	}
+	
+	public LongArrayHandler(DbNullPolicy nullPolicy, int expectedRows)
+	{
+		super(nullPolicy, expectedRows);
+	}
+	
+	public long[] handle(ResultSet rs) throws SQLException 
+	{
+		long[] values = null;
+		int size = 0;
+		int row = 0;
+		
+		while (rs.next())
+		{
+			long value = rs.getLong(1);
+			
+			if (skip(rs, ++row)) continue;
+			
+			if (values == null) values = new long[initialCapacity(rs)];
+			else if (size == values.length) values = Arrays.copyOf(values, grow(size));
+			
+			values[size++] = value;
+		}
+		
+		return (values == null || size == values.length ? values : Arrays.copyOf(values, size));
+	}
+}
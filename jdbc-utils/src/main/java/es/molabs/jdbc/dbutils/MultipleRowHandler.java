@@ -17,20 +17,39 @@ package es.molabs.jdbc.dbutils;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.dbutils.ResultSetHandler;
 
+import es.molabs.jdbc.mapper.DbAutoRowMapper;
+import es.molabs.jdbc.mapper.DbColumnRowMapper;
+import es.molabs.jdbc.mapper.DbColumns;
 import es.molabs.jdbc.mapper.DbRowMapper;
 
 public class MultipleRowHandler<T> implements ResultSetHandler<List<T>> 
 {
+	private final static int DEFAULT_CAPACITY = 16;
+	private final static int MAX_FETCH_SIZE_CAPACITY = 1024;
+	
 	private DbRowMapper<T> rowMapper = null;
+	private int expectedRows;
 	
 	public MultipleRowHandler(DbRowMapper<T> rowMapper)
+	{
+		this(rowMapper, 0);
+	}
+	
+	/**
+	 * Creates a handler that pre-sizes the resulting list.
+	 * 
+	 * @param rowMapper for each row.
+	 * @param expectedRows initial capacity of the list. If it is not greater than 0 the fetch size of the ResultSet, up to 1024, is used instead.
+	 */
+	public MultipleRowHandler(DbRowMapper<T> rowMapper, int expectedRows)
 	{
 		this.rowMapper = rowMapper;
+		this.expectedRows = expectedRows;
 	}
 	
 	public List<T> handle(ResultSet rs) throws SQLException 
@@ -39,13 +58,51 @@ public class MultipleRowHandler<T> implements ResultSetHandler<List<T>>
 		
 		int row = 0;
 		
+		// The columns are resolved once for all the rows
+		if (rowMapper instanceof DbColumnRowMapper)
+		{
+			DbColumnRowMapper<T> columnRowMapper = (DbColumnRowMapper<T>) rowMapper;
+			DbColumns columns = null;
+			
+			while (rs.next())
+			{
+				if (list == null)
+				{
+					list = new ArrayList<T>(initialCapacity(rs));
+					columns = columnRowMapper.resolve(rs);
+				}
+				
+				list.add(columnRowMapper.mapRow(columns, ++row));
+			}
+			
+			return list;
+		}
+		
+		DbRowMapper<T> mapper = rowMapper;
+		
 		while (rs.next())  
 		{
-			if (list == null) list = new LinkedList<T>();
+			if (list == null)
+			{
+				list = new ArrayList<T>(initialCapacity(rs));
+				
+				// The plan of the auto mapper is resolved once for all the rows
+				if (mapper instanceof DbAutoRowMapper) mapper = ((DbAutoRowMapper<T>) mapper).resolve(rs);
+			}
 			
-			list.add(rowMapper.mapRow(rs, ++row));
+			list.add(mapper.mapRow(rs, ++row));
         }
 		
 		return list;
 	}
+	
+	private int initialCapacity(ResultSet rs) throws SQLException
+	{
+		if (expectedRows > 0) return expectedRows;
+		
+		// The fetch size is only a hint of the rows, a big one is capped so a short result does not allocate for all of them
+		int fetchSize = rs.getFetchSize();
+		
+		return (fetchSize > 0 ? Math.min(fetchSize, MAX_FETCH_SIZE_CAPACITY) : DEFAULT_CAPACITY);
+	}
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.dbutils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+
+import es.molabs.jdbc.DbNullPolicy;
+
+/**
+ * Base of the handlers that read the first column of every row into a growable primitive array, without boxing the values.
+ */
+public abstract class PrimitiveArrayHandler<A> implements ResultSetHandler<A> 
+{
+	private final static int DEFAULT_CAPACITY = 16;
+	private final static int MAX_FETCH_SIZE_CAPACITY = 1024;
+	
+	private final DbNullPolicy nullPolicy;
+	private final int expectedRows;
+	
+	/**
+	 * Creates a handler that pre-sizes the resulting array.
+	 * 
+	 * @param nullPolicy for the NULL values.
+	 * @param expectedRows initial capacity of the array. If it is not greater than 0 the fetch size of the ResultSet, up to 1024, is used instead.
+	 */
+	protected PrimitiveArrayHandler(DbNullPolicy nullPolicy, int expectedRows)
+	{
+		if (nullPolicy == null) throw new IllegalArgumentException("Null policy can not be null.");
+		
+		this.nullPolicy = nullPolicy;
+		this.expectedRows = expectedRows;
+	}
+	
+	/**
+	 * Returns if the value just read must be left out of the array, applying the null policy.
+	 * 
+	 * @param rs where the value has been read.
+	 * @param rowNum of the value.
+	 * 
+	 * @return True if the value is NULL and must be skipped.
+	 * 
+	 * @throws SQLException If the value is NULL and the policy is FAIL.
+	 */
+	protected boolean skip(ResultSet rs, int rowNum) throws SQLException
+	{
+		if (!rs.wasNull()) return false;
+		
+		switch (nullPolicy)
+		{
+			case SKIP: return true;
+			case ZERO: return false;
+			default: throw new SQLException("Value at row [" + rowNum + "] is NULL.");
+		}
+	}
+	
+	protected int initialCapacity(ResultSet rs) throws SQLException
+	{
+		if (expectedRows > 0) return expectedRows;
+		
+		int fetchSize = rs.getFetchSize();
+		
+		return (fetchSize > 0 ? Math.min(fetchSize, MAX_FETCH_SIZE_CAPACITY) : DEFAULT_CAPACITY);
+	}
+	
+	protected static int grow(int capacity)
+	{
+		int newCapacity = capacity + (capacity >> 1) + 1;
+		
+		// Overflow, the array can not grow any more
+		if (newCapacity < 0) throw new OutOfMemoryError("Array size limit reached.");
+		
+		return newCapacity;
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.exception;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Thrown when one or more partitions of a parallel load fail.
+ */
+public class DbParallelLoadException extends DbException
+{
+	private final static long serialVersionUID = 6412703994716522810L;
+	
+	private final Map<Integer, Throwable> failures;
+	private final int[] results;
+	private final boolean rolledBack;
+	
+	public DbParallelLoadException(Map<Integer, Throwable> failures, int[] results, boolean rolledBack)
+	{
+		super(failures.size() + " partitions failed" + (rolledBack ? ", all the partitions were rolled back." : ", the rest were committed."));
+		
+		this.failures = Collections.unmodifiableMap(failures);
+		this.results = results;
+		this.rolledBack = rolledBack;
+		
+		// The first failure is the cause so it shows up in the stack trace
+		if (!failures.isEmpty()) initCause(failures.values().iterator().next());
+	}
+	
+	/**
+	 * Returns the error of each failed partition.
+	 * 
+	 * @return The errors by partition index.
+	 */
+	public Map<Integer, Throwable> getFailures()
+	{
+		return failures;
+	}
+	
+	/**
+	 * Returns the update counts of each row in input order. The rows of the failed or rolled back partitions are Statement.EXECUTE_FAILED.
+	 * 
+	 * @return The update counts.
+	 */
+	public int[] getResults()
+	{
+		return results;
+	}
+	
+	/**
+	 * Returns if every partition was rolled back because the load was all or nothing.
+	 * 
+	 * @return true if nothing was committed.
+	 */
+	public boolean isRolledBack()
+	{
+		return rolledBack;
+	}
+}
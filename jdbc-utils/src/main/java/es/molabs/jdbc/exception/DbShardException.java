@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.exception;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Thrown when a query run on every shard fails in one or more of them.
+ */
+public class DbShardException extends DbException
+{
+	private final static long serialVersionUID = -2306143657921604417L;
+	
+	private final Map<Integer, Throwable> failures;
+	
+	public DbShardException(Map<Integer, Throwable> failures)
+	{
+		super(failures.size() + " shards failed.");
+		
+		this.failures = Collections.unmodifiableMap(failures);
+		
+		// The first failure is the cause so it shows up in the stack trace
+		if (!failures.isEmpty()) initCause(failures.values().iterator().next());
+	}
+	
+	/**
+	 * Returns the error of each failed shard.
+	 * 
+	 * @return The errors by shard index.
+	 */
+	public Map<Integer, Throwable> getFailures()
+	{
+		return failures;
+	}
+}
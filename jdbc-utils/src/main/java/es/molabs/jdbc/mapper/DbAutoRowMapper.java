@@ -0,0 +1,462 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.mapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * DbRowMapper for JavaBeans and records that is built at runtime. The columns are matched to the properties by name ignoring the case and 
+ * the underscores, so varchar_field maps to varcharField. For each class and set of columns a plan of method handles is built once and 
+ * cached, mapping a row only invokes them, the primitive properties are read with the primitive getters of the ResultSet without boxing.
+ * 
+ * Beans need a constructor without arguments and a setter for each mapped property. Records, in the runtimes that support them, are built 
+ * with their canonical constructor and the components without a column get null or 0. The columns without a property are ignored.
+ */
+public class DbAutoRowMapper<T> implements DbRowMapper<T>
+{
+	private final static ConcurrentMap<Class<?>, DbAutoRowMapper<?>> MAPPERS = new ConcurrentHashMap<Class<?>, DbAutoRowMapper<?>>();
+	
+	private final static MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	
+	// By name, then the overloads with a primitive parameter first, Object the last and the rest by the name of the type
+	private final static Comparator<Method> SETTER_ORDER = new Comparator<Method>()
+	{
+		public int compare(Method method1, Method method2)
+		{
+			int result = method1.getName().compareTo(method2.getName());
+			
+			if (result == 0) result = Integer.compare(rank(method1), rank(method2));
+			if (result == 0) result = Arrays.toString(method1.getParameterTypes()).compareTo(Arrays.toString(method2.getParameterTypes()));
+			
+			return result;
+		}
+		
+		private int rank(Method method)
+		{
+			Class<?>[] types = method.getParameterTypes();
+			
+			if (types.length != 1) return 3;
+			if (types[0].isPrimitive()) return 0;
+			if (types[0] == Object.class) return 2;
+			
+			return 1;
+		}
+	};
+	
+	// Class.isRecord and Class.getRecordComponents only exist since Java 16
+	private final static Method IS_RECORD;
+	private final static Method GET_RECORD_COMPONENTS;
+	
+	static
+	{
+		Method isRecord = null;
+		Method getRecordComponents = null;
+		
+		try
+		{
+			isRecord = Class.class.getMethod("isRecord");
+			getRecordComponents = Class.class.getMethod("getRecordComponents");
+		}
+		catch (NoSuchMethodException NSMe)
+		{
+			isRecord = null;
+		}
+		
+		IS_RECORD = isRecord;
+		GET_RECORD_COMPONENTS = getRecordComponents;
+	}
+	
+	/**
+	 * Returns the mapper of the class, creating it the first time.
+	 * 
+	 * @param <T> type of the rows.
+	 * @param clazz of the rows, a JavaBean or a record.
+	 * 
+	 * @return The mapper of the class.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> DbAutoRowMapper<T> of(Class<T> clazz)
+	{
+		DbAutoRowMapper<?> mapper = MAPPERS.get(clazz);
+		
+		if (mapper == null)
+		{
+			mapper = new DbAutoRowMapper<T>(clazz);
+			
+			DbAutoRowMapper<?> previous = MAPPERS.putIfAbsent(clazz, mapper);
+			if (previous != null) mapper = previous;
+		}
+		
+		return (DbAutoRowMapper<T>) mapper;
+	}
+	
+	private final Class<T> clazz;
+	private final ConcurrentMap<String, Plan> plans;
+	
+	// Plan of the last ResultSet mapped with mapRow(ResultSet, int), replaced when the ResultSet changes
+	private volatile ResultSetPlan lastPlan = null;
+	
+	private DbAutoRowMapper(Class<T> clazz)
+	{
+		this.clazz = clazz;
+		
+		plans = new ConcurrentHashMap<String, Plan>();
+	}
+	
+	public Class<T> getMappedClass()
+	{
+		return clazz;
+	}
+	
+	/**
+	 * Resolves the plan of the columns of the ResultSet and returns a mapper bound to it, that maps the rows of the ResultSet without 
+	 * reading its metadata again. The handlers of the library resolve it before the first row and reuse it for the rest.
+	 * 
+	 * @param resultSet to resolve the plan for.
+	 * 
+	 * @return The mapper for the rows of the ResultSet.
+	 * 
+	 * @throws SQLException If the rows can not be mapped to the class.
+	 */
+	public DbRowMapper<T> resolve(ResultSet resultSet) throws SQLException
+	{
+		final Plan plan = getPlan(resultSet);
+		
+		return new DbRowMapper<T>()
+		{
+			public T mapRow(ResultSet resultSet, int rowNum) throws SQLException
+			{
+				return map(plan, resultSet);
+			}
+		};
+	}
+	
+	public T mapRow(ResultSet resultSet, int rowNum) throws SQLException 
+	{
+		ResultSetPlan resultSetPlan = lastPlan;
+		
+		// Called directly, the plan is resolved again only when the ResultSet changes
+		if (resultSetPlan == null || resultSetPlan.resultSet != resultSet)
+		{
+			resultSetPlan = new ResultSetPlan(resultSet, getPlan(resultSet));
+			lastPlan = resultSetPlan;
+		}
+		
+		return map(resultSetPlan.plan, resultSet);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private T map(Plan plan, ResultSet resultSet) throws SQLException
+	{
+		try
+		{
+			return (T) plan.map(resultSet);
+		}
+		catch (SQLException | RuntimeException | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable t)
+		{
+			throw new SQLException("Error mapping a row to [" + clazz.getName() + "].", t);
+		}
+	}
+	
+	private Plan getPlan(ResultSet resultSet) throws SQLException
+	{
+		ResultSetMetaData metaData = resultSet.getMetaData();
+		int columnCount = metaData.getColumnCount();
+		
+		String[] labels = new String[columnCount];
+		StringBuilder signature = new StringBuilder();
+		
+		for (int i=0; i<columnCount; i++)
+		{
+			labels[i] = metaData.getColumnLabel(i + 1);
+			
+			signature.append(labels[i]).append(',');
+		}
+		
+		Plan plan = plans.get(signature.toString());
+		
+		if (plan == null)
+		{
+			plan = buildPlan(labels);
+			
+			Plan previous = plans.putIfAbsent(signature.toString(), plan);
+			if (previous != null) plan = previous;
+		}
+		
+		return plan;
+	}
+	
+	private Plan buildPlan(String[] labels) throws SQLException
+	{
+		// Index of each column by its normalized name, the first one wins
+		Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+		for (int i=labels.length - 1; i>=0; i--)
+		{
+			columnIndexes.put(normalize(labels[i]), i + 1);
+		}
+		
+		try
+		{
+			return (isRecord() ? buildRecordPlan(columnIndexes) : buildBeanPlan(columnIndexes));
+		}
+		catch (SQLException SQLe)
+		{
+			throw SQLe;
+		}
+		catch (Exception e)
+		{
+			throw new SQLException("Can not map rows to [" + clazz.getName() + "].", e);
+		}
+	}
+	
+	private Plan buildBeanPlan(Map<String, Integer> columnIndexes) throws Exception
+	{
+		Constructor<T> constructor = clazz.getDeclaredConstructor();
+		makeAccessible(constructor);
+		
+		MethodHandle constructorHandle = LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+		
+		Map<String, MethodHandle> setters = new LinkedHashMap<String, MethodHandle>();
+		
+		// getMethods has no order, the setters are sorted so the same overload is always picked
+		Method[] methods = clazz.getMethods();
+		Arrays.sort(methods, SETTER_ORDER);
+		
+		for (Method method : methods)
+		{
+			if (Modifier.isStatic(method.getModifiers()) || method.isBridge() || method.getParameterTypes().length != 1) continue;
+			if (!method.getName().startsWith("set") || method.getName().length() < 4) continue;
+			
+			String property = normalize(method.getName().substring(3));
+			Integer index = columnIndexes.get(property);
+			
+			if (index != null && !setters.containsKey(property))
+			{
+				makeAccessible(method);
+				
+				// (Object, ResultSet)void that reads the column and calls the setter
+				MethodHandle setter = LOOKUP.unreflect(method);
+				MethodHandle reader = reader(method.getParameterTypes()[0], index);
+				
+				setters.put(property, MethodHandles.filterArguments(setter, 1, reader).asType(MethodType.methodType(void.class, Object.class, ResultSet.class)));
+			}
+		}
+		
+		if (setters.isEmpty()) throw new SQLException("No column of the ResultSet matches a setter of [" + clazz.getName() + "].");
+		
+		return new BeanPlan(constructorHandle, setters.values().toArray(new MethodHandle[setters.size()]));
+	}
+	
+	private Plan buildRecordPlan(Map<String, Integer> columnIndexes) throws Exception
+	{
+		Object[] components = (Object[]) GET_RECORD_COMPONENTS.invoke(clazz);
+		
+		Class<?>[] types = new Class<?>[components.length];
+		MethodHandle[] readers = new MethodHandle[components.length];
+		
+		for (int i=0; i<components.length; i++)
+		{
+			String name = (String) components[i].getClass().getMethod("getName").invoke(components[i]);
+			types[i] = (Class<?>) components[i].getClass().getMethod("getType").invoke(components[i]);
+			
+			Integer index = columnIndexes.get(normalize(name));
+			
+			if (index != null)
+			{
+				readers[i] = reader(types[i], index);
+			}
+			else
+			{
+				// The component gets its default value
+				readers[i] = MethodHandles.dropArguments(defaultValue(types[i]), 0, ResultSet.class);
+			}
+		}
+		
+		Constructor<T> constructor = clazz.getDeclaredConstructor(types);
+		makeAccessible(constructor);
+		
+		// (ResultSet, ResultSet, ...)T with each argument read by its reader, then all the arguments are the same ResultSet
+		MethodHandle handle = MethodHandles.filterArguments(LOOKUP.unreflectConstructor(constructor), 0, readers);
+		handle = MethodHandles.permuteArguments(handle.asType(handle.type().changeReturnType(Object.class)), MethodType.methodType(Object.class, ResultSet.class), new int[components.length]);
+		
+		return new RecordPlan(handle);
+	}
+	
+	private boolean isRecord()
+	{
+		try
+		{
+			return (IS_RECORD != null && (Boolean) IS_RECORD.invoke(clazz));
+		}
+		catch (Exception e)
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * Returns a (ResultSet)type method handle that reads the column with the getter of the type.
+	 */
+	private static MethodHandle reader(Class<?> type, int index) throws Exception
+	{
+		MethodHandle getter = null;
+		
+		if (type == int.class) getter = resultSetGetter("getInt", int.class);
+		else if (type == long.class) getter = resultSetGetter("getLong", long.class);
+		else if (type == double.class) getter = resultSetGetter("getDouble", double.class);
+		else if (type == float.class) getter = resultSetGetter("getFloat", float.class);
+		else if (type == short.class) getter = resultSetGetter("getShort", short.class);
+		else if (type == byte.class) getter = resultSetGetter("getByte", byte.class);
+		else if (type == boolean.class) getter = resultSetGetter("getBoolean", boolean.class);
+		else if (type == String.class) getter = resultSetGetter("getString", String.class);
+		else if (type == BigDecimal.class) getter = resultSetGetter("getBigDecimal", BigDecimal.class);
+		else if (type == byte[].class) getter = resultSetGetter("getBytes", byte[].class);
+		else if (type == java.sql.Timestamp.class || type == java.util.Date.class) getter = resultSetGetter("getTimestamp", java.sql.Timestamp.class);
+		else if (type == java.sql.Date.class) getter = resultSetGetter("getDate", java.sql.Date.class);
+		else if (type == java.sql.Time.class) getter = resultSetGetter("getTime", java.sql.Time.class);
+		else if (type.isEnum())
+		{
+			// (ResultSet, int)String followed by the conversion to the enum constant
+			MethodHandle toEnum = LOOKUP.findStatic(DbAutoRowMapper.class, "toEnum", MethodType.methodType(Enum.class, Class.class, String.class));
+			toEnum = MethodHandles.insertArguments(toEnum, 0, type);
+			
+			getter = MethodHandles.filterReturnValue(resultSetGetter("getString", String.class), toEnum);
+		}
+		else
+		{
+			// The wrappers and the rest of the types are converted by the driver, with null for SQL NULL
+			getter = MethodHandles.insertArguments(LOOKUP.findVirtual(ResultSet.class, "getObject", MethodType.methodType(Object.class, int.class, Class.class)), 2, type);
+		}
+		
+		getter = MethodHandles.insertArguments(getter, 1, index);
+		
+		return getter.asType(MethodType.methodType(type, ResultSet.class));
+	}
+	
+	private static MethodHandle resultSetGetter(String name, Class<?> type) throws Exception
+	{
+		return LOOKUP.findVirtual(ResultSet.class, name, MethodType.methodType(type, int.class));
+	}
+	
+	private static MethodHandle defaultValue(Class<?> type)
+	{
+		if (!type.isPrimitive()) return MethodHandles.constant(type, null);
+		if (type == boolean.class) return MethodHandles.constant(type, false);
+		if (type == char.class) return MethodHandles.constant(type, (char) 0);
+		
+		return MethodHandles.explicitCastArguments(MethodHandles.constant(int.class, 0), MethodType.methodType(type));
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Enum<?> toEnum(Class type, String value)
+	{
+		return (value != null ? Enum.valueOf(type, value) : null);
+	}
+	
+	private static void makeAccessible(java.lang.reflect.AccessibleObject object)
+	{
+		try
+		{
+			object.setAccessible(true);
+		}
+		catch (RuntimeException Re)
+		{
+			// Without access only the public members can be used
+		}
+	}
+	
+	private static String normalize(String name)
+	{
+		return name.replace("_", "").toLowerCase(Locale.ROOT);
+	}
+	
+	private interface Plan
+	{
+		public Object map(ResultSet resultSet) throws Throwable;
+	}
+	
+	private static class BeanPlan implements Plan
+	{
+		private final MethodHandle constructor;
+		private final MethodHandle[] setters;
+		
+		BeanPlan(MethodHandle constructor, MethodHandle[] setters)
+		{
+			this.constructor = constructor;
+			this.setters = setters;
+		}
+		
+		public Object map(ResultSet resultSet) throws Throwable
+		{
+			Object bean = (Object) constructor.invokeExact();
+			
+			for (int i=0; i<setters.length; i++)
+			{
+				setters[i].invokeExact(bean, resultSet);
+			}
+			
+			return bean;
+		}
+	}
+	
+	private static class RecordPlan implements Plan
+	{
+		private final MethodHandle constructor;
+		
+		RecordPlan(MethodHandle constructor)
+		{
+			this.constructor = constructor;
+		}
+		
+		public Object map(ResultSet resultSet) throws Throwable
+		{
+			return (Object) constructor.invokeExact(resultSet);
+		}
+	}
+	
+	private static class ResultSetPlan
+	{
+		private final ResultSet resultSet;
+		private final Plan plan;
+		
+		ResultSetPlan(ResultSet resultSet, Plan plan)
+		{
+			this.resultSet = resultSet;
+			this.plan = plan;
+		}
+	}
+}
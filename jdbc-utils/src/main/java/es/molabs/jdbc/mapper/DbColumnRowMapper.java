@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * DbRowMapper that reads its columns by index instead of by label. The columns are declared once and resolved to their indexes once 
+ * for each ResultSet, the handlers of the library resolve them before the first row and reuse them for the rest.
+ * 
+ * The mappers can be shared between threads.
+ */
+public abstract class DbColumnRowMapper<T> implements DbRowMapper<T>
+{
+	private final String[] columns;
+	
+	// Last columns resolved by mapRow(ResultSet, int), replaced when the ResultSet changes
+	private volatile DbColumns lastColumns = null;
+	
+	/**
+	 * Creates the mapper.
+	 * 
+	 * @param columns labels of the columns the mapper reads, in the order of the positions given to the DbColumns getters.
+	 */
+	protected DbColumnRowMapper(String...columns)
+	{
+		this.columns = columns.clone();
+	}
+	
+	/**
+	 * Resolves the columns of the mapper in the ResultSet.
+	 * 
+	 * @param resultSet to resolve the columns in.
+	 * 
+	 * @return The resolved columns.
+	 * 
+	 * @throws SQLException If a column is not in the ResultSet.
+	 */
+	public DbColumns resolve(ResultSet resultSet) throws SQLException
+	{
+		return DbColumns.resolve(resultSet, columns);
+	}
+	
+	/**
+	 * Maps the current row of the ResultSet of the columns.
+	 * 
+	 * @param columns resolved for the ResultSet.
+	 * @param rowNum number of the row, starting at 1.
+	 * 
+	 * @return The mapped row.
+	 * 
+	 * @throws SQLException If a value can not be read.
+	 */
+	public abstract T mapRow(DbColumns columns, int rowNum) throws SQLException;
+	
+	public T mapRow(ResultSet resultSet, int rowNum) throws SQLException
+	{
+		DbColumns columns = lastColumns;
+		
+		// Called directly, the columns are resolved again only when the ResultSet changes
+		if (columns == null || columns.getResultSet() != resultSet)
+		{
+			columns = resolve(resultSet);
+			lastColumns = columns;
+		}
+		
+		return mapRow(columns, rowNum);
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.mapper;
+
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * The columns of a DbColumnRowMapper resolved to their indexes in a ResultSet. The getters receive the position of the column in the 
+ * list given to the mapper, not its index in the ResultSet, and read the current row.
+ */
+public final class DbColumns 
+{
+	private final ResultSet resultSet;
+	private final int[] indexes;
+	
+	private DbColumns(ResultSet resultSet, int[] indexes)
+	{
+		this.resultSet = resultSet;
+		this.indexes = indexes;
+	}
+	
+	/**
+	 * Resolves the labels of the columns to their indexes in the ResultSet, ignoring the case as the drivers do.
+	 * 
+	 * @param resultSet to resolve the columns in.
+	 * @param columns labels of the columns.
+	 * 
+	 * @return The resolved columns.
+	 * 
+	 * @throws SQLException If a column is not in the ResultSet.
+	 */
+	public static DbColumns resolve(ResultSet resultSet, String...columns) throws SQLException
+	{
+		ResultSetMetaData metaData = resultSet.getMetaData();
+		int columnCount = metaData.getColumnCount();
+		
+		String[] labels = new String[columnCount];
+		for (int i=0; i<columnCount; i++)
+		{
+			labels[i] = metaData.getColumnLabel(i + 1);
+		}
+		
+		int[] indexes = new int[columns.length];
+		
+		for (int i=0; i<columns.length; i++)
+		{
+			indexes[i] = indexOf(labels, columns[i]);
+			
+			if (indexes[i] == 0) throw new SQLException("Column [" + columns[i] + "] not found in the ResultSet.");
+		}
+		
+		return new DbColumns(resultSet, indexes);
+	}
+	
+	private static int indexOf(String[] labels, String column)
+	{
+		// The first match wins, as in ResultSet.findColumn
+		for (int i=0; i<labels.length; i++)
+		{
+			if (column.equalsIgnoreCase(labels[i])) return i + 1;
+		}
+		
+		return 0;
+	}
+	
+	public ResultSet getResultSet()
+	{
+		return resultSet;
+	}
+	
+	/**
+	 * Returns the index in the ResultSet of the column.
+	 * 
+	 * @param column position in the list of the mapper.
+	 * 
+	 * @return The index in the ResultSet, starting at 1.
+	 */
+	public int getIndex(int column)
+	{
+		return indexes[column];
+	}
+	
+	public String getString(int column) throws SQLException
+	{
+		return resultSet.getString(indexes[column]);
+	}
+	
+	public int getInt(int column) throws SQLException
+	{
+		return resultSet.getInt(indexes[column]);
+	}
+	
+	public long getLong(int column) throws SQLException
+	{
+		return resultSet.getLong(indexes[column]);
+	}
+	
+	public double getDouble(int column) throws SQLException
+	{
+		return resultSet.getDouble(indexes[column]);
+	}
+	
+	public boolean getBoolean(int column) throws SQLException
+	{
+		return resultSet.getBoolean(indexes[column]);
+	}
+	
+	public BigDecimal getBigDecimal(int column) throws SQLException
+	{
+		return resultSet.getBigDecimal(indexes[column]);
+	}
+	
+	public Date getDate(int column) throws SQLException
+	{
+		return resultSet.getDate(indexes[column]);
+	}
+	
+	public Timestamp getTimestamp(int column) throws SQLException
+	{
+		return resultSet.getTimestamp(indexes[column]);
+	}
+	
+	public byte[] getBytes(int column) throws SQLException
+	{
+		return resultSet.getBytes(indexes[column]);
+	}
+	
+	public Clob getClob(int column) throws SQLException
+	{
+		return resultSet.getClob(indexes[column]);
+	}
+	
+	public Blob getBlob(int column) throws SQLException
+	{
+		return resultSet.getBlob(indexes[column]);
+	}
+	
+	public Object getObject(int column) throws SQLException
+	{
+		return resultSet.getObject(indexes[column]);
+	}
+	
+	public <T> T getObject(int column, Class<T> clazz) throws SQLException
+	{
+		return resultSet.getObject(indexes[column], clazz);
+	}
+	
+	/**
+	 * Returns if the last column read was SQL NULL.
+	 * 
+	 * @return true if the last value read was NULL.
+	 * 
+	 * @throws SQLException If the ResultSet is closed.
+	 */
+	public boolean wasNull() throws SQLException
+	{
+		return resultSet.wasNull();
+	}
+}
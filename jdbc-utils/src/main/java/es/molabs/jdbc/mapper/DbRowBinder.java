@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.mapper;
+
+import java.sql.SQLException;
+
+/**
+ * Writes the values of an object as the parameters of a statement, the opposite of a DbRowMapper.
+ */
+public interface DbRowBinder<T>
+{
+	/**
+	 * Returns how many parameters each row binds.
+	 * 
+	 * @return How many parameters each row binds.
+	 */
+	public int getFieldsToBind();
+	
+	/**
+	 * Writes the parameters of the row in order. The array is reused between rows, so it must not be kept.
+	 * 
+	 * @param row to bind.
+	 * @param values array of {@link #getFieldsToBind()} length to write the parameters to.
+	 * 
+	 * @throws SQLException If a value can not be bound.
+	 */
+	public void bindRow(T row, Object[] values) throws SQLException;
+}
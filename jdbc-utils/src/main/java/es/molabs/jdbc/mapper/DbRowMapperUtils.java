@@ -15,10 +15,20 @@
  */
 package es.molabs.jdbc.mapper;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.SQLException;
@@ -27,35 +37,55 @@ import es.molabs.jdbc.exception.DbException;
 
 public final class DbRowMapperUtils 
 {
+	public final static int DEFAULT_BUFFER_SIZE = 8192;
+	
 	private DbRowMapperUtils()
 	{
 	}	
 	
+	/**
+	 * Decodes the content of the blob with the platform charset.
+	 * 
+	 * @param blob to read, can be null.
+	 * 
+	 * @return The content or null if the blob is null.
+	 */
 	public static String blobToString(Blob blob)
+	{
+		return blobToString(blob, Charset.defaultCharset());
+	}
+	
+	/**
+	 * Decodes the content of the blob with the charset. The bytes are decoded while they are read into a builder sized for the content.
+	 * 
+	 * @param blob to read, can be null.
+	 * @param charset of the content.
+	 * 
+	 * @return The content or null if the blob is null.
+	 */
+	public static String blobToString(Blob blob, Charset charset)
 	{
 		if (blob == null) return null;
 		
 		try
 		{
-			int offset = -1;
-			int chunkSize = 1024;
 			long blobLength = blob.length();
 			
-			if (chunkSize > blobLength) 
-			{
-				chunkSize = (int)blobLength;
-			}
-					
-			char buffer[] = new char[chunkSize];
+			// The content of a String can not be longer than Integer.MAX_VALUE, it has at most one char per byte
+			if (blobLength > Integer.MAX_VALUE) throw new SQLException("Blob length [" + blobLength + "] is too long for a String.");
 			
-			StringBuilder stringBuilder = new StringBuilder();
-			Reader reader = new InputStreamReader(blob.getBinaryStream());
-	
-			while ((offset = reader.read(buffer)) != -1) 
+			StringBuilder stringBuilder = new StringBuilder((int) blobLength);
+			char[] buffer = new char[bufferSize(DEFAULT_BUFFER_SIZE, blobLength)];
+			
+			try (Reader reader = new InputStreamReader(blob.getBinaryStream(), charset))
 			{
-				stringBuilder.append(buffer, 0, offset);
+				int read;
+				while ((read = reader.read(buffer)) != -1) 
+				{
+					stringBuilder.append(buffer, 0, read);
+				}
 			}
-	
+			
 			return stringBuilder.toString();
 		}
 		catch (SQLException SQLe)
@@ -65,34 +95,186 @@ public final class DbRowMapperUtils
 		catch (IOException IOe)
 		{
 			throw new DbException(IOe);
-		}			
+		}
 	}
 	
 	public static String clobToString(Clob clob) throws SQLException
 	{
 		if (clob == null) return null;
 		
+		long clobLength = clob.length();
+		
+		// The text length should not be greater than Integer.MAX_VALUE
+		if (clobLength > Integer.MAX_VALUE) throw new SQLException("Clob length [" + clobLength + "] is too long for a String.");
+		
+		return clob.getSubString(1, (int) clobLength);
+	}
+	
+	/**
+	 * Copies the content of the blob to the stream, through a buffer of DEFAULT_BUFFER_SIZE bytes. The stream is not closed.
+	 * 
+	 * @param blob to read, can be null.
+	 * @param outputStream where the content is written.
+	 * 
+	 * @return The number of bytes copied or -1 if the blob is null.
+	 * 
+	 * @throws SQLException If the blob or the stream fail.
+	 */
+	public static long copyBlob(Blob blob, OutputStream outputStream) throws SQLException
+	{
+		return copyBlob(blob, outputStream, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Copies the content of the blob to the stream, through a buffer of the size. The stream is not closed.
+	 * 
+	 * @param blob to read, can be null.
+	 * @param outputStream where the content is written.
+	 * @param bufferSize in bytes.
+	 * 
+	 * @return The number of bytes copied or -1 if the blob is null.
+	 * 
+	 * @throws SQLException If the blob or the stream fail.
+	 */
+	public static long copyBlob(Blob blob, OutputStream outputStream, int bufferSize) throws SQLException
+	{
+		if (blob == null) return -1;
+		
+		byte[] buffer = new byte[bufferSize(bufferSize, blob.length())];
+		long count = 0;
+		
+		try (InputStream inputStream = blob.getBinaryStream())
+		{
+			int read;
+			while ((read = inputStream.read(buffer)) != -1)
+			{
+				outputStream.write(buffer, 0, read);
+				count += read;
+			}
+		}
+		catch (IOException IOe)
+		{
+			throw new SQLException(IOe);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Copies the content of the blob to the channel, through a buffer of the size. The channel is not closed.
+	 * 
+	 * @param blob to read, can be null.
+	 * @param channel where the content is written.
+	 * @param bufferSize in bytes.
+	 * 
+	 * @return The number of bytes copied or -1 if the blob is null.
+	 * 
+	 * @throws SQLException If the blob or the channel fail.
+	 */
+	public static long copyBlob(Blob blob, WritableByteChannel channel, int bufferSize) throws SQLException
+	{
+		if (blob == null) return -1;
+		
+		byte[] buffer = new byte[bufferSize(bufferSize, blob.length())];
+		ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+		long count = 0;
+		
+		try (InputStream inputStream = blob.getBinaryStream())
+		{
+			int read;
+			while ((read = inputStream.read(buffer)) != -1)
+			{
+				byteBuffer.limit(read).position(0);
+				
+				while (byteBuffer.hasRemaining())
+				{
+					channel.write(byteBuffer);
+				}
+				
+				count += read;
+			}
+		}
+		catch (IOException IOe)
+		{
+			throw new SQLException(IOe);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Copies the content of the clob to the writer, through a buffer of the size. The writer is not closed.
+	 * 
+	 * @param clob to read, can be null.
+	 * @param writer where the content is written, its charset is the one used to encode the content.
+	 * @param bufferSize in chars.
+	 * 
+	 * @return The number of chars copied or -1 if the clob is null.
+	 * 
+	 * @throws SQLException If the clob or the writer fail.
+	 */
+	public static long copyClob(Clob clob, Writer writer, int bufferSize) throws SQLException
+	{
+		if (clob == null) return -1;
+		
+		char[] buffer = new char[bufferSize(bufferSize, clob.length())];
+		long count = 0;
+		
+		try (Reader reader = clob.getCharacterStream())
+		{
+			int read;
+			while ((read = reader.read(buffer)) != -1)
+			{
+				writer.write(buffer, 0, read);
+				count += read;
+			}
+		}
+		catch (IOException IOe)
+		{
+			throw new SQLException(IOe);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Copies the content of the blob to a temporary file and maps it in memory, for values too large to be kept in the heap. The file is 
+	 * deleted when it is closed, the mapping stays valid until the buffer is garbage collected.
+	 * 
+	 * @param blob to read, can be null.
+	 * @param directory for the temporary file or null for the default temporary directory.
+	 * @param bufferSize in bytes.
+	 * 
+	 * @return The read only mapped content or null if the blob is null.
+	 * 
+	 * @throws SQLException If the blob or the file fail.
+	 */
+	public static MappedByteBuffer blobToMappedFile(Blob blob, Path directory, int bufferSize) throws SQLException
+	{
+		if (blob == null) return null;
+		
 		try
 		{
-			Reader reader = clob.getCharacterStream();
-	        BufferedReader bufferedReader = new BufferedReader(reader);
-	        				
-	        // The text length should not be greater than Integer.MAX_VALUE
-	        StringBuilder stringBuilder = new StringBuilder((int) clob.length());
+			Path file = (directory != null ? Files.createTempFile(directory, "jdbc-utils", ".blob") : Files.createTempFile("jdbc-utils", ".blob"));
 			
-			String line = null;
-	        while ((line = bufferedReader.readLine()) != null) 
-	        {
-	        	stringBuilder.append(line);
-	        }
-	        
-	        bufferedReader.close();
-	        
-	        return stringBuilder.toString();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE))
+			{
+				long size = copyBlob(blob, channel, bufferSize);
+				
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
 		}
 		catch (IOException IOe)
 		{
 			throw new SQLException(IOe);
 		}
 	}
+	
+	private static int bufferSize(int bufferSize, long length)
+	{
+		if (bufferSize <= 0) throw new IllegalArgumentException("Buffer size must be greater than 0.");
+		
+		// Small values do not need a full buffer
+		return (int) Math.max(1, Math.min(bufferSize, length));
+	}
 }
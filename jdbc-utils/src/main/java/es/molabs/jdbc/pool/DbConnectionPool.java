@@ -0,0 +1,787 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.pool;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lightweight connection pool that can be given to a DbManager as its DataSource.
+ * <p>
+ * Connections are borrowed without locks: each entry changes from idle to in use with a compare and set, trying first the ones 
+ * the thread gave back last, then the rest. When all are in use and the pool is full the thread waits for one to be handed to it 
+ * until the acquire timeout. Connections used without errors within the validation interval are not validated again when they are borrowed.
+ * <p>
+ * The settings must be set before calling init.
+ */
+public class DbConnectionPool implements DataSource
+{
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	
+	// Max entries remembered by each thread to borrow them again
+	private final static int MAX_RECENT_ENTRIES = 8;
+	
+	// Max time a waiting thread sleeps before looking for a connection again
+	private final static long MAX_WAIT_SLICE = TimeUnit.MILLISECONDS.toNanos(10);
+	
+	private final DataSource dataSource;
+	private final String url;
+	private final String user;
+	private final String password;
+	
+	private int minSize;
+	private int maxSize;
+	private long acquireTimeout;
+	private long idleTimeout;
+	private long validationInterval;
+	private int validationTimeout;
+	private long housekeepingInterval;
+	
+	private final CopyOnWriteArrayList<PoolEntry> entries;
+	private final AtomicInteger totalConnections;
+	private final AtomicInteger waitingThreads;
+	private final SynchronousQueue<PoolEntry> handoffQueue;
+	private final ThreadLocal<List<PoolEntry>> recentEntries;
+	
+	private final LongAdder borrowCount;
+	private final LongAdder timeoutCount;
+	private final LongAdder createdCount;
+	private final LongAdder evictedCount;
+	
+	private ScheduledExecutorService housekeeper = null;
+	private volatile boolean initialized;
+	
+	/**
+	 * Creates a pool of the connections of the DataSource, that should not be a pool itself.
+	 * 
+	 * @param dataSource that opens the physical connections.
+	 */
+	public DbConnectionPool(DataSource dataSource)
+	{
+		this(dataSource, null, null, null);
+	}
+	
+	/**
+	 * Creates a pool of the connections opened with the DriverManager.
+	 * 
+	 * @param url of the database.
+	 * @param user of the database.
+	 * @param password of the user.
+	 */
+	public DbConnectionPool(String url, String user, String password)
+	{
+		this(null, url, user, password);
+	}
+	
+	private DbConnectionPool(DataSource dataSource, String url, String user, String password)
+	{
+		this.dataSource = dataSource;
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		
+		minSize = 0;
+		maxSize = 10;
+		acquireTimeout = 30000;
+		idleTimeout = 600000;
+		validationInterval = 500;
+		validationTimeout = 5;
+		housekeepingInterval = 30000;
+		
+		entries = new CopyOnWriteArrayList<PoolEntry>();
+		totalConnections = new AtomicInteger();
+		waitingThreads = new AtomicInteger();
+		handoffQueue = new SynchronousQueue<PoolEntry>(true);
+		recentEntries = ThreadLocal.withInitial(() -> new ArrayList<PoolEntry>(MAX_RECENT_ENTRIES));
+		
+		borrowCount = new LongAdder();
+		timeoutCount = new LongAdder();
+		createdCount = new LongAdder();
+		evictedCount = new LongAdder();
+		
+		initialized = false;
+	}
+	
+	/**
+	 * Initializes the pool opening the min connections and starting the thread that evicts the idle ones.
+	 */
+	public void init()
+	{
+		if (!initialized)
+		{
+			// Sets the pool as initialized
+			initialized = true;
+			
+			fillPool();
+			
+			housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> 
+			{
+				Thread thread = new Thread(runnable, "DbConnectionPool-housekeeper");
+				thread.setDaemon(true);
+				
+				return thread;
+			});
+			housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingInterval, housekeepingInterval, TimeUnit.MILLISECONDS);
+			
+			logger.info("Initialized.");
+		}
+		else
+		{
+			logger.warn("Already initialized.");
+		}
+	}
+	
+	/**
+	 * Destroys the pool closing the idle connections. The ones in use are closed when they are given back.
+	 */
+	public void destroy()
+	{
+		if (initialized)
+		{
+			// Sets the pool as not initialized
+			initialized = false;
+			
+			housekeeper.shutdownNow();
+			housekeeper = null;
+			
+			for (PoolEntry entry : entries)
+			{
+				if (entry.evict())
+				{
+					closeEntry(entry);
+				}
+			}
+			
+			logger.info("Destroyed.");
+		}
+		else
+		{
+			logger.warn("Already destroyed.");
+		}
+	}
+	
+	public boolean isInitialized()
+	{
+		return initialized;
+	}
+	
+	public int getMinSize()
+	{
+		return minSize;
+	}
+	
+	/**
+	 * Sets the connections the pool keeps open even if they are idle.
+	 * 
+	 * @param minSize min number of connections, 0 by default.
+	 */
+	public void setMinSize(int minSize)
+	{
+		if (minSize < 0) throw new IllegalArgumentException("Min size can not be negative.");
+		
+		this.minSize = minSize;
+	}
+	
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+	
+	/**
+	 * Sets the max connections open at the same time.
+	 * 
+	 * @param maxSize max number of connections, 10 by default.
+	 */
+	public void setMaxSize(int maxSize)
+	{
+		if (maxSize < 1) throw new IllegalArgumentException("Max size must be greater than 0.");
+		
+		this.maxSize = maxSize;
+	}
+	
+	public long getAcquireTimeout()
+	{
+		return acquireTimeout;
+	}
+	
+	/**
+	 * Sets how long getConnection waits for a connection when all of them are in use and the pool is full.
+	 * 
+	 * @param acquireTimeout timeout in milliseconds, 30 seconds by default.
+	 */
+	public void setAcquireTimeout(long acquireTimeout)
+	{
+		if (acquireTimeout < 0) throw new IllegalArgumentException("Acquire timeout can not be negative.");
+		
+		this.acquireTimeout = acquireTimeout;
+	}
+	
+	public long getIdleTimeout()
+	{
+		return idleTimeout;
+	}
+	
+	/**
+	 * Sets how long a connection can be idle before it is closed, while there are more than the min connections.
+	 * 
+	 * @param idleTimeout timeout in milliseconds, 10 minutes by default. 0 keeps the idle connections open.
+	 */
+	public void setIdleTimeout(long idleTimeout)
+	{
+		if (idleTimeout < 0) throw new IllegalArgumentException("Idle timeout can not be negative.");
+		
+		this.idleTimeout = idleTimeout;
+	}
+	
+	public long getValidationInterval()
+	{
+		return validationInterval;
+	}
+	
+	/**
+	 * Sets how long after being used without errors a connection is borrowed without validating it, saving the round trip to the database.
+	 * 
+	 * @param validationInterval interval in milliseconds, 500 by default. 0 validates the connections every time.
+	 */
+	public void setValidationInterval(long validationInterval)
+	{
+		if (validationInterval < 0) throw new IllegalArgumentException("Validation interval can not be negative.");
+		
+		this.validationInterval = validationInterval;
+	}
+	
+	public int getValidationTimeout()
+	{
+		return validationTimeout;
+	}
+	
+	/**
+	 * Sets how long the validation of a connection waits for the database.
+	 * 
+	 * @param validationTimeout timeout in seconds, 5 by default. 0 waits with no limit.
+	 */
+	public void setValidationTimeout(int validationTimeout)
+	{
+		if (validationTimeout < 0) throw new IllegalArgumentException("Validation timeout can not be negative.");
+		
+		this.validationTimeout = validationTimeout;
+	}
+	
+	public long getHousekeepingInterval()
+	{
+		return housekeepingInterval;
+	}
+	
+	/**
+	 * Sets how often the idle connections are evicted and the pool is filled up to the min connections.
+	 * 
+	 * @param housekeepingInterval interval in milliseconds, 30 seconds by default.
+	 */
+	public void setHousekeepingInterval(long housekeepingInterval)
+	{
+		if (housekeepingInterval < 1) throw new IllegalArgumentException("Housekeeping interval must be greater than 0.");
+		
+		this.housekeepingInterval = housekeepingInterval;
+	}
+	
+	/**
+	 * Returns the connections open, in use or idle.
+	 * 
+	 * @return The number of open connections.
+	 */
+	public int getTotalConnections()
+	{
+		return totalConnections.get();
+	}
+	
+	public int getIdleConnections()
+	{
+		return countEntries(PoolEntry.IDLE);
+	}
+	
+	public int getActiveConnections()
+	{
+		return countEntries(PoolEntry.IN_USE);
+	}
+	
+	public int getWaitingThreads()
+	{
+		return waitingThreads.get();
+	}
+	
+	public long getBorrowCount()
+	{
+		return borrowCount.sum();
+	}
+	
+	/**
+	 * Returns how many times getConnection failed because no connection was free before the acquire timeout.
+	 * 
+	 * @return The number of timeouts.
+	 */
+	public long getTimeoutCount()
+	{
+		return timeoutCount.sum();
+	}
+	
+	public long getCreatedCount()
+	{
+		return createdCount.sum();
+	}
+	
+	/**
+	 * Returns how many connections were closed for being idle longer than the idle timeout.
+	 * 
+	 * @return The number of evicted connections.
+	 */
+	public long getEvictedCount()
+	{
+		return evictedCount.sum();
+	}
+	
+	/**
+	 * Borrows a connection from the pool, that is given back when it is closed.
+	 * 
+	 * @return A connection of the pool.
+	 * 
+	 * @throws SQLTransientConnectionException If no connection is free before the acquire timeout.
+	 */
+	public Connection getConnection() throws SQLException
+	{
+		if (!initialized) throw new SQLException("Pool is not initialized.");
+		
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(acquireTimeout);
+		
+		while (true)
+		{
+			PoolEntry entry = borrowEntry();
+			
+			if (entry == null)
+			{
+				entry = waitEntry(deadline);
+				
+				if (entry == null)
+				{
+					timeoutCount.increment();
+					
+					throw new SQLTransientConnectionException("No connection available in " + acquireTimeout + " ms.", "08001");
+				}
+			}
+			
+			if (validate(entry))
+			{
+				borrowCount.increment();
+				
+				return new PooledConnection(this, entry);
+			}
+			
+			// The connection is not valid anymore
+			discardEntry(entry);
+		}
+	}
+	
+	public Connection getConnection(String username, String password) throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException("The pool only opens connections with its own credentials.");
+	}
+	
+	/**
+	 * Borrows an idle connection or creates a new one if the pool is not full.
+	 * 
+	 * @return The borrowed entry or null if there is none free.
+	 */
+	private PoolEntry borrowEntry() throws SQLException
+	{
+		// The connections given back by this thread are tried first, they are probably idle and not wanted by others
+		List<PoolEntry> recent = recentEntries.get();
+		
+		for (int i=recent.size()-1; i>=0; i--)
+		{
+			PoolEntry entry = recent.remove(i);
+			
+			if (entry.borrow())
+			{
+				return entry;
+			}
+		}
+		
+		for (PoolEntry entry : entries)
+		{
+			if (entry.borrow())
+			{
+				return entry;
+			}
+		}
+		
+		return createEntry();
+	}
+	
+	/**
+	 * Waits for a connection handed by the thread that gives it back, looking for a free one from time to time in case it was missed.
+	 * 
+	 * @return The borrowed entry or null if the deadline is reached.
+	 */
+	private PoolEntry waitEntry(long deadline) throws SQLException
+	{
+		waitingThreads.incrementAndGet();
+		
+		try
+		{
+			while (true)
+			{
+				PoolEntry entry = borrowEntry();
+				
+				if (entry != null) return entry;
+				
+				long remaining = deadline - System.nanoTime();
+				
+				if (remaining <= 0) return null;
+				
+				entry = handoffQueue.poll(Math.min(remaining, MAX_WAIT_SLICE), TimeUnit.NANOSECONDS);
+				
+				// Another thread can borrow it after it is handed
+				if (entry != null && entry.borrow())
+				{
+					return entry;
+				}
+			}
+		}
+		catch (InterruptedException Ie)
+		{
+			Thread.currentThread().interrupt();
+			
+			throw new SQLException("Interrupted while waiting for a connection.", Ie);
+		}
+		finally
+		{
+			waitingThreads.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * Opens a new connection if the pool is not full.
+	 * 
+	 * @return The new entry, in use, or null if the pool is full.
+	 */
+	private PoolEntry createEntry() throws SQLException
+	{
+		int total;
+		
+		while ((total = totalConnections.get()) < maxSize)
+		{
+			if (totalConnections.compareAndSet(total, total + 1))
+			{
+				try
+				{
+					PoolEntry entry = new PoolEntry(openConnection());
+					entries.add(entry);
+					createdCount.increment();
+					
+					return entry;
+				}
+				catch (SQLException | RuntimeException e)
+				{
+					totalConnections.decrementAndGet();
+					
+					throw e;
+				}
+			}
+		}
+		
+		return null;
+	}
+	
+	private Connection openConnection() throws SQLException
+	{
+		return (dataSource != null ? dataSource.getConnection() : DriverManager.getConnection(url, user, password));
+	}
+	
+	private boolean validate(PoolEntry entry)
+	{
+		// Connections recently used without errors are trusted
+		if (System.nanoTime() - entry.lastChecked < TimeUnit.MILLISECONDS.toNanos(validationInterval))
+		{
+			return true;
+		}
+		
+		try
+		{
+			if (!entry.connection.isValid(validationTimeout)) return false;
+			
+			entry.lastChecked = System.nanoTime();
+			
+			return true;
+		}
+		catch (SQLException SQLe)
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * Gives back the connection, resetting the settings changed while it was borrowed.
+	 */
+	void release(PoolEntry entry, PooledConnection pooledConnection)
+	{
+		if (!entry.broken)
+		{
+			try
+			{
+				resetConnection(entry, pooledConnection);
+			}
+			catch (SQLException SQLe)
+			{
+				logger.warn("Could not reset the connection, it will be discarded.", SQLe);
+				
+				entry.broken = true;
+			}
+		}
+		
+		if (entry.broken || !initialized)
+		{
+			discardEntry(entry);
+			
+			return;
+		}
+		
+		entry.lastUsed = System.nanoTime();
+		
+		// After an error the connection is validated the next time it is borrowed
+		if (!pooledConnection.failed) entry.lastChecked = entry.lastUsed;
+		
+		entry.release();
+		
+		List<PoolEntry> recent = recentEntries.get();
+		
+		if (recent.size() == MAX_RECENT_ENTRIES)
+		{
+			recent.remove(0);
+		}
+		
+		recent.add(entry);
+		
+		if (waitingThreads.get() > 0)
+		{
+			handoffQueue.offer(entry);
+		}
+		
+		// The pool could be destroyed while it was being given back
+		if (!initialized && entry.evict())
+		{
+			closeEntry(entry);
+		}
+	}
+	
+	private void resetConnection(PoolEntry entry, PooledConnection pooledConnection) throws SQLException
+	{
+		Connection connection = entry.connection;
+		
+		boolean autoCommit = (pooledConnection.autoCommitChanged ? connection.getAutoCommit() : entry.autoCommit);
+		
+		// Discards the uncommitted changes
+		if (!autoCommit)
+		{
+			connection.rollback();
+		}
+		
+		if (pooledConnection.autoCommitChanged && autoCommit != entry.autoCommit)
+		{
+			connection.setAutoCommit(entry.autoCommit);
+		}
+		
+		if (pooledConnection.readOnlyChanged)
+		{
+			connection.setReadOnly(entry.readOnly);
+		}
+		
+		if (pooledConnection.transactionIsolationChanged)
+		{
+			connection.setTransactionIsolation(entry.transactionIsolation);
+		}
+		
+		connection.clearWarnings();
+	}
+	
+	private void discardEntry(PoolEntry entry)
+	{
+		entry.remove();
+		
+		closeEntry(entry);
+	}
+	
+	private void closeEntry(PoolEntry entry)
+	{
+		if (entries.remove(entry))
+		{
+			totalConnections.decrementAndGet();
+		}
+		
+		try
+		{
+			entry.connection.close();
+		}
+		catch (SQLException SQLe)
+		{
+			logger.warn("Could not close the connection.", SQLe);
+		}
+	}
+	
+	/**
+	 * Closes the connections idle longer than the idle timeout and fills the pool up to the min connections.
+	 */
+	void housekeep()
+	{
+		try
+		{
+			if (idleTimeout > 0)
+			{
+				long now = System.nanoTime();
+				long timeout = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+				
+				for (PoolEntry entry : entries)
+				{
+					if (totalConnections.get() > minSize && now - entry.lastUsed > timeout && entry.evict())
+					{
+						closeEntry(entry);
+						evictedCount.increment();
+					}
+				}
+			}
+			
+			fillPool();
+		}
+		catch (RuntimeException Re)
+		{
+			logger.error("Error while housekeeping the pool.", Re);
+		}
+	}
+	
+	private void fillPool()
+	{
+		try
+		{
+			while (initialized && totalConnections.get() < minSize)
+			{
+				PoolEntry entry = createEntry();
+				
+				if (entry == null) break;
+				
+				entry.release();
+				
+				if (waitingThreads.get() > 0)
+				{
+					handoffQueue.offer(entry);
+				}
+			}
+		}
+		catch (SQLException SQLe)
+		{
+			logger.warn("Could not open the min connections of the pool.", SQLe);
+		}
+	}
+	
+	private int countEntries(int state)
+	{
+		int count = 0;
+		
+		for (PoolEntry entry : entries)
+		{
+			if (entry.getState() == state)
+			{
+				count++;
+			}
+		}
+		
+		return count;
+	}
+	
+	public PrintWriter getLogWriter() throws SQLException
+	{
+		return (dataSource != null ? dataSource.getLogWriter() : DriverManager.getLogWriter());
+	}
+	
+	public void setLogWriter(PrintWriter out) throws SQLException
+	{
+		if (dataSource != null)
+		{
+			dataSource.setLogWriter(out);
+		}
+		else
+		{
+			DriverManager.setLogWriter(out);
+		}
+	}
+	
+	public void setLoginTimeout(int seconds) throws SQLException
+	{
+		if (dataSource != null)
+		{
+			dataSource.setLoginTimeout(seconds);
+		}
+		else
+		{
+			DriverManager.setLoginTimeout(seconds);
+		}
+	}
+	
+	public int getLoginTimeout() throws SQLException
+	{
+		return (dataSource != null ? dataSource.getLoginTimeout() : DriverManager.getLoginTimeout());
+	}
+	
+	public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		throw new SQLFeatureNotSupportedException();
+	}
+	
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		if (iface.isInstance(this))
+		{
+			return iface.cast(this);
+		}
+		
+		if (dataSource != null)
+		{
+			return dataSource.unwrap(iface);
+		}
+		
+		throw new SQLException("Not a wrapper for " + iface.getName() + ".");
+	}
+	
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return iface.isInstance(this) || (dataSource != null && dataSource.isWrapperFor(iface));
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Physical connection of a DbConnectionPool and its state, that changes only through compare and set so no lock is needed to borrow it.
+ */
+final class PoolEntry 
+{
+	final static int IDLE = 0;
+	final static int IN_USE = 1;
+	final static int REMOVED = 2;
+	
+	private final static AtomicIntegerFieldUpdater<PoolEntry> STATE = AtomicIntegerFieldUpdater.newUpdater(PoolEntry.class, "state");
+	
+	final Connection connection;
+	
+	// Settings of the connection when it was created, restored when it is given back
+	final boolean autoCommit;
+	final boolean readOnly;
+	final int transactionIsolation;
+	
+	// Entries are created for the caller that asked for them
+	private volatile int state = IN_USE;
+	
+	// System.nanoTime() of the last time the connection was created or given back
+	volatile long lastUsed;
+	
+	// System.nanoTime() of the last time the connection was known to work: created, validated or given back without errors
+	volatile long lastChecked;
+	
+	// Set when the driver reports a connection error, the entry is discarded when it is given back
+	volatile boolean broken = false;
+	
+	PoolEntry(Connection connection) throws SQLException
+	{
+		this.connection = connection;
+		
+		autoCommit = connection.getAutoCommit();
+		readOnly = connection.isReadOnly();
+		transactionIsolation = connection.getTransactionIsolation();
+		
+		lastUsed = System.nanoTime();
+		lastChecked = lastUsed;
+	}
+	
+	boolean borrow()
+	{
+		return STATE.compareAndSet(this, IDLE, IN_USE);
+	}
+	
+	void release()
+	{
+		state = IDLE;
+	}
+	
+	/**
+	 * Removes the entry if it is idle.
+	 * 
+	 * @return True if the entry was idle and is now removed.
+	 */
+	boolean evict()
+	{
+		return STATE.compareAndSet(this, IDLE, REMOVED);
+	}
+	
+	void remove()
+	{
+		state = REMOVED;
+	}
+	
+	int getState()
+	{
+		return state;
+	}
+}
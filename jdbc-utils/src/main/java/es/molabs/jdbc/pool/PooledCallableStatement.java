@@ -0,0 +1,1504 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.pool;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * CallableStatement of a PooledConnection, see {@link PooledStatement}.
+ */
+final class PooledCallableStatement extends PooledPreparedStatement implements CallableStatement
+{
+	private final CallableStatement statement;
+	
+	PooledCallableStatement(PooledConnection connection, CallableStatement statement)
+	{
+		super(connection, statement);
+		
+		this.statement = statement;
+	}
+	
+	public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterIndex, sqlType);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterIndex, sqlType, scale);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean wasNull() throws SQLException
+	{
+		try
+		{
+			return statement.wasNull();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public String getString(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getString(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean getBoolean(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getBoolean(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public byte getByte(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getByte(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public short getShort(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getShort(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getInt(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getInt(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public long getLong(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getLong(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public float getFloat(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getFloat(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public double getDouble(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getDouble(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	@Deprecated
+	public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException
+	{
+		try
+		{
+			return statement.getBigDecimal(parameterIndex, scale);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public byte[] getBytes(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getBytes(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Date getDate(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getDate(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Time getTime(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getTime(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Timestamp getTimestamp(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getTimestamp(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Object getObject(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getObject(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public BigDecimal getBigDecimal(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getBigDecimal(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Object getObject(int parameterIndex, Map<String, Class<?>> map) throws SQLException
+	{
+		try
+		{
+			return statement.getObject(parameterIndex, map);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Ref getRef(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getRef(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Blob getBlob(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getBlob(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Clob getClob(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getClob(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Array getArray(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getArray(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Date getDate(int parameterIndex, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return statement.getDate(parameterIndex, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Time getTime(int parameterIndex, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return statement.getTime(parameterIndex, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return statement.getTimestamp(parameterIndex, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterIndex, sqlType, typeName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(String parameterName, int sqlType) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterName, sqlType);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterName, sqlType, scale);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterName, sqlType, typeName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public URL getURL(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getURL(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setURL(String parameterName, URL val) throws SQLException
+	{
+		try
+		{
+			statement.setURL(parameterName, val);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNull(String parameterName, int sqlType) throws SQLException
+	{
+		try
+		{
+			statement.setNull(parameterName, sqlType);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBoolean(String parameterName, boolean x) throws SQLException
+	{
+		try
+		{
+			statement.setBoolean(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setByte(String parameterName, byte x) throws SQLException
+	{
+		try
+		{
+			statement.setByte(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setShort(String parameterName, short x) throws SQLException
+	{
+		try
+		{
+			statement.setShort(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setInt(String parameterName, int x) throws SQLException
+	{
+		try
+		{
+			statement.setInt(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setLong(String parameterName, long x) throws SQLException
+	{
+		try
+		{
+			statement.setLong(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setFloat(String parameterName, float x) throws SQLException
+	{
+		try
+		{
+			statement.setFloat(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setDouble(String parameterName, double x) throws SQLException
+	{
+		try
+		{
+			statement.setDouble(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBigDecimal(String parameterName, BigDecimal x) throws SQLException
+	{
+		try
+		{
+			statement.setBigDecimal(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setString(String parameterName, String x) throws SQLException
+	{
+		try
+		{
+			statement.setString(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBytes(String parameterName, byte[] x) throws SQLException
+	{
+		try
+		{
+			statement.setBytes(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setDate(String parameterName, Date x) throws SQLException
+	{
+		try
+		{
+			statement.setDate(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setTime(String parameterName, Time x) throws SQLException
+	{
+		try
+		{
+			statement.setTime(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setTimestamp(String parameterName, Timestamp x) throws SQLException
+	{
+		try
+		{
+			statement.setTimestamp(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setAsciiStream(String parameterName, InputStream x, int length) throws SQLException
+	{
+		try
+		{
+			statement.setAsciiStream(parameterName, x, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBinaryStream(String parameterName, InputStream x, int length) throws SQLException
+	{
+		try
+		{
+			statement.setBinaryStream(parameterName, x, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setObject(String parameterName, Object x, int targetSqlType, int scale) throws SQLException
+	{
+		try
+		{
+			statement.setObject(parameterName, x, targetSqlType, scale);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setObject(String parameterName, Object x, int targetSqlType) throws SQLException
+	{
+		try
+		{
+			statement.setObject(parameterName, x, targetSqlType);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setObject(String parameterName, Object x) throws SQLException
+	{
+		try
+		{
+			statement.setObject(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setCharacterStream(String parameterName, Reader reader, int length) throws SQLException
+	{
+		try
+		{
+			statement.setCharacterStream(parameterName, reader, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setDate(String parameterName, Date x, Calendar cal) throws SQLException
+	{
+		try
+		{
+			statement.setDate(parameterName, x, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setTime(String parameterName, Time x, Calendar cal) throws SQLException
+	{
+		try
+		{
+			statement.setTime(parameterName, x, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setTimestamp(String parameterName, Timestamp x, Calendar cal) throws SQLException
+	{
+		try
+		{
+			statement.setTimestamp(parameterName, x, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNull(String parameterName, int sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			statement.setNull(parameterName, sqlType, typeName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public String getString(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getString(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean getBoolean(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getBoolean(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public byte getByte(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getByte(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public short getShort(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getShort(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getInt(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getInt(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public long getLong(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getLong(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public float getFloat(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getFloat(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public double getDouble(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getDouble(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public byte[] getBytes(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getBytes(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Date getDate(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getDate(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Time getTime(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getTime(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Timestamp getTimestamp(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getTimestamp(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Object getObject(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getObject(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public BigDecimal getBigDecimal(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getBigDecimal(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Object getObject(String parameterName, Map<String, Class<?>> map) throws SQLException
+	{
+		try
+		{
+			return statement.getObject(parameterName, map);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Ref getRef(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getRef(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Blob getBlob(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getBlob(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Clob getClob(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getClob(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Array getArray(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getArray(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Date getDate(String parameterName, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return statement.getDate(parameterName, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Time getTime(String parameterName, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return statement.getTime(parameterName, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException
+	{
+		try
+		{
+			return statement.getTimestamp(parameterName, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public URL getURL(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getURL(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public RowId getRowId(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getRowId(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public RowId getRowId(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getRowId(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setRowId(String parameterName, RowId x) throws SQLException
+	{
+		try
+		{
+			statement.setRowId(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNString(String parameterName, String value) throws SQLException
+	{
+		try
+		{
+			statement.setNString(parameterName, value);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNCharacterStream(String parameterName, Reader value, long length) throws SQLException
+	{
+		try
+		{
+			statement.setNCharacterStream(parameterName, value, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNClob(String parameterName, NClob value) throws SQLException
+	{
+		try
+		{
+			statement.setNClob(parameterName, value);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setClob(String parameterName, Reader reader, long length) throws SQLException
+	{
+		try
+		{
+			statement.setClob(parameterName, reader, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBlob(String parameterName, InputStream inputStream, long length) throws SQLException
+	{
+		try
+		{
+			statement.setBlob(parameterName, inputStream, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNClob(String parameterName, Reader reader, long length) throws SQLException
+	{
+		try
+		{
+			statement.setNClob(parameterName, reader, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public NClob getNClob(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getNClob(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public NClob getNClob(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getNClob(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setSQLXML(String parameterName, SQLXML xmlObject) throws SQLException
+	{
+		try
+		{
+			statement.setSQLXML(parameterName, xmlObject);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public SQLXML getSQLXML(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getSQLXML(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public SQLXML getSQLXML(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getSQLXML(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public String getNString(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getNString(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public String getNString(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getNString(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Reader getNCharacterStream(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getNCharacterStream(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Reader getNCharacterStream(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getNCharacterStream(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Reader getCharacterStream(int parameterIndex) throws SQLException
+	{
+		try
+		{
+			return statement.getCharacterStream(parameterIndex);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Reader getCharacterStream(String parameterName) throws SQLException
+	{
+		try
+		{
+			return statement.getCharacterStream(parameterName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBlob(String parameterName, Blob x) throws SQLException
+	{
+		try
+		{
+			statement.setBlob(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setClob(String parameterName, Clob x) throws SQLException
+	{
+		try
+		{
+			statement.setClob(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setAsciiStream(String parameterName, InputStream x, long length) throws SQLException
+	{
+		try
+		{
+			statement.setAsciiStream(parameterName, x, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBinaryStream(String parameterName, InputStream x, long length) throws SQLException
+	{
+		try
+		{
+			statement.setBinaryStream(parameterName, x, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setCharacterStream(String parameterName, Reader reader, long length) throws SQLException
+	{
+		try
+		{
+			statement.setCharacterStream(parameterName, reader, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setAsciiStream(String parameterName, InputStream x) throws SQLException
+	{
+		try
+		{
+			statement.setAsciiStream(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBinaryStream(String parameterName, InputStream x) throws SQLException
+	{
+		try
+		{
+			statement.setBinaryStream(parameterName, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setCharacterStream(String parameterName, Reader reader) throws SQLException
+	{
+		try
+		{
+			statement.setCharacterStream(parameterName, reader);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNCharacterStream(String parameterName, Reader value) throws SQLException
+	{
+		try
+		{
+			statement.setNCharacterStream(parameterName, value);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setClob(String parameterName, Reader reader) throws SQLException
+	{
+		try
+		{
+			statement.setClob(parameterName, reader);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBlob(String parameterName, InputStream inputStream) throws SQLException
+	{
+		try
+		{
+			statement.setBlob(parameterName, inputStream);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNClob(String parameterName, Reader reader) throws SQLException
+	{
+		try
+		{
+			statement.setNClob(parameterName, reader);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException
+	{
+		try
+		{
+			return statement.getObject(parameterIndex, type);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public <T> T getObject(String parameterName, Class<T> type) throws SQLException
+	{
+		try
+		{
+			return statement.getObject(parameterName, type);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setObject(String parameterName, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException
+	{
+		try
+		{
+			statement.setObject(parameterName, x, targetSqlType, scaleOrLength);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setObject(String parameterName, Object x, SQLType targetSqlType) throws SQLException
+	{
+		try
+		{
+			statement.setObject(parameterName, x, targetSqlType);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(int parameterIndex, SQLType sqlType) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterIndex, sqlType);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(int parameterIndex, SQLType sqlType, int scale) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterIndex, sqlType, scale);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(int parameterIndex, SQLType sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterIndex, sqlType, typeName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(String parameterName, SQLType sqlType) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterName, sqlType);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(String parameterName, SQLType sqlType, int scale) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterName, sqlType, scale);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void registerOutParameter(String parameterName, SQLType sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			statement.registerOutParameter(parameterName, sqlType, typeName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+}
@@ -0,0 +1,743 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.pool;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * Connection handed out by a DbConnectionPool. Delegates to the physical connection and, instead of closing it, gives it back to the pool.
+ * Its statements are wrapped too, so the connection errors they get are noticed.
+ * <p>
+ * Written as a plain delegate instead of a dynamic proxy so calls don't go through reflection.
+ */
+final class PooledConnection implements Connection 
+{
+	private final DbConnectionPool pool;
+	private final PoolEntry entry;
+	
+	private volatile boolean closed;
+	
+	// Settings changed by the user, restored when the connection is given back
+	boolean autoCommitChanged;
+	boolean readOnlyChanged;
+	boolean transactionIsolationChanged;
+	
+	// Set when any call failed, the connection is validated again before it is lent
+	volatile boolean failed;
+	
+	PooledConnection(DbConnectionPool pool, PoolEntry entry)
+	{
+		this.pool = pool;
+		this.entry = entry;
+		
+		closed = false;
+		
+		autoCommitChanged = false;
+		readOnlyChanged = false;
+		transactionIsolationChanged = false;
+		
+		failed = false;
+	}
+	
+	private Connection delegate() throws SQLException
+	{
+		if (closed)
+		{
+			throw new SQLException("Connection is closed.", "08003");
+		}
+		
+		return entry.connection;
+	}
+	
+	private void checkClientInfoOpen() throws SQLClientInfoException
+	{
+		if (closed)
+		{
+			throw new SQLClientInfoException("Connection is closed.", "08003", null);
+		}
+	}
+	
+	/**
+	 * Marks the entry as broken if the exception is a connection error, so it is discarded when given back. The statements of the 
+	 * connection pass their errors through here too.
+	 */
+	SQLException checkBroken(SQLException SQLe)
+	{
+		String sqlState = SQLe.getSQLState();
+		
+		failed = true;
+		
+		if (!closed && sqlState != null && sqlState.startsWith("08"))
+		{
+			entry.broken = true;
+		}
+		
+		return SQLe;
+	}
+	
+	public void close() throws SQLException
+	{
+		if (!closed)
+		{
+			closed = true;
+			
+			pool.release(entry, this);
+		}
+	}
+	
+	public boolean isClosed() throws SQLException
+	{
+		return closed;
+	}
+	
+	public boolean isValid(int timeout) throws SQLException
+	{
+		if (closed)
+		{
+			return false;
+		}
+		
+		boolean valid = entry.connection.isValid(timeout);
+		
+		if (!valid)
+		{
+			entry.broken = true;
+		}
+		
+		return valid;
+	}
+	
+	public void setAutoCommit(boolean autoCommit) throws SQLException
+	{
+		try
+		{
+			delegate().setAutoCommit(autoCommit);
+			
+			autoCommitChanged = true;
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+	
+	public void setReadOnly(boolean readOnly) throws SQLException
+	{
+		try
+		{
+			delegate().setReadOnly(readOnly);
+			
+			readOnlyChanged = true;
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+	
+	public void setTransactionIsolation(int level) throws SQLException
+	{
+		try
+		{
+			delegate().setTransactionIsolation(level);
+			
+			transactionIsolationChanged = true;
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+	
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		if (iface.isInstance(this))
+		{
+			return iface.cast(this);
+		}
+		
+		return delegate().unwrap(iface);
+	}
+	
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return iface.isInstance(this) || delegate().isWrapperFor(iface);
+	}
+	
+	public String toString()
+	{
+		return "PooledConnection[" + entry.connection + "]";
+	}
+	
+	public Statement createStatement() throws SQLException
+	{
+		try
+		{
+			return new PooledStatement(this, delegate().createStatement());
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public PreparedStatement prepareStatement(String sql) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatement(this, delegate().prepareStatement(sql));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public CallableStatement prepareCall(String sql) throws SQLException
+	{
+		try
+		{
+			return new PooledCallableStatement(this, delegate().prepareCall(sql));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public String nativeSQL(String sql) throws SQLException
+	{
+		try
+		{
+			return delegate().nativeSQL(sql);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public boolean getAutoCommit() throws SQLException
+	{
+		try
+		{
+			return delegate().getAutoCommit();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void commit() throws SQLException
+	{
+		try
+		{
+			delegate().commit();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void rollback() throws SQLException
+	{
+		try
+		{
+			delegate().rollback();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public DatabaseMetaData getMetaData() throws SQLException
+	{
+		try
+		{
+			return delegate().getMetaData();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public boolean isReadOnly() throws SQLException
+	{
+		try
+		{
+			return delegate().isReadOnly();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void setCatalog(String catalog) throws SQLException
+	{
+		try
+		{
+			delegate().setCatalog(catalog);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public String getCatalog() throws SQLException
+	{
+		try
+		{
+			return delegate().getCatalog();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public int getTransactionIsolation() throws SQLException
+	{
+		try
+		{
+			return delegate().getTransactionIsolation();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public SQLWarning getWarnings() throws SQLException
+	{
+		try
+		{
+			return delegate().getWarnings();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void clearWarnings() throws SQLException
+	{
+		try
+		{
+			delegate().clearWarnings();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException
+	{
+		try
+		{
+			return new PooledStatement(this, delegate().createStatement(resultSetType, resultSetConcurrency));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatement(this, delegate().prepareStatement(sql, resultSetType, resultSetConcurrency));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException
+	{
+		try
+		{
+			return new PooledCallableStatement(this, delegate().prepareCall(sql, resultSetType, resultSetConcurrency));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public Map<String, Class<?>> getTypeMap() throws SQLException
+	{
+		try
+		{
+			return delegate().getTypeMap();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void setTypeMap(Map<String, Class<?>> map) throws SQLException
+	{
+		try
+		{
+			delegate().setTypeMap(map);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void setHoldability(int holdability) throws SQLException
+	{
+		try
+		{
+			delegate().setHoldability(holdability);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public int getHoldability() throws SQLException
+	{
+		try
+		{
+			return delegate().getHoldability();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public Savepoint setSavepoint() throws SQLException
+	{
+		try
+		{
+			return delegate().setSavepoint();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public Savepoint setSavepoint(String name) throws SQLException
+	{
+		try
+		{
+			return delegate().setSavepoint(name);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void rollback(Savepoint savepoint) throws SQLException
+	{
+		try
+		{
+			delegate().rollback(savepoint);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException
+	{
+		try
+		{
+			delegate().releaseSavepoint(savepoint);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException
+	{
+		try
+		{
+			return new PooledStatement(this, delegate().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatement(this, delegate().prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException
+	{
+		try
+		{
+			return new PooledCallableStatement(this, delegate().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatement(this, delegate().prepareStatement(sql, autoGeneratedKeys));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatement(this, delegate().prepareStatement(sql, columnIndexes));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException
+	{
+		try
+		{
+			return new PooledPreparedStatement(this, delegate().prepareStatement(sql, columnNames));
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public Clob createClob() throws SQLException
+	{
+		try
+		{
+			return delegate().createClob();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public Blob createBlob() throws SQLException
+	{
+		try
+		{
+			return delegate().createBlob();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public NClob createNClob() throws SQLException
+	{
+		try
+		{
+			return delegate().createNClob();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public SQLXML createSQLXML() throws SQLException
+	{
+		try
+		{
+			return delegate().createSQLXML();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void setClientInfo(String name, String value) throws SQLClientInfoException
+	{
+		checkClientInfoOpen();
+		
+		entry.connection.setClientInfo(name, value);
+	}
+
+	public void setClientInfo(Properties properties) throws SQLClientInfoException
+	{
+		checkClientInfoOpen();
+		
+		entry.connection.setClientInfo(properties);
+	}
+
+	public String getClientInfo(String name) throws SQLException
+	{
+		try
+		{
+			return delegate().getClientInfo(name);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public Properties getClientInfo() throws SQLException
+	{
+		try
+		{
+			return delegate().getClientInfo();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public Array createArrayOf(String typeName, Object[] elements) throws SQLException
+	{
+		try
+		{
+			return delegate().createArrayOf(typeName, elements);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public Struct createStruct(String typeName, Object[] attributes) throws SQLException
+	{
+		try
+		{
+			return delegate().createStruct(typeName, attributes);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void setSchema(String schema) throws SQLException
+	{
+		try
+		{
+			delegate().setSchema(schema);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public String getSchema() throws SQLException
+	{
+		try
+		{
+			return delegate().getSchema();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void abort(Executor executor) throws SQLException
+	{
+		try
+		{
+			delegate().abort(executor);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException
+	{
+		try
+		{
+			delegate().setNetworkTimeout(executor, milliseconds);
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+
+	public int getNetworkTimeout() throws SQLException
+	{
+		try
+		{
+			return delegate().getNetworkTimeout();
+		}
+		catch (SQLException SQLe)
+		{
+			throw checkBroken(SQLe);
+		}
+	}
+}
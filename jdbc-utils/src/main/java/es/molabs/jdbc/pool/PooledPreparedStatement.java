@@ -0,0 +1,750 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.pool;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+/**
+ * PreparedStatement of a PooledConnection, see {@link PooledStatement}.
+ */
+class PooledPreparedStatement extends PooledStatement implements PreparedStatement
+{
+	private final PreparedStatement statement;
+	
+	PooledPreparedStatement(PooledConnection connection, PreparedStatement statement)
+	{
+		super(connection, statement);
+		
+		this.statement = statement;
+	}
+	
+	public ResultSet executeQuery() throws SQLException
+	{
+		try
+		{
+			return statement.executeQuery();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int executeUpdate() throws SQLException
+	{
+		try
+		{
+			return statement.executeUpdate();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNull(int parameterIndex, int sqlType) throws SQLException
+	{
+		try
+		{
+			statement.setNull(parameterIndex, sqlType);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBoolean(int parameterIndex, boolean x) throws SQLException
+	{
+		try
+		{
+			statement.setBoolean(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setByte(int parameterIndex, byte x) throws SQLException
+	{
+		try
+		{
+			statement.setByte(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setShort(int parameterIndex, short x) throws SQLException
+	{
+		try
+		{
+			statement.setShort(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setInt(int parameterIndex, int x) throws SQLException
+	{
+		try
+		{
+			statement.setInt(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setLong(int parameterIndex, long x) throws SQLException
+	{
+		try
+		{
+			statement.setLong(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setFloat(int parameterIndex, float x) throws SQLException
+	{
+		try
+		{
+			statement.setFloat(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setDouble(int parameterIndex, double x) throws SQLException
+	{
+		try
+		{
+			statement.setDouble(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException
+	{
+		try
+		{
+			statement.setBigDecimal(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setString(int parameterIndex, String x) throws SQLException
+	{
+		try
+		{
+			statement.setString(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBytes(int parameterIndex, byte[] x) throws SQLException
+	{
+		try
+		{
+			statement.setBytes(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setDate(int parameterIndex, Date x) throws SQLException
+	{
+		try
+		{
+			statement.setDate(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setTime(int parameterIndex, Time x) throws SQLException
+	{
+		try
+		{
+			statement.setTime(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException
+	{
+		try
+		{
+			statement.setTimestamp(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException
+	{
+		try
+		{
+			statement.setAsciiStream(parameterIndex, x, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	@Deprecated
+	public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException
+	{
+		try
+		{
+			statement.setUnicodeStream(parameterIndex, x, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException
+	{
+		try
+		{
+			statement.setBinaryStream(parameterIndex, x, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void clearParameters() throws SQLException
+	{
+		try
+		{
+			statement.clearParameters();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException
+	{
+		try
+		{
+			statement.setObject(parameterIndex, x, targetSqlType);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setObject(int parameterIndex, Object x) throws SQLException
+	{
+		try
+		{
+			statement.setObject(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean execute() throws SQLException
+	{
+		try
+		{
+			return statement.execute();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void addBatch() throws SQLException
+	{
+		try
+		{
+			statement.addBatch();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException
+	{
+		try
+		{
+			statement.setCharacterStream(parameterIndex, reader, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setRef(int parameterIndex, Ref x) throws SQLException
+	{
+		try
+		{
+			statement.setRef(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBlob(int parameterIndex, Blob x) throws SQLException
+	{
+		try
+		{
+			statement.setBlob(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setClob(int parameterIndex, Clob x) throws SQLException
+	{
+		try
+		{
+			statement.setClob(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setArray(int parameterIndex, Array x) throws SQLException
+	{
+		try
+		{
+			statement.setArray(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public ResultSetMetaData getMetaData() throws SQLException
+	{
+		try
+		{
+			return statement.getMetaData();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException
+	{
+		try
+		{
+			statement.setDate(parameterIndex, x, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException
+	{
+		try
+		{
+			statement.setTime(parameterIndex, x, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException
+	{
+		try
+		{
+			statement.setTimestamp(parameterIndex, x, cal);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException
+	{
+		try
+		{
+			statement.setNull(parameterIndex, sqlType, typeName);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setURL(int parameterIndex, URL x) throws SQLException
+	{
+		try
+		{
+			statement.setURL(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public ParameterMetaData getParameterMetaData() throws SQLException
+	{
+		try
+		{
+			return statement.getParameterMetaData();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setRowId(int parameterIndex, RowId x) throws SQLException
+	{
+		try
+		{
+			statement.setRowId(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNString(int parameterIndex, String value) throws SQLException
+	{
+		try
+		{
+			statement.setNString(parameterIndex, value);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException
+	{
+		try
+		{
+			statement.setNCharacterStream(parameterIndex, value, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNClob(int parameterIndex, NClob value) throws SQLException
+	{
+		try
+		{
+			statement.setNClob(parameterIndex, value);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setClob(int parameterIndex, Reader reader, long length) throws SQLException
+	{
+		try
+		{
+			statement.setClob(parameterIndex, reader, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException
+	{
+		try
+		{
+			statement.setBlob(parameterIndex, inputStream, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException
+	{
+		try
+		{
+			statement.setNClob(parameterIndex, reader, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException
+	{
+		try
+		{
+			statement.setSQLXML(parameterIndex, xmlObject);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException
+	{
+		try
+		{
+			statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException
+	{
+		try
+		{
+			statement.setAsciiStream(parameterIndex, x, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException
+	{
+		try
+		{
+			statement.setBinaryStream(parameterIndex, x, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException
+	{
+		try
+		{
+			statement.setCharacterStream(parameterIndex, reader, length);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException
+	{
+		try
+		{
+			statement.setAsciiStream(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException
+	{
+		try
+		{
+			statement.setBinaryStream(parameterIndex, x);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException
+	{
+		try
+		{
+			statement.setCharacterStream(parameterIndex, reader);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException
+	{
+		try
+		{
+			statement.setNCharacterStream(parameterIndex, value);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setClob(int parameterIndex, Reader reader) throws SQLException
+	{
+		try
+		{
+			statement.setClob(parameterIndex, reader);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException
+	{
+		try
+		{
+			statement.setBlob(parameterIndex, inputStream);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setNClob(int parameterIndex, Reader reader) throws SQLException
+	{
+		try
+		{
+			statement.setNClob(parameterIndex, reader);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException
+	{
+		try
+		{
+			statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException
+	{
+		try
+		{
+			statement.setObject(parameterIndex, x, targetSqlType);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public long executeLargeUpdate() throws SQLException
+	{
+		try
+		{
+			return statement.executeLargeUpdate();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+}
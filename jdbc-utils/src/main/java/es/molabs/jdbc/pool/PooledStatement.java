@@ -0,0 +1,666 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.pool;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+/**
+ * Statement of a PooledConnection. Delegates to the statement of the driver and passes its errors through the pooled connection, so a 
+ * connection that fails while running a query is discarded when it is given back instead of being lent again.
+ */
+class PooledStatement implements Statement
+{
+	final PooledConnection connection;
+	private final Statement statement;
+	
+	PooledStatement(PooledConnection connection, Statement statement)
+	{
+		this.connection = connection;
+		this.statement = statement;
+	}
+	
+	public ResultSet executeQuery(String sql) throws SQLException
+	{
+		try
+		{
+			return statement.executeQuery(sql);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int executeUpdate(String sql) throws SQLException
+	{
+		try
+		{
+			return statement.executeUpdate(sql);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void close() throws SQLException
+	{
+		try
+		{
+			statement.close();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getMaxFieldSize() throws SQLException
+	{
+		try
+		{
+			return statement.getMaxFieldSize();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setMaxFieldSize(int max) throws SQLException
+	{
+		try
+		{
+			statement.setMaxFieldSize(max);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getMaxRows() throws SQLException
+	{
+		try
+		{
+			return statement.getMaxRows();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setMaxRows(int max) throws SQLException
+	{
+		try
+		{
+			statement.setMaxRows(max);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setEscapeProcessing(boolean enable) throws SQLException
+	{
+		try
+		{
+			statement.setEscapeProcessing(enable);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getQueryTimeout() throws SQLException
+	{
+		try
+		{
+			return statement.getQueryTimeout();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setQueryTimeout(int seconds) throws SQLException
+	{
+		try
+		{
+			statement.setQueryTimeout(seconds);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void cancel() throws SQLException
+	{
+		try
+		{
+			statement.cancel();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public SQLWarning getWarnings() throws SQLException
+	{
+		try
+		{
+			return statement.getWarnings();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void clearWarnings() throws SQLException
+	{
+		try
+		{
+			statement.clearWarnings();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setCursorName(String name) throws SQLException
+	{
+		try
+		{
+			statement.setCursorName(name);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean execute(String sql) throws SQLException
+	{
+		try
+		{
+			return statement.execute(sql);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public ResultSet getResultSet() throws SQLException
+	{
+		try
+		{
+			return statement.getResultSet();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getUpdateCount() throws SQLException
+	{
+		try
+		{
+			return statement.getUpdateCount();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean getMoreResults() throws SQLException
+	{
+		try
+		{
+			return statement.getMoreResults();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setFetchDirection(int direction) throws SQLException
+	{
+		try
+		{
+			statement.setFetchDirection(direction);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getFetchDirection() throws SQLException
+	{
+		try
+		{
+			return statement.getFetchDirection();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setFetchSize(int rows) throws SQLException
+	{
+		try
+		{
+			statement.setFetchSize(rows);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getFetchSize() throws SQLException
+	{
+		try
+		{
+			return statement.getFetchSize();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getResultSetConcurrency() throws SQLException
+	{
+		try
+		{
+			return statement.getResultSetConcurrency();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getResultSetType() throws SQLException
+	{
+		try
+		{
+			return statement.getResultSetType();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void addBatch(String sql) throws SQLException
+	{
+		try
+		{
+			statement.addBatch(sql);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void clearBatch() throws SQLException
+	{
+		try
+		{
+			statement.clearBatch();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int[] executeBatch() throws SQLException
+	{
+		try
+		{
+			return statement.executeBatch();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public Connection getConnection() throws SQLException
+	{
+		// The pooled connection, so closing it gives it back to the pool
+		return connection;
+	}
+	
+	public boolean getMoreResults(int current) throws SQLException
+	{
+		try
+		{
+			return statement.getMoreResults(current);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public ResultSet getGeneratedKeys() throws SQLException
+	{
+		try
+		{
+			return statement.getGeneratedKeys();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		try
+		{
+			return statement.executeUpdate(sql, autoGeneratedKeys);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException
+	{
+		try
+		{
+			return statement.executeUpdate(sql, columnIndexes);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException
+	{
+		try
+		{
+			return statement.executeUpdate(sql, columnNames);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		try
+		{
+			return statement.execute(sql, autoGeneratedKeys);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException
+	{
+		try
+		{
+			return statement.execute(sql, columnIndexes);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean execute(String sql, String[] columnNames) throws SQLException
+	{
+		try
+		{
+			return statement.execute(sql, columnNames);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public int getResultSetHoldability() throws SQLException
+	{
+		try
+		{
+			return statement.getResultSetHoldability();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean isClosed() throws SQLException
+	{
+		try
+		{
+			return statement.isClosed();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setPoolable(boolean poolable) throws SQLException
+	{
+		try
+		{
+			statement.setPoolable(poolable);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean isPoolable() throws SQLException
+	{
+		try
+		{
+			return statement.isPoolable();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void closeOnCompletion() throws SQLException
+	{
+		try
+		{
+			statement.closeOnCompletion();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean isCloseOnCompletion() throws SQLException
+	{
+		try
+		{
+			return statement.isCloseOnCompletion();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public long getLargeUpdateCount() throws SQLException
+	{
+		try
+		{
+			return statement.getLargeUpdateCount();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public void setLargeMaxRows(long max) throws SQLException
+	{
+		try
+		{
+			statement.setLargeMaxRows(max);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public long getLargeMaxRows() throws SQLException
+	{
+		try
+		{
+			return statement.getLargeMaxRows();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public long[] executeLargeBatch() throws SQLException
+	{
+		try
+		{
+			return statement.executeLargeBatch();
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public long executeLargeUpdate(String sql) throws SQLException
+	{
+		try
+		{
+			return statement.executeLargeUpdate(sql);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException
+	{
+		try
+		{
+			return statement.executeLargeUpdate(sql, autoGeneratedKeys);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException
+	{
+		try
+		{
+			return statement.executeLargeUpdate(sql, columnIndexes);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException
+	{
+		try
+		{
+			return statement.executeLargeUpdate(sql, columnNames);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		if (iface.isInstance(this))
+		{
+			return iface.cast(this);
+		}
+		
+		try
+		{
+			return statement.unwrap(iface);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		try
+		{
+			return iface.isInstance(this) || statement.isWrapperFor(iface);
+		}
+		catch (SQLException SQLe)
+		{
+			throw connection.checkBroken(SQLe);
+		}
+	}
+	
+	public String toString()
+	{
+		return "PooledStatement[" + statement + "]";
+	}
+}
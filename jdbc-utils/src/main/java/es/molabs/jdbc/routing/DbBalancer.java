@@ -0,0 +1,31 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.routing;
+
+/**
+ * Chooses the replica a read goes to. It is called by every read so it must be thread safe and should not allocate.
+ */
+public interface DbBalancer 
+{
+	/**
+	 * Chooses an available replica.
+	 * 
+	 * @param replicas of the router, available or not.
+	 * 
+	 * @return The chosen replica or null if none is available, then the read goes to the primary.
+	 */
+	public DbReplica select(DbReplica[] replicas);
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+/**
+ * Read replica of a DbReplicaRouter, with the state the balancers choose by: the reads in flight, their average latency and 
+ * whether the replica is down after failing to give a connection.
+ */
+public class DbReplica 
+{
+	// Weight of the last read in the average latency
+	private final static double LATENCY_WEIGHT = 0.2;
+	
+	private final String name;
+	private final DataSource dataSource;
+	
+	private final AtomicInteger inFlight;
+	private final LongAdder readCount;
+	private final LongAdder failureCount;
+	
+	private volatile long latency;
+	private volatile long downUntil;
+	
+	DbReplica(String name, DataSource dataSource)
+	{
+		this.name = name;
+		this.dataSource = dataSource;
+		
+		inFlight = new AtomicInteger();
+		readCount = new LongAdder();
+		failureCount = new LongAdder();
+		
+		latency = 0;
+		downUntil = 0;
+	}
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	public DataSource getDataSource()
+	{
+		return dataSource;
+	}
+	
+	/**
+	 * Returns the connections of this replica that are still open.
+	 * 
+	 * @return The reads in flight.
+	 */
+	public int getInFlight()
+	{
+		return inFlight.get();
+	}
+	
+	/**
+	 * Returns the moving average of the time the connections of this replica are kept open.
+	 * 
+	 * @return The average latency in nanoseconds, 0 until the first read ends.
+	 */
+	public long getLatency()
+	{
+		return latency;
+	}
+	
+	public long getReadCount()
+	{
+		return readCount.sum();
+	}
+	
+	/**
+	 * Returns how many times the replica failed to give a connection.
+	 * 
+	 * @return The number of failures.
+	 */
+	public long getFailureCount()
+	{
+		return failureCount.sum();
+	}
+	
+	/**
+	 * Returns if the replica can be chosen, that is false while it is down after a failure.
+	 * 
+	 * @return true if the replica is available.
+	 */
+	public boolean isAvailable()
+	{
+		long downUntil = this.downUntil;
+		
+		return downUntil == 0 || System.nanoTime() - downUntil >= 0;
+	}
+	
+	Connection getConnection() throws SQLException
+	{
+		inFlight.incrementAndGet();
+		
+		try
+		{
+			Connection connection = new RoutedConnection(this, dataSource.getConnection());
+			
+			readCount.increment();
+			
+			return connection;
+		}
+		catch (SQLException | RuntimeException e)
+		{
+			inFlight.decrementAndGet();
+			
+			throw e;
+		}
+	}
+	
+	void release(long elapsed)
+	{
+		inFlight.decrementAndGet();
+		
+		long latency = this.latency;
+		
+		// Races between reads only lose a sample
+		this.latency = (latency == 0 ? elapsed : (long) (latency + (elapsed - latency) * LATENCY_WEIGHT));
+	}
+	
+	/**
+	 * Marks the replica as down so it is not chosen until the retry interval passes.
+	 */
+	void markDown(long retryInterval)
+	{
+		failureCount.increment();
+		
+		long downUntil = System.nanoTime() + retryInterval;
+		
+		// 0 means available
+		this.downUntil = (downUntil == 0 ? 1 : downUntil);
+	}
+	
+	public String toString()
+	{
+		return name;
+	}
+}
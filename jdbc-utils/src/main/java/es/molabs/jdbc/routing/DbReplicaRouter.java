@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routes the reads of a DbManager to its read replicas and the rest of the queries to the primary. When a replica fails to give a 
+ * connection it is left out for the retry interval and the read goes to another replica, or to the primary if none is available.
+ * <p>
+ * The replicas can lag behind the primary, so reads that must see the last writes should run in a read write transaction.
+ */
+public class DbReplicaRouter 
+{
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	
+	private final DataSource primary;
+	private final DbReplica[] replicas;
+	private final DbBalancer balancer;
+	
+	private long retryInterval;
+	
+	private final LongAdder fallbackCount;
+	
+	/**
+	 * Creates a router that balances the reads in turn between the replicas.
+	 * 
+	 * @param primary where the writes, and the reads when no replica is available, go.
+	 * @param replicas where the reads go.
+	 */
+	public DbReplicaRouter(DataSource primary, List<DataSource> replicas)
+	{
+		this(primary, replicas, new RoundRobinDbBalancer());
+	}
+	
+	/**
+	 * Creates a router.
+	 * 
+	 * @param primary where the writes, and the reads when no replica is available, go.
+	 * @param replicas where the reads go.
+	 * @param balancer that chooses the replica of each read.
+	 */
+	public DbReplicaRouter(DataSource primary, List<DataSource> replicas, DbBalancer balancer)
+	{
+		if (primary == null) throw new IllegalArgumentException("Primary can not be null.");
+		if (replicas == null) throw new IllegalArgumentException("Replicas can not be null.");
+		if (balancer == null) throw new IllegalArgumentException("Balancer can not be null.");
+		
+		this.primary = primary;
+		this.balancer = balancer;
+		
+		this.replicas = new DbReplica[replicas.size()];
+		for (int i=0; i<this.replicas.length; i++)
+		{
+			this.replicas[i] = new DbReplica("replica-" + i, replicas.get(i));
+		}
+		
+		retryInterval = 5000;
+		
+		fallbackCount = new LongAdder();
+	}
+	
+	public DataSource getPrimary()
+	{
+		return primary;
+	}
+	
+	public List<DbReplica> getReplicas()
+	{
+		return Collections.unmodifiableList(Arrays.asList(replicas));
+	}
+	
+	public DbBalancer getBalancer()
+	{
+		return balancer;
+	}
+	
+	public long getRetryInterval()
+	{
+		return retryInterval;
+	}
+	
+	/**
+	 * Sets how long a replica that failed to give a connection is left out.
+	 * 
+	 * @param retryInterval interval in milliseconds, 5 seconds by default.
+	 */
+	public void setRetryInterval(long retryInterval)
+	{
+		if (retryInterval < 0) throw new IllegalArgumentException("Retry interval can not be negative.");
+		
+		this.retryInterval = retryInterval;
+	}
+	
+	/**
+	 * Returns how many reads went to the primary because no replica could give a connection.
+	 * 
+	 * @return The number of reads sent to the primary.
+	 */
+	public long getFallbackCount()
+	{
+		return fallbackCount.sum();
+	}
+	
+	/**
+	 * Returns a connection for a read, from the replica chosen by the balancer or from the primary if no replica can give one.
+	 * 
+	 * @return A connection for a read.
+	 * 
+	 * @throws SQLException If the primary can not give a connection either.
+	 */
+	public Connection getReadConnection() throws SQLException
+	{
+		// Each replica is tried once at most
+		for (int i=0; i<replicas.length; i++)
+		{
+			DbReplica replica = balancer.select(replicas);
+			
+			if (replica == null) break;
+			
+			try
+			{
+				return replica.getConnection();
+			}
+			catch (SQLException SQLe)
+			{
+				logger.warn("Replica " + replica + " failed, it is left out for " + retryInterval + " ms.", SQLe);
+				
+				replica.markDown(TimeUnit.MILLISECONDS.toNanos(retryInterval));
+			}
+		}
+		
+		fallbackCount.increment();
+		
+		return primary.getConnection();
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.routing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends each read to an available replica chosen at random with a probability inversely proportional to its average latency, so 
+ * the faster replicas get more reads but the slower ones still get some to keep their latency up to date.
+ */
+public class LatencyWeightedDbBalancer implements DbBalancer
+{
+	// Latency given to the replicas without reads yet, so they are tried soon
+	private final static long MIN_LATENCY = 1000;
+	
+	public LatencyWeightedDbBalancer()
+	{
+	}
+	
+	public DbReplica select(DbReplica[] replicas)
+	{
+		double totalWeight = 0;
+		
+		for (DbReplica replica : replicas)
+		{
+			if (replica.isAvailable()) totalWeight += weight(replica);
+		}
+		
+		if (totalWeight == 0) return null;
+		
+		double target = ThreadLocalRandom.current().nextDouble(totalWeight);
+		DbReplica selected = null;
+		
+		for (DbReplica replica : replicas)
+		{
+			if (!replica.isAvailable()) continue;
+			
+			selected = replica;
+			target -= weight(replica);
+			
+			if (target < 0) break;
+		}
+		
+		return selected;
+	}
+	
+	private double weight(DbReplica replica)
+	{
+		return 1.0 / Math.max(replica.getLatency(), MIN_LATENCY);
+	}
+}
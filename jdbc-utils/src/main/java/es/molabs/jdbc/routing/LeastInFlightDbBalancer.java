@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.routing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends each read to the available replica with less reads in flight, breaking ties at random so the replicas are used evenly 
+ * when they are idle.
+ */
+public class LeastInFlightDbBalancer implements DbBalancer
+{
+	public LeastInFlightDbBalancer()
+	{
+	}
+	
+	public DbReplica select(DbReplica[] replicas)
+	{
+		DbReplica selected = null;
+		int selectedInFlight = Integer.MAX_VALUE;
+		int ties = 0;
+		
+		for (DbReplica replica : replicas)
+		{
+			if (!replica.isAvailable()) continue;
+			
+			int inFlight = replica.getInFlight();
+			
+			if (inFlight < selectedInFlight)
+			{
+				selected = replica;
+				selectedInFlight = inFlight;
+				ties = 1;
+			}
+			// Reservoir sampling between the replicas with the same reads in flight
+			else if (inFlight == selectedInFlight && ThreadLocalRandom.current().nextInt(++ties) == 0)
+			{
+				selected = replica;
+			}
+		}
+		
+		return selected;
+	}
+}
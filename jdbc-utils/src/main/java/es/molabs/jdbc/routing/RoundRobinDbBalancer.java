@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.routing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends each read to the next available replica in turn.
+ */
+public class RoundRobinDbBalancer implements DbBalancer
+{
+	private final AtomicInteger next;
+	
+	public RoundRobinDbBalancer()
+	{
+		next = new AtomicInteger();
+	}
+	
+	public DbReplica select(DbReplica[] replicas)
+	{
+		int start = next.getAndIncrement();
+		
+		for (int i=0; i<replicas.length; i++)
+		{
+			DbReplica replica = replicas[Math.floorMod(start + i, replicas.length)];
+			
+			if (replica.isAvailable()) return replica;
+		}
+		
+		return null;
+	}
+}
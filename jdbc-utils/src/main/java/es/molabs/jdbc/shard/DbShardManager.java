@@ -0,0 +1,388 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.shard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.DbQuery;
+import es.molabs.jdbc.DbTransaction;
+import es.molabs.jdbc.exception.DbException;
+import es.molabs.jdbc.exception.DbShardException;
+import es.molabs.jdbc.mapper.DbRowMapper;
+
+/**
+ * Rows partitioned across several databases, each one with its own DbManager. The queries of a shard key go to the manager of its 
+ * shard, and the queries without key run on every shard at the same time, merging their results.
+ * 
+ * @param <K> type of the shard key.
+ */
+public class DbShardManager<K>
+{
+	private final List<DbManager> shards;
+	private final DbShardResolver<K> resolver;
+	private final Executor executor;
+	
+	/**
+	 * Creates a shard manager that runs the queries on every shard in the common ForkJoinPool.
+	 * 
+	 * @param shards managers of each shard, already initialized.
+	 * @param resolver that tells the shard of a key.
+	 */
+	public DbShardManager(List<DbManager> shards, DbShardResolver<K> resolver)
+	{
+		this(shards, resolver, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Creates a shard manager.
+	 * 
+	 * @param shards managers of each shard, already initialized.
+	 * @param resolver that tells the shard of a key.
+	 * @param executor that runs the queries on every shard. The calling thread runs the query of the first shard.
+	 */
+	public DbShardManager(List<DbManager> shards, DbShardResolver<K> resolver, Executor executor)
+	{
+		if (shards == null || shards.isEmpty()) throw new IllegalArgumentException("There must be at least one shard.");
+		if (resolver == null) throw new IllegalArgumentException("Resolver can not be null.");
+		if (executor == null) throw new IllegalArgumentException("Executor can not be null.");
+		
+		this.shards = Collections.unmodifiableList(new ArrayList<DbManager>(shards));
+		this.resolver = resolver;
+		this.executor = executor;
+	}
+	
+	public List<DbManager> getShards()
+	{
+		return shards;
+	}
+	
+	public int getShardCount()
+	{
+		return shards.size();
+	}
+	
+	public DbShardResolver<K> getResolver()
+	{
+		return resolver;
+	}
+	
+	/**
+	 * Returns the index of the shard that holds the rows of the key.
+	 * 
+	 * @param key of the rows.
+	 * 
+	 * @return The index of the shard.
+	 */
+	public int getShardIndex(K key)
+	{
+		int index = resolver.resolve(key, shards.size());
+		
+		if (index < 0 || index >= shards.size()) throw new IllegalStateException("Resolver returned shard " + index + " of " + shards.size() + ".");
+		
+		return index;
+	}
+	
+	/**
+	 * Returns the manager of the shard that holds the rows of the key.
+	 * 
+	 * @param key of the rows.
+	 * 
+	 * @return The manager of the shard.
+	 */
+	public DbManager getShard(K key)
+	{
+		return shards.get(getShardIndex(key));
+	}
+	
+	/**
+	 * Returns a DbNonTransaction of the shard of the key, or the transaction in progress of that shard.
+	 * 
+	 * @param key of the rows.
+	 * 
+	 * @return A new DbNonTransaction or the in progress transaction of the shard.
+	 */
+	public DbQuery getDbNonTransaction(K key) throws DbException
+	{
+		return getShard(key).getDbNonTransaction();
+	}
+	
+	/**
+	 * Returns a DbTransaction of the shard of the key. The transactions of different shards are independent.
+	 * 
+	 * @param key of the rows.
+	 * 
+	 * @return A new DbTransaction or the in progress transaction of the shard.
+	 */
+	public DbTransaction getDbTransaction(K key) throws DbException
+	{
+		return getShard(key).getDbTransaction();
+	}
+	
+	/**
+	 * Runs the work with a non transactional query of each shard at the same time.
+	 * 
+	 * @param <R> type of the result of each shard.
+	 * @param work to run on each shard.
+	 * 
+	 * @return The results in shard order.
+	 * 
+	 * @throws DbShardException If the work fails in any shard, with the failure of each shard.
+	 */
+	public <R> List<R> scatter(Function<DbQuery, R> work) throws DbException
+	{
+		int shardCount = shards.size();
+		
+		// The first shard has no future since it runs in this thread
+		List<CompletableFuture<R>> futures = new ArrayList<CompletableFuture<R>>(shardCount);
+		futures.add(null);
+		
+		for (int i=1; i<shardCount; i++)
+		{
+			DbManager shard = shards.get(i);
+			
+			try
+			{
+				futures.add(CompletableFuture.supplyAsync(() -> work.apply(shard.getDbNonTransaction()), executor));
+			}
+			catch (RejectedExecutionException REe)
+			{
+				// The shard fails but the ones already submitted must still be waited for
+				CompletableFuture<R> failed = new CompletableFuture<R>();
+				failed.completeExceptionally(REe);
+				
+				futures.add(failed);
+			}
+		}
+		
+		Map<Integer, Throwable> failures = new TreeMap<Integer, Throwable>();
+		List<R> results = new ArrayList<R>(shardCount);
+		
+		// The first shard runs in this thread meanwhile
+		try
+		{
+			results.add(work.apply(shards.get(0).getDbNonTransaction()));
+		}
+		catch (RuntimeException Re)
+		{
+			failures.put(0, Re);
+			results.add(null);
+		}
+		
+		// Waits for the rest of the shards
+		for (int i=1; i<shardCount; i++)
+		{
+			try
+			{
+				results.add(futures.get(i).join());
+			}
+			catch (CompletionException Ce)
+			{
+				failures.put(i, Ce.getCause());
+				results.add(null);
+			}
+			catch (CancellationException Ce)
+			{
+				failures.put(i, Ce);
+				results.add(null);
+			}
+		}
+		
+		if (!failures.isEmpty()) throw new DbShardException(failures);
+		
+		return results;
+	}
+	
+	/**
+	 * Returns the rows of every shard, first the ones of the first shard, then the ones of the second...
+	 * 
+	 * @param <T> generic type of the return list.
+	 * @param <S> row mapper type.
+	 * @param dbRowMapper that maps the rows.
+	 * @param sql query to be executed on each shard.
+	 * @param arguments of the query.
+	 * 
+	 * @return A list with the rows of every shard or null if there are no rows.
+	 * 
+	 * @throws DbShardException If the query fails in any shard.
+	 */
+	public<S extends DbRowMapper<T>, T> List<T> getObjectList(S dbRowMapper, String sql, Object...arguments) throws DbException
+	{
+		return concatenate(scatter(dbQuery -> dbQuery.getObjectList(dbRowMapper, sql, arguments)));
+	}
+	
+	/**
+	 * Returns the rows of every shard sorted. The query must return the rows of each shard already sorted by the same order as the 
+	 * comparator, so they are merged without sorting them again.
+	 * 
+	 * @param <T> generic type of the return list.
+	 * @param <S> row mapper type.
+	 * @param comparator of the order of the rows.
+	 * @param dbRowMapper that maps the rows.
+	 * @param sql query to be executed on each shard, with the ORDER BY of the comparator.
+	 * @param arguments of the query.
+	 * 
+	 * @return A sorted list with the rows of every shard or null if there are no rows.
+	 * 
+	 * @throws DbShardException If the query fails in any shard.
+	 */
+	public<S extends DbRowMapper<T>, T> List<T> getObjectList(Comparator<? super T> comparator, S dbRowMapper, String sql, Object...arguments) throws DbException
+	{
+		return merge(scatter(dbQuery -> dbQuery.getObjectList(dbRowMapper, sql, arguments)), comparator);
+	}
+	
+	/**
+	 * Returns the fields of every shard, first the ones of the first shard, then the ones of the second...
+	 * 
+	 * @param <T> generic type of the return list.
+	 * @param clazz of the fields.
+	 * @param sql query to be executed on each shard.
+	 * @param arguments of the query.
+	 * 
+	 * @return A list with the fields of every shard or null if there are no rows.
+	 * 
+	 * @throws DbShardException If the query fails in any shard.
+	 */
+	public <T> List<T> getFieldList(Class<T> clazz, String sql, Object...arguments) throws DbException
+	{
+		return concatenate(scatter(dbQuery -> dbQuery.getFieldList(clazz, sql, arguments)));
+	}
+	
+	/**
+	 * Returns the fields of every shard sorted. The query must return the fields of each shard already sorted by the same order as 
+	 * the comparator, so they are merged without sorting them again.
+	 * 
+	 * @param <T> generic type of the return list.
+	 * @param comparator of the order of the fields.
+	 * @param clazz of the fields.
+	 * @param sql query to be executed on each shard, with the ORDER BY of the comparator.
+	 * @param arguments of the query.
+	 * 
+	 * @return A sorted list with the fields of every shard or null if there are no rows.
+	 * 
+	 * @throws DbShardException If the query fails in any shard.
+	 */
+	public <T> List<T> getFieldList(Comparator<? super T> comparator, Class<T> clazz, String sql, Object...arguments) throws DbException
+	{
+		return merge(scatter(dbQuery -> dbQuery.getFieldList(clazz, sql, arguments)), comparator);
+	}
+	
+	private static <T> List<T> concatenate(List<List<T>> lists)
+	{
+		int size = totalSize(lists);
+		
+		// Like the queries of a single database
+		if (size == 0) return null;
+		
+		List<T> result = new ArrayList<T>(size);
+		
+		for (List<T> list : lists)
+		{
+			if (list != null) result.addAll(list);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Merges the sorted lists keeping the head of each one in a heap, so it takes n log k comparisons for n rows and k lists.
+	 */
+	private static <T> List<T> merge(List<List<T>> lists, Comparator<? super T> comparator)
+	{
+		int size = totalSize(lists);
+		
+		if (size == 0) return null;
+		
+		List<T> result = new ArrayList<T>(size);
+		
+		PriorityQueue<MergeCursor<T>> heap = new PriorityQueue<MergeCursor<T>>(Math.max(1, lists.size()), (cursor1, cursor2) -> 
+		{
+			int comparison = comparator.compare(cursor1.head(), cursor2.head());
+			
+			// The rows that compare equal keep the shard order
+			return (comparison != 0 ? comparison : Integer.compare(cursor1.index, cursor2.index));
+		});
+		
+		for (int i=0; i<lists.size(); i++)
+		{
+			List<T> list = lists.get(i);
+			
+			if (list != null && !list.isEmpty()) heap.add(new MergeCursor<T>(i, list));
+		}
+		
+		while (!heap.isEmpty())
+		{
+			MergeCursor<T> cursor = heap.poll();
+			result.add(cursor.head());
+			
+			if (cursor.advance()) heap.add(cursor);
+		}
+		
+		return result;
+	}
+	
+	private static int totalSize(List<? extends List<?>> lists)
+	{
+		int size = 0;
+		
+		for (List<?> list : lists)
+		{
+			if (list != null) size += list.size();
+		}
+		
+		return size;
+	}
+	
+	/**
+	 * Position in one of the lists being merged.
+	 */
+	private static class MergeCursor<T>
+	{
+		private final int index;
+		private final List<T> list;
+		private int position;
+		
+		private MergeCursor(int index, List<T> list)
+		{
+			this.index = index;
+			this.list = list;
+			this.position = 0;
+		}
+		
+		private T head()
+		{
+			return list.get(position);
+		}
+		
+		private boolean advance()
+		{
+			return ++position < list.size();
+		}
+	}
+}
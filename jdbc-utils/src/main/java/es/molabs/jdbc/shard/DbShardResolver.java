@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.shard;
+
+/**
+ * Tells the shard that holds the rows of a shard key.
+ * 
+ * @param <K> type of the shard key.
+ */
+public interface DbShardResolver<K>
+{
+	/**
+	 * Returns the shard of the key. It must always return the same shard for the same key and shard count.
+	 * 
+	 * @param key of the rows.
+	 * @param shardCount number of shards.
+	 * 
+	 * @return The index of the shard, from 0 to shardCount - 1.
+	 */
+	public int resolve(K key, int shardCount);
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.shard;
+
+/**
+ * Spreads the keys evenly across the shards by their hash code, mixed so consecutive keys do not end in consecutive shards. The hash 
+ * code of the keys must not change between runs, like the one of String, Long or Integer.
+ * 
+ * @param <K> type of the shard key.
+ */
+public class HashDbShardResolver<K> implements DbShardResolver<K>
+{
+	@SuppressWarnings("rawtypes")
+	private final static HashDbShardResolver INSTANCE = new HashDbShardResolver();
+	
+	private HashDbShardResolver()
+	{
+	}
+	
+	public int resolve(K key, int shardCount)
+	{
+		if (key == null) throw new IllegalArgumentException("Shard key can not be null.");
+		
+		return Math.floorMod(mix(key.hashCode()), shardCount);
+	}
+	
+	/**
+	 * Final step of MurmurHash3, that makes every bit of the hash depend on every bit of the key.
+	 */
+	private static int mix(int hash)
+	{
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		
+		return hash;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public static <K> HashDbShardResolver<K> getInstance()
+	{
+		return INSTANCE;
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.shard;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns the keys to the shards by ranges. Shard i holds the keys lower than bound i and not lower than bound i - 1, and the last 
+ * shard the keys not lower than the last bound.
+ * 
+ * @param <K> type of the shard key.
+ */
+public class RangeDbShardResolver<K extends Comparable<? super K>> implements DbShardResolver<K>
+{
+	private final Object[] bounds;
+	
+	/**
+	 * Creates a resolver with the bounds between the shards.
+	 * 
+	 * @param bounds in ascending order, one less than the shards.
+	 */
+	public RangeDbShardResolver(List<K> bounds)
+	{
+		this.bounds = bounds.toArray();
+		
+		for (int i=1; i<this.bounds.length; i++)
+		{
+			if (bound(i - 1).compareTo(bound(i)) >= 0) throw new IllegalArgumentException("Bounds must be in ascending order.");
+		}
+	}
+	
+	public int resolve(K key, int shardCount)
+	{
+		if (key == null) throw new IllegalArgumentException("Shard key can not be null.");
+		if (shardCount != bounds.length + 1) throw new IllegalArgumentException("There must be " + (bounds.length + 1) + " shards.");
+		
+		// Binary search of the first bound greater than the key
+		int low = 0;
+		int high = bounds.length;
+		
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+			
+			if (key.compareTo(bound(middle)) < 0)
+			{
+				high = middle;
+			}
+			else
+			{
+				low = middle + 1;
+			}
+		}
+		
+		return low;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private K bound(int index)
+	{
+		return (K) bounds[index];
+	}
+	
+	public String toString()
+	{
+		return "RangeDbShardResolver" + Arrays.toString(bounds);
+	}
+}
@@ -0,0 +1,354 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.pool.DbConnectionPool;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DbConnectionPoolTest 
+{
+	private DbConnectionPool pool = null;
+	
+	@Test
+	public void testManagerQueries() throws Throwable
+	{
+		DbManager dbManager = new DbManager();
+		dbManager.init(pool);
+		
+		try
+		{
+			int expectedValue = 1;
+			int value = dbManager.getDbNonTransaction().getField(Integer.class, "SELECT 1");
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			
+			// Checks that the connections are given back to the pool
+			Assert.assertEquals("Value must be [" + 0 + "].", 0, pool.getActiveConnections());
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, pool.getTotalConnections());
+		}
+		finally
+		{
+			dbManager.destroy();
+		}
+	}
+	
+	@Test
+	public void testAcquireTimeout() throws Throwable
+	{
+		Connection connection1 = pool.getConnection();
+		Connection connection2 = pool.getConnection();
+		
+		SQLTransientConnectionException exception = null;
+		
+		try
+		{
+			pool.getConnection();
+		}
+		catch (SQLTransientConnectionException STCe)
+		{
+			exception = STCe;
+		}
+		
+		Assert.assertNotNull("Value must be not null.", exception);
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, pool.getTimeoutCount());
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, pool.getActiveConnections());
+		
+		connection1.close();
+		
+		// The connection given back is borrowed again instead of opening a new one
+		Connection connection3 = pool.getConnection();
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, pool.getTotalConnections());
+		
+		connection2.close();
+		connection3.close();
+		
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, pool.getIdleConnections());
+		Assert.assertEquals("Value must be [" + 3 + "].", 3, pool.getBorrowCount());
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, pool.getCreatedCount());
+	}
+	
+	@Test
+	public void testWaitingThread() throws Throwable
+	{
+		pool.setAcquireTimeout(5000);
+		
+		Connection connection1 = pool.getConnection();
+		Connection connection2 = pool.getConnection();
+		
+		// Gives back a connection while another thread is waiting for it
+		Thread thread = new Thread(() -> 
+		{
+			try
+			{
+				Thread.sleep(100);
+				
+				connection1.close();
+			}
+			catch (Exception e)
+			{
+				throw new RuntimeException(e);
+			}
+		});
+		thread.start();
+		
+		Connection connection3 = pool.getConnection();
+		thread.join();
+		
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, pool.getTimeoutCount());
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, pool.getTotalConnections());
+		
+		connection2.close();
+		connection3.close();
+	}
+	
+	@Test
+	public void testResetConnection() throws Throwable
+	{
+		Connection connection = pool.getConnection();
+		connection.setAutoCommit(false);
+		connection.setReadOnly(true);
+		connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		connection.close();
+		
+		// Checks that the closed connection can not be used
+		Assert.assertEquals("Value must be [" + true + "].", true, connection.isClosed());
+		
+		connection = pool.getConnection();
+		
+		try
+		{
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, pool.getTotalConnections());
+			Assert.assertEquals("Value must be [" + true + "].", true, connection.getAutoCommit());
+			Assert.assertEquals("Value must be [" + false + "].", false, connection.isReadOnly());
+			Assert.assertEquals("Value must be [" + Connection.TRANSACTION_READ_COMMITTED + "].", Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+		}
+		finally
+		{
+			connection.close();
+		}
+	}
+	
+	@Test
+	public void testIdleEviction() throws Throwable
+	{
+		pool.destroy();
+		
+		pool.setMinSize(1);
+		pool.setIdleTimeout(50);
+		pool.setHousekeepingInterval(20);
+		pool.init();
+		
+		// The min connections are opened on init
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, pool.getIdleConnections());
+		
+		Connection connection1 = pool.getConnection();
+		Connection connection2 = pool.getConnection();
+		connection1.close();
+		connection2.close();
+		
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, pool.getTotalConnections());
+		
+		// Waits until the connection above the min is evicted
+		long deadline = System.currentTimeMillis() + 5000;
+		while (pool.getTotalConnections() > 1 && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(10);
+		}
+		
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, pool.getTotalConnections());
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, pool.getEvictedCount());
+	}
+	
+	@Test
+	public void testDestroy() throws Throwable
+	{
+		Connection connection1 = pool.getConnection();
+		Connection connection2 = pool.getConnection();
+		connection1.close();
+		
+		pool.destroy();
+		
+		// The idle connections are closed and the one in use when it is given back
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, pool.getTotalConnections());
+		
+		connection2.close();
+		
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, pool.getTotalConnections());
+		
+		Exception exception = null;
+		
+		try
+		{
+			pool.getConnection();
+		}
+		catch (Exception e)
+		{
+			exception = e;
+		}
+		
+		Assert.assertNotNull("Value must be not null.", exception);
+	}
+	
+	@Test
+	public void testBrokenConnection() throws Throwable
+	{
+		pool.destroy();
+		
+		FailingDataSource dataSource = new FailingDataSource();
+		dataSource.setURL("jdbc:h2:mem:pool-test;DB_CLOSE_DELAY=-1");
+		
+		pool = new DbConnectionPool(dataSource);
+		pool.setMaxSize(1);
+		pool.setValidationInterval(60000);
+		pool.init();
+		
+		Connection connection = pool.getConnection();
+		PreparedStatement statement = connection.prepareStatement("SELECT 1");
+		ResultSet resultSet = statement.executeQuery();
+		Assert.assertEquals("Value must be [" + true + "].", true, resultSet.next());
+		statement.close();
+		connection.close();
+		
+		// The statements of the connection fail as if the connection was lost
+		dataSource.failing = true;
+		
+		connection = pool.getConnection();
+		
+		String sqlState = null;
+		
+		try
+		{
+			connection.prepareStatement("SELECT 1").executeQuery();
+		}
+		catch (SQLException SQLe)
+		{
+			sqlState = SQLe.getSQLState();
+		}
+		
+		Assert.assertEquals("Value must be [" + "08S01" + "].", "08S01", sqlState);
+		
+		connection.close();
+		
+		// The broken connection is discarded instead of being lent again
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, pool.getTotalConnections());
+		
+		dataSource.failing = false;
+		
+		connection = pool.getConnection();
+		
+		try
+		{
+			Statement newStatement = connection.createStatement();
+			Assert.assertEquals("Value must be [" + true + "].", true, newStatement.executeQuery("SELECT 1").next());
+			Assert.assertEquals("Value must be [" + 2 + "].", 2, pool.getCreatedCount());
+		}
+		finally
+		{
+			connection.close();
+		}
+	}
+	
+	@Before
+	public void setUp()
+	{
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:pool-test;DB_CLOSE_DELAY=-1");
+		
+		pool = new DbConnectionPool(dataSource);
+		pool.setMaxSize(2);
+		pool.setAcquireTimeout(100);
+		pool.init();
+	}
+	
+	@After
+	public void tearDown()
+	{
+		pool.destroy();
+		pool = null;
+	}
+	
+	/**
+	 * DataSource whose statements throw a connection error while failing is set.
+	 */
+	private static class FailingDataSource extends JdbcDataSource
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private volatile boolean failing = false;
+		
+		@Override
+		public Connection getConnection() throws SQLException
+		{
+			final Connection connection = super.getConnection();
+			
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class}, new InvocationHandler()
+			{
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+				{
+					Object result = invokeMethod(connection, method, args);
+					
+					return (result instanceof Statement ? failingStatement((Statement) result, method.getReturnType()) : result);
+				}
+			});
+		}
+		
+		private Object failingStatement(final Statement statement, Class<?> type)
+		{
+			return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type}, new InvocationHandler()
+			{
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+				{
+					if (failing && method.getName().startsWith("execute")) throw new SQLException("Connection reset.", "08S01");
+					
+					return invokeMethod(statement, method, args);
+				}
+			});
+		}
+		
+		private static Object invokeMethod(Object target, Method method, Object[] args) throws Throwable
+		{
+			try
+			{
+				return method.invoke(target, args);
+			}
+			catch (InvocationTargetException ITe)
+			{
+				throw ITe.getCause();
+			}
+		}
+	}
+}
@@ -17,6 +17,9 @@ package es.molabs.jdbc.test;
 
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.dbutils.QueryRunner;
 import org.apache.commons.io.IOUtils;
@@ -29,10 +32,13 @@ import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.exception.DbParallelLoadException;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DbManagerTest 
 {
+	private final static String TEST_TABLE_TWO = "test_table2";
+	
 	private static JdbcConnectionPool dataSource = null;
 	private static DbManager dbManager = null;
 	
@@ -64,6 +70,61 @@ public class DbManagerTest
 		Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
 	}
 	
+	@Test
+	public void testParallelBatchUpdate() throws Throwable
+	{
+		int rows = 10;
+		
+		Object[][] arguments = new Object[rows][];
+		for (int i=0; i<rows; i++)
+		{
+			arguments[i] = new Object[] {"parallel_value" + i, "parallel_clob" + i};
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		
+		try
+		{
+			// Inserts the rows in three partitions
+			int[] results = dbManager.executeParallelBatchUpdate("INSERT INTO " + TEST_TABLE_TWO + " (varchar_field, clob_field) VALUES (?, ?)", arguments, 3, executor, false);
+			Assert.assertEquals("Value must be [" + rows + "].", rows, results.length);
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, results[rows - 1]);
+			
+			long count = dbManager.getDbNonTransaction().getField(Long.class, "SELECT COUNT (id) FROM " + TEST_TABLE_TWO + " WHERE varchar_field LIKE 'parallel_value%'");
+			Assert.assertEquals("Value must be [" + rows + "].", rows, count);
+			
+			// Makes the last row fail, all or nothing rolls back every partition
+			arguments[rows - 1][0] = null;
+			
+			DbParallelLoadException exception = null;
+			
+			try
+			{
+				dbManager.executeParallelBatchUpdate("INSERT INTO " + TEST_TABLE_TWO + " (varchar_field, clob_field) VALUES (?, ?)", arguments, 3, executor, true);
+			}
+			catch (DbParallelLoadException DPLe)
+			{
+				exception = DPLe;
+			}
+			
+			Assert.assertNotNull("Value must be not null.", exception);
+			Assert.assertEquals("Value must be [" + true + "].", true, exception.isRolledBack());
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, exception.getFailures().size());
+			Assert.assertEquals("Value must be [" + true + "].", true, exception.getFailures().containsKey(2));
+			Assert.assertEquals("Value must be [" + Statement.EXECUTE_FAILED + "].", Statement.EXECUTE_FAILED, exception.getResults()[0]);
+			
+			count = dbManager.getDbNonTransaction().getField(Long.class, "SELECT COUNT (id) FROM " + TEST_TABLE_TWO + " WHERE varchar_field LIKE 'parallel_value%'");
+			Assert.assertEquals("Value must be [" + rows + "].", rows, count);
+			
+			// Checks that there is no active connections
+			Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
 	@BeforeClass
 	public static void runBeforeClass() throws Throwable
 	{
@@ -15,25 +15,70 @@
  */
 package es.molabs.jdbc.test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
 
 import org.apache.commons.dbutils.QueryRunner;
 import org.apache.commons.io.IOUtils;
 import org.h2.jdbcx.JdbcConnectionPool;
 import org.junit.AfterClass;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
 import com.google.common.base.Joiner;
 
+import es.molabs.jdbc.DbAsyncQuery;
 import es.molabs.jdbc.DbKeyHolder;
 import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.DbNullPolicy;
+import es.molabs.jdbc.DbQueryOptions;
+import es.molabs.jdbc.DbRowIterator;
+import es.molabs.jdbc.DbSession;
+import es.molabs.jdbc.DbTransaction;
+import es.molabs.jdbc.cache.DbCacheEviction;
+import es.molabs.jdbc.cache.DbQueryCache;
+import es.molabs.jdbc.columnar.DbColumnarResult;
+import es.molabs.jdbc.columnar.DbDoubleColumn;
+import es.molabs.jdbc.columnar.DbIntColumn;
+import es.molabs.jdbc.columnar.DbLongColumn;
+import es.molabs.jdbc.columnar.DbStringColumn;
+import es.molabs.jdbc.exception.DbException;
+import es.molabs.jdbc.mapper.ClobRowMapper;
+import es.molabs.jdbc.mapper.DbAutoRowMapper;
+import es.molabs.jdbc.mapper.DbRowMapperUtils;
+import es.molabs.jdbc.mapper.FieldRowMapper;
+import es.molabs.jdbc.test.dao.TestTableOneBean;
+import es.molabs.jdbc.test.dao.TestTableOneColumnRowMapper;
 import es.molabs.jdbc.test.dao.TestTableOneDao;
 import es.molabs.jdbc.test.dao.TestTableOneMultipleInsertMapper;
 import es.molabs.jdbc.test.dao.TestTableOneRowMapper;
@@ -87,6 +132,91 @@ public class DbNonTransactionTest
 		Assert.assertEquals("Value must be [" + "null" + "].", null, varcharValueList);
 	}
 	
+	@Test
+	public void testGetPrimitiveArray() throws Throwable
+	{
+		String sql = "SELECT CASE WHEN id = 3 THEN NULL ELSE id END FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3, 4, 5) + ") ORDER BY id";
+		
+		// Test the null policies
+		long[] longArray = dbManager.getDbNonTransaction().getLongArray(DbNullPolicy.SKIP, sql);
+		Assert.assertEquals("Value must be [" + 4 + "].", 4, longArray.length);
+		Assert.assertEquals("Value must be [" + 4 + "].", 4, longArray[2]);
+		
+		int[] intArray = dbManager.getDbNonTransaction().getIntArray(DbNullPolicy.ZERO, 2, sql);
+		Assert.assertEquals("Value must be [" + 5 + "].", 5, intArray.length);
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, intArray[2]);
+		Assert.assertEquals("Value must be [" + 5 + "].", 5, intArray[4]);
+		
+		boolean failed = false;
+		try
+		{
+			dbManager.getDbNonTransaction().getDoubleArray(DbNullPolicy.FAIL, sql);
+		}
+		catch (DbException De)
+		{
+			failed = true;
+		}
+		Assert.assertEquals("Value must be [" + true + "].", true, failed);
+		
+		// Test the arguments
+		double[] doubleArray = dbManager.getDbNonTransaction().getDoubleArray(DbNullPolicy.FAIL, "SELECT id FROM " + TEST_TABLE_ONE + " WHERE id > ? AND id <= ? ORDER BY id", 3, 5);
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, doubleArray.length);
+		Assert.assertEquals("Value must be [" + 4.0 + "].", 4.0, doubleArray[0], 0);
+		
+		// Test no results
+		Assert.assertEquals("Value must be [" + null + "].", null, dbManager.getDbNonTransaction().getLongArray(DbNullPolicy.FAIL, "SELECT id FROM " + TEST_TABLE_ONE + " WHERE id < ?", 0));
+	}
+	
+	@Test
+	public void testGetColumnar() throws Throwable
+	{
+		DbColumnarResult result = dbManager.getDbNonTransaction().getColumnar("SELECT id, CAST(id AS INT) AS int_field, CAST(id AS DOUBLE) AS double_field, CASE WHEN MOD(id, 2) = 0 THEN 'even' WHEN id = 5 THEN NULL ELSE 'odd' END AS string_field, clob_field, CAST(id AS DECIMAL(10, 2)) AS decimal_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3, 4, 5) + ") ORDER BY id");
+		Assert.assertEquals("Value must be [" + 5 + "].", 5, result.getRowCount());
+		Assert.assertEquals("Value must be [" + 6 + "].", 6, result.getColumnCount());
+		
+		// Test the typed columns
+		DbLongColumn idColumn = result.getLongColumn("ID");
+		DbIntColumn intColumn = result.getIntColumn("int_field");
+		DbDoubleColumn doubleColumn = result.getDoubleColumn("double_field");
+		DbStringColumn clobColumn = result.getStringColumn("clob_field");
+		
+		for (int i=0; i<result.getRowCount(); i++)
+		{
+			Assert.assertEquals("Value must be [" + (i + 1) + "].", i + 1, idColumn.getLong(i));
+			Assert.assertEquals("Value must be [" + (i + 1) + "].", i + 1, intColumn.getInt(i));
+			Assert.assertEquals("Value must be [" + (i + 1) + "].", i + 1, doubleColumn.getDouble(i), 0);
+			Assert.assertEquals("Value must be [" + "clob_value" + (i + 1) + "].", "clob_value" + (i + 1), clobColumn.getString(i));
+		}
+		
+		Assert.assertEquals("Value must be [" + false + "].", false, idColumn.hasNulls());
+		Assert.assertEquals("Value must be [" + new BigDecimal("3.00") + "].", new BigDecimal("3.00"), result.getObjectColumn("decimal_field").getObject(2));
+		
+		// Test the dictionary and the nulls
+		DbStringColumn stringColumn = result.getStringColumn("string_field");
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, stringColumn.getDictionarySize());
+		Assert.assertEquals("Value must be [" + "odd" + "].", "odd", stringColumn.getString(2));
+		Assert.assertEquals("Value must be [" + stringColumn.getCode(0) + "].", stringColumn.getCode(0), stringColumn.getCode(2));
+		Assert.assertEquals("Value must be [" + true + "].", true, stringColumn.hasNulls());
+		Assert.assertEquals("Value must be [" + true + "].", true, stringColumn.isNull(4));
+		Assert.assertEquals("Value must be [" + false + "].", false, stringColumn.isNull(3));
+		Assert.assertEquals("Value must be [" + null + "].", null, stringColumn.getString(4));
+		
+		// Test a column of other type
+		boolean failed = false;
+		try
+		{
+			result.getIntColumn("id");
+		}
+		catch (IllegalArgumentException IAe)
+		{
+			failed = true;
+		}
+		Assert.assertEquals("Value must be [" + true + "].", true, failed);
+		
+		// Test no results
+		Assert.assertEquals("Value must be [" + null + "].", null, dbManager.getDbNonTransaction().getColumnar("SELECT id FROM " + TEST_TABLE_ONE + " WHERE id < ?", 0));
+	}
+	
 	@Test
 	public void testGetObject() throws Throwable
 	{
@@ -130,6 +260,248 @@ public class DbNonTransactionTest
 		Assert.assertEquals("Value must be [" + "null" + "].", null, testTableOneDaoList);	
 	}
 	
+	@Test
+	public void testGetObjectListExpectedRows() throws Throwable
+	{
+		int expectedSize = 5;
+		
+		// Test getting an object list with a row count hint
+		List<TestTableOneDao> testTableOneDaoList = dbManager.getDbNonTransaction().getObjectList(TestTableOneRowMapper.getInstance(), expectedSize, "SELECT id, varchar_field, clob_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3, 4, 5) + ") ORDER BY Id");
+		Assert.assertEquals("Value must be [" + expectedSize + "].", expectedSize, testTableOneDaoList.size());
+		
+		// Checks that the list can be accessed by index
+		Assert.assertEquals("Value must be [" + true + "].", true, testTableOneDaoList instanceof RandomAccess);
+		Assert.assertEquals("Value must be [" + "varchar_value5" + "].", "varchar_value5", testTableOneDaoList.get(4).getVarcharField());
+		
+		// Test getting a field list with a hint smaller than the result
+		List<String> varcharValueList = dbManager.getDbNonTransaction().getFieldList(String.class, 1, "SELECT varchar_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3, 4, 5) + ") ORDER BY Id");
+		Assert.assertEquals("Value must be [" + expectedSize + "].", expectedSize, varcharValueList.size());
+	}
+	
+	@Test
+	public void testColumnRowMapper() throws Throwable
+	{
+		String varcharValueN = "varchar_value%s";
+		String clobValueN = "clob_value%s";
+		int index = 0;
+		
+		// Test getting an object list with the columns in other order than the mapper
+		List<TestTableOneDao> testTableOneDaoList = dbManager.getDbNonTransaction().getObjectList(TestTableOneColumnRowMapper.getInstance(), "SELECT clob_field, varchar_field, id FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3, 4, 5) + ") ORDER BY Id");
+		Assert.assertEquals("Value must be [" + 5 + "].", 5, testTableOneDaoList.size());
+		
+		Iterator<TestTableOneDao> iterator = testTableOneDaoList.iterator();
+		while (iterator.hasNext())
+		{
+			TestTableOneDao value = iterator.next();
+			String expectedVarcharValue = String.format(varcharValueN, ++index);
+			String expectedClobValue = String.format(clobValueN, index);
+			
+			Assert.assertEquals("Value must be [" + index + "].", index, value.getId());
+			Assert.assertEquals("Value must be [" + expectedVarcharValue + "].", expectedVarcharValue, value.getVarcharField());
+			Assert.assertEquals("Value must be [" + expectedClobValue + "].", expectedClobValue, value.getClobField());
+		}
+		
+		// Test getting a single object
+		TestTableOneDao value = dbManager.getDbNonTransaction().getObject(TestTableOneColumnRowMapper.getInstance(), "SELECT id, clob_field, varchar_field FROM " + TEST_TABLE_ONE + " WHERE id = ?", 2);
+		Assert.assertEquals("Value must be [" + "varchar_value2" + "].", "varchar_value2", value.getVarcharField());
+		
+		// Test streaming the objects
+		try (Stream<TestTableOneDao> stream = dbManager.getDbNonTransaction().stream(TestTableOneColumnRowMapper.getInstance(), "SELECT varchar_field, id, clob_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3) + ") ORDER BY Id"))
+		{
+			long count = stream.filter(dao -> dao.getVarcharField().equals("varchar_value" + dao.getId())).count();
+			Assert.assertEquals("Value must be [" + 3 + "].", 3, count);
+		}
+		
+		// Test a column that is not in the query
+		boolean failed = false;
+		try
+		{
+			dbManager.getDbNonTransaction().getObject(TestTableOneColumnRowMapper.getInstance(), "SELECT id, varchar_field FROM " + TEST_TABLE_ONE + " WHERE id = ?", 1);
+		}
+		catch (DbException De)
+		{
+			failed = true;
+		}
+		
+		Assert.assertEquals("Value must be [" + true + "].", true, failed);
+	}
+	
+	@Test
+	public void testAutoRowMapper() throws Throwable
+	{
+		String varcharValueN = "varchar_value%s";
+		String clobValueN = "clob_value%s";
+		int index = 0;
+		
+		// Test getting an object list, the column names are matched to the properties ignoring the case and underscores
+		List<TestTableOneBean> testTableOneBeanList = dbManager.getDbNonTransaction().getObjectList(DbAutoRowMapper.of(TestTableOneBean.class), "SELECT clob_field, varchar_field, id, 7 AS int_field, 1 AS unknown_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3, 4, 5) + ") ORDER BY Id");
+		Assert.assertEquals("Value must be [" + 5 + "].", 5, testTableOneBeanList.size());
+		
+		Iterator<TestTableOneBean> iterator = testTableOneBeanList.iterator();
+		while (iterator.hasNext())
+		{
+			TestTableOneBean value = iterator.next();
+			String expectedVarcharValue = String.format(varcharValueN, ++index);
+			String expectedClobValue = String.format(clobValueN, index);
+			
+			Assert.assertEquals("Value must be [" + index + "].", index, value.getId());
+			Assert.assertEquals("Value must be [" + 7 + "].", Integer.valueOf(7), value.getIntField());
+			Assert.assertEquals("Value must be [" + expectedVarcharValue + "].", expectedVarcharValue, value.getVarcharField());
+			Assert.assertEquals("Value must be [" + expectedClobValue + "].", expectedClobValue, value.getClobField());
+		}
+		
+		// Test other columns with the same mapper, the properties without column are not set
+		TestTableOneBean value = dbManager.getDbNonTransaction().getObject(DbAutoRowMapper.of(TestTableOneBean.class), "SELECT id, varchar_field, CAST(NULL AS INT) AS int_field FROM " + TEST_TABLE_ONE + " WHERE id = ?", 2);
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, value.getId());
+		Assert.assertEquals("Value must be [" + "varchar_value2" + "].", "varchar_value2", value.getVarcharField());
+		Assert.assertEquals("Value must be [" + null + "].", null, value.getIntField());
+		Assert.assertEquals("Value must be [" + null + "].", null, value.getClobField());
+		
+		// Test that the mapper is shared by class
+		Assert.assertEquals("Value must be [" + true + "].", true, DbAutoRowMapper.of(TestTableOneBean.class) == DbAutoRowMapper.of(TestTableOneBean.class));
+		
+		// Test a query without any column of the class
+		boolean failed = false;
+		try
+		{
+			dbManager.getDbNonTransaction().getObject(DbAutoRowMapper.of(TestTableOneBean.class), "SELECT 1 AS unknown_field FROM " + TEST_TABLE_ONE + " WHERE id = ?", 1);
+		}
+		catch (DbException De)
+		{
+			failed = true;
+		}
+		
+		Assert.assertEquals("Value must be [" + true + "].", true, failed);
+	}
+	
+	@Test
+	public void testAutoRowMapperRecord() throws Throwable
+	{
+		// The records only exist since Java 16 so the record is compiled when the runtime supports them
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assume.assumeTrue(compiler != null && Integer.parseInt(System.getProperty("java.specification.version").replaceFirst("^1\\.", "")) >= 16);
+		
+		Path directory = Files.createTempDirectory("records");
+		Path source = directory.resolve("TestTableOneRecord.java");
+		Files.write(source, "public record TestTableOneRecord(long id, Integer intField, String varcharField, int unmappedField) {}".getBytes(StandardCharsets.UTF_8));
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, compiler.run(null, null, null, "-d", directory.toString(), source.toString()));
+		
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] {directory.toUri().toURL()}))
+		{
+			Class<?> recordClass = classLoader.loadClass("TestTableOneRecord");
+			
+			// Test getting an object list, the components without a column get their default value
+			List<?> recordList = dbManager.getDbNonTransaction().getObjectList(DbAutoRowMapper.of(recordClass), "SELECT varchar_field, id, 7 AS int_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3) + ") ORDER BY Id");
+			Assert.assertEquals("Value must be [" + 3 + "].", 3, recordList.size());
+			
+			for (int i=0; i<recordList.size(); i++)
+			{
+				Object value = recordList.get(i);
+				String expectedVarcharValue = "varchar_value" + (i + 1);
+				
+				Assert.assertEquals("Value must be [" + (i + 1) + "].", Long.valueOf(i + 1), recordClass.getMethod("id").invoke(value));
+				Assert.assertEquals("Value must be [" + 7 + "].", Integer.valueOf(7), recordClass.getMethod("intField").invoke(value));
+				Assert.assertEquals("Value must be [" + expectedVarcharValue + "].", expectedVarcharValue, recordClass.getMethod("varcharField").invoke(value));
+				Assert.assertEquals("Value must be [" + 0 + "].", Integer.valueOf(0), recordClass.getMethod("unmappedField").invoke(value));
+			}
+			
+			// Test a single object with a null column
+			Object value = dbManager.getDbNonTransaction().getObject(DbAutoRowMapper.of(recordClass), "SELECT id, CAST(NULL AS INT) AS int_field FROM " + TEST_TABLE_ONE + " WHERE id = ?", 2);
+			Assert.assertEquals("Value must be [" + 2 + "].", Long.valueOf(2), recordClass.getMethod("id").invoke(value));
+			Assert.assertEquals("Value must be [" + null + "].", null, recordClass.getMethod("intField").invoke(value));
+			Assert.assertEquals("Value must be [" + null + "].", null, recordClass.getMethod("varcharField").invoke(value));
+		}
+	}
+	
+	@Test
+	public void testForEachRow() throws Throwable
+	{
+		String varcharValueN = "varchar_value%s";
+		List<TestTableOneDao> testTableOneDaoList = new ArrayList<TestTableOneDao>();
+		
+		// Test consuming the rows one by one
+		dbManager.getDbNonTransaction().forEachRow(TestTableOneRowMapper.getInstance(), testTableOneDaoList::add, "SELECT id, varchar_field, clob_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3, 4, 5) + ") ORDER BY Id");
+		Assert.assertEquals("Value must be [" + 5 + "].", 5, testTableOneDaoList.size());
+		
+		for (int i=0; i<testTableOneDaoList.size(); i++)
+		{
+			String expectedValue = String.format(varcharValueN, i + 1);
+			
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, testTableOneDaoList.get(i).getVarcharField());
+		}
+		
+		// Checks that there is no active connections
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+	}
+	
+	@Test
+	public void testStream() throws Throwable
+	{
+		String expectedValue = "varchar_value1";
+		
+		// Test reading only the first row of the stream
+		try (Stream<TestTableOneDao> stream = dbManager.getDbNonTransaction().stream(TestTableOneRowMapper.getInstance(), 2, "SELECT id, varchar_field, clob_field FROM " + TEST_TABLE_ONE + " ORDER BY Id"))
+		{
+			String value = stream.findFirst().get().getVarcharField();
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			
+			// Checks that the connection is open while the stream is open
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, dataSource.getActiveConnections());
+		}
+		
+		// Checks that there is no active connections
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+		
+		// Test consuming a full iterator without closing it
+		DbRowIterator<String> iterator = dbManager.getDbNonTransaction().iterator(new FieldRowMapper<String>(), "SELECT varchar_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2) + ") ORDER BY Id");
+		int rows = 0;
+		while (iterator.hasNext())
+		{
+			iterator.next();
+			rows++;
+		}
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, rows);
+		
+		// Checks that there is no active connections
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+	}
+	
+	@Test
+	public void testStreamAutoCommit() throws Throwable
+	{
+		// Checks that the stream reads the rows with the auto commit disabled
+		try (Stream<Boolean> stream = dbManager.getDbNonTransaction().stream(new FieldRowMapper<Boolean>(), "SELECT AUTOCOMMIT() FROM " + TEST_TABLE_ONE + " WHERE id = ?", 1))
+		{
+			Boolean value = stream.findFirst().get();
+			Assert.assertEquals("Value must be [" + false + "].", false, value);
+		}
+		
+		// Checks that the queries that do not stream keep the auto commit
+		Boolean value = dbManager.getDbNonTransaction().getField(Boolean.class, "SELECT AUTOCOMMIT()");
+		Assert.assertEquals("Value must be [" + true + "].", true, value);
+		
+		// Checks that there is no active connections
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+	}
+	
+	@Test
+	public void testQueryOptions() throws Throwable
+	{
+		int expectedSize = 2;
+		DbQueryOptions options = dbManager.getDefaultQueryOptions().withMaxRows(expectedSize).withFetchSize(1).withQueryTimeout(10);
+		
+		// Test limiting the rows of a query
+		List<TestTableOneDao> testTableOneDaoList = dbManager.getDbNonTransaction().getObjectList(options, TestTableOneRowMapper.getInstance(), "SELECT id, varchar_field, clob_field FROM " + TEST_TABLE_ONE + " ORDER BY Id");
+		Assert.assertEquals("Value must be [" + expectedSize + "].", expectedSize, testTableOneDaoList.size());
+		
+		// Test that the options do not change the defaults
+		List<String> varcharValueList = dbManager.getDbNonTransaction().getFieldList(String.class, "SELECT varchar_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3) + ") ORDER BY Id");
+		Assert.assertEquals("Value must be [" + 3 + "].", 3, varcharValueList.size());
+		
+		// Checks that there is no active connections
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+	}
+	
 	@Test
 	public void testExecuteUpdate() throws Throwable
 	{		
@@ -178,6 +550,44 @@ public class DbNonTransactionTest
 		Assert.assertEquals("Value must be [" + expectedId + "].", expectedId, keyHolder.getFirstKey(Long.class).longValue());
 	}
 	
+	@Test
+	public void testReadLob() throws Throwable
+	{
+		// Test streaming a clob
+		StringWriter writer = new StringWriter();
+		long chars = dbManager.getDbNonTransaction().readClob(writer, "SELECT clob_field FROM " + TEST_TABLE_ONE + " WHERE id = ?", 1);
+		Assert.assertEquals("Value must be [" + 11 + "].", 11, chars);
+		Assert.assertEquals("Value must be [" + "clob_value1" + "].", "clob_value1", writer.toString());
+		
+		// Test that the line breaks are kept
+		String text = "line1\nline2\r\n";
+		String clobText = dbManager.getDbNonTransaction().getObject(ClobRowMapper.getInstance(), "SELECT CAST(? AS CLOB)", text);
+		Assert.assertEquals("Value must be [" + text + "].", text, clobText);
+		
+		// Test streaming a blob with a buffer smaller than the content
+		byte[] bytes = "blob_v\u00e1lue".getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		long byteCount = dbManager.getDbNonTransaction().readBlob(new DbQueryOptions(), 3, outputStream, "SELECT CAST(? AS BLOB)", bytes);
+		Assert.assertEquals("Value must be [" + bytes.length + "].", bytes.length, byteCount);
+		Assert.assertArrayEquals("Value must be [" + Arrays.toString(bytes) + "].", bytes, outputStream.toByteArray());
+		
+		outputStream.reset();
+		dbManager.getDbNonTransaction().readBlob(Channels.newChannel(outputStream), "SELECT CAST(? AS BLOB)", bytes);
+		Assert.assertArrayEquals("Value must be [" + Arrays.toString(bytes) + "].", bytes, outputStream.toByteArray());
+		
+		// Test decoding and mapping a blob
+		String blobText = dbManager.getDbNonTransaction().getObject((resultSet, rowNum) -> DbRowMapperUtils.blobToString(resultSet.getBlob(1), StandardCharsets.UTF_8), "SELECT CAST(? AS BLOB)", bytes);
+		Assert.assertEquals("Value must be [" + "blob_v\u00e1lue" + "].", "blob_v\u00e1lue", blobText);
+		
+		MappedByteBuffer mappedBuffer = dbManager.getDbNonTransaction().getObject((resultSet, rowNum) -> DbRowMapperUtils.blobToMappedFile(resultSet.getBlob(1), null, 4), "SELECT CAST(? AS BLOB)", bytes);
+		byte[] mappedBytes = new byte[mappedBuffer.remaining()];
+		mappedBuffer.get(mappedBytes);
+		Assert.assertArrayEquals("Value must be [" + Arrays.toString(bytes) + "].", bytes, mappedBytes);
+		
+		// Test no results
+		Assert.assertEquals("Value must be [" + -1 + "].", -1, dbManager.getDbNonTransaction().readClob(new StringWriter(), "SELECT clob_field FROM " + TEST_TABLE_ONE + " WHERE id < ?", 0));
+	}
+	
 	@Test
 	public void testGetResultSetMetaData() throws Throwable
 	{
@@ -206,6 +616,127 @@ public class DbNonTransactionTest
 		Assert.assertEquals("Value must be [" + expectedCount + "].", expectedCount, count);		
 	}
 	
+	@Test
+	public void testPublisher() throws Throwable
+	{
+		final List<TestTableOneDao> rows = new ArrayList<TestTableOneDao>();
+		final AtomicBoolean completed = new AtomicBoolean(false);
+		
+		// Subscriber that requests two rows each time
+		dbManager.getDbNonTransaction().publisher(TestTableOneRowMapper.getInstance(), "SELECT id, varchar_field, clob_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3, 4, 5) + ") ORDER BY Id").subscribe(new Subscriber<TestTableOneDao>()
+		{
+			private Subscription subscription = null;
+			
+			public void onSubscribe(Subscription subscription)
+			{
+				this.subscription = subscription;
+				
+				// Checks that no connection is taken until there is demand
+				Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+				
+				subscription.request(2);
+			}
+
+			public void onNext(TestTableOneDao row)
+			{
+				rows.add(row);
+				
+				if (rows.size() % 2 == 0) subscription.request(2);
+			}
+
+			public void onError(Throwable t)
+			{
+				Assert.fail(t.getMessage());
+			}
+
+			public void onComplete()
+			{
+				completed.set(true);
+			}
+		});
+		
+		Assert.assertEquals("Value must be [" + 5 + "].", 5, rows.size());
+		Assert.assertEquals("Value must be [" + true + "].", true, completed.get());
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+		
+		// Subscriber that cancels after the first row
+		rows.clear();
+		
+		dbManager.getDbNonTransaction().publisher(TestTableOneRowMapper.getInstance(), "SELECT id, varchar_field, clob_field FROM " + TEST_TABLE_ONE).subscribe(new Subscriber<TestTableOneDao>()
+		{
+			public void onSubscribe(Subscription subscription)
+			{
+				subscription.request(1);
+				
+				// Checks that the connection is held until the subscription ends
+				Assert.assertEquals("Value must be [" + 1 + "].", 1, dataSource.getActiveConnections());
+				
+				subscription.cancel();
+			}
+
+			public void onNext(TestTableOneDao row)
+			{
+				rows.add(row);
+			}
+
+			public void onError(Throwable t)
+			{
+				Assert.fail(t.getMessage());
+			}
+
+			public void onComplete()
+			{
+				Assert.fail("Must not complete.");
+			}
+		});
+		
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, rows.size());
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+	}
+	
+	@Test
+	public void testAsyncQuery() throws Throwable
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		
+		try
+		{
+			DbAsyncQuery asyncQuery = dbManager.getDbAsyncQuery(executor, 2);
+			
+			// Executes three queries at the same time
+			CompletableFuture<String> firstValue = asyncQuery.getFieldAsync(String.class, "SELECT varchar_field FROM " + TEST_TABLE_ONE + " WHERE id = ?", 1);
+			CompletableFuture<TestTableOneDao> secondValue = asyncQuery.getObjectAsync(TestTableOneRowMapper.getInstance(), "SELECT id, varchar_field, clob_field FROM " + TEST_TABLE_ONE + " WHERE id = ?", 2);
+			CompletableFuture<List<Integer>> thirdValue = asyncQuery.getFieldListAsync(Integer.class, "SELECT id FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3) + ")");
+			
+			CompletableFuture.allOf(firstValue, secondValue, thirdValue).join();
+			
+			Assert.assertEquals("Value must be [" + "varchar_value1" + "].", "varchar_value1", firstValue.get());
+			Assert.assertEquals("Value must be [" + "varchar_value2" + "].", "varchar_value2", secondValue.get().getVarcharField());
+			Assert.assertEquals("Value must be [" + 3 + "].", 3, thirdValue.get().size());
+			
+			// Checks that a failed query completes the future with the error
+			CompletableFuture<String> failedValue = asyncQuery.getFieldAsync(String.class, "SELECT not_a_field FROM " + TEST_TABLE_ONE);
+			
+			boolean failed = false;
+			try
+			{
+				failedValue.join();
+			}
+			catch (CompletionException Ce)
+			{
+				failed = (Ce.getCause() instanceof DbException);
+			}
+			
+			Assert.assertEquals("Value must be [" + true + "].", true, failed);
+			Assert.assertEquals("Value must be [" + 0 + "].", 0, asyncQuery.getPending());
+			Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
 	@Test
 	public void testConnectionClosed() throws Throwable
 	{
@@ -218,6 +749,142 @@ public class DbNonTransactionTest
 		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
 	}
 	
+	@Test
+	public void testSession() throws Throwable
+	{
+		try (DbSession session = dbManager.getDbSession())
+		{
+			// The connection is borrowed on the first query
+			Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+			
+			// Checks that the non transactional queries use the session and keep its connection
+			Assert.assertSame("Value must be the session.", session, dbManager.getDbNonTransaction());
+			
+			dbManager.getDbNonTransaction().getField(Integer.class, "SELECT id FROM " + TEST_TABLE_ONE + " WHERE id = ?", 1);
+			dbManager.getDbNonTransaction().getField(Integer.class, "SELECT id FROM " + TEST_TABLE_ONE + " WHERE id = ?", 2);
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, dataSource.getActiveConnections());
+			
+			// Getting the session again returns the open one, that is still open after closing it once
+			DbSession innerSession = dbManager.getDbSession();
+			Assert.assertSame("Value must be the session.", session, innerSession);
+			innerSession.close();
+			Assert.assertEquals("Value must be [" + true + "].", true, session.isOpen());
+			
+			// A transaction in progress is returned before the session
+			DbTransaction transaction = dbManager.getDbTransaction();
+			Assert.assertSame("Value must be the transaction.", transaction, dbManager.getDbNonTransaction());
+			transaction.rollback();
+			
+			Assert.assertSame("Value must be the session.", session, dbManager.getDbNonTransaction());
+		}
+		
+		// Checks that the connection is given back when the session is closed
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+		Assert.assertNotNull("Value must be not null.", dbManager.getDbNonTransaction());
+		Assert.assertEquals("Value must be [" + false + "].", false, dbManager.getDbNonTransaction() instanceof DbSession);
+	}
+	
+	@Test
+	public void testQueryCache() throws Throwable
+	{
+		String sql = "SELECT varchar_field FROM " + TEST_TABLE_ONE + " WHERE id = ?";
+		DbQueryOptions options = dbManager.getDefaultQueryOptions().withCached(true);
+		
+		DbQueryCache queryCache = new DbQueryCache(100, DbCacheEviction.TINY_LFU);
+		queryCache.registerTables(TEST_TABLE_ONE);
+		dbManager.setQueryCache(queryCache);
+		
+		try
+		{
+			String expectedValue = dbManager.getDbNonTransaction().getField(String.class, sql, 1);
+			
+			// Checks that the second read is a hit
+			String value = dbManager.getDbNonTransaction().getField(options, String.class, sql, 1);
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			value = dbManager.getDbNonTransaction().getField(options, String.class, sql, 1);
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, queryCache.getHitCount());
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, queryCache.getMissCount());
+			
+			// Checks that the transaction does not read the cache and its writes invalidate it
+			DbTransaction transaction = dbManager.getDbTransaction();
+			transaction.executeUpdate("UPDATE " + TEST_TABLE_ONE + " SET varchar_field = ? WHERE id = ?", "cached_value", 1);
+			value = transaction.getField(options, String.class, sql, 1);
+			Assert.assertEquals("Value must be [cached_value].", "cached_value", value);
+			transaction.rollback();
+			
+			value = dbManager.getDbNonTransaction().getField(options, String.class, sql, 1);
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			Assert.assertEquals("Value must be [" + 2 + "].", 2, queryCache.getMissCount());
+			
+			// Checks that the writes of other tables do not invalidate it
+			dbManager.getDbNonTransaction().executeUpdate("UPDATE " + TEST_TABLE_TWO + " SET varchar_field = varchar_field WHERE id = ?", -1);
+			value = dbManager.getDbNonTransaction().getField(options, String.class, sql, 1);
+			Assert.assertEquals("Value must be [" + 2 + "].", 2, queryCache.getHitCount());
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, queryCache.getInvalidationCount());
+			
+			// Checks that the cached lists can not be modified
+			List<String> values = dbManager.getDbNonTransaction().getFieldList(options, String.class, "SELECT varchar_field FROM " + TEST_TABLE_ONE + " WHERE id IN (1, 2)");
+			Assert.assertEquals("Value must be [" + 2 + "].", 2, values.size());
+			
+			UnsupportedOperationException exception = null;
+			
+			try
+			{
+				values.add("value");
+			}
+			catch (UnsupportedOperationException UOe)
+			{
+				exception = UOe;
+			}
+			
+			Assert.assertNotNull("Value must be not null.", exception);
+			
+			// Checks that the max rows are part of the key
+			values = dbManager.getDbNonTransaction().getFieldList(options.withMaxRows(1), String.class, "SELECT varchar_field FROM " + TEST_TABLE_ONE + " WHERE id IN (1, 2)");
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, values.size());
+			values = dbManager.getDbNonTransaction().getFieldList(options, String.class, "SELECT varchar_field FROM " + TEST_TABLE_ONE + " WHERE id IN (1, 2)");
+			Assert.assertEquals("Value must be [" + 2 + "].", 2, values.size());
+			
+			// Checks that changing the arguments array afterwards does not change the cached key
+			Object[] arguments = new Object[] {4};
+			dbManager.getDbNonTransaction().getField(options, String.class, sql, arguments);
+			arguments[0] = 5;
+			
+			long hitCount = queryCache.getHitCount();
+			dbManager.getDbNonTransaction().getField(options, String.class, sql, 4);
+			Assert.assertEquals("Value must be [" + (hitCount + 1) + "].", hitCount + 1, queryCache.getHitCount());
+			
+			// Checks that the least recently used result is evicted
+			queryCache = new DbQueryCache(2, DbCacheEviction.LRU);
+			dbManager.setQueryCache(queryCache);
+			
+			for (int id=1; id<=3; id++)
+			{
+				dbManager.getDbNonTransaction().getField(options, String.class, sql, id);
+			}
+			
+			Assert.assertEquals("Value must be [" + 2 + "].", 2, queryCache.getSize());
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, queryCache.getEvictionCount());
+			
+			dbManager.getDbNonTransaction().getField(options, String.class, sql, 1);
+			Assert.assertEquals("Value must be [" + 0 + "].", 0, queryCache.getHitCount());
+			
+			// Checks that the results expire
+			queryCache = new DbQueryCache(100, 1, DbCacheEviction.LRU);
+			dbManager.setQueryCache(queryCache);
+			
+			dbManager.getDbNonTransaction().getField(options, String.class, sql, 1);
+			Thread.sleep(10);
+			dbManager.getDbNonTransaction().getField(options, String.class, sql, 1);
+			Assert.assertEquals("Value must be [" + 2 + "].", 2, queryCache.getMissCount());
+		}
+		finally
+		{
+			dbManager.setQueryCache(null);
+		}
+	}
+	
 	@BeforeClass
 	public static void runBeforeClass() throws Throwable
 	{
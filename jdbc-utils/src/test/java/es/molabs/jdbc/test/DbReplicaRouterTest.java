@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.test;
+
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.DbRowIterator;
+import es.molabs.jdbc.DbTransaction;
+import es.molabs.jdbc.routing.DbReplicaRouter;
+import es.molabs.jdbc.routing.LeastInFlightDbBalancer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DbReplicaRouterTest 
+{
+	private final static String SELECT_NODE = "SELECT name FROM node";
+	
+	private static JdbcConnectionPool primary = null;
+	private static JdbcConnectionPool replica1 = null;
+	private static JdbcConnectionPool replica2 = null;
+	
+	@Test
+	public void testRouting() throws Throwable
+	{
+		DbReplicaRouter router = new DbReplicaRouter(primary, Arrays.<DataSource>asList(replica1, replica2));
+		
+		DbManager dbManager = new DbManager();
+		dbManager.init(router);
+		
+		try
+		{
+			// Checks that the reads go to each replica in turn
+			String expectedValue = "replica1";
+			String value = dbManager.getDbNonTransaction().getField(String.class, SELECT_NODE);
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			
+			expectedValue = "replica2";
+			value = dbManager.getDbNonTransaction().getField(String.class, SELECT_NODE);
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			
+			// Checks that the read only transactions go to a replica and the rest to the primary
+			DbTransaction transaction = dbManager.getReadOnlyDbTransaction();
+			expectedValue = "replica1";
+			value = transaction.getField(String.class, SELECT_NODE);
+			transaction.commit();
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			
+			transaction = dbManager.getDbTransaction();
+			expectedValue = "primary";
+			value = transaction.getField(String.class, SELECT_NODE);
+			transaction.commit();
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			
+			// Checks that the writes go to the primary
+			int updated = dbManager.getDbNonTransaction().executeUpdate("UPDATE node SET name = ?", "primary_updated");
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, updated);
+			
+			expectedValue = "primary_updated";
+			value = new QueryRunner(primary).query(SELECT_NODE, resultSet -> resultSet.next() ? resultSet.getString(1) : null);
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			
+			dbManager.getDbNonTransaction().executeUpdate("UPDATE node SET name = ?", "primary");
+			
+			Assert.assertEquals("Value must be [" + 2 + "].", 2, router.getReplicas().get(0).getReadCount());
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, router.getReplicas().get(1).getReadCount());
+			Assert.assertEquals("Value must be [" + 0 + "].", 0, router.getReplicas().get(0).getInFlight());
+		}
+		finally
+		{
+			dbManager.destroy();
+		}
+	}
+	
+	@Test
+	public void testLeastInFlight() throws Throwable
+	{
+		DbReplicaRouter router = new DbReplicaRouter(primary, Arrays.<DataSource>asList(replica1, replica2), new LeastInFlightDbBalancer());
+		
+		DbManager dbManager = new DbManager();
+		dbManager.init(router);
+		
+		try
+		{
+			// Keeps the connection of a replica open while the iterator is open
+			try (DbRowIterator<String> iterator = dbManager.getDbNonTransaction().iterator((resultSet, rowNum) -> resultSet.getString(1), SELECT_NODE))
+			{
+				String busyReplica = iterator.next();
+				String expectedValue = ("replica1".equals(busyReplica) ? "replica2" : "replica1");
+				
+				for (int i=0; i<3; i++)
+				{
+					String value = dbManager.getDbNonTransaction().getField(String.class, SELECT_NODE);
+					Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+				}
+			}
+		}
+		finally
+		{
+			dbManager.destroy();
+		}
+	}
+	
+	@Test
+	public void testFallback() throws Throwable
+	{
+		// A replica whose database does not exist
+		JdbcConnectionPool failingReplica = JdbcConnectionPool.create("jdbc:h2:mem:replica-missing;IFEXISTS=TRUE", "", "");
+		
+		DbReplicaRouter router = new DbReplicaRouter(primary, Arrays.<DataSource>asList(failingReplica, replica2));
+		
+		DbManager dbManager = new DbManager();
+		dbManager.init(router);
+		
+		try
+		{
+			// Checks that the reads skip the failed replica
+			for (int i=0; i<3; i++)
+			{
+				String expectedValue = "replica2";
+				String value = dbManager.getDbNonTransaction().getField(String.class, SELECT_NODE);
+				Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			}
+			
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, router.getReplicas().get(0).getFailureCount());
+			Assert.assertEquals("Value must be [" + false + "].", false, router.getReplicas().get(0).isAvailable());
+		}
+		finally
+		{
+			dbManager.destroy();
+		}
+		
+		// Checks that the reads go to the primary when no replica is available
+		router = new DbReplicaRouter(primary, Arrays.<DataSource>asList(failingReplica));
+		
+		dbManager = new DbManager();
+		dbManager.init(router);
+		
+		try
+		{
+			String expectedValue = "primary";
+			String value = dbManager.getDbNonTransaction().getField(String.class, SELECT_NODE);
+			Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, router.getFallbackCount());
+		}
+		finally
+		{
+			dbManager.destroy();
+			failingReplica.dispose();
+		}
+	}
+	
+	@BeforeClass
+	public static void runBeforeClass() throws Throwable
+	{
+		primary = createNode("primary");
+		replica1 = createNode("replica1");
+		replica2 = createNode("replica2");
+	}
+	
+	private static JdbcConnectionPool createNode(String name) throws Throwable
+	{
+		JdbcConnectionPool dataSource = JdbcConnectionPool.create("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "", "");
+		
+		QueryRunner query = new QueryRunner(dataSource);
+		query.update("CREATE TABLE node (name VARCHAR(50))");
+		query.update("INSERT INTO node (name) VALUES (?)", name);
+		
+		return dataSource;
+	}
+	
+	@AfterClass
+	public static void runAfterClass() throws Throwable
+	{
+		for (JdbcConnectionPool dataSource : Arrays.asList(primary, replica1, replica2))
+		{
+			new QueryRunner(dataSource).update("DROP ALL OBJECTS");
+			dataSource.dispose();
+		}
+	}
+}
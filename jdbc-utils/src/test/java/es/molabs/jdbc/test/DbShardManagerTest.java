@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import es.molabs.jdbc.DbManager;
+import es.molabs.jdbc.exception.DbShardException;
+import es.molabs.jdbc.shard.DbShardManager;
+import es.molabs.jdbc.shard.HashDbShardResolver;
+import es.molabs.jdbc.shard.RangeDbShardResolver;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DbShardManagerTest 
+{
+	private final static int SHARDS = 3;
+	private final static int ROWS = 30;
+	
+	private static List<JdbcConnectionPool> dataSources = null;
+	private static DbShardManager<Long> shardManager = null;
+	
+	@Test
+	public void testShardKey() throws Throwable
+	{
+		// Checks that each row is only in the shard of its key
+		for (long id=1; id<=ROWS; id++)
+		{
+			int shardIndex = shardManager.getShardIndex(id);
+			
+			for (int i=0; i<SHARDS; i++)
+			{
+				long expectedValue = (i == shardIndex ? 1 : 0);
+				long value = shardManager.getShards().get(i).getDbNonTransaction().getField(Long.class, "SELECT COUNT(*) FROM item WHERE id = ?", id);
+				Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+			}
+		}
+		
+		String expectedValue = "item7";
+		String value = shardManager.getDbNonTransaction(7L).getField(String.class, "SELECT name FROM item WHERE id = ?", 7L);
+		Assert.assertEquals("Value must be [" + expectedValue + "].", expectedValue, value);
+	}
+	
+	@Test
+	public void testScatterGather() throws Throwable
+	{
+		// Checks that every shard has rows so the merge is really tested
+		for (DbManager shard : shardManager.getShards())
+		{
+			Assert.assertNotNull("Value must be not null.", shard.getDbNonTransaction().getFieldList(Long.class, "SELECT id FROM item"));
+		}
+		
+		List<Long> ids = shardManager.getFieldList(Long.class, "SELECT id FROM item");
+		Assert.assertEquals("Value must be [" + ROWS + "].", ROWS, ids.size());
+		
+		// Checks that the sorted rows of each shard are merged in order
+		ids = shardManager.getFieldList(Comparator.<Long>naturalOrder(), Long.class, "SELECT id FROM item ORDER BY id");
+		List<Long> expectedIds = new ArrayList<Long>();
+		for (long id=1; id<=ROWS; id++)
+		{
+			expectedIds.add(id);
+		}
+		Assert.assertEquals("Value must be [" + expectedIds + "].", expectedIds, ids);
+		
+		List<String> names = shardManager.getObjectList(Comparator.<String>reverseOrder(), (resultSet, rowNum) -> resultSet.getString(1), "SELECT name FROM item WHERE id <= ? ORDER BY name DESC", 3L);
+		List<String> expectedNames = Arrays.asList("item3", "item2", "item1");
+		Assert.assertEquals("Value must be [" + expectedNames + "].", expectedNames, names);
+		
+		// Checks that no rows in any shard returns null
+		Assert.assertNull("Value must be null.", shardManager.getFieldList(Long.class, "SELECT id FROM item WHERE id < 0"));
+	}
+	
+	@Test
+	public void testShardFailure() throws Throwable
+	{
+		DbShardException exception = null;
+		
+		try
+		{
+			shardManager.getFieldList(Long.class, "SELECT id FROM missing_table");
+		}
+		catch (DbShardException DSe)
+		{
+			exception = DSe;
+		}
+		
+		Assert.assertNotNull("Value must be not null.", exception);
+		Assert.assertEquals("Value must be [" + SHARDS + "].", SHARDS, exception.getFailures().size());
+	}
+	
+	@Test
+	public void testRangeResolver() throws Throwable
+	{
+		RangeDbShardResolver<Long> resolver = new RangeDbShardResolver<Long>(Arrays.asList(10L, 20L));
+		
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, resolver.resolve(5L, 3));
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, resolver.resolve(10L, 3));
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, resolver.resolve(19L, 3));
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, resolver.resolve(20L, 3));
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, resolver.resolve(Long.MAX_VALUE, 3));
+	}
+	
+	@BeforeClass
+	public static void runBeforeClass() throws Throwable
+	{
+		dataSources = new ArrayList<JdbcConnectionPool>();
+		List<DbManager> shards = new ArrayList<DbManager>();
+		
+		for (int i=0; i<SHARDS; i++)
+		{
+			JdbcConnectionPool dataSource = JdbcConnectionPool.create("jdbc:h2:mem:shard" + i + ";DB_CLOSE_DELAY=-1", "", "");
+			dataSources.add(dataSource);
+			
+			DbManager dbManager = new DbManager();
+			dbManager.init(dataSource);
+			dbManager.getDbNonTransaction().executeUpdate("CREATE TABLE item (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+			shards.add(dbManager);
+		}
+		
+		shardManager = new DbShardManager<Long>(shards, HashDbShardResolver.<Long>getInstance());
+		
+		for (long id=1; id<=ROWS; id++)
+		{
+			shardManager.getDbNonTransaction(id).executeUpdate("INSERT INTO item (id, name) VALUES (?, ?)", id, "item" + id);
+		}
+	}
+	
+	@AfterClass
+	public static void runAfterClass() throws Throwable
+	{
+		for (int i=0; i<SHARDS; i++)
+		{
+			shardManager.getShards().get(i).getDbNonTransaction().executeUpdate("DROP ALL OBJECTS");
+			shardManager.getShards().get(i).destroy();
+			dataSources.get(i).dispose();
+		}
+		
+		shardManager = null;
+	}
+}
@@ -15,17 +15,34 @@
  */
 package es.molabs.jdbc.test;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.SQLException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.apache.commons.dbutils.QueryRunner;
 import org.apache.commons.io.IOUtils;
 import org.h2.jdbcx.JdbcConnectionPool;
+import org.h2.tools.SimpleResultSet;
 import org.junit.AfterClass;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -36,8 +53,17 @@ import com.google.common.base.Joiner;
 import es.molabs.jdbc.DbKeyHolder;
 import es.molabs.jdbc.DbManager;
 import es.molabs.jdbc.DbQuery;
+import es.molabs.jdbc.DbStreamParameter;
 import es.molabs.jdbc.DbTransaction;
+import es.molabs.jdbc.context.DbContext;
+import es.molabs.jdbc.context.ExplicitDbContext;
+import es.molabs.jdbc.context.ScopedValueDbContext;
+import es.molabs.jdbc.dbutils.DbStatementCache;
 import es.molabs.jdbc.exception.DbException;
+import es.molabs.jdbc.mapper.ClobRowMapper;
+import es.molabs.jdbc.mapper.DbMultipleInsertMapper;
+import es.molabs.jdbc.mapper.DbRowBinder;
+import es.molabs.jdbc.mapper.DbRowMapper;
 import es.molabs.jdbc.test.dao.TestTableOneDao;
 import es.molabs.jdbc.test.dao.TestTableOneMultipleInsertMapper;
 import es.molabs.jdbc.test.dao.TestTableOneRowMapper;
@@ -158,6 +184,33 @@ public class DbTransactionTest
 		transaction.commit();
 	}
 	
+	@Test
+	public void testStream() throws Throwable
+	{
+		long expectedCount = 5;
+		
+		// Starts a transaction
+		DbTransaction transaction = dbManager.getDbTransaction();
+		
+		// Test consuming a stream inside the transaction
+		try (Stream<TestTableOneDao> stream = transaction.stream(TestTableOneRowMapper.getInstance(), "SELECT id, varchar_field, clob_field FROM " + TEST_TABLE_ONE + " WHERE id IN (" + Joiner.on(",").join(1, 2, 3, 4, 5) + ") ORDER BY Id"))
+		{
+			long count = stream.count();
+			Assert.assertEquals("Value must be [" + expectedCount + "].", expectedCount, count);
+		}
+		
+		// Checks that the transaction connection is still open
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, dataSource.getActiveConnections());
+		String value = transaction.getField(String.class, "SELECT varchar_field FROM " + TEST_TABLE_ONE + " WHERE id = ?", 1);
+		Assert.assertEquals("Value must be [" + "varchar_value1" + "].", "varchar_value1", value);
+		
+		// Commits the transaction
+		transaction.commit();
+		
+		// Checks that there is no active connections
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+	}
+	
 	@Test
 	public void testExecuteUpdate() throws Throwable
 	{		
@@ -223,6 +276,89 @@ public class DbTransactionTest
 		Assert.assertEquals("Value must be [" + expectedId + "].", expectedId, keyHolder.getFirstKey(Long.class).longValue());
 	}
 	
+	@Test
+	public void testBatchKeys() throws Throwable
+	{
+		int expectedCount = 5;
+		
+		final Object[] values = new Object[expectedCount * 2];
+		Object[][] arguments = new Object[expectedCount][];
+		for (int i=0; i<expectedCount; i++)
+		{
+			values[i * 2] = "keys_value" + (i + 1);
+			values[i * 2 + 1] = "keys_clob" + (i + 1);
+			
+			arguments[i] = new Object[] {values[i * 2], values[i * 2 + 1]};
+		}
+		
+		DbMultipleInsertMapper multipleInsertMapper = new DbMultipleInsertMapper()
+		{
+			public Object[] getValues() 
+			{
+				return values;
+			}
+
+			public int getFieldsToInsert() 
+			{
+				return 2;
+			}
+
+			public int getValueGroups() 
+			{	
+				return values.length / 2;
+			}
+		};
+		
+		// Starts a transaction
+		DbTransaction transaction = dbManager.getDbTransaction();
+		
+		// Inserts the rows as a batch
+		DbKeyHolder keyHolder = transaction.executeBatchUpdateWithKeys("INSERT INTO " + TEST_TABLE_THREE + " (varchar_field, clob_field) VALUES (?, ?)", arguments);
+		Assert.assertEquals("Value must be [" + expectedCount + "].", expectedCount, keyHolder.size());
+		
+		long[] keys = keyHolder.getLongKeys();
+		for (int i=0; i<keys.length; i++)
+		{
+			String value = transaction.getField(String.class, "SELECT varchar_field FROM " + TEST_TABLE_THREE + " WHERE id = ?", keys[i]);
+			Assert.assertEquals("Value must be [" + values[i * 2] + "].", values[i * 2], value);
+		}
+		
+		// Inserts the rows again in statements of two groups
+		keyHolder = transaction.multipleInsertWithKeys("INSERT INTO " + TEST_TABLE_THREE + " (varchar_field, clob_field) VALUES ", 4, multipleInsertMapper);
+		Assert.assertEquals("Value must be [" + expectedCount + "].", expectedCount, keyHolder.size());
+		Assert.assertEquals("Value must be [" + (keys[0] + expectedCount) + "].", keys[0] + expectedCount, keyHolder.getFirstKey(Long.class).longValue());
+		Assert.assertEquals("Value must be [" + (keys[4] + expectedCount) + "].", keys[4] + expectedCount, keyHolder.getKey(4, "id", Long.class).longValue());
+		Assert.assertEquals("Value must be [" + (keys[2] + expectedCount) + "].", keys[2] + expectedCount, ((Number) keyHolder.getKeyList().get(2).get(keyHolder.getColumnLabel(0))).longValue());
+		
+		// Discards the rows
+		transaction.rollback();
+		
+		// Test that a key out of the int range is not truncated to an Integer
+		keyHolder = new QueryRunner(dataSource).query("SELECT CAST(3000000000 AS BIGINT) AS id", DbKeyHolder::new);
+		Assert.assertEquals("Value must be [" + 3000000000L + "].", Long.valueOf(3000000000L), keyHolder.getFirstKey(Long.class));
+		
+		boolean failed = false;
+		try
+		{
+			keyHolder.getFirstKey(Integer.class);
+		}
+		catch (ClassCastException CCe)
+		{
+			failed = true;
+		}
+		
+		Assert.assertEquals("Value must be [" + true + "].", true, failed);
+		
+		// Test keys without columns, only the rows are counted
+		SimpleResultSet resultSet = new SimpleResultSet();
+		resultSet.addRow();
+		
+		keyHolder = new DbKeyHolder(resultSet);
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, keyHolder.size());
+		Assert.assertEquals("Value must be [" + null + "].", null, keyHolder.getFirstKey(Long.class));
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, keyHolder.getLongKeys().length);
+	}
+	
 	@Test
 	public void testGetResultSetMetaData() throws Throwable
 	{
@@ -259,6 +395,197 @@ public class DbTransactionTest
 		Assert.assertEquals("Value must be [" + expectedCount + "].", expectedCount, count);		
 	}
 	
+	@Test
+	public void testChunkedMultipleInsert() throws Throwable
+	{
+		int expectedCount = 5;
+		
+		// Five groups of two fields
+		final Object[] values = new Object[expectedCount * 2];
+		for (int i=0; i<values.length; i++)
+		{
+			values[i] = "value" + (i / 2 + 1) + "-" + (i % 2 + 1);
+		}
+		
+		DbMultipleInsertMapper multipleInsertMapper = new DbMultipleInsertMapper()
+		{
+			public Object[] getValues() 
+			{
+				return values;
+			}
+
+			public int getFieldsToInsert() 
+			{
+				return 2;
+			}
+
+			public int getValueGroups() 
+			{	
+				return values.length / 2;
+			}
+		};
+		
+		// Starts a transaction
+		DbTransaction transaction = dbManager.getDbTransaction();
+		
+		long previousCount = transaction.getField(Long.class, "SELECT COUNT (id) FROM " + TEST_TABLE_THREE);
+		
+		// Executes the insert in chunks of two groups
+		int inserts = transaction.chunkedMultipleInsert("INSERT INTO " + TEST_TABLE_THREE + " (varchar_field, clob_field) VALUES ", 5, multipleInsertMapper);
+		Assert.assertEquals("Value must be [" + expectedCount + "].", expectedCount, inserts);
+		
+		// Checks that the last group was inserted
+		long count = transaction.getField(Long.class, "SELECT COUNT (id) FROM " + TEST_TABLE_THREE + " WHERE varchar_field = ?", "value5-1");
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, count);
+		
+		count = transaction.getField(Long.class, "SELECT COUNT (id) FROM " + TEST_TABLE_THREE);
+		Assert.assertEquals("Value must be [" + (previousCount + expectedCount) + "].", previousCount + expectedCount, count);
+		
+		// Test a mapper without fields
+		boolean failed = false;
+		try
+		{
+			transaction.chunkedMultipleInsert("INSERT INTO " + TEST_TABLE_THREE + " (varchar_field, clob_field) VALUES ", 5, new DbMultipleInsertMapper()
+			{
+				public Object[] getValues() 
+				{
+					return new Object[0];
+				}
+
+				public int getFieldsToInsert() 
+				{
+					return 0;
+				}
+
+				public int getValueGroups() 
+				{	
+					return 1;
+				}
+			});
+		}
+		catch (IllegalArgumentException IAe)
+		{
+			failed = true;
+		}
+		Assert.assertEquals("Value must be [" + true + "].", true, failed);
+		
+		// Discards the rows
+		transaction.rollback();
+	}
+	
+	@Test
+	public void testBulkUpdate() throws Throwable
+	{
+		int expectedCount = 7;
+		
+		DbRowBinder<Integer> rowBinder = new DbRowBinder<Integer>()
+		{
+			public int getFieldsToBind()
+			{
+				return 2;
+			}
+
+			public void bindRow(Integer row, Object[] values)
+			{
+				values[0] = "bulk_value" + row;
+				values[1] = "bulk_clob" + row;
+			}
+		};
+		
+		// Starts a transaction
+		DbTransaction transaction = dbManager.getDbTransaction();
+		
+		// Inserts the rows in batches of three
+		long inserts = transaction.executeBulkUpdate("INSERT INTO " + TEST_TABLE_THREE + " (varchar_field, clob_field) VALUES (?, ?)", 3, rowBinder, IntStream.rangeClosed(1, expectedCount).boxed());
+		Assert.assertEquals("Value must be [" + expectedCount + "].", expectedCount, inserts);
+		
+		// Inserts the rows again in statements of three rows
+		inserts = transaction.bulkMultipleInsert("INSERT INTO " + TEST_TABLE_THREE + " (varchar_field, clob_field) VALUES ", 3, rowBinder, IntStream.rangeClosed(1, expectedCount).boxed().iterator());
+		Assert.assertEquals("Value must be [" + expectedCount + "].", expectedCount, inserts);
+		
+		// Checks that the last row was inserted twice
+		long count = transaction.getField(Long.class, "SELECT COUNT (id) FROM " + TEST_TABLE_THREE + " WHERE varchar_field = ? AND clob_field = ?", "bulk_value" + expectedCount, "bulk_clob" + expectedCount);
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, count);
+		
+		// Test a binder without fields
+		boolean failed = false;
+		try
+		{
+			transaction.bulkMultipleInsert("INSERT INTO " + TEST_TABLE_THREE + " (varchar_field, clob_field) VALUES ", 3, new DbRowBinder<Integer>()
+			{
+				public int getFieldsToBind()
+				{
+					return 0;
+				}
+				
+				public void bindRow(Integer row, Object[] values)
+				{
+				}
+			}, IntStream.rangeClosed(1, expectedCount).boxed().iterator());
+		}
+		catch (IllegalArgumentException IAe)
+		{
+			failed = true;
+		}
+		
+		Assert.assertEquals("Value must be [" + true + "].", true, failed);
+		
+		// Discards the rows
+		transaction.rollback();
+	}
+	
+	@Test
+	public void testStreamParameters() throws Throwable
+	{
+		String text = "stream_value\nline2";
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		
+		// Starts a transaction
+		DbTransaction transaction = dbManager.getDbTransaction();
+		
+		// Inserts character streams with and without length
+		int inserts = transaction.executeUpdate("INSERT INTO " + TEST_TABLE_THREE + " (varchar_field, clob_field) VALUES (?, ?)", "stream1", DbStreamParameter.of(new StringReader(text), text.length()));
+		Assert.assertEquals("Value must be [" + 1 + "].", 1, inserts);
+		
+		int[] batchInserts = transaction.executeBatchUpdate("INSERT INTO " + TEST_TABLE_THREE + " (varchar_field, clob_field) VALUES (?, ?)", new Object[][] {{"stream2", new StringReader(text)}, {"stream3", new StringReader(text)}});
+		Assert.assertEquals("Value must be [" + 2 + "].", 2, batchInserts.length);
+		
+		List<String> values = transaction.getObjectList(ClobRowMapper.getInstance(), "SELECT clob_field FROM " + TEST_TABLE_THREE + " WHERE varchar_field LIKE ?", "stream%");
+		Assert.assertEquals("Value must be [" + 3 + "].", 3, values.size());
+		for (String value : values)
+		{
+			Assert.assertEquals("Value must be [" + text + "].", text, value);
+		}
+		
+		// Discards the rows
+		transaction.rollback();
+		
+		// Binds the binary streams
+		DbRowMapper<byte[]> bytesRowMapper = (resultSet, rowNum) -> resultSet.getBytes(1);
+		String sql = "SELECT CAST(? AS BLOB)";
+		
+		Path file = Files.createTempFile("jdbc-utils-test", ".bin");
+		try
+		{
+			Files.write(file, bytes);
+			
+			Assert.assertArrayEquals("Value must be [" + text + "].", bytes, dbManager.getDbNonTransaction().getObject(bytesRowMapper, sql, file));
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+		
+		ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length);
+		directBuffer.put(bytes).flip();
+		
+		Assert.assertArrayEquals("Value must be [" + text + "].", bytes, dbManager.getDbNonTransaction().getObject(bytesRowMapper, sql, directBuffer));
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, directBuffer.position());
+		Assert.assertArrayEquals("Value must be [" + text + "].", bytes, dbManager.getDbNonTransaction().getObject(bytesRowMapper, sql, ByteBuffer.wrap(bytes)));
+		Assert.assertArrayEquals("Value must be [" + text + "].", bytes, dbManager.getDbNonTransaction().getObject(bytesRowMapper, sql, new ByteArrayInputStream(bytes)));
+		Assert.assertArrayEquals("Value must be [" + text + "].", bytes, dbManager.getDbNonTransaction().getObject(bytesRowMapper, sql, DbStreamParameter.of(new ByteArrayInputStream(bytes), bytes.length)));
+	}
+	
 	@Test
 	public void testRollBackOnDbException() throws Throwable
 	{
@@ -327,6 +654,125 @@ public class DbTransactionTest
 		firstTransaction.rollback();
 	}
 	
+	@Test
+	public void testExplicitDbContext() throws Throwable
+	{
+		final DbContext dbContext = new ExplicitDbContext();
+		
+		// Starts a transaction bound to the context
+		final DbTransaction transaction = dbManager.getDbTransaction(dbContext);
+		
+		// Checks that the thread has no transaction in progress
+		DbQuery threadQuery = dbManager.getDbNonTransaction();
+		Assert.assertNotSame("Value must not be [" + transaction + "].", transaction, threadQuery);
+		
+		// Checks that the context is reused from another thread
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			DbQuery contextQuery = executor.submit(() -> dbManager.getDbNonTransaction(dbContext)).get();
+			Assert.assertEquals("Value must be [" + transaction + "].", transaction, contextQuery);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		
+		// Ends the transaction
+		transaction.commit();
+		
+		// Checks that the context is cleared
+		Assert.assertNull("Value must be null.", dbContext.getActiveDbTransaction());
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+	}
+	
+	@Test
+	public void testScopedValueDbContext() throws Throwable
+	{
+		Assume.assumeTrue(ScopedValueDbContext.isSupported());
+		
+		final ScopedValueDbContext dbContext = new ScopedValueDbContext();
+		
+		// Checks that there is no transaction outside of the scope
+		Assert.assertNull("Value must be null.", dbContext.getActiveDbTransaction());
+		
+		dbContext.run(() -> 
+		{
+			// Starts a transaction bound to the scope
+			DbTransaction transaction = dbManager.getDbTransaction(dbContext);
+			
+			// Checks that the scope reuses it but the thread does not
+			Assert.assertEquals("Value must be [" + transaction + "].", transaction, dbManager.getDbNonTransaction(dbContext));
+			Assert.assertNotSame("Value must not be [" + transaction + "].", transaction, dbManager.getDbNonTransaction());
+			
+			// Ends the transaction
+			transaction.commit();
+			
+			// Checks that the scope is cleared
+			Assert.assertNull("Value must be null.", dbContext.getActiveDbTransaction());
+		});
+		
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+	}
+	
+	@Test
+	public void testScopedValueDbContextForks() throws Throwable
+	{
+		Assume.assumeTrue(ScopedValueDbContext.isSupported());
+		
+		final ScopedValueDbContext dbContext = new ScopedValueDbContext();
+		final CyclicBarrier barrier = new CyclicBarrier(2);
+		final Object[] results = new Object[1];
+		
+		Callable<DbTransaction> fork = () ->
+		{
+			// Checks that the fork does not see the transaction of the task
+			Assert.assertNull("Value must be null.", dbContext.getActiveDbTransaction());
+			
+			DbTransaction transaction = dbManager.getDbTransaction(dbContext);
+			transaction.getField(Integer.class, "SELECT id FROM " + TEST_TABLE_ONE + " WHERE id = ?", 1);
+			
+			// Waits until both forks have a transaction in progress
+			barrier.await(5, TimeUnit.SECONDS);
+			
+			Assert.assertEquals("Value must be [" + transaction + "].", transaction, dbContext.getActiveDbTransaction());
+			
+			// Ends the transaction while the sibling still has its own
+			transaction.commit();
+			
+			Assert.assertNull("Value must be null.", dbContext.getActiveDbTransaction());
+			
+			return transaction;
+		};
+		
+		dbContext.run(() -> 
+		{
+			DbTransaction transaction = dbManager.getDbTransaction(dbContext);
+			
+			try
+			{
+				results[0] = forkAll(fork, fork);
+			}
+			catch (Throwable t)
+			{
+				results[0] = t;
+			}
+			
+			// Checks that the transaction of the task is still active
+			Assert.assertEquals("Value must be [" + transaction + "].", transaction, dbContext.getActiveDbTransaction());
+			
+			transaction.commit();
+		});
+		
+		if (results[0] instanceof Throwable) throw (Throwable) results[0];
+		
+		Object[] transactions = (Object[]) results[0];
+		
+		// Checks that each fork had its own transaction
+		Assert.assertNotSame("Value must not be [" + transactions[0] + "].", transactions[0], transactions[1]);
+		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+	}
+	
 	@Test
 	public void testConnectionClosed() throws Throwable
 	{
@@ -348,6 +794,48 @@ public class DbTransactionTest
 		Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
 	}
 	
+	@Test
+	public void testStatementCache() throws Throwable
+	{
+		dbManager.setStatementCacheSize(1);
+		
+		try
+		{
+			// Starts a transaction
+			DbTransaction transaction = dbManager.getDbTransaction();
+			DbStatementCache statementCache = transaction.getStatementCache();
+			
+			// Executes the same query three times
+			for (int i=1; i<=3; i++)
+			{
+				String value = transaction.getField(String.class, "SELECT varchar_field FROM " + TEST_TABLE_ONE + " WHERE id = ?", i);
+				Assert.assertEquals("Value must be [" + "varchar_value" + i + "].", "varchar_value" + i, value);
+			}
+			
+			// Checks that the statement was prepared once and reused twice
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, statementCache.getMisses());
+			Assert.assertEquals("Value must be [" + 2 + "].", 2, statementCache.getHits());
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, statementCache.size());
+			
+			// Executes other query so the first statement is evicted
+			transaction.getFieldList(Integer.class, "SELECT id FROM " + TEST_TABLE_ONE);
+			Assert.assertEquals("Value must be [" + 2 + "].", 2, statementCache.getMisses());
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, statementCache.getEvictions());
+			Assert.assertEquals("Value must be [" + 1 + "].", 1, statementCache.size());
+			
+			// Ends the transaction
+			transaction.commit();
+			
+			// Checks that the statements are closed
+			Assert.assertEquals("Value must be [" + 0 + "].", 0, statementCache.size());
+			Assert.assertEquals("Value must be [" + 0 + "].", 0, dataSource.getActiveConnections());
+		}
+		finally
+		{
+			dbManager.setStatementCacheSize(0);
+		}
+	}
+	
 	@BeforeClass
 	public static void runBeforeClass() throws Throwable
 	{
@@ -375,6 +863,72 @@ public class DbTransactionTest
 		return sql;
 	}
 	
+	/**
+	 * Runs the tasks concurrently in forks of a StructuredTaskScope, accessed by reflection since it is a preview API.
+	 */
+	private static Object[] forkAll(Callable<?>...tasks) throws Throwable
+	{
+		Class<?> scopeClass = Class.forName("java.util.concurrent.StructuredTaskScope");
+		Object scope = null;
+		
+		try
+		{
+			// Since Java 25 it is opened with a factory method
+			scope = scopeClass.getMethod("open").invoke(null);
+		}
+		catch (NoSuchMethodException NSMe)
+		{
+			scope = scopeClass.getConstructor().newInstance();
+		}
+		
+		final Object[] results = new Object[tasks.length];
+		final Throwable[] errors = new Throwable[tasks.length];
+		
+		try
+		{
+			Method fork = scopeClass.getMethod("fork", Callable.class);
+			
+			for (int i=0; i<tasks.length; i++)
+			{
+				final int index = i;
+				final Callable<?> task = tasks[i];
+				
+				Callable<Object> subtask = () ->
+				{
+					try
+					{
+						results[index] = task.call();
+					}
+					catch (Throwable t)
+					{
+						errors[index] = t;
+					}
+					
+					return null;
+				};
+				
+				fork.invoke(scope, subtask);
+			}
+			
+			scopeClass.getMethod("join").invoke(scope);
+		}
+		catch (InvocationTargetException ITe)
+		{
+			throw ITe.getCause();
+		}
+		finally
+		{
+			scopeClass.getMethod("close").invoke(scope);
+		}
+		
+		for (Throwable error : errors)
+		{
+			if (error != null) throw error;
+		}
+		
+		return results;
+	}
+	
 	@AfterClass
 	public static void runAfterClass() throws Throwable
 	{
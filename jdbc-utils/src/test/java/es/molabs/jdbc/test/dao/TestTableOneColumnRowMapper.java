@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2016 Luis Moral Guerrero <luis.moral@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package es.molabs.jdbc.test.dao;
+
+import java.sql.SQLException;
+
+import es.molabs.jdbc.mapper.DbColumnRowMapper;
+import es.molabs.jdbc.mapper.DbColumns;
+import es.molabs.jdbc.mapper.DbRowMapperUtils;
+
+public class TestTableOneColumnRowMapper extends DbColumnRowMapper<TestTableOneDao> 
+{
+	private final static int ID = 0;
+	private final static int VARCHAR_FIELD = 1;
+	private final static int CLOB_FIELD = 2;
+	
+	/*
+	 * Parte estatica
+	 */
+	private static TestTableOneColumnRowMapper INSTANCE = null;
+	
+	static
+	{
+		INSTANCE = new TestTableOneColumnRowMapper();
+	}
+	
+	public static TestTableOneColumnRowMapper getInstance()
+	{
+		return INSTANCE;
+	}
+	
+	
+	/*
+	 * Parte instanciada
+	 */
+	private TestTableOneColumnRowMapper()
+	{		
+		super("id", "varchar_field", "clob_field");
+	}
+	
+	public TestTableOneDao mapRow(DbColumns columns, int rowNum) throws SQLException 
+	{
+		return new TestTableOneDao(columns.getLong(ID), columns.getString(VARCHAR_FIELD), DbRowMapperUtils.clobToString(columns.getClob(CLOB_FIELD)));
+	}
+}